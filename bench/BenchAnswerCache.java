@@ -0,0 +1,106 @@
+/**
+ * BenchAnswerCache
+ *
+ * Compares repeated calls of a rule, with and without the answer cache:
+ *
+ *    agree($N, $V) :- noun($N, $Num, $P), verb($V, $Num, $P).
+ *
+ * There are 2000 nouns and 2000 verbs. Each query checks one noun
+ * and one verb, eg. agree(n17, v940). The queries repeat 200 pairs,
+ * as a parser checks the same words again and again. In the third
+ * mode, the queries are made through overlays of the cached knowledge
+ * base, one for every 10 queries, as a parser makes one overlay with
+ * the unknown words of each sentence. Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class BenchAnswerCache {
+
+   static final int WORDS = 2000;
+   static final int PAIRS = 200;
+   static final int QUERIES = 50000;
+
+   /*
+    * solveAll
+    *
+    * Finds all solutions, and returns the number of solutions.
+    */
+   static int solveAll(Complex query, KnowledgeBase kb)
+                       throws TimeOverrunException {
+      SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+      int count = 0;
+      while (root.nextSolution() != null) count++;
+      return count;
+   }
+
+   /*
+    * words
+    *
+    * Makes a knowledge base with the rule and the words.
+    */
+   static KnowledgeBase words() {
+      KnowledgeBase kb = new KnowledgeBase();
+      List<String> rules = new ArrayList<>();
+      rules.add("agree($N, $V) :- noun($N, $Num, $P), verb($V, $Num, $P)");
+      String[] number = { "singular", "plural" };
+      for (int i = 0; i < WORDS; i++) {
+         rules.add("noun(n" + i + ", " + number[i % 2] + ", third)");
+         rules.add("verb(v" + i + ", " + number[(i / 2) % 2] + ", third)");
+      }
+      kb.addRules(rules);
+      return kb;
+   }
+
+   public static void main(String[] args) throws TimeOverrunException {
+
+      Global.maxTime = 1000000;
+
+      Random random = new Random(17);
+      Complex[] pairs = new Complex[PAIRS];
+      for (int i = 0; i < PAIRS; i++) {
+         pairs[i] = Make.query("agree(n" + random.nextInt(WORDS) +
+                               ", v" + random.nextInt(WORDS) + ")");
+      }
+      int nextId = LogicVar.getNextId();
+
+      KnowledgeBase plain = words();
+      KnowledgeBase cached = words();
+      cached.cache("agree/2");
+      KnowledgeBase[] kbs = { plain, cached, cached };
+
+      long[] elapsed = new long[3];
+      int[] solutions = new int[3];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 3; mode++) {
+            kbs[mode].answerCache().clear();
+            long start = System.nanoTime();
+            solutions[mode] = 0;
+            KnowledgeBase kb = kbs[mode];
+            for (int q = 0; q < QUERIES; q++) {
+               if (mode == 2 && q % 10 == 0) {
+                  kb = kbs[mode].overlay();
+                  kb.addRule("word(w" + q + ")");
+               }
+               LogicVar.setNextId(nextId);
+               solutions[mode] += solveAll(pairs[q % PAIRS], kb);
+            }
+            elapsed[mode] = System.nanoTime() - start;
+         }
+      }
+      String[] modeNames = { "search", "cached", "overlay" };
+      for (int mode = 0; mode < 3; mode++) {
+         String modeName = modeNames[mode];
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d solutions)",
+                            "agree", modeName, elapsed[mode] / 1000000.0,
+                            solutions[mode]));
+      }
+      System.out.println(cached.answerCache());
+   } // main
+
+}  // BenchAnswerCache
@@ -0,0 +1,87 @@
+/**
+ * BenchBatchQuery
+ *
+ * Compares three ways of solving 20000 independent queries against
+ * one knowledge base:
+ *
+ *    serial  - Solutions.solveAll(), one query after another
+ *    common  - BatchQuery on the common ForkJoin pool
+ *    fixed   - BatchQuery on a fixed pool, one thread per core
+ *
+ * Every tenth query has a local fact. Times are in milliseconds. The
+ * report of each batch shows queries per second, and per core.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class BenchBatchQuery {
+
+   static final int QUERIES = 20000;
+
+   public static void main(String[] args) throws Exception {
+
+      KnowledgeBase kb = new KnowledgeBase();
+      List<String> rules = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+         rules.add("link(n" + i + ", n" + (i + 1) + ").");
+      }
+      rules.add("path($X, $X, [$X]).");
+      rules.add("path($X, $Z, [$X | $P]) :- link($X, $Y), path($Y, $Z, $P).");
+      rules.add("marked($X, $P) :- path($X, n200, $P), mark($X).");
+      kb.addRules(rules);
+
+      List<String> queries = new ArrayList<>();
+      for (int i = 0; i < QUERIES; i++) {
+         queries.add("path(n" + (170 + i % 30) + ", n200, $P)");
+      }
+
+      int cores = Runtime.getRuntime().availableProcessors();
+      ExecutorService fixed = Executors.newFixedThreadPool(cores);
+      long[] elapsed = new long[3];
+      int[] solved = new int[3];
+      BatchQuery.Report[] reports = new BatchQuery.Report[3];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 3; mode++) {
+            long start = System.nanoTime();
+            int count = 0;
+            if (mode == 0) {
+               for (String q : queries) {
+                  count += Solutions.solveAll(Make.query(q), kb).size();
+               }
+            }
+            else {
+               BatchQuery batch = mode == 1 ? new BatchQuery(kb)
+                                            : new BatchQuery(kb, fixed);
+               for (int i = 0; i < QUERIES; i++) {
+                  String mark = "mark(n" + (170 + i % 30) + ").";
+                  if (i % 10 == 0) batch.add("marked(n" + (170 + i % 30) + ", $P)",
+                                             Arrays.asList(mark));
+                  else batch.add(queries.get(i));
+               }
+               int[] total = new int[1];
+               reports[mode] = batch.run(BatchQuery.Order.COMPLETION,
+                                         result -> total[0] += result.solutions().size());
+               count = total[0];
+            }
+            elapsed[mode] = System.nanoTime() - start;
+            solved[mode] = count;
+         }
+      }
+      fixed.shutdown();
+      String[] modeNames = { "serial", "common", "fixed" };
+      for (int mode = 0; mode < 3; mode++) {
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d solutions)",
+                            "batch", modeNames[mode], elapsed[mode] / 1000000.0,
+                            solved[mode]));
+      }
+      System.out.println(reports[1]);
+      System.out.println(reports[2]);
+   } // main
+
+}  // BenchBatchQuery
@@ -0,0 +1,101 @@
+/**
+ * BenchFactTable
+ *
+ * Compares the storage of ground facts as rules with the columnar
+ * FactTable (Global.factTables):
+ *
+ *    rules    - each fact is a Rule with a Complex head
+ *    columns  - each fact is a row of constant IDs
+ *
+ * The benchmark loads 1,000,000 word/2 facts, and measures the memory
+ * used by the knowledge base, and the time to find all solutions of
+ * a few queries. (The constants are created before the measurement.)
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class BenchFactTable {
+
+   static final int NUM_FACTS = 1000000;
+
+   /*
+    * usedMemory
+    *
+    * @return  bytes used, after garbage collection
+    */
+   static long usedMemory() {
+      Runtime rt = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++) System.gc();
+      return rt.totalMemory() - rt.freeMemory();
+   }
+
+   /*
+    * load
+    *
+    * @return  knowledge base of word/2 facts
+    */
+   static KnowledgeBase load(Constant[] words, Constant[] tags) {
+      KnowledgeBase kb = new KnowledgeBase();
+      Constant functor = Constant.inst("word");
+      for (int i = 0; i < NUM_FACTS; i++) {
+         kb.addFact(new Complex(functor, words[i], tags[i % tags.length]));
+      }
+      return kb;
+   }
+
+   /*
+    * solveAll
+    *
+    * Finds all solutions, and returns the number of solutions.
+    */
+   static int solveAll(Complex query, KnowledgeBase kb)
+                       throws TimeOverrunException {
+      SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+      int count = 0;
+      while (root.nextSolution() != null) count++;
+      return count;
+   }
+
+   public static void main(String[] args) throws TimeOverrunException {
+
+      Global.maxTime = 1000000;
+
+      Constant[] words = new Constant[NUM_FACTS];
+      for (int i = 0; i < NUM_FACTS; i++) words[i] = Constant.inst("w" + i);
+      Constant[] tags = new Constant[50];
+      for (int i = 0; i < tags.length; i++) tags[i] = Constant.inst("tag" + i);
+
+      String[] queries = { "word(w123456, $T)", "word($W, tag7)", "word($W, $T)" };
+
+      for (int mode = 0; mode < 2; mode++) {
+         Global.factTables = mode == 1;
+         long before = usedMemory();
+         KnowledgeBase kb = load(words, tags);
+         long memory = usedMemory() - before;
+
+         long elapsed = 0;
+         int solutions = 0;
+         // The first rounds warm up the JVM. The last round is timed.
+         for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            solutions = 0;
+            for (String q : queries) {
+               LogicVar.reset();
+               solutions += solveAll(Make.query(q), kb);
+            }
+            elapsed = System.nanoTime() - start;
+         }
+         String modeName = mode == 0 ? "rules" : "columns";
+         System.out.println(String.format("%-8s %-12s %10.2f MB  %10.2f ms  (%d solutions)",
+                            "facts", modeName, memory / 1048576.0,
+                            elapsed / 1000000.0, solutions));
+         kb = null;
+      }
+      Global.factTables = true;
+   } // main
+
+}  // BenchFactTable
@@ -0,0 +1,100 @@
+/**
+ * BenchIndex
+ *
+ * Compares calls to a large fact table with and without clause
+ * indexes (Global.clauseIndexing):
+ *
+ *    scan     - every clause is tried
+ *    indexed  - only the clauses of the index bucket are tried
+ *
+ * Workloads:
+ *
+ *    first  - word/3 goals with the first argument bound
+ *    second - word/3 goals with the second argument bound
+ *    chain  - ancestor($X, $Y) over a chain of 500 parent/2 facts
+ *
+ * All solutions of each query are found. Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class BenchIndex {
+
+   /*
+    * solveAll
+    *
+    * Finds all solutions, and returns the number of solutions.
+    */
+   static int solveAll(Complex query, KnowledgeBase kb)
+                       throws TimeOverrunException {
+      SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+      int count = 0;
+      while (root.nextSolution() != null) count++;
+      return count;
+   }
+
+   /*
+    * run
+    *
+    * Runs the given queries with and without indexes, and prints
+    * the elapsed time.
+    */
+   static void run(String name, KnowledgeBase kb, String[] queries,
+                   int iterations) throws TimeOverrunException {
+
+      long[] elapsed = new long[2];
+      int[] solutions = new int[2];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 2; mode++) {
+            Global.clauseIndexing = mode == 1;
+            long start = System.nanoTime();
+            solutions[mode] = 0;
+            for (String q : queries) {
+               Complex query = Make.query(q);
+               int nextId = LogicVar.getNextId();
+               for (int i = 0; i < iterations; i++) {
+                  LogicVar.setNextId(nextId);
+                  solutions[mode] += solveAll(query, kb);
+               }
+            }
+            elapsed[mode] = System.nanoTime() - start;
+         }
+      }
+      Global.clauseIndexing = true;
+      for (int mode = 0; mode < 2; mode++) {
+         String modeName = mode == 0 ? "scan" : "indexed";
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d solutions)",
+                            name, modeName, elapsed[mode] / 1000000.0,
+                            solutions[mode]));
+      }
+   } // run
+
+   public static void main(String[] args) throws TimeOverrunException {
+
+      Global.maxTime = 1000000;
+
+      KnowledgeBase words = new KnowledgeBase();
+      for (int i = 0; i < 20000; i++) {
+         words.addRule("word(w" + i + ", tag" + (i % 50) + ", " + i + ")");
+      }
+      run("first", words, new String[] {
+            "word(w7, $T, $N)", "word(w12345, $T, $N)", "word(w19999, $T, $N)"
+          }, 100);
+      run("second", words, new String[] { "word($W, tag7, $N)" }, 20);
+
+      KnowledgeBase chain = new KnowledgeBase();
+      for (int i = 0; i < 500; i++) {
+         chain.addRule("parent(p" + i + ", p" + (i + 1) + ")");
+      }
+      chain.addRule("ancestor($X, $Y) :- parent($X, $Y)");
+      chain.addRule("ancestor($X, $Y) :- parent($X, $Z), ancestor($Z, $Y)");
+      run("chain", chain, new String[] { "ancestor(p0, $Y)" }, 5);
+
+   } // main
+
+}  // BenchIndex
@@ -0,0 +1,75 @@
+/**
+ * BenchKnowledgeImage
+ *
+ * Compares two ways of loading a file of 100000 rules at startup:
+ *
+ *    text   - the file is read, split and parsed (ReadRules, addRules)
+ *    image  - the clauses are read from the file's binary image
+ *             (KnowledgeImage), without parsing
+ *
+ * A quarter of the rules have bodies. Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class BenchKnowledgeImage {
+
+   static final int RULES = 100000;
+
+   public static void main(String[] args) throws IOException {
+
+      String[] number = { "singular", "plural" };
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < RULES; i++) {
+         if (i % 4 == 3) {
+            sb.append("phrase" + i + "([$W1, $W2 | $T], $Out) :- " +
+                      "word($W1, noun, $N), word($W2, verb, $N), " +
+                      "$Out = [np($W1), vp($W2) | $T].\n");
+         }
+         else {
+            sb.append("word(w" + i + ", noun, " + number[i % 2] + ").\n");
+         }
+      }
+      Path dir = Files.createTempDirectory("inferencilo");
+      String file = dir.resolve("rules.txt").toString();
+      String image = file + KnowledgeImage.EXTENSION;
+      byte[] content = sb.toString().getBytes(StandardCharsets.UTF_8);
+      Files.write(Paths.get(file), content);
+      KnowledgeBase parsed = new KnowledgeBase();
+      parsed.addRules(ReadRules.fromFile(file));
+      KnowledgeImage.write(image, parsed, KnowledgeImage.hash(content));
+
+      long[] elapsed = new long[2];
+      int[] loaded = new int[2];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 2; mode++) {
+            KnowledgeBase kb = new KnowledgeBase();
+            long start = System.nanoTime();
+            if (mode == 0) kb.addRules(ReadRules.fromFile(file));
+            else KnowledgeImage.load(kb, image, null);
+            elapsed[mode] = System.nanoTime() - start;
+            loaded[mode] = kb.getRuleCount();
+         }
+      }
+      for (int mode = 0; mode < 2; mode++) {
+         String modeName = mode == 0 ? "text" : "image";
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d predicates)",
+                            "load", modeName, elapsed[mode] / 1000000.0,
+                            loaded[mode]));
+      }
+      System.out.println(String.format("Text %d kB, image %d kB", content.length / 1024,
+                                       new File(image).length() / 1024));
+      new File(image).delete();
+      new File(file).delete();
+      new File(dir.toString()).delete();
+   } // main
+
+}  // BenchKnowledgeImage
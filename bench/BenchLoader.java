@@ -0,0 +1,64 @@
+/**
+ * BenchLoader
+ *
+ * Compares two ways of loading 100000 rules into a knowledge base:
+ *
+ *    serial   - KnowledgeBase.addRules(), which parses the rules one
+ *               by one
+ *    parallel - RuleLoader.load(), which parses the rules on the
+ *               common ForkJoin pool
+ *
+ * A quarter of the rules have bodies. For the parallel loader, the
+ * time spent parsing and indexing is also shown. (The rules are not
+ * split from text, so there is no split time.) Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class BenchLoader {
+
+   static final int RULES = 100000;
+
+   public static void main(String[] args) {
+
+      String[] number = { "singular", "plural" };
+      List<String> rules = new ArrayList<>();
+      for (int i = 0; i < RULES; i++) {
+         if (i % 4 == 3) {
+            rules.add("phrase" + i + "([$W1, $W2 | $T], $Out) :- " +
+                      "word($W1, noun, $N), word($W2, verb, $N), " +
+                      "$Out = [np($W1), vp($W2) | $T].");
+         }
+         else {
+            rules.add("word(w" + i + ", noun, " + number[i % 2] + ").");
+         }
+      }
+
+      long[] elapsed = new long[2];
+      int[] loaded = new int[2];
+      RuleLoader.Report report = null;
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 2; mode++) {
+            KnowledgeBase kb = new KnowledgeBase();
+            long start = System.nanoTime();
+            if (mode == 0) kb.addRules(rules);
+            else report = RuleLoader.load(kb, rules);
+            elapsed[mode] = System.nanoTime() - start;
+            loaded[mode] = kb.getPredicate(new Complex("word(w0, noun, singular)")).size();
+         }
+      }
+      for (int mode = 0; mode < 2; mode++) {
+         String modeName = mode == 0 ? "serial" : "parallel";
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d words)",
+                            "load", modeName, elapsed[mode] / 1000000.0,
+                            loaded[mode]));
+      }
+      System.out.println(report);
+   } // main
+
+}  // BenchLoader
@@ -0,0 +1,102 @@
+/**
+ * BenchMappedFacts
+ *
+ * Compares a knowledge base of facts on the heap with a memory-mapped
+ * fact store (MappedFactStore):
+ *
+ *    heap    - the facts are added to the knowledge base (FactTable)
+ *    mapped  - the store file is opened, and added to the knowledge base
+ *
+ * The workload is a lexicon of 500,000 facts, such as
+ *
+ *    word(w123, noun(w123, singular)).
+ *
+ * The benchmark measures the time to load or open the facts, the heap
+ * memory used, and the time to look up words. The time to write the
+ * store file is not measured.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.io.*;
+import java.util.*;
+
+public class BenchMappedFacts {
+
+   static final int NUM_FACTS = 500000;
+
+   /*
+    * usedMemory
+    *
+    * @return  bytes used, after garbage collection
+    */
+   static long usedMemory() {
+      Runtime rt = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++) System.gc();
+      return rt.totalMemory() - rt.freeMemory();
+   }
+
+   /*
+    * lookup
+    *
+    * Looks up words, and returns the number of solutions.
+    */
+   static int lookup(KnowledgeBase kb, Complex[] queries)
+                     throws TimeOverrunException {
+      int count = 0;
+      for (Complex query : queries) {
+         LogicVar.reset();
+         SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+         while (root.nextSolution() != null) count++;
+      }
+      return count;
+   }
+
+   public static void main(String[] args) throws Exception {
+
+      Global.maxTime = 1000000;
+      String[] kinds = { "singular", "plural" };
+
+      List<Rule> facts = new ArrayList<>();
+      for (int i = 0; i < NUM_FACTS; i++) {
+         facts.add(new Rule("word(w" + i + ", noun(w" + i + ", " + kinds[i % 2] + "))"));
+      }
+      File file = File.createTempFile("lexicon", ".facts");
+      file.deleteOnExit();
+      MappedFactStore.write(file.getPath(), facts);
+
+      Complex[] queries = new Complex[1000];
+      Random random = new Random(1);
+      for (int i = 0; i < queries.length; i++) {
+         queries[i] = Make.query("word(w" + random.nextInt(NUM_FACTS) + ", $X)");
+      }
+
+      for (int mode = 0; mode < 2; mode++) {
+         long before = usedMemory();
+         long start = System.nanoTime();
+         KnowledgeBase kb = new KnowledgeBase();
+         if (mode == 0) for (Rule fact : facts) kb.addRule(fact);
+         else kb.addFacts(MappedFactStore.open(file.getPath()));
+         long loadTime = System.nanoTime() - start;
+         long memory = usedMemory() - before;
+
+         long elapsed = 0;
+         int solutions = 0;
+         // The first rounds warm up the JVM. The last round is timed.
+         for (int round = 0; round < 3; round++) {
+            start = System.nanoTime();
+            solutions = lookup(kb, queries);
+            elapsed = System.nanoTime() - start;
+         }
+         String modeName = mode == 0 ? "heap" : "mapped";
+         System.out.println(String.format(
+            "%-8s %-12s load %10.2f ms  %8.2f MB  lookup %8.2f ms  (%d solutions)",
+            "lexicon", modeName, loadTime / 1000000.0, memory / 1048576.0,
+            elapsed / 1000000.0, solutions));
+         kb = null;
+      }
+   } // main
+
+}  // BenchMappedFacts
@@ -0,0 +1,97 @@
+/**
+ * BenchOverlay
+ *
+ * Compares two ways of adding the facts of each sentence to a knowledge
+ * base which holds a grammar:
+ *
+ *    shared   - word/2 is removed from the shared knowledge base, and
+ *               the new word facts are added to it (as ParseDemo did)
+ *    overlay  - the word facts are added to a new overlay of the
+ *               shared knowledge base, which is not changed
+ *
+ * Each sentence has 12 words. The query words_to_pos/2 converts the
+ * sentence into a list of parts of speech. Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class BenchOverlay {
+
+   static final int SENTENCES = 5000;
+   static final int WORDS = 12;
+
+   /*
+    * solveAll
+    *
+    * Finds all solutions, and returns the number of solutions.
+    */
+   static int solveAll(Complex query, KnowledgeBase kb)
+                       throws TimeOverrunException {
+      SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+      int count = 0;
+      while (root.nextSolution() != null) count++;
+      return count;
+   }
+
+   public static void main(String[] args) throws TimeOverrunException {
+
+      Global.maxTime = 1000000;
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRule("words_to_pos([$H1 | $T1], [$H2 | $T2]) :- " +
+                 "word($H1, $H2), words_to_pos($T1, $T2)");
+      kb.addRule("words_to_pos([], [])");
+
+      // The facts and queries of each sentence are made first.
+      String[] pos = { "noun", "verb", "adjective", "article" };
+      List<List<Rule>> facts = new ArrayList<>();
+      List<Complex> queries = new ArrayList<>();
+      for (int s = 0; s < SENTENCES; s++) {
+         List<Rule> sentence = new ArrayList<>();
+         StringBuilder words = new StringBuilder();
+         for (int w = 0; w < WORDS; w++) {
+            String word = "w" + ((s * 7 + w) % 500);
+            sentence.add(new Rule("word(" + word + ", " + pos[w % 4] + ")"));
+            if (w > 0) words.append(", ");
+            words.append(word);
+         }
+         facts.add(sentence);
+         queries.add(Make.query("words_to_pos([" + words + "], $P)"));
+      }
+      int nextId = LogicVar.getNextId();
+
+      long[] elapsed = new long[2];
+      int[] solutions = new int[2];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 2; mode++) {
+            long start = System.nanoTime();
+            solutions[mode] = 0;
+            for (int s = 0; s < SENTENCES; s++) {
+               KnowledgeBase sentenceKB;
+               if (mode == 0) {
+                  kb.remove("word/2");
+                  sentenceKB = kb;
+               }
+               else sentenceKB = kb.overlay();
+               for (Rule r : facts.get(s)) sentenceKB.addRule(r);
+               LogicVar.setNextId(nextId);
+               solutions[mode] += solveAll(queries.get(s), sentenceKB);
+            }
+            elapsed[mode] = System.nanoTime() - start;
+         }
+      }
+      kb.remove("word/2");
+      for (int mode = 0; mode < 2; mode++) {
+         String modeName = mode == 0 ? "shared" : "overlay";
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d solutions)",
+                            "sentence", modeName, elapsed[mode] / 1000000.0,
+                            solutions[mode]));
+      }
+   } // main
+
+}  // BenchOverlay
@@ -0,0 +1,82 @@
+/**
+ * BenchParser
+ *
+ * Compares three ways of parsing 100000 rules:
+ *
+ *    tokenizer  - Complex(String) for the head, and the Tokenizer for
+ *                 the body, as Rule(String) did before
+ *    parser     - the single-pass Parser, from Strings
+ *    bytes      - the Parser, from UTF-8 bytes
+ *
+ * Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class BenchParser {
+
+   static final int RULES = 100000;
+
+   public static void main(String[] args) {
+
+      String[] rules = new String[RULES];
+      byte[][] bytes = new byte[RULES][];
+      for (int i = 0; i < RULES; i++) {
+         if (i % 4 == 0) {
+            rules[i] = "word(w" + i + ", noun, [w" + i + ", s], `W" + i + "`).";
+         }
+         else if (i % 4 == 1) {
+            rules[i] = "phrase" + i + "($In, $Out) :- article($In, $T), " +
+                       "noun($T, [$N | $Out]), print(`%s`, $N).";
+         }
+         else if (i % 4 == 2) {
+            rules[i] = "total" + i + "($X, $Y) :- $X > 0, $Y = add($X, " + i + "); $Y = 0.";
+         }
+         else {
+            rules[i] = "check" + i + "($X) :- not($X == none), (small($X); large($X)).";
+         }
+         bytes[i] = rules[i].getBytes(StandardCharsets.UTF_8);
+      }
+
+      long[] elapsed = new long[3];
+      int[] parsed = new int[3];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 3; mode++) {
+            int count = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < RULES; i++) {
+               Rule rule;
+               if (mode == 0) rule = tokenized(rules[i]);
+               else if (mode == 1) rule = new Parser(rules[i]).rule();
+               else rule = new Parser(bytes[i]).rule();
+               if (rule != null) count++;
+            }
+            elapsed[mode] = System.nanoTime() - start;
+            parsed[mode] = count;
+         }
+      }
+      String[] modeNames = { "tokenizer", "parser", "bytes" };
+      for (int mode = 0; mode < 3; mode++) {
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d rules)",
+                            "parse", modeNames[mode], elapsed[mode] / 1000000.0,
+                            parsed[mode]));
+      }
+   } // main
+
+   // Parses a rule as Rule(String) did before the Parser.
+   static Rule tokenized(String str) {
+      String s = str.trim();
+      if (s.endsWith(".")) s = s.substring(0, s.length() - 1);
+      int index = s.indexOf(":-");
+      if (index < 0) return new Rule(new Complex(s));
+      Goal body = Tokenizer.getTokenizer().generateGoal(s.substring(index + 2));
+      return new Rule(new Complex(s.substring(0, index)), body);
+   }
+
+}  // BenchParser
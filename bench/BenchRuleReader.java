@@ -0,0 +1,74 @@
+/**
+ * BenchRuleReader
+ *
+ * Compares two ways of loading a file of 300000 facts:
+ *
+ *    list    - ReadRules.fromFile() reads the whole file, and returns
+ *              a list of rules, which addRules() parses
+ *    stream  - a RuleReader reads the rules one at a time, and adds
+ *              them to the knowledge base in batches
+ *
+ * The first column is the time until the first rule is available; the
+ * second is the total time. Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class BenchRuleReader {
+
+   static final int FACTS = 300000;
+
+   public static void main(String[] args) throws IOException {
+
+      String[] pos = { "noun", "verb", "adjective", "adverb" };
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < FACTS; i++) {
+         sb.append("word(w" + i + ", " + pos[i % 4] + ").   % entry " + i + "\n");
+      }
+      Path dir = Files.createTempDirectory("inferencilo");
+      String file = dir.resolve("lexicon.txt").toString();
+      Files.write(Paths.get(file), sb.toString().getBytes(StandardCharsets.UTF_8));
+      sb = null;
+
+      long[] first = new long[2];
+      long[] elapsed = new long[2];
+      int[] loaded = new int[2];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 2; mode++) {
+            KnowledgeBase kb = new KnowledgeBase();
+            long start = System.nanoTime();
+            if (mode == 0) {
+               List<String> rules = ReadRules.fromFile(file);
+               first[mode] = System.nanoTime() - start;
+               kb.addRules(rules);
+            }
+            else {
+               try (RuleReader reader = RuleReader.open(file)) {
+                  reader.hasNext();
+                  first[mode] = System.nanoTime() - start;
+                  reader.addTo(kb);
+               }
+            }
+            elapsed[mode] = System.nanoTime() - start;
+            loaded[mode] = kb.getPredicate(new Complex("word(w0, noun)")).size();
+         }
+      }
+      for (int mode = 0; mode < 2; mode++) {
+         String modeName = mode == 0 ? "list" : "stream";
+         System.out.println(String.format("%-8s %-12s %10.2f ms %10.2f ms  (%d facts)",
+                            "load", modeName, first[mode] / 1000000.0,
+                            elapsed[mode] / 1000000.0, loaded[mode]));
+      }
+      new File(file).delete();
+      new File(dir.toString()).delete();
+   } // main
+
+}  // BenchRuleReader
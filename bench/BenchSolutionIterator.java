@@ -0,0 +1,70 @@
+/**
+ * BenchSolutionIterator
+ *
+ * Compares ways of getting solutions of a query which has 10000
+ * solutions, 500 times:
+ *
+ *    solveAll  - Solutions.solveAll(), then the first 10 strings
+ *    first10   - Solutions.stream(), limited to 10 solutions
+ *    all/100   - Solutions.iterator(), all solutions, for 1 query in 100
+ *
+ * Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class BenchSolutionIterator {
+
+   static final int FACTS = 10000;
+   static final int QUERIES = 500;
+
+   public static void main(String[] args) throws Exception {
+
+      KnowledgeBase kb = new KnowledgeBase();
+      List<String> rules = new ArrayList<>();
+      for (int i = 0; i < FACTS; i++) {
+         rules.add("item(i" + i + ", " + i + ").");
+      }
+      rules.add("priced($I, $P) :- item($I, $N), $P = multiply($N, 2).");
+      kb.addRules(rules);
+
+      long[] elapsed = new long[3];
+      int[] solved = new int[3];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int mode = 0; mode < 3; mode++) {
+            int count = 0;
+            long start = System.nanoTime();
+            for (int q = 0; q < QUERIES; q++) {
+               Complex query = Make.query("priced($I, $P)");
+               if (mode == 0) {
+                  count += Solutions.solveAll(query, kb).subList(0, 10).size();
+               }
+               else if (mode == 1) {
+                  count += Solutions.stream(query, kb).limit(10)
+                                    .collect(Collectors.toList()).size();
+               }
+               else if (q % 100 == 0) {
+                  // All solutions, for 1 query in 100.
+                  SolutionIterator it = Solutions.iterator(query, kb);
+                  while (it.hasNext()) { it.next(); count++; }
+               }
+            }
+            elapsed[mode] = System.nanoTime() - start;
+            solved[mode] = count;
+         }
+      }
+      String[] modeNames = { "solveAll", "first10", "all/100" };
+      for (int mode = 0; mode < 3; mode++) {
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d solutions)",
+                            "iterate", modeNames[mode], elapsed[mode] / 1000000.0,
+                            solved[mode]));
+      }
+   } // main
+
+}  // BenchSolutionIterator
@@ -0,0 +1,108 @@
+/**
+ * BenchSubstitution
+ *
+ * Compares the two binding stores on the same workloads:
+ *
+ *    trail      - new SubstitutionSet() (destructive, with trail)
+ *    persistent - SubstitutionSet.persistent() (structurally shared)
+ *
+ * Workloads:
+ *
+ *    kings  - family queries from test/kings.txt
+ *    chain  - ancestor($X, $Y) over a chain of 200 parent/2 facts
+ *    lists  - a recursive rule which copies a list of 300 items
+ *
+ * All solutions of each query are found. Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class BenchSubstitution {
+
+   /*
+    * solveAll
+    *
+    * Finds all solutions, and returns the number of solutions.
+    */
+   static int solveAll(Complex query, KnowledgeBase kb, SubstitutionSet ss)
+                       throws TimeOverrunException {
+      SolutionNode root = query.getSolver(kb, ss, null);
+      int count = 0;
+      while (root.nextSolution() != null) count++;
+      return count;
+   }
+
+   /*
+    * run
+    *
+    * Runs the given queries with both binding stores, and prints
+    * the elapsed time.
+    */
+   static void run(String name, KnowledgeBase kb, String[] queries,
+                   int iterations) throws TimeOverrunException {
+
+      long[] elapsed = new long[2];
+      int[] solutions = new int[2];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         for (int store = 0; store < 2; store++) {
+            long start = System.nanoTime();
+            solutions[store] = 0;
+            for (String q : queries) {
+               Complex query = Make.query(q);
+               int nextId = LogicVar.getNextId();
+               for (int i = 0; i < iterations; i++) {
+                  LogicVar.setNextId(nextId);
+                  SubstitutionSet ss = store == 0 ? new SubstitutionSet()
+                                                  : SubstitutionSet.persistent();
+                  solutions[store] += solveAll(query, kb, ss);
+               }
+            }
+            elapsed[store] = System.nanoTime() - start;
+         }
+      }
+      for (int store = 0; store < 2; store++) {
+         String storeName = store == 0 ? "trail" : "persistent";
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d solutions)",
+                            name, storeName, elapsed[store] / 1000000.0,
+                            solutions[store]));
+      }
+   } // run
+
+   public static void main(String[] args) throws TimeOverrunException {
+
+      Global.maxTime = 1000000;
+
+      KnowledgeBase kings = new KnowledgeBase();
+      kings.addRules(ReadRules.fromFile("../test/kings.txt"));
+      run("kings", kings, new String[] {
+            "father($X, $Y)", "mother($X, $Y)",
+            "grandfather($X, $Y)", "grandmother($X, $Y)"
+          }, 2000);
+
+      KnowledgeBase chain = new KnowledgeBase();
+      for (int i = 0; i < 200; i++) {
+         chain.addRule("parent(p" + i + ", p" + (i + 1) + ")");
+      }
+      chain.addRule("ancestor($X, $Y) :- parent($X, $Y)");
+      chain.addRule("ancestor($X, $Y) :- parent($X, $Z), ancestor($Z, $Y)");
+      run("chain", chain, new String[] { "ancestor(p0, $Y)" }, 20);
+
+      KnowledgeBase lists = new KnowledgeBase();
+      lists.addRule("copy([$H | $T], [$H | $T2]) :- copy($T, $T2)");
+      lists.addRule("copy([], [])");
+      StringBuilder sb = new StringBuilder("copy([");
+      for (int i = 0; i < 300; i++) {
+         if (i > 0) sb.append(", ");
+         sb.append("w" + i);
+      }
+      sb.append("], $Out)");
+      run("lists", lists, new String[] { sb.toString() }, 50);
+
+   } // main
+
+}  // BenchSubstitution
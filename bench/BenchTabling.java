@@ -0,0 +1,111 @@
+/**
+ * BenchTabling
+ *
+ * Transitive closure over graphs of parent/2 facts, with and without
+ * tabling:
+ *
+ *    tree     - 10^5 edges, each node has two children
+ *    ladder   - 10^5 edges, node i is the parent of i+1 and i+2
+ *
+ * Without tabling, the right-recursive rule
+ *
+ *    anc($X, $Y) :- parent($X, $Y).
+ *    anc($X, $Y) :- parent($X, $Z), anc($Z, $Y).
+ *
+ * finds a node once for each path to it. In the ladder, the number of
+ * paths grows like the Fibonacci numbers, so only the first 24 nodes
+ * are searched without tabling. The tabled rule is left-recursive:
+ *
+ *    :- table tanc/2.
+ *    tanc($X, $Y) :- tanc($X, $Z), parent($Z, $Y).
+ *    tanc($X, $Y) :- parent($X, $Y).
+ *
+ * The query finds the descendants of node 0. The tables are abolished
+ * before each query. Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class BenchTabling {
+
+   static final int EDGES = 100000;
+
+   /*
+    * solveAll
+    *
+    * Finds all solutions, and returns the number of solutions.
+    */
+   static int solveAll(Complex query, KnowledgeBase kb)
+                       throws TimeOverrunException {
+      SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+      int count = 0;
+      while (root.nextSolution() != null) count++;
+      return count;
+   }
+
+   /*
+    * graph
+    *
+    * Makes a knowledge base with the rules and the edges.
+    */
+   static KnowledgeBase graph(boolean ladder, int edges) {
+      KnowledgeBase kb = new KnowledgeBase();
+      List<String> rules = new ArrayList<>();
+      rules.add(":- table tanc/2.");
+      rules.add("tanc($X, $Y) :- tanc($X, $Z), parent($Z, $Y)");
+      rules.add("tanc($X, $Y) :- parent($X, $Y)");
+      rules.add("anc($X, $Y) :- parent($X, $Y)");
+      rules.add("anc($X, $Y) :- parent($X, $Z), anc($Z, $Y)");
+      for (int i = 0; i < edges; i++) {
+         int parent = i / 2;
+         int child = ladder ? parent + 1 + i % 2 : i + 1;
+         rules.add("parent(n" + parent + ", n" + child + ")");
+      }
+      kb.addRules(rules);
+      return kb;
+   }
+
+   /*
+    * time
+    *
+    * Runs a query three times, and prints the time of the last run.
+    */
+   static void time(String graph, String mode, KnowledgeBase kb, String query)
+                    throws TimeOverrunException {
+      Complex q = Make.query(query);
+      int nextId = LogicVar.getNextId();
+      long elapsed = 0;
+      int solutions = 0;
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+         kb.abolishTables();
+         LogicVar.setNextId(nextId);
+         long start = System.nanoTime();
+         solutions = solveAll(q, kb);
+         elapsed = System.nanoTime() - start;
+      }
+      System.out.println(String.format("%-8s %-12s %10.2f ms  (%d solutions)",
+                         graph, mode, elapsed / 1000000.0, solutions));
+   }
+
+   public static void main(String[] args) throws TimeOverrunException {
+
+      Global.maxTime = 1000000;
+      Global.maxVariables = 10000000;
+
+      KnowledgeBase tree = graph(false, EDGES);
+      time("tree", "untabled", tree, "anc(n0, $Y)");
+      time("tree", "tabled", tree, "tanc(n0, $Y)");
+
+      KnowledgeBase small = graph(true, 48);
+      time("ladder", "untabled", small, "anc(n0, $Y)");
+      time("ladder", "tabled", small, "tanc(n0, $Y)");
+      KnowledgeBase ladder = graph(true, EDGES);
+      time("ladder", "tabled", ladder, "tanc(n0, $Y)");
+   } // main
+
+}  // BenchTabling
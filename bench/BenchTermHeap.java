@@ -0,0 +1,215 @@
+/**
+ * BenchTermHeap
+ *
+ * Compares the object representation of terms with the flat TermHeap.
+ * The benchmark measures one resolution step: a clause is renamed
+ * (its variables are standardized apart), its head is unified with
+ * a goal, the goal is read back, and the bindings are undone.
+ *
+ *    objects - Rule.standardizeVariablesApart(), Complex.unify(),
+ *              replaceVariables(), SubstitutionSet.restore()
+ *    heap    - TermHeap.copy(), unify(), get(), undo()
+ *
+ * Workloads:
+ *
+ *    kings  - family goals against the clauses of test/kings.txt
+ *    demo   - parser goals against the clauses of demo/demo_grammar.txt
+ *
+ * Every goal is tried against every clause with the same key.
+ *
+ * Then the goals are solved by the solver, with Global.termHeap off and
+ * on. When it is on, rules whose heads do not unify with a goal on the
+ * heap are skipped before they are renamed.
+ *
+ * Times are in milliseconds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.io.*;
+import java.util.*;
+
+public class BenchTermHeap {
+
+   /*
+    * bodyGoals
+    *
+    * Collects the Complex goals of a rule body.
+    */
+   static void bodyGoals(Goal goal, List<Unifiable> out) {
+      if (goal instanceof Complex) out.add((Complex)goal);
+      else if (goal instanceof And) {
+         for (Goal g : ((And)goal).getOperands()) bodyGoals(g, out);
+      }
+      else if (goal instanceof Or) {
+         for (Goal g : ((Or)goal).getOperands()) bodyGoals(g, out);
+      }
+   }
+
+   /*
+    * run
+    *
+    * Runs the goals against the clauses with both representations,
+    * and prints the elapsed time.
+    */
+   static void run(String name, String filename, String[] goalStrings,
+                   int iterations) {
+
+      HashMap<String, List<Rule>> rules = new HashMap<>();
+      for (String s : ReadRules.fromFile(filename)) {
+         Rule rule = new Rule(s);
+         rules.computeIfAbsent(rule.key(), k -> new ArrayList<Rule>()).add(rule);
+      }
+
+      // Compile each clause: the head, then the goals of the body.
+      TermHeap heap = new TermHeap();
+      HashMap<Rule, HeapTemplate> templates = new HashMap<>();
+      for (List<Rule> list : rules.values()) {
+         for (Rule rule : list) {
+            List<Unifiable> terms = new ArrayList<>();
+            terms.add(rule.getHead());
+            if (rule.getBody() != null) bodyGoals(rule.getBody(), terms);
+            templates.put(rule, heap.compile(terms.toArray(new Unifiable[0])));
+         }
+      }
+
+      Complex[] goals = new Complex[goalStrings.length];
+      int[] goalCells = new int[goalStrings.length];
+      for (int i = 0; i < goals.length; i++) {
+         goals[i] = Make.query(goalStrings[i]);
+         goalCells[i] = heap.put(goals[i]);
+      }
+
+      long[] elapsed = new long[2];
+      int[] matches = new int[2];
+      // The first rounds warm up the JVM. The last round is timed.
+      for (int round = 0; round < 3; round++) {
+
+         // Object representation.
+         int nextId = LogicVar.getNextId();
+         long start = System.nanoTime();
+         matches[0] = 0;
+         SubstitutionSet ss = new SubstitutionSet();
+         for (int n = 0; n < iterations; n++) {
+            LogicVar.setNextId(nextId);
+            for (Complex goal : goals) {
+               List<Rule> list = rules.get(goal.key());
+               if (list == null) continue;
+               for (Rule rule : list) {
+                  Rule r = (Rule)rule.standardizeVariablesApart(
+                              new HashMap<String, LogicVar>());
+                  SubstitutionSet result = r.getHead().unify(goal, ss);
+                  if (result != null) {
+                     goal.replaceVariables(result);
+                     matches[0]++;
+                  }
+                  ss.restore();
+               }
+            }
+         }
+         elapsed[0] = System.nanoTime() - start;
+
+         // Heap representation.
+         start = System.nanoTime();
+         matches[1] = 0;
+         for (int n = 0; n < iterations; n++) {
+            LogicVar.setNextId(nextId);   // get() creates LogicVars.
+            for (int g = 0; g < goals.length; g++) {
+               List<Rule> list = rules.get(goals[g].key());
+               if (list == null) continue;
+               for (Rule rule : list) {
+                  HeapTemplate template = templates.get(rule);
+                  long mark = heap.mark();
+                  int base = heap.copy(template);
+                  if (heap.unify(base + template.root(0), goalCells[g])) {
+                     heap.get(goalCells[g]);
+                     matches[1]++;
+                  }
+                  heap.undo(mark);
+               }
+            }
+         }
+         elapsed[1] = System.nanoTime() - start;
+      }
+
+      for (int rep = 0; rep < 2; rep++) {
+         String repName = rep == 0 ? "objects" : "heap";
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d matches)",
+                            name, repName, elapsed[rep] / 1000000.0,
+                            matches[rep]));
+      }
+   } // run
+
+   /*
+    * solve
+    *
+    * Solves the goals with Global.termHeap off and on, and prints
+    * the elapsed time.
+    */
+   static void solve(String name, String filename, String[] goalStrings,
+                     int iterations) {
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRules(ReadRules.fromFile(filename));
+      PrintStream out = System.out;
+      System.setOut(new PrintStream(new ByteArrayOutputStream()));  // print/1
+      long[] elapsed = new long[2];
+      int[] solutions = new int[2];
+      try {
+         for (int round = 0; round < 3; round++) {
+            for (int mode = 0; mode < 2; mode++) {
+               Global.termHeap = mode == 1;
+               solutions[mode] = 0;
+               long start = System.nanoTime();
+               for (int n = 0; n < iterations; n++) {
+                  for (String goal : goalStrings) {
+                     solutions[mode] += Solutions.solveAll(Make.query(goal), kb).size();
+                  }
+               }
+               elapsed[mode] = System.nanoTime() - start;
+            }
+         }
+      } catch (TimeOverrunException tox) {
+         out.println(name + ": " + tox);
+      } finally {
+         Global.termHeap = false;
+         System.setOut(out);
+      }
+      for (int mode = 0; mode < 2; mode++) {
+         String modeName = mode == 0 ? "solver" : "solver+heap";
+         System.out.println(String.format("%-8s %-12s %10.2f ms  (%d solutions)",
+                            name, modeName, elapsed[mode] / 1000000.0,
+                            solutions[mode]));
+      }
+   } // solve
+
+   public static void main(String[] args) {
+
+      String[] kings = {
+            "parent($X, $Y)", "parent(Godwin, $Z)", "parent($Z, Harold)",
+            "male($X)", "female(Edith)", "father($X, $Y)",
+            "grandfather($X, Skule)", "grandmother(Gytha, $Y)"
+      };
+      run("kings", "../test/kings.txt", kings, 20000);
+
+      String[] demo = {
+            "check_pron_verb(They, third, plural, envy, base)",
+            "check_pron_verb(He, third, singular, are, base)",
+            "check_noun_verb(Love, singular, lasts, third_sing)",
+            "remove_punc([pronoun(They, subject, third, plural), " +
+               "verb(envy, present, base), comma(x), " +
+               "pronoun(us, object, first, plural), period(x)], $Out)",
+            "sentence([pronoun(They, subject, third, plural), " +
+               "verb(envy, present, base), " +
+               "pronoun(us, object, first, plural)], $Out)",
+            "parse([They, envy, us], $Out)"
+      };
+      run("demo", "../demo/demo_grammar.txt", demo, 20000);
+
+      solve("kings", "../test/kings.txt", kings, 20000);
+      solve("demo", "../demo/demo_grammar.txt", demo, 20000);
+
+   } // main
+
+}  // BenchTermHeap
@@ -48,7 +48,9 @@
  *
  *    word(we, pronoun(we , subject, first, plural))
  *
- * ...which are added to the KnowledgeBase.
+ * ...which are added to an overlay of the KnowledgeBase. An overlay holds
+ * the facts of one sentence, and finds the grammar rules in the shared
+ * knowledge base, which is not changed. Each sentence has a new overlay.
  *
  * Note: Many words can have more than one part of speech. The word
  * 'envy', for example, can be a noun or a verb. In order to parse
@@ -207,7 +209,7 @@ class ParseDemo {
     * sentenceToFacts
     *
     * Takes a sentence, divides it into words, and creates facts
-    * which are written to the knowledge base.
+    * which are written to the knowledge base (an overlay).
     *
     * @param  sentence
     * @param  knowledge base
@@ -221,10 +223,6 @@ class ParseDemo {
       // Load part of speech data.
       PartOfSpeech pos = PartOfSpeech.getPartOfSpeech();
 
-      // Remove previous 'word' facts.
-      kb.remove("word/2");
-      //kb.showKB();
-
       // Make word facts, such as: word(envy, noun(envy, singular)).
       List<Rule> facts = pos.makeFacts(words);
 
@@ -445,11 +443,16 @@ class ParseDemo {
       if (text == null) return;
       List<String> sentences = splitIntoSentences(text);
 
+      // The word facts of each sentence go into an overlay,
+      // so the shared knowledge base is not changed.
       sentences
          .stream()
          .map(s -> { System.out.print(s + " "); return s; })
-         .map(s2 -> sentenceToFacts(s2, kb)) // Returns word list (wl).
-         .forEach(wl -> oneSolution(parse, wl, kb));
+         .forEach(s2 -> {
+            KnowledgeBase sentenceKB = kb.overlay();
+            SLinkedList wl = sentenceToFacts(s2, sentenceKB);  // word list
+            oneSolution(parse, wl, sentenceKB);
+         });
 
    } // main
 
@@ -273,30 +273,30 @@ class PartOfSpeech {
 
       if (tag.startsWith("PPS")) { // PPS or PPSS
          if (lower.equals("we")) {
-            term = new Complex(pronoun, new Constant(word), subject, first, plural);
+            term = new Complex(pronoun, Constant.inst(word), subject, first, plural);
          }
          else if (lower.equals("they")) {
-            term = new Complex(pronoun, new Constant(word), subject, third, plural);
+            term = new Complex(pronoun, Constant.inst(word), subject, third, plural);
          }
          else if (lower.equals("I")) {
-            term = new Complex(pronoun, new Constant(word), subject, first, singular);
+            term = new Complex(pronoun, Constant.inst(word), subject, first, singular);
          }
          else {  // he she it
-            term = new Complex(pronoun, new Constant(word), subject, third, singular);
+            term = new Complex(pronoun, Constant.inst(word), subject, third, singular);
          }
       }
       else if (tag.equals("PPO")) {
          if (lower.equals("us")) {
-            term = new Complex(pronoun, new Constant(word), object, first, plural);
+            term = new Complex(pronoun, Constant.inst(word), object, first, plural);
          }
          else if (lower.equals("them")) {
-            term = new Complex(pronoun, new Constant(word), object, third, plural);
+            term = new Complex(pronoun, Constant.inst(word), object, third, plural);
          }
          else if (lower.equals("me")) {
-            term = new Complex(pronoun, new Constant(word), object, first, singular);
+            term = new Complex(pronoun, Constant.inst(word), object, first, singular);
          }
          else {
-            term = new Complex(pronoun, new Constant(word), object, third, singular);
+            term = new Complex(pronoun, Constant.inst(word), object, third, singular);
          }
       }
       return term;
@@ -314,7 +314,7 @@ class PartOfSpeech {
     */
    private static List<Rule> makeYouFacts(String word) {
 
-      Constant conWord = new Constant(word);
+      Constant conWord = Constant.inst(word);
       List<Rule> facts = new ArrayList<Rule>();
 
       List<Complex> pronouns = Arrays.asList(
@@ -347,19 +347,19 @@ class PartOfSpeech {
    private static Complex makeVerbTerm(String word, String tag) {
       Complex term = null;
       if (tag.equals("VB")) {
-         term = new Complex(verb, new Constant(word), present, base);
+         term = new Complex(verb, Constant.inst(word), present, base);
       }
       else if (tag.equals("VBZ")) {
-         term = new Complex(verb, new Constant(word), present, third_sing);
+         term = new Complex(verb, Constant.inst(word), present, third_sing);
       }
       else if (tag.equals("VBD")) {
-         term = new Complex(verb, new Constant(word), past, past);
+         term = new Complex(verb, Constant.inst(word), past, past);
       }
       else if (tag.equals("VBG")) {
-         term = new Complex(participle, new Constant(word), active);
+         term = new Complex(participle, Constant.inst(word), active);
       }
       else if (tag.equals("VBN")) {
-         term = new Complex(participle, new Constant(word), passive);
+         term = new Complex(participle, Constant.inst(word), passive);
       }
       return term;
    } // makeVerbTerm
@@ -377,13 +377,13 @@ class PartOfSpeech {
    private static Complex makeNounTerm(String word, String tag) {
       Complex term = null;
       if (tag.equals("NN")) {
-         term = new Complex(noun, new Constant(word), singular);
+         term = new Complex(noun, Constant.inst(word), singular);
       }
       else if (tag.equals("NNS")) {
-         term = new Complex(noun, new Constant(word), plural);
+         term = new Complex(noun, Constant.inst(word), plural);
       }
       else if (tag.equals("NNP")) {
-         term = new Complex(noun, new Constant(word), singular);
+         term = new Complex(noun, Constant.inst(word), singular);
       }
       return term;
    } // makeNounTerm
@@ -401,13 +401,13 @@ class PartOfSpeech {
    private static Complex makeAdjectiveTerm(String word, String tag) {
       Complex term = null;
       if (tag.equals("JJ")) {
-         term = new Complex(adjective, new Constant(word), positive);
+         term = new Complex(adjective, Constant.inst(word), positive);
       }
       else if (tag.equals("JJR")) {
-         term = new Complex(adjective, new Constant(word), comparative);
+         term = new Complex(adjective, Constant.inst(word), comparative);
       }
       else if (tag.equals("JJS")) {
-         term = new Complex(adjective, new Constant(word), superlative);
+         term = new Complex(adjective, Constant.inst(word), superlative);
       }
       return term;
    } // makeAdjectiveTerm
@@ -425,10 +425,10 @@ class PartOfSpeech {
       Complex term = null;
       String wordLower = word.toLowerCase();
       if (wordLower.equals("the")) {
-         term = new Complex(article, new Constant(word), definite);
+         term = new Complex(article, Constant.inst(word), definite);
       }
       else {
-         term = new Complex(article, new Constant(word), indefinite);
+         term = new Complex(article, Constant.inst(word), indefinite);
       }
       return term;
    } // makeArticleTerm
@@ -443,7 +443,7 @@ class PartOfSpeech {
     * @return term
     */
    private static Complex makeAdverbTerm(String word) {
-      Complex term = new Complex(adverb, new Constant(word));
+      Complex term = new Complex(adverb, Constant.inst(word));
       return term;
    } // makeAdverbTerm
 
@@ -457,7 +457,7 @@ class PartOfSpeech {
     * @return term
     */
    private static Complex makePrepositionTerm(String word) {
-      Complex term = new Complex(preposition, new Constant(word));
+      Complex term = new Complex(preposition, Constant.inst(word));
       return term;
    } // makePrepositionTerm
 
@@ -471,7 +471,7 @@ class PartOfSpeech {
     * @return term
     */
    private static Complex makeUnknownTerm(String word) {
-      Complex term = new Complex(unknown, new Constant(word));
+      Complex term = new Complex(unknown, Constant.inst(word));
       return term;
    } // makeUnknownTerm
 
@@ -541,7 +541,7 @@ class PartOfSpeech {
       if (length == 1) { // Maybe this is punctuation.
          Complex f = Punctuation.makeTerm(word);
          if (f != null) {
-            wordTerm = new Complex(WORD, new Constant(word), f);
+            wordTerm = new Complex(WORD, Constant.inst(word), f);
             return Arrays.asList(new Rule(wordTerm));
          }
       }
@@ -557,15 +557,15 @@ class PartOfSpeech {
          for (String pos : posData) {
             term = makeTerm(word, low, pos);
             if (term != null) {
-               wordTerm = new Complex(WORD, new Constant(word), term);
+               wordTerm = new Complex(WORD, Constant.inst(word), term);
                fact = new Rule(wordTerm);
                facts.add(fact);
             }
          }
       }
       if (facts.size() < 1) {
-         term = new Complex(unknown, new Constant(word));
-         wordTerm = new Complex(WORD, new Constant(word), term);
+         term = new Complex(unknown, Constant.inst(word));
+         wordTerm = new Complex(WORD, Constant.inst(word), term);
          fact = new Rule(wordTerm);
          facts.add(fact);
       }
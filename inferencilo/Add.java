@@ -1,7 +1,9 @@
 /**
  * Add
  *
- * Add two numbers together.
+ * Add two numbers together. The sum is a float, eg. 5.0,
+ * unless Global.integerArithmetic is set and all numbers are
+ * integers.
  *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
@@ -36,7 +38,7 @@ public class Add extends SFunction {
     *
     * @param   Substitution Set
     * @param   Unifiable parameters
-    * @return  Constant
+    * @return  SNumber
     * @throws  UnboundArgumentException, NumberFormatException, TooFewArgumentsException
     */
    public Unifiable evaluate(SubstitutionSet ss, Unifiable... params)
@@ -46,16 +48,17 @@ public class Add extends SFunction {
 
       if (params.length < 2) throw new TooFewArgumentsException("in Add.");
 
-      double sum = 0.0;
+      SNumber sum = null;
 
       // All parameters must be bound.
       for (Unifiable param : params) {
          Constant c = ss.castConstant(param);
          if (c == null) throw new UnboundArgumentException("in Add.");
-         sum = sum + Double.parseDouble(c.toString());
+         SNumber n = SNumber.of(c);
+         sum = (sum == null) ? n : SNumber.add(sum, n);
       }
 
-      return new Constant("" + sum);
+      return SNumber.result(sum);
 
    } // evaluate()
 
@@ -3,6 +3,9 @@
  *
  * Solution node for the And operator.
  *
+ * When the head has no more solutions, it is released. When the tail
+ * also has no more solutions, this node becomes deterministic.
+ *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
  */
@@ -59,7 +62,7 @@ public class AndSolutionNode extends SolutionNode {
     */
    public void setNoBackTracking() {
       super.setNoBackTracking();
-      headSolutionNode.setNoBackTracking();
+      if (headSolutionNode != null) headSolutionNode.setNoBackTracking();
    }
 
    /**
@@ -72,29 +75,51 @@ public class AndSolutionNode extends SolutionNode {
     */
    public SubstitutionSet nextSolution() throws TimeOverrunException {
 
-      if (noBackTracking()) { return null; }
+      if (isDeterministic()) { return null; }
 
       SubstitutionSet solution;
 
       if (tailSolutionNode != null) {
          solution = tailSolutionNode.nextSolution();
-         if (solution != null) return solution;
+         if (solution != null) return found(solution);
+         tailSolutionNode = null;
       }
 
+      if (headSolutionNode == null) return null;
       solution = headSolutionNode.nextSolution();
       while (solution != null) {
 
-         if (operatorTail.isEmpty()) return solution;
+         if (headSolutionNode.isDeterministic()) headSolutionNode = null;
+         if (operatorTail.isEmpty()) return found(solution);
          else {
             // tailSolutionNode has to be a new AndSolutionNode.
             tailSolutionNode = operatorTail.getSolver(getKnowledgeBase(),
                                                       solution, this);
             SubstitutionSet tailSolution = tailSolutionNode.nextSolution();
-            if (tailSolution != null) return tailSolution;
+            if (tailSolution != null) return found(tailSolution);
+            tailSolutionNode = null;
          }
+         if (headSolutionNode == null) return null;
          solution = headSolutionNode.nextSolution();
       }
       return null;
    }
 
+   /*
+    * found
+    *
+    * Returns a solution. A tail which has no more solutions is released.
+    * If the head was released too, this node becomes deterministic.
+    *
+    * @param   solution
+    * @return  solution
+    */
+   private SubstitutionSet found(SubstitutionSet solution) {
+      if (tailSolutionNode != null && tailSolutionNode.isDeterministic()) {
+         tailSolutionNode = null;
+      }
+      if (tailSolutionNode == null && headSolutionNode == null) setDeterministic();
+      return solution;
+   }
+
 } // AndSolutionNode
@@ -0,0 +1,293 @@
+/**
+ * AnswerCache
+ *
+ * Caches the answers of calls to selected predicates. (See
+ * KnowledgeBase.cache().) A call is looked up by its variant, eg.
+ * check_noun_verb(Love, singular, lasts, $X). When a call misses, all of
+ * its answers are found and saved. When it hits, the saved answers are
+ * replayed, without searching.
+ *
+ * The cache holds a limited number of calls. The least recently used
+ * call is evicted first.
+ *
+ * Each entry records the predicates which its answers depend on: the
+ * cached predicate, and every predicate which its rules may call. When
+ * a clause of one of these predicates is added or removed, the entry is
+ * invalidated. An entry is only used by queries which run on a generation
+ * of the knowledge base at which its answers were valid.
+ *
+ * The dependencies of each cached predicate are also kept, so that they
+ * are found by walking the rules only once, and not for every call made
+ * through an overlay. They are invalidated in the same way.
+ *
+ * Only predicates which have a finite number of answers, and which do
+ * not change the knowledge base, should be cached.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+public final class AnswerCache {
+
+   public static final int DEFAULT_CAPACITY = 1000;
+
+   /*
+    * Answers of a call, and the predicates which they depend on.
+    */
+   private static final class Call {
+      final List<Complex> answers;
+      final Set<PredicateIndicator> dependencies;
+      final long validFrom;   // generation of the last change to a dependency
+      Call(List<Complex> answers, Set<PredicateIndicator> dependencies,
+           long validFrom) {
+         this.answers = answers;
+         this.dependencies = dependencies;
+         this.validFrom = validFrom;
+      }
+   }
+
+   /*
+    * The predicates which a cached predicate depends on.
+    */
+   private static final class Dependencies {
+      final Set<PredicateIndicator> set;
+      final long validFrom;
+      Dependencies(Set<PredicateIndicator> set, long validFrom) {
+         this.set = set;
+         this.validFrom = validFrom;
+      }
+   }
+
+   private int capacity = DEFAULT_CAPACITY;
+
+   // In access order, for LRU eviction.
+   private final LinkedHashMap<String, Call> entries =
+         new LinkedHashMap<String, Call>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(Map.Entry<String, Call> eldest) {
+         if (size() <= capacity) return false;
+         evictions++;
+         return true;
+      }
+   };
+
+   // By cached predicate.
+   private final HashMap<PredicateIndicator, Dependencies> dependencies = new HashMap<>();
+
+   private long since = 0;  // generation at which caching started
+   private long[] changed = new long[64];  // last change, by predicate ID
+
+   private long hits = 0;
+   private long misses = 0;
+   private long evictions = 0;
+   private long invalidations = 0;
+
+   /*
+    * constructor
+    */
+   AnswerCache() { }
+
+   /*
+    * start
+    *
+    * Starts to record changes. Changes before the given generation are
+    * not known, so answers are only valid from that generation on.
+    *
+    * @param  generation
+    */
+   synchronized void start(long generation) {
+      since = generation;
+      Arrays.fill(changed, generation);
+   }
+
+   /*
+    * get
+    *
+    * @param  variant of a call
+    * @param  generation of the query
+    * @return answers, or null
+    */
+   synchronized List<Complex> get(String key, long generation) {
+      Call e = entries.get(key);
+      if (e != null && generation >= e.validFrom) {
+         hits++;
+         return e.answers;
+      }
+      misses++;
+      return null;
+   }
+
+   /*
+    * put
+    *
+    * Saves the answers of a call, unless one of its dependencies was
+    * changed after the generation at which the answers were found.
+    *
+    * @param  variant of the call
+    * @param  answers
+    * @param  dependencies
+    * @param  generation of the query
+    */
+   synchronized void put(String key, List<Complex> answers,
+                         Set<PredicateIndicator> dependencies, long generation) {
+      long validFrom = since;
+      for (PredicateIndicator pi : dependencies) {
+         validFrom = Math.max(validFrom, lastChange(pi));
+      }
+      if (validFrom > generation) return;
+      entries.put(key, new Call(answers, dependencies, validFrom));
+   }
+
+   /*
+    * getDependencies
+    *
+    * @param  cached predicate
+    * @param  generation of the query
+    * @return dependencies of the predicate, or null
+    */
+   synchronized Set<PredicateIndicator> getDependencies(PredicateIndicator pi,
+                                                        long generation) {
+      Dependencies d = dependencies.get(pi);
+      if (d != null && generation >= d.validFrom) return d.set;
+      return null;
+   }
+
+   /*
+    * putDependencies
+    *
+    * Saves the dependencies of a cached predicate, unless one of them
+    * was changed after the generation at which they were found.
+    *
+    * @param  cached predicate
+    * @param  dependencies (not to be modified)
+    * @param  generation of the query
+    */
+   synchronized void putDependencies(PredicateIndicator pi,
+                                     Set<PredicateIndicator> set, long generation) {
+      long validFrom = since;
+      for (PredicateIndicator d : set) {
+         validFrom = Math.max(validFrom, lastChange(d));
+      }
+      if (validFrom > generation) return;
+      dependencies.put(pi, new Dependencies(set, validFrom));
+   }
+
+   /*
+    * changed
+    *
+    * Records a change to a predicate, and invalidates the entries
+    * which depend on it.
+    *
+    * @param  predicate indicator
+    * @param  generation of the change
+    */
+   synchronized void changed(PredicateIndicator pi, long generation) {
+      int id = pi.id();
+      if (id >= changed.length) {
+         int n = changed.length;
+         changed = Arrays.copyOf(changed, Math.max(id + 1, n * 2));
+         Arrays.fill(changed, n, changed.length, since);
+      }
+      changed[id] = generation;
+      Iterator<Call> it = entries.values().iterator();
+      while (it.hasNext()) {
+         if (it.next().dependencies.contains(pi)) {
+            it.remove();
+            invalidations++;
+         }
+      }
+      dependencies.values().removeIf(d -> d.set.contains(pi));
+   }
+
+   /*
+    * lastChange
+    *
+    * @param  predicate indicator
+    * @return generation of the last change
+    */
+   private long lastChange(PredicateIndicator pi) {
+      int id = pi.id();
+      return id < changed.length ? changed[id] : since;
+   }
+
+   /**
+    * setCapacity
+    *
+    * Sets the maximum number of calls which are kept.
+    *
+    * @param  capacity
+    */
+   public synchronized void setCapacity(int capacity) {
+      this.capacity = capacity;
+      Iterator<String> it = entries.keySet().iterator();
+      while (entries.size() > capacity && it.hasNext()) {
+         it.next();
+         it.remove();
+         evictions++;
+      }
+   }
+
+   /**
+    * capacity
+    *
+    * @return maximum number of calls
+    */
+   public synchronized int capacity() { return capacity; }
+
+   /**
+    * size
+    *
+    * @return number of calls in the cache
+    */
+   public synchronized int size() { return entries.size(); }
+
+   /**
+    * hits
+    *
+    * @return number of calls which were answered from the cache
+    */
+   public synchronized long hits() { return hits; }
+
+   /**
+    * misses
+    *
+    * @return number of calls which were searched
+    */
+   public synchronized long misses() { return misses; }
+
+   /**
+    * evictions
+    *
+    * @return number of calls which were evicted
+    */
+   public synchronized long evictions() { return evictions; }
+
+   /**
+    * invalidations
+    *
+    * @return number of calls which were invalidated by changes
+    */
+   public synchronized long invalidations() { return invalidations; }
+
+   /**
+    * clear
+    *
+    * Removes all calls. The statistics are kept.
+    */
+   public synchronized void clear() { entries.clear(); }
+
+   /**
+    * toString
+    *
+    * @return statistics
+    */
+   public synchronized String toString() {
+      return "Answer cache: " + entries.size() + "/" + capacity + " calls, " +
+             hits + " hits, " + misses + " misses, " + evictions +
+             " evictions, " + invalidations + " invalidations";
+   }
+
+}  // AnswerCache
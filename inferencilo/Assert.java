@@ -0,0 +1,140 @@
+/**
+ * Assert
+ *
+ * Adds a clause to the knowledge base. Eg.
+ *
+ *    assertz(word(cat, noun))    - adds the fact after the others
+ *    asserta(word(cat, noun))    - adds the fact before the others
+ *    assert(word(cat, noun))     - same as assertz
+ *
+ * Bound variables are replaced by their values. Unbound variables
+ * remain variables of the new clause:
+ *
+ *    $W = cat, assertz(word($W, $T))   - adds word(cat, $T)
+ *
+ * Calls which have already started do not see the new clause.
+ * See KnowledgeBase.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.HashMap;
+
+public class Assert implements Goal {
+
+   private final Unifiable term;
+   private final boolean atFront;   // asserta
+
+   /**
+    * constructor
+    *
+    * @param  term to add
+    * @param  true for asserta, false for assertz
+    */
+   public Assert(Unifiable term, boolean atFront) {
+      if (term == null)
+         throw new FatalParsingException("assert() takes 1 argument.");
+      this.term = term;
+      this.atFront = atFront;
+   }
+
+   /**
+    * constructor
+    *
+    * This constructor takes a string, such as:
+    *
+    *   "word(cat, noun)"
+    *
+    * @param  argument string
+    * @param  true for asserta, false for assertz
+    */
+   public Assert(String str, boolean atFront) {
+      this(Make.term(str), atFront);
+   }
+
+   /**
+    * getTerm
+    *
+    * @return  term to add
+    */
+   public Unifiable getTerm() { return term; }
+
+   /**
+    * isAtFront
+    *
+    * @return  true for asserta, false for assertz
+    */
+   public boolean isAtFront() { return atFront; }
+
+   /**
+    * getSolver
+    *
+    * Returns a solution node for this predicate. The clause is
+    * added once; there are no other solutions on backtracking.
+    *
+    * @param  knowledge base
+    * @param  parent solution set
+    * @param  parent solution node
+    * @return solution node
+    */
+   public SolutionNode getSolver(KnowledgeBase knowledge,
+                                 SubstitutionSet parentSolution,
+                                 SolutionNode parentNode) {
+      return
+
+         new SolutionNode(this, knowledge, parentSolution, parentNode) {
+
+            public SubstitutionSet nextSolution() {
+               if (isDeterministic()) return null;
+               setDeterministic();
+               SubstitutionSet ss = restoreParentSolution();
+               getKnowledgeBase().assertClause(new Rule(clause(ss)), atFront);
+               return ss;
+            }
+         };
+   } // getSolver
+
+   /*
+    * clause
+    *
+    * @param   substitution set
+    * @return  head of the new clause
+    * @throws  InvalidArgumentException
+    */
+   private Complex clause(SubstitutionSet ss) {
+      Unifiable t = Complex.deref(term, ss);
+      if (!(t instanceof Complex)) {
+         throw new InvalidArgumentException("assert() requires a complex term: " + t);
+      }
+      return (Complex)t.replaceVariables(ss);
+   }
+
+   /**
+    * replaceVariables
+    *
+    * Refer to Expression for full comments.
+    *
+    * @param   substitution set
+    * @return  new expression
+    */
+   public Expression replaceVariables(SubstitutionSet ss) {
+      return new Assert((Unifiable)term.replaceVariables(ss), atFront);
+   }
+
+   /**
+    * standardizeVariablesApart
+    *
+    * Refer to class Expression for full comments.
+    */
+   public Expression standardizeVariablesApart(HashMap<String, LogicVar> newVars) {
+      return new Assert((Unifiable)term.standardizeVariablesApart(newVars), atFront);
+   }
+
+   public String toString() {
+      return (atFront ? "asserta(" : "assertz(") + term + ")";
+   }
+
+}  // Assert
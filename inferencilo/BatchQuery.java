@@ -0,0 +1,350 @@
+/**
+ * BatchQuery
+ *
+ * Solves a batch of independent queries against one knowledge base,
+ * in parallel, on an executor. Each query has its own QueryContext,
+ * so its variable IDs and limits are its own, and it can have local
+ * facts, which are put in an overlay (see KnowledgeBase.overlay()).
+ *
+ *    BatchQuery batch = new BatchQuery(grammar);
+ *    for (String sentence : sentences) {
+ *       batch.add("parse(" + sentence + ", $Tree)");
+ *    }
+ *    BatchQuery.Report report = batch.run(BatchQuery.Order.INPUT,
+ *                                         result -> System.out.println(result));
+ *    System.out.println(report);
+ *
+ * The default executor is the common ForkJoin pool. Any ExecutorService
+ * can be given, eg. a fixed thread pool. There is no virtual thread mode,
+ * because virtual threads need JDK 21, and the tree is built on JDK 17.
+ * On JDK 21 or later, Executors.newVirtualThreadPerTaskExecutor() can be
+ * given.
+ *
+ * Results are passed to the consumer on the calling thread, as soon as
+ * they are ready: in the order of the queries (Order.INPUT), or in the
+ * order in which they are finished (Order.COMPLETION). All queries are
+ * solved on a snapshot of the knowledge base, taken when the batch runs.
+ * A query which fails (a parsing error, a time out, etc.) gives a result
+ * with an error; the other queries are not affected.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+public final class BatchQuery {
+
+   /**
+    * Order
+    *
+    * The order in which results are passed to the consumer.
+    */
+   public enum Order { INPUT, COMPLETION }
+
+   /**
+    * Result
+    *
+    * The solutions of one query, or the error which stopped it.
+    */
+   public static final class Result {
+
+      private final int index;
+      private final String query;
+      private final List<String> solutions;
+      private final Exception error;
+      private final long time;   // nanoseconds
+
+      Result(int index, String query, List<String> solutions,
+             Exception error, long time) {
+         this.index = index;
+         this.query = query;
+         this.solutions = solutions;
+         this.error = error;
+         this.time = time;
+      }
+
+      /** @return position of the query in the batch */
+      public int index() { return index; }
+
+      /** @return query as string */
+      public String query() { return query; }
+
+      /** @return solutions as strings, or null if there was an error */
+      public List<String> solutions() { return solutions; }
+
+      /** @return error, or null */
+      public Exception error() { return error; }
+
+      /** @return time spent solving the query, in milliseconds */
+      public double millis() { return time / 1000000.0; }
+
+      public String toString() {
+         if (error != null) return query + " --> " + error;
+         return query + " --> " + solutions;
+      }
+
+   }  // Result
+
+   /**
+    * Report
+    *
+    * Number of queries solved, and the throughput of the batch.
+    */
+   public static final class Report {
+
+      private final int queries;
+      private final int errors;
+      private final long elapsed;   // nanoseconds
+      private final int cores;
+
+      Report(int queries, int errors, long elapsed, int cores) {
+         this.queries = queries;
+         this.errors  = errors;
+         this.elapsed = elapsed;
+         this.cores   = cores;
+      }
+
+      /** @return number of queries */
+      public int queries() { return queries; }
+
+      /** @return number of queries which failed with an error */
+      public int errors() { return errors; }
+
+      /** @return number of cores which the executor could use */
+      public int cores() { return cores; }
+
+      /** @return time spent on the batch, in milliseconds */
+      public double millis() { return elapsed / 1000000.0; }
+
+      /** @return queries per second */
+      public double queriesPerSecond() {
+         if (elapsed == 0) return 0.0;
+         return queries * 1000000000.0 / elapsed;
+      }
+
+      /** @return queries per second, per core */
+      public double queriesPerCore() { return queriesPerSecond() / cores; }
+
+      public String toString() {
+         return String.format("Solved %d queries (%d errors) in %.2f ms: " +
+                              "%.0f queries/s, %.0f queries/s per core (%d cores)",
+                              queries, errors, millis(), queriesPerSecond(),
+                              queriesPerCore(), cores);
+      }
+
+   }  // Report
+
+   private final KnowledgeBase kb;
+   private final ExecutorService executor;
+   private final List<String> queries = new ArrayList<>();
+   private final List<List<String>> facts = new ArrayList<>();
+
+   // Limits of each query's context.
+   private int maxVariables = Global.maxVariables;
+   private int maxErrors = Global.maxErrors;
+   private int maxTime = Global.maxTime;
+
+   /**
+    * constructor
+    *
+    * Queries are solved on the common ForkJoin pool.
+    *
+    * @param  knowledge base
+    */
+   public BatchQuery(KnowledgeBase kb) {
+      this(kb, ForkJoinPool.commonPool());
+   }
+
+   /**
+    * constructor
+    *
+    * @param  knowledge base
+    * @param  executor which solves the queries
+    */
+   public BatchQuery(KnowledgeBase kb, ExecutorService executor) {
+      this.kb = kb;
+      this.executor = executor;
+   }
+
+   /**
+    * add
+    *
+    * Adds a query to the batch.
+    *
+    * @param  query as string, eg. "grandfather($X, $Y)"
+    */
+   public void add(String query) { add(query, null); }
+
+   /**
+    * add
+    *
+    * Adds a query with local facts to the batch. The facts are seen
+    * by this query only.
+    *
+    * @param  query as string
+    * @param  facts (or rules) as strings, or null
+    */
+   public void add(String query, List<String> localFacts) {
+      queries.add(query);
+      facts.add(localFacts);
+   }
+
+   /**
+    * addAll
+    *
+    * Adds queries to the batch.
+    *
+    * @param  queries as strings
+    */
+   public void addAll(Collection<String> queryList) {
+      for (String query : queryList) add(query, null);
+   }
+
+   /**
+    * size
+    *
+    * @return number of queries in the batch
+    */
+   public int size() { return queries.size(); }
+
+   /**
+    * setMaxTime
+    *
+    * @param  maximum time of each query, in milliseconds
+    */
+   public void setMaxTime(int ms) { maxTime = ms; }
+
+   /**
+    * setMaxErrors
+    *
+    * @param  maximum number of errors of each query
+    */
+   public void setMaxErrors(int n) { maxErrors = n; }
+
+   /**
+    * setMaxVariables
+    *
+    * @param  maximum variable ID of each query
+    */
+   public void setMaxVariables(int n) { maxVariables = n; }
+
+   /**
+    * run
+    *
+    * Solves the queries, and waits for all results.
+    *
+    * @return results, in the order of the queries
+    */
+   public List<Result> run() {
+      List<Result> results = new ArrayList<>(queries.size());
+      run(Order.INPUT, results::add);
+      return results;
+   }
+
+   /**
+    * run
+    *
+    * Solves the queries, and passes each result to the consumer when
+    * it is ready. If the calling thread is interrupted, the queries
+    * which have not started are cancelled.
+    *
+    * @param  order of results
+    * @param  consumer of results
+    * @return report
+    */
+   public Report run(Order order, Consumer<? super Result> consumer) {
+
+      int n = queries.size();
+      KnowledgeBase snapshot = kb.snapshot();
+      CompletionService<Result> done = new ExecutorCompletionService<>(executor);
+      List<Future<Result>> futures = new ArrayList<>(n);
+
+      long start = System.nanoTime();
+      for (int i = 0; i < n; i++) {
+         final int index = i;
+         futures.add(done.submit(() -> solve(index, snapshot)));
+      }
+
+      // In input order, results which are ready early wait here.
+      Result[] waiting = order == Order.INPUT ? new Result[n] : null;
+      int next = 0;
+      int errors = 0;
+      try {
+         for (int i = 0; i < n; i++) {
+            Result result = done.take().get();
+            if (result.error() != null) errors++;
+            if (waiting == null) { consumer.accept(result); continue; }
+            waiting[result.index()] = result;
+            while (next < n && waiting[next] != null) {
+               consumer.accept(waiting[next]);
+               waiting[next++] = null;
+            }
+         }
+      } catch (InterruptedException ix) {
+         for (Future<Result> future : futures) future.cancel(false);
+         Thread.currentThread().interrupt();
+      } catch (ExecutionException ex) {
+         // solve() catches exceptions, so this is an Error.
+         for (Future<Result> future : futures) future.cancel(false);
+         throw new RuntimeException(ex.getCause());
+      }
+      long elapsed = System.nanoTime() - start;
+
+      return new Report(n, errors, elapsed, cores());
+   } // run()
+
+   /*
+    * solve
+    *
+    * Solves one query in its own context.
+    *
+    * @param  position of query
+    * @param  snapshot of knowledge base
+    * @return result
+    */
+   private Result solve(int index, KnowledgeBase snapshot) {
+      String query = queries.get(index);
+      List<String> localFacts = facts.get(index);
+      QueryContext context = new QueryContext();
+      context.setMaxVariables(maxVariables);
+      context.setMaxErrors(maxErrors);
+      context.setMaxTime(maxTime);
+      QueryContext previous = context.enter();
+      long start = System.nanoTime();
+      try {
+         KnowledgeBase qkb = snapshot;
+         if (localFacts != null && localFacts.size() > 0) {
+            List<Rule> rules = new ArrayList<>(localFacts.size());
+            for (String str : localFacts) rules.add(new Rule(str));
+            qkb = snapshot.overlay();
+            qkb.addAll(rules);
+         }
+         List<String> solutions = Solutions.solveAll(Make.query(query), qkb);
+         return new Result(index, query, solutions, null, System.nanoTime() - start);
+      } catch (TimeOverrunException | RuntimeException ex) {
+         return new Result(index, query, null, ex, System.nanoTime() - start);
+      } finally { context.exit(previous); }
+   } // solve()
+
+   /*
+    * cores
+    *
+    * @return number of cores which the executor can use
+    */
+   private int cores() {
+      int threads = Runtime.getRuntime().availableProcessors();
+      if (executor instanceof ForkJoinPool) {
+         threads = ((ForkJoinPool)executor).getParallelism();
+      }
+      else if (executor instanceof ThreadPoolExecutor) {
+         threads = ((ThreadPoolExecutor)executor).getMaximumPoolSize();
+      }
+      return Math.max(1, Math.min(threads, Runtime.getRuntime().availableProcessors()));
+   }
+
+}  // BatchQuery
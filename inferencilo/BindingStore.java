@@ -0,0 +1,67 @@
+/**
+ * BindingStore
+ *
+ * Base class for the stores which hold the variable bindings of a
+ * query. A SubstitutionSet consists of a binding store plus a mark.
+ *
+ * There are two implementations:
+ *
+ *   Trail           - Destructive. Bindings are undone when the engine
+ *                     backtracks. A bind costs O(1). This is the default.
+ *   PersistentStore - Structurally shared. Every bind produces a new
+ *                     store, and older stores remain valid. A bind
+ *                     costs O(log n).
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+abstract class BindingStore {
+
+   /**
+    * get
+    *
+    * @param  variable ID
+    * @return bound term, or null
+    */
+   abstract Unifiable get(int id);
+
+   /**
+    * bind
+    *
+    * Binds a variable (ID) to a term. Returns the store which holds
+    * the new binding. A destructive store returns itself.
+    *
+    * @param  variable ID
+    * @param  term
+    * @return binding store
+    */
+   abstract BindingStore bind(int id, Unifiable term);
+
+   /**
+    * mark
+    *
+    * @return current position on the trail (0 if there is none)
+    */
+   abstract int mark();
+
+   /**
+    * undo
+    *
+    * Removes all bindings which were made after the given mark.
+    * Stores which do not modify bindings in place do nothing.
+    *
+    * @param  mark
+    */
+   abstract void undo(int mark);
+
+   /**
+    * size
+    *
+    * @return upper limit of variable IDs in the store
+    */
+   abstract int size();
+
+}  // BindingStore
@@ -56,8 +56,6 @@ public abstract class BuiltInPredicate implements Goal {
 
          new SolutionNode(this, knowledge, parentSolution, parentNode) {
 
-            boolean moreSolutions = true;
-
             /**
              * nextSolution
              *
@@ -67,10 +65,9 @@ public abstract class BuiltInPredicate implements Goal {
              * @return  new substitution set
              */
             public SubstitutionSet nextSolution() {
-               if (noBackTracking()) return null;
-               if (!moreSolutions) return null;
-               moreSolutions = false;
-               return evaluate(parentSolution);
+               if (isDeterministic()) return null;
+               setDeterministic();
+               return evaluate(restoreParentSolution());
             }
          };
    } // getSolver
@@ -0,0 +1,75 @@
+/**
+ * CachedSolutionNode
+ *
+ * Solution node for a call to a cached predicate. The answers of the
+ * call are taken from the answer cache (see AnswerCache), and unified
+ * with the goal, one by one. If the cache cannot be used, the clauses
+ * of the predicate are searched, as by a ComplexSolutionNode.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+public class CachedSolutionNode extends SolutionNode {
+
+   private List<Complex> answers = null;
+   private SolutionNode search = null;  // if the cache cannot be used
+   private int answer = 0;  // index of the next answer
+
+   /**
+    * constructor
+    *
+    * @param  goal
+    * @param  knowledge base
+    * @param  parent solution
+    * @param  parent node
+    */
+   public CachedSolutionNode(Complex goal, KnowledgeBase kb,
+                             SubstitutionSet parentSolution,
+                             SolutionNode parentNode) {
+      super(goal, kb, parentSolution, null);
+   }
+
+   /**
+    * nextSolution
+    *
+    * @return  new substitution set
+    * @throws  TimeOverrunException
+    */
+   public SubstitutionSet nextSolution() throws TimeOverrunException {
+
+      if (isDeterministic()) { return null; }
+
+      if (answers == null && search == null) {
+         KnowledgeBase kb = getKnowledgeBase();
+         answers = kb.cachedAnswers((Complex)goal, getParentSolution());
+         if (answers == null) {
+            search = new ComplexSolutionNode((Complex)goal, kb, getParentSolution(), null);
+         }
+      }
+
+      if (search != null) {
+         SubstitutionSet solution = search.nextSolution();
+         if (search.isDeterministic()) setDeterministic();
+         return solution;
+      }
+
+      while (answer < answers.size()) {
+         Complex a = answers.get(answer++);
+         if (!a.isGround()) {
+            a = (Complex)a.standardizeVariablesApart(new HashMap<String, LogicVar>());
+         }
+         SubstitutionSet solution = a.unify((Unifiable)goal, restoreParentSolution());
+         if (solution != null) {
+            if (answer >= answers.size()) setDeterministic();
+            return solution;
+         }
+      }
+      return null;
+   }
+
+}  // CachedSolutionNode
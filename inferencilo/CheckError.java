@@ -35,10 +35,10 @@ public class CheckError extends BuiltInPredicate {
     * evaluate
     *
     * Get the input error list, and a count of the number of errors.
-    * If the count is less than Global.maxErrors, create a new error
-    * list, with the new error message, and return successfully.
-    * If the error count is equal or greater than Global.maxErrors,
-    * fail (return null).
+    * If the count is less than the maximum (see QueryContext), create
+    * a new error list, with the new error message, and return
+    * successfully. If the error count is equal or greater than the
+    * maximum, fail (return null).
     *
     * @param  parentSolution
     * @return new solution
@@ -49,7 +49,7 @@ public class CheckError extends BuiltInPredicate {
 
       SLinkedList errorList = parentSolution.castSLinkedList(getTerm(0));
       if (errorList == null) return null;
-      if (errorList.count() >= Global.maxErrors) return null;
+      if (errorList.count() >= QueryContext.current().maxErrors()) return null;
 
       // Create a new error list with the new error message.
       Constant newError = parentSolution.castConstant(getTerm(1));
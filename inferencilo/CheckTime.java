@@ -2,11 +2,14 @@
  * CheckTime
  *
  * Check to make sure that maximum execution time has not been exceeded.
- * This built-in predicate makes use of a couple global variables:
+ * This built-in predicate uses the start time and the maximum time of
+ * the current QueryContext. For the default context, these are:
  *
  *    Global.startTime   (in nanoseconds)
  *    Global.maxTime     (in milliseconds)
  *
+ * unless QueryContext.current().start() or setMaxTime() has been called.
+ *
  * @author  Klivo
  * @version 1.0
  */
@@ -80,9 +83,10 @@ public class CheckTime implements Goal {
     */
    public boolean timeOK() throws TimeOverrunException {
 
+      QueryContext context = QueryContext.current();
       long nano = System.nanoTime();
-      long elapsed = (long)((nano - Global.startTime) / 1000000.0);
-      if (elapsed <= Global.maxTime) return true;
+      long elapsed = (long)((nano - context.startTime()) / 1000000.0);
+      if (elapsed <= context.maxTime()) return true;
       else {
          throw new TimeOverrunException(elapsed);
       }
@@ -12,7 +12,6 @@ package inferencilo;
 public class CheckTimeSolutionNode extends SolutionNode {
 
    CheckTime goal;
-   boolean moreSolutions = true;
 
    /**
     * constructor
@@ -39,11 +38,10 @@ public class CheckTimeSolutionNode extends SolutionNode {
     */
    public SubstitutionSet nextSolution() throws TimeOverrunException {
 
-      if (noBackTracking()) { return null; }
-      if (!moreSolutions) { return null; }
-      moreSolutions = false;
+      if (isDeterministic()) { return null; }
+      setDeterministic();
 
-      if (goal.timeOK()) return getParentSolution();
+      if (goal.timeOK()) return restoreParentSolution();
       return null;
    }
 
@@ -0,0 +1,149 @@
+/**
+ * ClauseIndex
+ *
+ * An index of the clauses of a predicate, on one argument position.
+ * The key of an argument is its constant, or the functor/arity of a
+ * complex term, or 'list' for lists. Eg. for position 0:
+ *
+ *    word(the, article).     key: the
+ *    word(cat, noun).        key: cat
+ *    word($X, unknown).      no key
+ *
+ * A clause whose argument has no key (a variable, a number or a function)
+ * may match any goal, so it is put into every bucket. Each bucket holds
+ * clause numbers in the original clause order, so the order of solutions
+ * does not change. Clauses added by asserta are kept in a second list,
+ * in reverse order, which comes before the first:
+ *
+ *    front:   7 4        (asserta: 4, then 7)
+ *    clauses: 0 1 3 5    (in order)
+ *    order:   7 4 0 1 3 5
+ *
+ * The indexes of a predicate are created by the Predicate when they are
+ * first needed, and updated when clauses are added. The Predicate finds
+ * the keys of its clauses, whether they are rules or rows of a FactTable.
+ *
+ * An index is changed by one writer at a time (the Predicate locks
+ * itself), while solution nodes read it without locking. Buckets are
+ * kept in a ConcurrentHashMap, and a bucket publishes a new clause
+ * number by writing its array before its size.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+class ClauseIndex {
+
+   static final long NO_KEY = -1L;
+   private static final long COMPLEX = 1L << 32;
+   private static final long LIST = 2L << 32;
+
+   /*
+    * A list of clause numbers, in clause order.
+    * Clause numbers are only added, at either end; a solution
+    * node may keep the arrays and sizes while the bucket grows.
+    * Readers must read the sizes before the arrays.
+    */
+   static final class Bucket {
+      volatile int[] front = null;   // added at the front, in reverse order
+      volatile int frontSize = 0;
+      volatile int[] clauses = new int[4];
+      volatile int size = 0;
+      Bucket() {}
+      Bucket(Bucket b) {
+         int n = b.size;
+         clauses = Arrays.copyOf(b.clauses, Math.max(4, n));
+         size = n;
+         int f = b.frontSize;
+         if (f > 0) {
+            front = Arrays.copyOf(b.front, f);
+            frontSize = f;
+         }
+      }
+      void add(int clause) {
+         int[] c = clauses;
+         int n = size;
+         if (n == c.length) c = Arrays.copyOf(c, n * 2);
+         c[n] = clause;
+         clauses = c;
+         size = n + 1;
+      }
+      void addFront(int clause) {
+         int[] c = front;
+         int n = frontSize;
+         if (c == null) c = new int[4];
+         else if (n == c.length) c = Arrays.copyOf(c, n * 2);
+         c[n] = clause;
+         front = c;
+         frontSize = n + 1;
+      }
+      int length() { return frontSize + size; }
+   }
+
+   private final ConcurrentHashMap<Long, Bucket> buckets = new ConcurrentHashMap<>();
+   private final Bucket unkeyed = new Bucket();  // clauses without a key
+
+   /*
+    * add
+    *
+    * Adds a clause at the end, or at the front.
+    *
+    * @param  key of the clause's argument, or NO_KEY
+    * @param  clause number
+    * @param  true to add at the front (asserta)
+    */
+   void add(long key, int clause, boolean atFront) {
+      if (key == NO_KEY) {
+         add(unkeyed, clause, atFront);
+         for (Bucket b : buckets.values()) add(b, clause, atFront);
+         return;
+      }
+      Bucket b = buckets.get(key);
+      if (b == null) {
+         b = new Bucket(unkeyed);
+         buckets.put(key, b);
+      }
+      add(b, clause, atFront);
+   }
+
+   private static void add(Bucket b, int clause, boolean atFront) {
+      if (atFront) b.addFront(clause);
+      else b.add(clause);
+   }
+
+   /*
+    * lookup
+    *
+    * @param   key of goal argument
+    * @return  clauses which may match
+    */
+   Bucket lookup(long key) {
+      Bucket b = buckets.get(key);
+      return b == null ? unkeyed : b;
+   }
+
+   /*
+    * key
+    *
+    * Numbers have no key, because 1 unifies with 1.0 .
+    *
+    * @param   term
+    * @return  key of term, or NO_KEY
+    */
+   static long key(Unifiable term) {
+      if (term instanceof Constant) {
+         Constant c = (Constant)term;
+         if (c.isNumber() || c.id() < 0) return NO_KEY;
+         return c.id();
+      }
+      if (term instanceof Complex) return COMPLEX | ((Complex)term).indicator().id();
+      if (term instanceof SLinkedList) return LIST;
+      return NO_KEY;
+   }
+
+}  // ClauseIndex
@@ -27,6 +27,16 @@ public class Complex implements Unifiable, Goal {
 
    private String functor;
    private Unifiable[] terms;
+   private PredicateIndicator indicator;   // eg. father/2
+
+   // Computed when first needed. See isGround().
+   private byte ground = 0;     // 0 = unknown, 1 = ground, -1 = not ground
+   private boolean nested;      // contains a list inside a list
+   private boolean hasNumber;   // a ground term which contains a number
+   private int hash;
+
+   // True if this term is the shared instance in the HashCons table.
+   boolean consed = false;
 
    /**
     * constructor 1
@@ -42,6 +52,21 @@ public class Complex implements Unifiable, Goal {
       }
       terms = args;
       functor = terms[0].toString();
+      indicator = PredicateIndicator.inst((Constant)terms[0], terms.length - 1);
+   }
+
+   /*
+    * constructor
+    *
+    * For copies of a term, which have the same functor and arity.
+    *
+    * @param  predicate indicator
+    * @param  terms
+    */
+   Complex(PredicateIndicator indicator, Unifiable[] terms) {
+      this.terms = terms;
+      this.functor = indicator.functor();
+      this.indicator = indicator;
    }
 
 
@@ -70,7 +95,8 @@ public class Complex implements Unifiable, Goal {
       functor = strFunctor;
 
       if (strTerms == null || strTerms.length() == 0) {
-         terms = new Unifiable[] { new Constant(strFunctor) };
+         terms = new Unifiable[] { Constant.inst(strFunctor) };
+         indicator = PredicateIndicator.inst(functor, 0);
          return;
       }
 
@@ -79,6 +105,7 @@ public class Complex implements Unifiable, Goal {
                   .stream()
                   .map(Make::term)
                   .toArray(Unifiable[]::new);
+      indicator = PredicateIndicator.inst(functor, terms.length - 1);
 
    } // constructor
 
@@ -121,8 +148,9 @@ public class Complex implements Unifiable, Goal {
          // If last character is a period, remove it.
          char last = s.charAt(strLength - 1);
          if (last == '.') { s = s.substring(0, strLength - 1); }
-         terms = new Unifiable[] { new Constant(s) };
+         terms = new Unifiable[] { Constant.inst(s) };
          functor = s;
+         indicator = PredicateIndicator.inst(functor, 0);
          return;
       }
 
@@ -134,7 +162,8 @@ public class Complex implements Unifiable, Goal {
       String arguments = s.substring(parenthesis1 + 1, parenthesis2);
 
       if (arguments.length() == 0) {
-         terms = new Unifiable[] { new Constant(functor) } ;
+         terms = new Unifiable[] { Constant.inst(functor) } ;
+         indicator = PredicateIndicator.inst(functor, 0);
          return;
       }
 
@@ -143,6 +172,7 @@ public class Complex implements Unifiable, Goal {
                   .stream()
                   .map(Make::term)
                   .toArray(Unifiable[]::new);
+      indicator = PredicateIndicator.inst(functor, terms.length - 1);
 
    } // constructor
 
@@ -210,7 +240,17 @@ public class Complex implements Unifiable, Goal {
     *
     * @return predicate name
     */
-   public String key() { return functor() + "/" + arity(); }
+   public String key() { return indicator.toString(); }
+
+   /**
+    * indicator
+    *
+    * The predicate indicator is interned, and resolves directly
+    * to the predicate's entry in a knowledge base.
+    *
+    * @return predicate indicator (functor/arity)
+    */
+   public PredicateIndicator indicator() { return indicator; }
 
    /**
     * toString()
@@ -314,6 +354,62 @@ public class Complex implements Unifiable, Goal {
       return str.equals(str2);
    }
 
+   /**
+    * isGround
+    *
+    * A term is ground if it contains no variables. Ground terms are
+    * never copied by standardizeVariablesApart() or replaceVariables().
+    * The result is cached.
+    *
+    * @return true if ground
+    */
+   public boolean isGround() {
+      if (ground == 0) {
+         byte g = 1;
+         boolean num = false;
+         boolean nest = false;
+         int h = 0;
+         for (Unifiable term : terms) {
+            if (!HashCons.isGround(term)) { g = -1; break; }
+            num |= HashCons.hasNumber(term);
+            nest |= HashCons.isNested(term);
+            h = 31 * h + HashCons.hash(term);
+         }
+         hasNumber = num;
+         nested = nest;
+         hash = h;
+         ground = g;
+      }
+      return ground > 0;
+   }
+
+   /*
+    * isNested
+    *
+    * @return true if this ground term has a list inside a list
+    */
+   boolean isNested() { return isGround() && nested; }
+
+
+   /*
+    * hasNumber
+    *
+    * @return true if this ground term contains a number
+    */
+   boolean hasNumber() { return isGround() && hasNumber; }
+
+   /*
+    * groundHash
+    *
+    * Structural hash code of a ground term.
+    *
+    * @return hash
+    */
+   int groundHash() {
+      isGround();
+      return hash;
+   }
+
    /**
     * unify
     *
@@ -325,10 +421,16 @@ public class Complex implements Unifiable, Goal {
     */
    public SubstitutionSet unify(Unifiable other, SubstitutionSet ss) {
 
+      if (this == other) return ss;
+
       if (other instanceof Complex) {
 
          Complex comp = (Complex)other;
 
+         // Two different shared ground terms cannot unify, unless
+         // they contain numbers. (1 unifies with 1.0 .)
+         if (consed && comp.consed && !hasNumber && !comp.hasNumber) return null;
+
          if (terms.length != comp.length()) return null;  // Must be same size to unify.
          SubstitutionSet newSS = ss;
 
@@ -348,6 +450,76 @@ public class Complex implements Unifiable, Goal {
       return null;
    }
 
+   /*
+    * mayUnify
+    *
+    * A quick check, done before a clause is renamed. Compares the
+    * arguments of this head (a clause template) with the bound arguments
+    * of a goal. Only constants, functors, empty lists and the kinds of terms
+    * (constant, complex, list) are compared. Nothing is bound.
+    *
+    * @param   goal, with the same predicate indicator
+    * @param   substitution set of the goal
+    * @return  false if the head cannot unify with the goal
+    */
+   boolean mayUnify(Complex goal, SubstitutionSet ss) {
+      Unifiable[] goalTerms = goal.terms;
+      if (terms.length != goalTerms.length) return false;
+      for (int i = 1; i < terms.length; i++) {
+         if (clash(terms[i], deref(goalTerms[i], ss))) return false;
+      }
+      return true;
+   }
+
+   /*
+    * deref
+    *
+    * @param   term
+    * @param   substitution set
+    * @return  binding of a bound variable, or the term
+    */
+   static Unifiable deref(Unifiable term, SubstitutionSet ss) {
+      while (term instanceof LogicVar && ss != null && ss.isBound((LogicVar)term)) {
+         term = ss.getBinding((LogicVar)term);
+      }
+      return term;
+   }
+
+   /*
+    * clash
+    *
+    * Numbers, variables and functions are never said to clash.
+    *
+    * @param   term of head
+    * @param   term of goal
+    * @return  true if the terms certainly do not unify
+    */
+   private static boolean clash(Unifiable a, Unifiable b) {
+      if (a instanceof Constant) {
+         if (b instanceof Complex || b instanceof SLinkedList) return true;
+         if (!(b instanceof Constant)) return false;
+         Constant ca = (Constant)a;
+         Constant cb = (Constant)b;
+         if (ca.isNumber() || cb.isNumber()) return false;
+         return ca.id() != cb.id();
+      }
+      if (a instanceof Complex) {
+         if (b instanceof Constant || b instanceof SLinkedList) return true;
+         if (!(b instanceof Complex)) return false;
+         return ((Complex)a).indicator != ((Complex)b).indicator;
+      }
+      if (a instanceof SLinkedList) {
+         if (b instanceof Constant || b instanceof Complex) return true;
+         if (!(b instanceof SLinkedList)) return false;
+         // An empty list does not unify with a list which has a first term.
+         SLinkedList la = (SLinkedList)a;
+         SLinkedList lb = (SLinkedList)b;
+         if (la.isTailVar() || lb.isTailVar()) return false;
+         return (la.getHead() == null) != (lb.getHead() == null);
+      }
+      return false;
+   }
+
    /**
     * replaceVariables
     *
@@ -358,11 +530,14 @@ public class Complex implements Unifiable, Goal {
     * @return  new expression, without variables
     */
    public Expression replaceVariables(SubstitutionSet ss) {
+      if (isGround() && !nested) return this;
       Unifiable[] newTerms = new Unifiable[terms.length];
       for (int i = 0; i < terms.length; i++) {
          newTerms[i] = (Unifiable)terms[i].replaceVariables(ss);
       }
-      return new Complex(newTerms);
+      Complex result = new Complex(indicator, newTerms);
+      if (Global.hashConsing && result.isGround()) return HashCons.intern(result);
+      return result;
    }
 
    /**
@@ -374,6 +549,7 @@ public class Complex implements Unifiable, Goal {
     * @return  expression with standardized variables
     */
    public Expression standardizeVariablesApart(HashMap<String, LogicVar> newVars) {
+      if (isGround() && !nested) return this;  // Nothing to rename.
       Unifiable[] newTerms = new Unifiable[terms.length];
       // Create an array for new terms.
       for (int i = 0; i < length(); i++) {
@@ -382,13 +558,15 @@ public class Complex implements Unifiable, Goal {
          newTerms[i] = (Unifiable)term.standardizeVariablesApart(newVars);
          // Only variables will be affected.
       }
-      return new Complex(newTerms);
+      return new Complex(indicator, newTerms);
    }
 
    /**
     * getSolver
     *
-    * Returns a solution node for this predicate.
+    * Returns a solution node for this predicate. Calls to a
+    * tabled predicate are answered from its answer table, and
+    * calls to a cached predicate from the answer cache.
     * This method satisfies the goal interface.
     *
     * @param  knowledge base
@@ -399,6 +577,12 @@ public class Complex implements Unifiable, Goal {
    public SolutionNode getSolver(KnowledgeBase knowledge,
                                  SubstitutionSet parentSolution,
                                  SolutionNode parentNode) {
+      if (knowledge.isTabled(indicator)) {
+         return new TabledSolutionNode(this, knowledge, parentSolution, parentNode);
+      }
+      if (knowledge.isCached(indicator)) {
+         return new CachedSolutionNode(this, knowledge, parentSolution, parentNode);
+      }
       return new ComplexSolutionNode(this, knowledge, parentSolution, parentNode);
    }
 
@@ -16,6 +16,16 @@
  * the algorithm tries to find a solution (substitution set) for the
  * child. It will return the child solution or null for failure.
  *
+ * If Global.termHeap is set, the head of each rule is also unified
+ * with the goal on a TermHeap, before the rule is renamed.
+ *
+ * Before a clause is tried, the node looks ahead for the next clause
+ * which may match. If there is none, and the child has no more
+ * solutions, the node is deterministic. It releases its clauses and
+ * child, and backtracking into it fails at once. Thus, a recursive
+ * predicate such as words_to_pos/2 does not leave a choice point for
+ * each element of its list.
+ *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
  */
@@ -25,6 +35,10 @@ package inferencilo;
 public class ComplexSolutionNode extends SolutionNode {
 
    private SolutionNode child = null;
+   private Predicate predicate;
+   private Predicate.View clauses = null;  // clauses which the call can see
+   private FactTable facts = null;  // ground facts of the predicate, or null
+   private int count = 0;  // number of clauses in the view
 
    /**
     * constructor
@@ -47,7 +61,18 @@ public class ComplexSolutionNode extends SolutionNode {
       // grandfather($Grand, $Child) :- father($Grand, $X), mother($X, $Child).
       // ...then the count of grandfather is 2;
 
-      int count = knowledge.getRuleCount(goal);
+      // The goal's predicate indicator leads directly to the entry.
+      // Only the clauses which exist now (or in the pinned snapshot)
+      // are tried. Clauses added or retracted later do not change
+      // this call. If the goal has a bound argument, an index may
+      // reduce the clauses.
+      clauses = knowledge.view(goal, parentSolution);
+      if (clauses != null) {
+         predicate = clauses.predicate();
+         predicate.called();
+         count = clauses.length();
+         facts = predicate.facts();
+      }
 
       // Note: Sometimes it is perfectly OK for a goal to fail
       // because a rule or fact is not found in the knowledgebase.
@@ -70,41 +95,106 @@ public class ComplexSolutionNode extends SolutionNode {
     */
    public SubstitutionSet nextSolution() throws TimeOverrunException {
 
-      if (noBackTracking()) { return null; }
+      if (isDeterministic()) { return null; }
 
       SubstitutionSet solution;
 
       if (child != null) {
          solution = child.nextSolution();
-         if (solution != null) return solution;
+         if (solution != null) return found(solution);
       }
 
       child = null;
       Rule rule;
 
-      while (hasNextRule()) {
+      // The next candidate is found before a clause is tried, while the
+      // store holds only the parent's bindings. (Undo the bindings of
+      // the previous attempt.)
+      int position = candidate(getRuleNumber(), restoreParentSolution());
+
+      while (position < count && !noBackTracking()) {
+
+         SubstitutionSet parentSolution = restoreParentSolution();
+         int clause = clauses.clause(position);
+         position = candidate(position + 1, parentSolution);
+         setRuleNumber(position);
+
+         // Ground facts are matched in place. They are not copied.
+         if (facts != null) {
+            solution = facts.unify(clause, (Complex)goal, parentSolution);
+            if (solution != null) return found(solution);
+            continue;
+         }
 
          // The fallbackId saves the nextId, in case the next rule fails.
          // Restoring this id to nextId will keep the substitution set small.
          int fallbackId = LogicVar.getNextId();
 
-         rule = nextRule();
+         rule = predicate.getClause(clause).standardizeApart();
          Complex head = rule.getHead();
-         solution = head.unify((Unifiable)goal, getParentSolution());
+         solution = head.unify((Unifiable)goal, parentSolution);
 
          if (solution == null) {  // If it fails, restore Id.
             LogicVar.setNextId(fallbackId);
          } else { // Success.
             Goal body = rule.getBody();
-            if (body == null) return solution;
+            if (body == null) return found(solution);
             child = body.getSolver(getKnowledgeBase(), solution, this);
             SubstitutionSet childSolution = child.nextSolution();
-            if (childSolution != null) return childSolution;
+            if (childSolution != null) return found(childSolution);
          }
       } // while
       return null;
    }
 
+   /*
+    * candidate
+    *
+    * Finds the next clause which this call can see, and whose head
+    * may unify with the goal. Nothing is bound, and nothing is renamed.
+    *
+    * @param   position in the view
+    * @param   parent solution
+    * @return  position of the clause, or the count if there is none
+    */
+   private int candidate(int position, SubstitutionSet parentSolution) {
+      Complex g = (Complex)goal;
+      for (; position < count; position++) {
+         int clause = clauses.clause(position);
+         if (!clauses.visible(clause)) continue;
+         if (facts != null) {
+            if (facts.mayUnify(clause, g, parentSolution)) return position;
+         }
+         else {
+            Rule rule = predicate.getClause(clause);
+            if (rule.getHead().mayUnify(g, parentSolution) &&
+                (!Global.termHeap || TermHeap.mayUnify(rule, g, parentSolution))) {
+               return position;
+            }
+         }
+      }
+      return count;
+   }
+
+   /*
+    * found
+    *
+    * Returns a solution. A child which has no more solutions is released.
+    * If no other clause can match, this node becomes deterministic.
+    *
+    * @param   solution
+    * @return  solution
+    */
+   private SubstitutionSet found(SubstitutionSet solution) {
+      if (child != null && child.isDeterministic()) child = null;
+      if (child == null && getRuleNumber() >= count) {
+         setDeterministic();
+         clauses = null;
+         facts = null;
+      }
+      return solution;
+   }
+
    /**
     * getChild
     *
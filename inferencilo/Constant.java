@@ -8,11 +8,11 @@
  * According to: http://www.cse.unsw.edu.au/~billw/dictionaries/prolog/atom.html
  * "Numbers, in Prolog, are not considered to be atoms."
  *
- * In this inference engine, there is no distinction between atoms, strings,
- * and numbers. These are represented by the Constant class, which holds an
- * internal String. Arithmetic functions which operate on these Constants must
- * convert their internal strings into numbers (if possible), execute their
- * functions, and convert the result back to a Constants.
+ * In this inference engine, atoms and strings are represented by the Constant
+ * class, which holds an internal String. Numbers are represented by subclasses
+ * of SNumber (SInteger, SFloat), which hold primitive values. A Constant which
+ * is created from a number string, eg. new Constant("42"), also has a numeric
+ * value, so arithmetic functions can operate on it.
  *
  * Reference: http://www.cs.toronto.edu/~hojjat/384w09/Lectures/Prolog_Intro.pdf
  *
@@ -23,26 +23,69 @@
 package inferencilo;
 
 import java.util.*;
-import java.util.regex.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Constant implements Unifiable {
 
-   // For detecting numbers.
-   private static Pattern numberPattern = Pattern.compile("[+-]?\\d+(\\.\\d*)?");
-
    // The internal representation.
-   private String value = null;
+   private final String value;
+
+   // Every distinct string gets a dense integer ID. Two Constants
+   // with the same string have the same ID, even if one of them was
+   // created by the constructor rather than by inst().
+   private final int id;
+
+   // Numbers are classified and converted once, at creation.
+   // If this Constant represents a number, num holds its value.
+   private final SNumber num;
+
+   // A hash table for caching Constants. It holds one Constant for
+   // each string. Constants may be created by several threads at once,
+   // so the table is read without locking, and new strings are added
+   // under a lock (see intern()).
+   private static final ConcurrentHashMap<String, Constant> cache =
+                                                 new ConcurrentHashMap<>();
 
-   // A hash table for caching Constants.
-   private static HashMap<String, Constant> cache = new HashMap<>();
+   // Constants by ID, in order of creation.
+   private static volatile Constant[] byId = new Constant[1024];
+   private static int numIds = 0;
 
    /**
     * constructor
     *
+    * The string is interned. If a Constant with the same string exists
+    * already, this Constant takes its ID and number classification.
+    *
     * @param  value (String)
     */
    public Constant(String value) {
       this.value = value;
+      Constant c = cache.get(value);
+      if (c == null) c = intern(value);
+      id  = c.id;
+      num = c.num;
+   }
+
+   /*
+    * constructor
+    *
+    * For the cached Constant of a new string.
+    */
+   private Constant(String value, int id, SNumber num) {
+      this.value = value;
+      this.id  = id;
+      this.num = num;
+   }
+
+   /*
+    * constructor
+    *
+    * For numbers (SNumber). Numbers are not interned.
+    */
+   Constant() {
+      value = null;
+      id  = -1;
+      num = null;
    }
 
    /**
@@ -56,13 +99,41 @@ public class Constant implements Unifiable {
     */
    public static Constant inst(String key) {
       Constant c = cache.get(key);
-      if (c == null) {
-         c = new Constant(key);
-         cache.put(key, c);
-      }
+      if (c == null) c = intern(key);
+      return c;
+   }
+
+   /*
+    * intern
+    *
+    * Creates the cached Constant for a string, unless another
+    * thread has just created it.
+    *
+    * @param   key (String)
+    * @return  cached Constant
+    */
+   private static synchronized Constant intern(String key) {
+      Constant c = cache.get(key);
+      if (c != null) return c;
+      Constant[] ids = byId;
+      if (numIds == ids.length) ids = Arrays.copyOf(ids, numIds * 2);
+      c = new Constant(key, numIds, SNumber.parse(key));
+      ids[numIds++] = c;
+      byId = ids;
+      cache.put(key, c);
       return c;
    }
 
+   /**
+    * fromId
+    *
+    * Fetches the cached Constant which has the given ID.
+    *
+    * @param   id
+    * @return  Constant
+    */
+   public static Constant fromId(int id) { return byId[id]; }
+
 
    /**
     * toString
@@ -70,62 +141,46 @@ public class Constant implements Unifiable {
    public String toString() { return value; }
 
 
-   /*
-    * isNumber
-    *
-    * Use regex to determine whether a String represents a number.
-    * Valid numbers can have a decimal point and/or a sign.
-    * Eg. 1, 2, 3.14159, -42, +21
+   /**
+    * id
     *
-    * @param  string to convert
-    * @return  true if number, false otherwise
+    * @return  interned ID of this constant
     */
-   private boolean isNumber(String str) {
-      return numberPattern.matcher(str).matches();
-   }
+   public int id() { return id; }
 
 
    /**
     * isNumber
     *
-    * Use regex to determine whether this Constant represents a number.
+    * Determines whether this Constant represents a number.
     * Valid numbers can have a decimal point and/or a sign.
     * Eg. 1, 2, 3.14159, -42, +21
     *
     * @return  true if number, false otherwise
     */
-   public boolean isNumber() {
-      return numberPattern.matcher(value).matches();
-   }
+   public boolean isNumber() { return num != null; }
 
 
-   /*
-    * convertDouble
-    *
-    * Convert string into a double floating point, if possible.
-    * (Returns 0.0 if not.)
+   /**
+    * toNumber
     *
-    * @param   number as string
-    * @return   number as double float
+    * @return  number which this Constant represents, or null
     */
-   private double convertDouble(String str) {
-      try {
-         return Double.parseDouble(str);
-      } catch (NumberFormatException nfe) {
-         return 0.0;
-      }
-   }  // convertDouble
+   public SNumber toNumber() { return num; }
 
 
    /**
     * convertDouble
     *
-    * Convert the value into a double floating point, if possible.
+    * Returns the value as a double floating point, if possible.
     * (Returns 0.0 if not.)
     *
     * @return   number as double float
     */
-   public double convertDouble() { return convertDouble(value); }
+   public double convertDouble() {
+      if (num == null) return 0.0;
+      return num.doubleValue();
+   }
 
 
    /**
@@ -135,10 +190,9 @@ public class Constant implements Unifiable {
     *
     * Note:
     * A constant unifies with itself, i.e., 'verb = verb' succeeds.
-    * To determine if two constants are the same, this method does
-    * a string comparison of the internal string values.
-    * If the internal values represents numbers, unify will convert
-    * the two strings to numbers; 1 unifies with 1.000 .
+    * Two constants are the same if they have the same ID.
+    * If both represent numbers, their values are compared;
+    * 1 unifies with 1.000 .
     *
     * @param  other unifiable
     * @param  substitution set
@@ -146,16 +200,18 @@ public class Constant implements Unifiable {
     */
    public SubstitutionSet unify(Unifiable other, SubstitutionSet ss) {
       if (this == other) return ss;
+      if (other instanceof Constant) {
+         Constant c = (Constant)other;
+         if (id == c.id && id >= 0) return ss;
+         // 1 unifies with 1.0 .
+         SNumber n1 = toNumber();
+         if (n1 == null) return null;
+         SNumber n2 = c.toNumber();
+         if (n2 != null && SNumber.equal(n1, n2)) return ss;
+         return null;
+      }
       if (other instanceof LogicVar) return other.unify(this, ss);
       if (other == Anon.anon) return ss;
-      if (!(other instanceof Constant)) return null;
-      String strThis = value;
-      String strThat = other.toString();
-      if (strThis.equals(strThat)) return ss;
-      // Check for number strings, because 1 unifies with 1.0 .
-      if (isNumber(strThis) && isNumber(strThat)) {
-         if (convertDouble(strThis) == convertDouble(strThat)) return ss;
-      }
       return null;   // No unification.
    }
 
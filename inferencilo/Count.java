@@ -24,7 +24,8 @@ public class Count extends BuiltInPredicate {
    public Count(Unifiable... arguments) {
       super(NAME, arguments);
       if (arguments.length != 2)
-         throw new FatalParsingException("count() takes 2 arguments.");
+         throw new FatalParsingException(
+               "count() takes 2 arguments: " + Make.join(arguments));
    }
 
    /**
@@ -60,7 +61,7 @@ public class Count extends BuiltInPredicate {
       /* Nope - have to count.
       SLinkedList sList = ss.castSLinkedList(arguments[0]);
       if (sList == null) return null;
-      Constant count = new Constant("" + sList.count());
+      Constant count = Constant.inst("" + sList.count());
       return arguments[1].unify(count, ss);
       */
 
@@ -93,7 +94,7 @@ public class Count extends BuiltInPredicate {
       }
 
       int count = sList.recursiveCount(ss);
-      return arguments[1].unify(new Constant("" + count), ss);
+      return arguments[1].unify(SInteger.inst(count), ss);
 
    } // evaluate
 
@@ -31,7 +31,7 @@ public class CutSolutionNode extends SolutionNode {
          parent.setNoBackTracking();
          parent = parent.getParentNode();
       }
-      return parentSolution;
+      return restoreParentSolution();
    }
 
 }
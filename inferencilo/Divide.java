@@ -41,7 +41,7 @@ public class Divide extends SFunction {
     *
     * @param   Substitution Set
     * @param   Unifiable parameters
-    * @return  Constant
+    * @return  SFloat
     * @throws  UnboundArgumentException, NumberFormatException, TooFewArgumentsException
     */
    public Unifiable evaluate(SubstitutionSet ss, Unifiable... params)
@@ -56,16 +56,16 @@ public class Divide extends SFunction {
 
       // All parameters must be bound.
       if (c == null) throw new UnboundArgumentException("in Divide.");
-      double result = Double.parseDouble(c.toString());
+      double result = SNumber.of(c).doubleValue();
 
       // There are one or more divisors.
       for (int i = 1; i < params.length; i++) {
          c = ss.castConstant(params[i]);
          if (c == null) throw new UnboundArgumentException("in Divide.");
-         result /= Double.parseDouble(c.toString());
+         result /= SNumber.of(c).doubleValue();
       }
 
-      return new Constant("" + result);
+      return new SFloat(result);
 
    } // evaluate()
 
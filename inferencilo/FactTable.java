@@ -0,0 +1,203 @@
+/**
+ * FactTable
+ *
+ * Stores the ground facts of a predicate in columns of ints, one column
+ * for each argument. Each argument is stored as an int code. Eg.
+ *
+ *    parent(Godwin, Harold).        column 0    column 1
+ *    parent(Godwin, Tostig).   =>     17          18
+ *    parent(Gytha, Harold).           17          19
+ *                                     20          18
+ *
+ * No Rule or Complex objects are kept. Matching a goal compares codes,
+ * and binds the goal's unbound variables to the terms of the row.
+ * The facts have no variables, so they are never renamed.
+ *
+ * There are two kinds of fact tables:
+ *
+ *    HeapFactTable   - columns in arrays. Codes are interned constant IDs.
+ *    MappedFactTable - columns in a memory-mapped file. See MappedFactStore.
+ *
+ * When a clause with variables, or a rule, is added to the predicate,
+ * the Predicate converts the table back into a list of rules.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+abstract class FactTable {
+
+   // Code of a constant which does not occur in the table.
+   static final int NO_CODE = Integer.MIN_VALUE;
+
+   final PredicateIndicator indicator;
+   final Constant functor;
+   final int arity;
+
+   /*
+    * constructor
+    *
+    * @param  predicate indicator
+    */
+   FactTable(PredicateIndicator indicator) {
+      this.indicator = indicator;
+      this.functor = Constant.inst(indicator.functor());
+      this.arity = indicator.arity();
+   }
+
+   /*
+    * accepts
+    *
+    * @param   rule or fact
+    * @return  true if the clause is a ground fact
+    */
+   static boolean accepts(Rule rule) {
+      return rule.getBody() == null && rule.getHead().isGround() &&
+             !rule.getHead().isNested();
+   }
+
+   /*
+    * size
+    *
+    * @return  number of facts
+    */
+   abstract int size();
+
+   /*
+    * code
+    *
+    * @param   row
+    * @param   argument position (0 is the first argument)
+    * @return  code of argument
+    */
+   abstract int code(int row, int position);
+
+   /*
+    * decode
+    *
+    * @param   code
+    * @return  term
+    */
+   abstract Unifiable decode(int code);
+
+   /*
+    * codeOf
+    *
+    * @param   constant (not a number)
+    * @return  code of the constant, or NO_CODE
+    */
+   abstract int codeOf(Constant c);
+
+   /*
+    * get
+    *
+    * @param   row
+    * @param   argument position
+    * @return  term
+    */
+   Unifiable get(int row, int position) {
+      return decode(code(row, position));
+   }
+
+   /*
+    * key
+    *
+    * @param   row
+    * @param   argument position
+    * @return  index key of the argument. See ClauseIndex.
+    */
+   long key(int row, int position) {
+      return ClauseIndex.key(get(row, position));
+   }
+
+   /*
+    * lookup
+    *
+    * Tables which have their own indexes return the rows whose
+    * argument is the given constant.
+    *
+    * @param   argument position
+    * @param   constant (not a number)
+    * @return  rows, or null if there is no index
+    */
+   ClauseIndex.Bucket lookup(int position, Constant c) { return null; }
+
+   /*
+    * hasIndexes
+    *
+    * @return  true if the table has its own indexes
+    */
+   boolean hasIndexes() { return false; }
+
+   /*
+    * head
+    *
+    * Creates the head of a fact, for display or conversion.
+    *
+    * @param   row
+    * @return  complex term
+    */
+   Complex head(int row) {
+      Unifiable[] t = new Unifiable[arity + 1];
+      t[0] = functor;
+      for (int i = 0; i < arity; i++) t[i + 1] = get(row, i);
+      return new Complex(indicator, t);
+   }
+
+   /*
+    * mayUnify
+    *
+    * A quick check, which binds nothing. Compares the codes of the
+    * bound constants of a goal with a fact. Other terms are said
+    * to match.
+    *
+    * @param   row
+    * @param   goal
+    * @param   substitution set
+    * @return  false if the fact cannot unify with the goal
+    */
+   boolean mayUnify(int row, Complex goal, SubstitutionSet ss) {
+      for (int i = 0; i < arity; i++) {
+         Unifiable g = Complex.deref(goal.getTerm(i + 1), ss);
+         if (g instanceof Constant) {
+            Constant c = (Constant)g;
+            if (!c.isNumber() && c.id() >= 0 && code(row, i) != codeOf(c)) {
+               return false;
+            }
+         }
+      }
+      return true;
+   }
+
+   /*
+    * unify
+    *
+    * Unifies a fact with a goal. Bound constants of the goal are
+    * compared by code; unbound variables are bound.
+    *
+    * @param   row
+    * @param   goal
+    * @param   substitution set
+    * @return  new substitution set, or null
+    */
+   SubstitutionSet unify(int row, Complex goal, SubstitutionSet ss) {
+      for (int i = 0; i < arity; i++) {
+         Unifiable g = Complex.deref(goal.getTerm(i + 1), ss);
+         if (g == null || g == Anon.anon) continue;
+         int code = code(row, i);
+         if (g instanceof Constant) {
+            Constant c = (Constant)g;
+            if (!c.isNumber() && c.id() >= 0) {
+               if (code != codeOf(c)) return null;
+               continue;
+            }
+         }
+         ss = decode(code).unify(g, ss);
+         if (ss == null) return null;
+      }
+      return ss;
+   }
+
+}  // FactTable
@@ -98,8 +98,6 @@ public abstract class FilterBase extends BuiltInPredicate {
 
          new SolutionNode(this, knowledge, parentSolution, parentNode) {
 
-            boolean moreSolutions = true;
-
             /**
              * nextSolution
              *
@@ -109,10 +107,9 @@ public abstract class FilterBase extends BuiltInPredicate {
              * @return  new substitution set
              */
             public SubstitutionSet nextSolution() throws TimeOverrunException {
-               if (noBackTracking()) return null;
-               if (!moreSolutions) return null;
-               moreSolutions = false;
-               return evaluate(parentSolution);
+               if (isDeterministic()) return null;
+               setDeterministic();
+               return evaluate(restoreParentSolution());
             }
          };
 
@@ -158,9 +155,9 @@ public abstract class FilterBase extends BuiltInPredicate {
             }
          }
          if (head == null) break;
-         if (passOrDiscard(head, ss)) {
-            out.add(head);
-         }
+         boolean pass = passOrDiscard(head, ss);
+         ss.restore();  // Discard bindings made by the filter.
+         if (pass) out.add(head);
          sList = sList.getTail();
       } // for
 
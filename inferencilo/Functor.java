@@ -57,7 +57,7 @@ public class Functor extends BuiltInPredicate {
       int len = arguments.length;
       if (len < 2 || len > 3)
          throw new FatalParsingException(
-               "functor() takes 2 or 3 arguments.");
+               "functor() takes 2 or 3 arguments: " + Make.join(arguments));
    }
 
    /**
@@ -122,13 +122,13 @@ public class Functor extends BuiltInPredicate {
             }
          }
          else {
-            ss = term.unify(new Constant(functor), ss);
+            ss = term.unify(Constant.inst(functor), ss);
             if (ss == null) return ss;
          }
       }
       if (arguments.length > 2) {
          Unifiable term = getTerm(2);
-         ss = term.unify(new Constant("" + arity), ss);
+         ss = term.unify(SInteger.inst(arity), ss);
       }
       return ss;
 
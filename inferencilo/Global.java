@@ -4,6 +4,11 @@
  * Global variables for convenience and speed.
  * No need to consult the knowledge base.
  *
+ * maxErrors, startTime, maxTime and maxVariables are read by the default
+ * QueryContext of each thread, unless it has been given its own value
+ * (eg. by QueryContext.current().setMaxTime()). A new QueryContext
+ * copies them when it is created.
+ *
  * @author  Klivo
  * @version 1.0
  */
@@ -15,4 +20,9 @@ public class Global {
    public static long startTime = 0;
    public static int maxTime = 300;  // Max time in milliseconds.
    public static int maxVariables = 8000; // Limit size of substitution sets.
+   public static boolean hashConsing = false; // Share ground terms. See HashCons.
+   public static boolean clauseIndexing = true; // Index clauses. See ClauseIndex.
+   public static boolean factTables = true; // Store ground facts in columns. See FactTable.
+   public static boolean termHeap = false; // Filter clause heads on a TermHeap. See TermHeap.
+   public static boolean integerArithmetic = false; // add(2, 3) gives 5, not 5.0. See SNumber.
 }
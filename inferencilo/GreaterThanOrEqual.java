@@ -66,10 +66,10 @@ public class GreaterThanOrEqual extends CompareBase {
       Constant first  = first(ss);
       Constant second = second(ss);
 
-      if (first.isNumber() && second.isNumber()) {
-         double dFirst  = first.convertDouble();
-         double dSecond = second.convertDouble();
-         if (dFirst >= dSecond) return ss;
+      SNumber nFirst  = first.toNumber();
+      SNumber nSecond = second.toNumber();
+      if (nFirst != null && nSecond != null) {
+         if (SNumber.compare(nFirst, nSecond) >= 0) return ss;
          return null;  // Failure.
       }
       else {
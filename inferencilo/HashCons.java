@@ -0,0 +1,319 @@
+/**
+ * HashCons
+ *
+ * A hash-consing table for ground terms. Identical ground Complex terms
+ * and SLinkedLists are replaced by one shared instance. For example, the
+ * term article(the, definite) may occur in thousands of facts, but only
+ * one instance is kept.
+ *
+ * Subterms are shared first, so two terms are identical if their
+ * functors and arguments are identical (the same instances, or the same
+ * Constants). Each term caches its hash code and ground flag.
+ *
+ * Unifying two different shared terms fails at once, without comparing
+ * their arguments. An exception is made for terms which contain numbers,
+ * because 1 unifies with 1.0 .
+ *
+ * The table holds its terms by weak references, so terms which are no
+ * longer used by any knowledge base or query are removed by the garbage
+ * collector. The table does not keep a long-running process from freeing
+ * memory. (The table cannot be cleared, because two shared instances of
+ * the same term must never exist at the same time.)
+ *
+ * Hash-consing is optional. When Global.hashConsing is true, the
+ * knowledge base shares the terms of its facts and rules, and
+ * replaceVariables() shares the ground terms it creates during search.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.lang.ref.*;
+import java.util.ArrayList;
+
+public class HashCons {
+
+   /*
+    * A weak reference to a shared term, chained in a bucket.
+    */
+   private static class Entry extends WeakReference<Unifiable> {
+      final int hash;
+      Entry next;
+      Entry(Unifiable term, int hash, Entry next, ReferenceQueue<Unifiable> queue) {
+         super(term, queue);
+         this.hash = hash;
+         this.next = next;
+      }
+   }
+
+   private static Entry[] table = new Entry[1024];
+   private static int size = 0;
+   private static ReferenceQueue<Unifiable> queue = new ReferenceQueue<>();
+
+   /**
+    * intern
+    *
+    * Returns the shared instance of a ground term. If the term is not
+    * ground, its ground subterms are shared, and a new term is returned
+    * if any of them changed. Other terms are returned unchanged.
+    *
+    * @param   term
+    * @return  shared term, or the given term
+    */
+   public static synchronized Unifiable intern(Unifiable term) {
+      if (term instanceof Complex) return intern((Complex)term);
+      if (term instanceof SLinkedList) return intern((SLinkedList)term);
+      return term;
+   }
+
+   /**
+    * intern
+    *
+    * @param   complex term
+    * @return  shared term, or a term with shared subterms
+    */
+   public static synchronized Complex intern(Complex c) {
+      if (c.consed) return c;
+      Unifiable[] terms = c.getTerms();
+      Unifiable[] newTerms = null;
+      for (int i = 0; i < terms.length; i++) {
+         Unifiable t = intern(terms[i]);
+         if (t != terms[i]) {
+            if (newTerms == null) newTerms = c.copyTerms();
+            newTerms[i] = t;
+         }
+      }
+      Complex result = (newTerms == null) ? c : new Complex(newTerms);
+      if (!result.isGround()) return result;
+      Complex shared = (Complex)lookup(result, result.groundHash());
+      if (shared != null) return shared;
+      result.consed = true;
+      insert(result, result.groundHash());
+      return result;
+   }
+
+   /**
+    * intern
+    *
+    * The suffixes of a shared list are also shared.
+    *
+    * @param   list
+    * @return  shared list, or a list with shared items
+    */
+   public static synchronized SLinkedList intern(SLinkedList list) {
+      if (list.consed) return list;
+      if (list.getHead() == null) return SLinkedList.empty;
+      if (!list.isGround()) return list;
+      // Collect the nodes, then share them from last to first.
+      ArrayList<SLinkedList> nodes = new ArrayList<>();
+      for (SLinkedList node = list; node != null; node = node.next()) {
+         if (node.getHead() == null) break;
+         nodes.add(node);
+      }
+      SLinkedList tail = null;
+      for (int i = nodes.size() - 1; i >= 0; i--) {
+         SLinkedList node = nodes.get(i);
+         Unifiable head = intern(node.getHead());
+         if (head != node.getHead() || tail != node.next()) {
+            node = new SLinkedList(false, head, tail, node.count());
+         }
+         if (!node.consed) {
+            SLinkedList shared = (SLinkedList)lookup(node, node.groundHash());
+            if (shared != null) node = shared;
+            else {
+               node.consed = true;
+               insert(node, node.groundHash());
+            }
+         }
+         tail = node;
+      }
+      return tail;
+   }
+
+   /**
+    * size
+    *
+    * @return  number of shared terms in the table
+    */
+   public static synchronized int size() {
+      expunge();
+      return size;
+   }
+
+   /*
+    * lookup
+    *
+    * @param   ground term, with shared subterms
+    * @param   hash
+    * @return  shared instance, or null
+    */
+   private static Unifiable lookup(Unifiable term, int hash) {
+      expunge();
+      for (Entry e = table[hash & (table.length - 1)]; e != null; e = e.next) {
+         if (e.hash != hash) continue;
+         Unifiable shared = e.get();
+         if (shared != null && same(shared, term)) return shared;
+      }
+      return null;
+   }
+
+   /*
+    * insert
+    *
+    * @param   term to share
+    * @param   hash
+    */
+   private static void insert(Unifiable term, int hash) {
+      if (size >= table.length * 3 / 4) resize();
+      int i = hash & (table.length - 1);
+      table[i] = new Entry(term, hash, table[i], queue);
+      size++;
+   }
+
+   /*
+    * resize
+    *
+    * Doubles the number of buckets.
+    */
+   private static void resize() {
+      Entry[] newTable = new Entry[table.length * 2];
+      for (Entry e : table) {
+         while (e != null) {
+            Entry next = e.next;
+            int i = e.hash & (newTable.length - 1);
+            e.next = newTable[i];
+            newTable[i] = e;
+            e = next;
+         }
+      }
+      table = newTable;
+   }
+
+   /*
+    * expunge
+    *
+    * Removes entries whose terms were garbage collected.
+    */
+   private static void expunge() {
+      Reference<? extends Unifiable> ref;
+      while ((ref = queue.poll()) != null) {
+         Entry dead = (Entry)ref;
+         int i = dead.hash & (table.length - 1);
+         Entry prev = null;
+         for (Entry e = table[i]; e != null; prev = e, e = e.next) {
+            if (e == dead) {
+               if (prev == null) table[i] = e.next;
+               else prev.next = e.next;
+               size--;
+               break;
+            }
+         }
+      }
+   }
+
+   /*
+    * same
+    *
+    * Compares two ground terms whose subterms are shared. Subterms
+    * are compared by reference; Constants by ID.
+    *
+    * @param   first term
+    * @param   second term
+    * @return  true if identical
+    */
+   private static boolean same(Unifiable a, Unifiable b) {
+      if (a instanceof Complex && b instanceof Complex) {
+         Unifiable[] ta = ((Complex)a).getTerms();
+         Unifiable[] tb = ((Complex)b).getTerms();
+         if (ta.length != tb.length) return false;
+         for (int i = 0; i < ta.length; i++) {
+            if (!sameItem(ta[i], tb[i])) return false;
+         }
+         return true;
+      }
+      if (a instanceof SLinkedList && b instanceof SLinkedList) {
+         SLinkedList la = (SLinkedList)a;
+         SLinkedList lb = (SLinkedList)b;
+         return la.next() == lb.next() && sameItem(la.getHead(), lb.getHead());
+      }
+      return false;
+   }
+
+   /*
+    * sameItem
+    *
+    * @param   first subterm
+    * @param   second subterm
+    * @return  true if identical
+    */
+   private static boolean sameItem(Unifiable a, Unifiable b) {
+      if (a == b) return true;
+      if (a instanceof Constant && b instanceof Constant) {
+         Constant ca = (Constant)a;
+         Constant cb = (Constant)b;
+         if (ca instanceof SNumber || cb instanceof SNumber) {
+            // 7 and 007 are not the same term.
+            return a.getClass() == b.getClass() && a.toString().equals(b.toString());
+         }
+         return ca.id() == cb.id();
+      }
+      return false;
+   }
+
+   /*
+    * isGround
+    *
+    * @param   term
+    * @return  true if the term contains no variables
+    */
+   static boolean isGround(Unifiable term) {
+      if (term instanceof Constant) return true;
+      if (term instanceof Complex) return ((Complex)term).isGround();
+      if (term instanceof SLinkedList) return ((SLinkedList)term).isGround();
+      return false;  // LogicVar, Anon, SFunction, null
+   }
+
+   /*
+    * hasNumber
+    *
+    * @param   ground term
+    * @return  true if the term is or contains a number
+    */
+   static boolean hasNumber(Unifiable term) {
+      if (term instanceof Constant) return ((Constant)term).isNumber();
+      if (term instanceof Complex) return ((Complex)term).hasNumber();
+      if (term instanceof SLinkedList) return ((SLinkedList)term).hasNumber();
+      return false;
+   }
+
+   /*
+    * isNested
+    *
+    * @param   ground term
+    * @return  true if the term contains a list inside a list
+    */
+   static boolean isNested(Unifiable term) {
+      if (term instanceof Complex) return ((Complex)term).isNested();
+      if (term instanceof SLinkedList) return ((SLinkedList)term).isNested();
+      return false;
+   }
+
+   /*
+    * hash
+    *
+    * Structural hash code of a ground term.
+    *
+    * @param   ground term
+    * @return  hash
+    */
+   static int hash(Unifiable term) {
+      if (term instanceof SNumber) return term.toString().hashCode();
+      if (term instanceof Constant) return ((Constant)term).id();
+      if (term instanceof Complex) return ((Complex)term).groundHash();
+      if (term instanceof SLinkedList) return ((SLinkedList)term).groundHash();
+      return 0;
+   }
+
+}  // HashCons
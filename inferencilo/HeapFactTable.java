@@ -0,0 +1,123 @@
+/**
+ * HeapFactTable
+ *
+ * A FactTable whose columns are int arrays. A constant is stored as its
+ * interned ID. Other ground terms (numbers, complex terms, lists) are
+ * kept once in a dictionary, and stored as negative codes: -1, -2, -3 ...
+ *
+ * Facts are added by one writer at a time. A reader may read any row
+ * below the size which it has seen, without locking: grown arrays are
+ * filled before they are published, and the size is written last.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+class HeapFactTable extends FactTable {
+
+   private volatile int[][] columns;
+   private volatile int size = 0;
+
+   // Dictionary of ground terms which are not interned constants.
+   private volatile Unifiable[] terms = new Unifiable[8];
+   private int numTerms = 0;
+   private final HashMap<String, Integer> numberCodes = new HashMap<>();
+   private final IdentityHashMap<Unifiable, Integer> termCodes = new IdentityHashMap<>();
+
+   /*
+    * constructor
+    *
+    * @param  predicate indicator
+    */
+   HeapFactTable(PredicateIndicator indicator) {
+      super(indicator);
+      this.columns = new int[arity][16];
+   }
+
+   int size() { return size; }
+
+   /*
+    * add
+    *
+    * Adds a ground fact at the end.
+    *
+    * @param  head of fact
+    */
+   void add(Complex head) {
+      int[][] cols = columns;
+      int n = size;
+      if (arity > 0 && n == cols[0].length) {
+         int[][] grown = new int[arity][];
+         for (int i = 0; i < arity; i++) {
+            grown[i] = Arrays.copyOf(cols[i], n * 2);
+         }
+         cols = grown;
+      }
+      for (int i = 0; i < arity; i++) {
+         cols[i][n] = encode(head.getTerm(i + 1));
+      }
+      columns = cols;
+      size = n + 1;
+   }
+
+   /*
+    * encode
+    *
+    * @param   ground term
+    * @return  constant ID, or negative code
+    */
+   private int encode(Unifiable term) {
+      if (term instanceof Constant) {
+         Constant c = (Constant)term;
+         if (!c.isNumber() && c.id() >= 0) return c.id();
+         // 7 and 007 are different terms.
+         String key = c.getClass().getName() + ":" + c;
+         Integer code = numberCodes.get(key);
+         if (code == null) {
+            code = newCode(term);
+            numberCodes.put(key, code);
+         }
+         return code;
+      }
+      Integer code = termCodes.get(term);
+      if (code == null) {
+         code = newCode(term);
+         termCodes.put(term, code);
+      }
+      return code;
+   }
+
+   /*
+    * newCode
+    *
+    * @param   term
+    * @return  negative code of term in dictionary
+    */
+   private int newCode(Unifiable term) {
+      Unifiable[] t = terms;
+      if (numTerms == t.length) t = Arrays.copyOf(t, numTerms * 2);
+      t[numTerms++] = term;
+      terms = t;
+      return -numTerms;
+   }
+
+   int code(int row, int position) { return columns[position][row]; }
+
+   Unifiable decode(int code) {
+      if (code >= 0) return Constant.fromId(code);
+      return terms[-code - 1];
+   }
+
+   int codeOf(Constant c) { return c.id(); }
+
+   long key(int row, int position) {
+      int code = columns[position][row];
+      if (code >= 0) return code;
+      return ClauseIndex.key(terms[-code - 1]);
+   }
+
+}  // HeapFactTable
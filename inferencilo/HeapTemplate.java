@@ -0,0 +1,70 @@
+/**
+ * HeapTemplate
+ *
+ * A clause compiled for the TermHeap. The template holds the cells of
+ * the clause, with addresses relative to zero. The first cells are the
+ * roots: one cell for each term of the clause (head, body goals).
+ *
+ * See TermHeap.compile() and TermHeap.copy().
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+public class HeapTemplate {
+
+   private final int[] cells;
+   private final int numRoots;
+   private final boolean opaque;
+
+   /*
+    * constructor
+    *
+    * @param  cells, relative to zero
+    * @param  number of root cells
+    * @param  true if the clause has objects which are not numbers
+    */
+   HeapTemplate(int[] cells, int numRoots, boolean opaque) {
+      this.cells = cells;
+      this.numRoots = numRoots;
+      this.opaque = opaque;
+   }
+
+   /*
+    * cells
+    *
+    * @return  cells of template
+    */
+   int[] cells() { return cells; }
+
+   /*
+    * opaque
+    *
+    * The heap cannot unify objects other than numbers (eg. functions)
+    * as the object representation does.
+    *
+    * @return  true if the clause has objects which are not numbers
+    */
+   boolean opaque() { return opaque; }
+
+   /**
+    * root
+    *
+    * @param   index of term
+    * @return  relative address of the term's root cell
+    */
+   public int root(int i) {
+      if (i < 0 || i >= numRoots) throw new IndexOutOfBoundsException("root " + i);
+      return i;
+   }
+
+   /**
+    * size
+    *
+    * @return  number of cells
+    */
+   public int size() { return cells.length; }
+
+}  // HeapTemplate
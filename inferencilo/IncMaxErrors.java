@@ -1,7 +1,8 @@
 /**
  * IncMaxErrors
  *
- * The global variable Global.maxErrors is used to force the
+ * The maximum number of errors (of the current QueryContext; the
+ * default is Global.maxErrors) is used to force the
  * inference machine to search for a better solution when an
  * error is found. In many cases, there is no better solution,
  * so an error should not force further searches. For example:
@@ -72,7 +73,8 @@ public class IncMaxErrors extends BuiltInPredicate {
     * @return  x = success
     */
    public Unifiable evaluate(SubstitutionSet ss) {
-      Global.maxErrors++;
+      QueryContext context = QueryContext.current();
+      context.setMaxErrors(context.maxErrors() + 1);
       return x;
    }
 
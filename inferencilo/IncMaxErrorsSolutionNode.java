@@ -14,7 +14,6 @@ package inferencilo;
 public class IncMaxErrorsSolutionNode extends SolutionNode {
 
    IncMaxErrors goal;
-   boolean moreSolutions = true;
 
    /**
     * constructor
@@ -41,10 +40,9 @@ public class IncMaxErrorsSolutionNode extends SolutionNode {
     * @return  new substitution set
     */
    public SubstitutionSet nextSolution() throws TimeOverrunException {
-      if (noBackTracking()) { return null; }
-      if (!moreSolutions) { return null; }
-      moreSolutions = false;
-      SubstitutionSet ss = getParentSolution();
+      if (isDeterministic()) { return null; }
+      setDeterministic();
+      SubstitutionSet ss = restoreParentSolution();
       goal.evaluate(ss);
       return ss;
    }
@@ -88,7 +88,7 @@ public class Join extends SFunction {
          count++;
       }
 
-      return new Constant(sb.toString());
+      return Constant.inst(sb.toString());
    } // evaluate
 
 
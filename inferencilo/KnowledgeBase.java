@@ -2,8 +2,61 @@
  * KnowledgeBase
  *
  * Defines a dictionary of Prolog rules and facts.
- * The dictionary (hashmap) is indexed by predicate
- * name and arity, eg. mother/2
+ * The dictionary is indexed by predicate name and
+ * arity, eg. mother/2
+ *
+ * Each predicate has an entry (Predicate), which holds its
+ * clauses. The entries are kept in an array, indexed by the
+ * ID of the interned PredicateIndicator, so finding the
+ * clauses for a goal does not require a string key.
+ *
+ * Queries may run while facts are being added. Writers are serialized
+ * (by locking the knowledge base); readers never lock. A query pins a
+ * snapshot: the directory of predicates and the generation of the
+ * knowledge base at the time of the snapshot. Eg.
+ *
+ *    KnowledgeBase snap = kb.snapshot();  // generation 12
+ *    kb.addRule(...);                     // generation 13
+ *    kb.remove("word/2");                 // generation 14
+ *    ... snap still sees word/2, without the new rule.
+ *
+ * The directory and the generation are published together (Version).
+ * Each write makes a new generation. The directory is copied when a
+ * predicate is created or removed. Predicates only append clauses, so
+ * a snapshot does not copy them; it uses the count of clauses at its
+ * generation (Predicate.count()). Until the first snapshot is taken,
+ * the directory is changed in place.
+ *
+ * Solutions.solve() and solveAll() pin a snapshot for each query.
+ *
+ * Rules can change the knowledge base with assert and retract goals
+ * (see Assert and Retract). A call sees the clauses of its predicate
+ * as they were when the call started (the logical update view). When
+ * a query asserts or retracts a clause, its snapshot is moved to the
+ * new generation, so that later calls of the query see the change.
+ *
+ * An overlay is a small knowledge base over a snapshot of a shared base.
+ * It holds query-local clauses, and finds all other predicates in the
+ * base. A predicate which has an entry in the overlay hides the base's
+ * predicate of the same name and arity. Eg.
+ *
+ *    KnowledgeBase local = grammar.overlay();
+ *    local.addRule("word(envy, verb(envy, present, base))");
+ *    ... queries on local see word/2, and the rules of grammar.
+ *
+ * Creating an overlay copies nothing. The base is not changed; clauses
+ * of the base cannot be retracted through the overlay.
+ *
+ * Predicates can be tabled, with table() or the directive
+ *
+ *    :- table path/2.
+ *
+ * The answers of calls to a tabled predicate are kept in tables (see
+ * Tables), which are reused until the knowledge base changes.
+ *
+ * The answers of selected predicates can be cached (see cache() and
+ * AnswerCache). A cached call is answered without a search, until
+ * a predicate which it depends on is changed.
  *
  * @author  Klivo
  * @version 1.0
@@ -12,10 +65,42 @@
 package inferencilo;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class KnowledgeBase {
 
-   private HashMap<String, List<Rule>> rules = new HashMap<>();
+   /*
+    * A directory of predicates and its generation.
+    * A version is never changed.
+    */
+   private static final class Version {
+      final Predicate[] predicates;
+      final long generation;
+      Version(Predicate[] predicates, long generation) {
+         this.predicates = predicates;
+         this.generation = generation;
+      }
+   }
+
+   private volatile Version version;
+   private volatile boolean versioned = false;  // true after first snapshot
+   private final KnowledgeBase source;   // of a snapshot, or null
+   private final KnowledgeBase base;     // snapshot under an overlay, or null
+
+   // Tabled predicates, and the answer tables of the current generation.
+   private final Set<PredicateIndicator> tabled;
+   private volatile boolean tabling = false;
+   private volatile Tables tables = null;
+
+   // Cached predicates, and their answers.
+   private final Set<PredicateIndicator> cached;
+   private volatile boolean caching = false;
+   private final AnswerCache answers;
+   // Of an overlay: the cached predicates of the base whose answers do not
+   // depend on the overlay's clauses, with the overlay's generation.
+   private final ConcurrentHashMap<PredicateIndicator, Long> baseCached;
+
+   private static final Predicate[] NO_PREDICATES = new Predicate[0];
 
    /*
     * constructor
@@ -23,29 +108,375 @@ public class KnowledgeBase {
     * @param  array of rules/facts
     */
    public KnowledgeBase(Rule... roolz) {
+      version = new Version(new Predicate[64], 0);
+      source = null;
+      base = null;
+      tabled = Collections.newSetFromMap(new ConcurrentHashMap<PredicateIndicator, Boolean>());
+      cached = Collections.newSetFromMap(new ConcurrentHashMap<PredicateIndicator, Boolean>());
+      answers = new AnswerCache();
+      baseCached = null;
       for (Rule rule : roolz) {
          addRule(rule);
       }
    }
 
+   /*
+    * constructor
+    *
+    * Creates a read-only snapshot.
+    *
+    * @param  knowledge base
+    * @param  version to pin
+    */
+   private KnowledgeBase(KnowledgeBase source, Version version) {
+      this.version = version;
+      this.source = source;
+      this.base = source.base;
+      this.tabled = source.tabled;
+      this.cached = source.cached;
+      this.answers = source.answers;
+      this.baseCached = source.baseCached;
+   }
+
+   /*
+    * constructor
+    *
+    * Creates an empty overlay.
+    *
+    * @param  snapshot of base
+    */
+   private KnowledgeBase(KnowledgeBase base) {
+      this.version = new Version(NO_PREDICATES, 0);
+      this.source = null;
+      this.base = base;
+      this.tabled = Collections.newSetFromMap(new ConcurrentHashMap<PredicateIndicator, Boolean>());
+      this.cached = Collections.newSetFromMap(new ConcurrentHashMap<PredicateIndicator, Boolean>());
+      this.answers = new AnswerCache();
+      this.baseCached = new ConcurrentHashMap<>();
+   }
+
+   /**
+    * overlay
+    *
+    * Creates an empty knowledge base over a snapshot of this one.
+    * Clauses added to the overlay are not seen by this knowledge base.
+    *
+    * @return overlay
+    */
+   public KnowledgeBase overlay() {
+      return new KnowledgeBase(snapshot());
+   }
+
+   /**
+    * snapshot
+    *
+    * Creates a read-only view of the knowledge base as it is now.
+    * Later changes to the knowledge base are not seen by the view.
+    * This is cheap: nothing is copied.
+    *
+    * @return snapshot
+    */
+   public KnowledgeBase snapshot() {
+      if (source != null) return this;
+      if (!versioned) {
+         synchronized (this) { versioned = true; }
+      }
+      return new KnowledgeBase(this, version);
+   }
+
+   /**
+    * isSnapshot
+    *
+    * @return true if this is a read-only snapshot
+    */
+   public boolean isSnapshot() { return source != null; }
+
+   /*
+    * writable
+    *
+    * @throws UnsupportedOperationException for a snapshot
+    */
+   private void writable() {
+      if (source != null) {
+         throw new UnsupportedOperationException("Snapshot of knowledge base is read-only.");
+      }
+   }
+
+   /*
+    * nextGeneration
+    *
+    * The generation of a write. Must be called with the lock held.
+    *
+    * @return generation
+    */
+   private long nextGeneration() {
+      return version.generation + 1;
+   }
+
+   /*
+    * epoch
+    *
+    * Predicates record epochs only if there are snapshots.
+    *
+    * @param  generation of a write
+    * @return generation, or -1
+    */
+   private long epoch(long generation) {
+      return versioned ? generation : -1;
+   }
+
+   /*
+    * publish
+    *
+    * Publishes the directory after a write. Must be called with the lock held.
+    *
+    * @param  directory of predicates
+    * @param  generation of the write
+    */
+   private void publish(Predicate[] predicates, long generation) {
+      version = new Version(predicates, generation);
+   }
+
+   /*
+    * changed
+    *
+    * Invalidates the cached answers which depend on a predicate.
+    * Must be called with the lock held, after the write is published.
+    *
+    * @param  predicate indicator
+    * @param  generation of the write
+    */
+   private void changed(PredicateIndicator pi, long generation) {
+      if (caching) answers.changed(pi, generation);
+   }
+
+   /*
+    * entry
+    *
+    * Finds or creates a predicate's entry. If the directory must
+    * change and it may be pinned by a snapshot, it is copied.
+    * Must be called with the lock held.
+    *
+    * @param  directory of predicates
+    * @param  predicate indicator
+    * @return directory, with the entry at the indicator's ID
+    */
+   private Predicate[] entry(Predicate[] predicates, PredicateIndicator pi) {
+      int id = pi.id();
+      if (id < predicates.length && predicates[id] != null) return predicates;
+      if (id >= predicates.length) {
+         predicates = Arrays.copyOf(predicates, Math.max(id + 1, predicates.length * 2));
+      }
+      else if (versioned && predicates == version.predicates) {
+         predicates = predicates.clone();
+      }
+      predicates[id] = new Predicate(pi);
+      return predicates;
+   }
+
    /**
     * addRule
     *
-    * Add one new rule to the knowledge base.
+    * Add one new rule to the knowledge base. The rule is compiled
+    * into a template, so that its variables can be standardized apart
+    * by offset (see VariableFrame). Ground facts are stored in a
+    * FactTable. If Global.hashConsing is set, the ground terms of the
+    * rule's head are shared.
     *
     * @param rule object
     */
    public void addRule(Rule rule) {
-      String key = rule.key();
-      List<Rule> list = rules.get(key);
-      if (list == null) {
-         list = new ArrayList<Rule>();
-         list.add(rule);
-         rules.put(key, list);
+      writable();
+      assertClause(rule, false);
+   }
+
+   /**
+    * asserta
+    *
+    * Adds a rule before the other rules of its predicate.
+    *
+    * @param rule object
+    */
+   public void asserta(Rule rule) {
+      writable();
+      assertClause(rule, true);
+   }
+
+   /**
+    * retract
+    *
+    * Removes the first fact which unifies with the given term.
+    *
+    * @param  fact as complex term
+    * @return true if a fact was removed
+    */
+   public boolean retract(Complex c) {
+      writable();
+      // The variables of the term need IDs.
+      Complex term = (Complex)c.standardizeVariablesApart(new HashMap<String, LogicVar>());
+      return new RetractSolutionNode(new Retract(term), this,
+                                     new SubstitutionSet(), null).nextSolution() != null;
+   }
+
+   /*
+    * assertClause
+    *
+    * Adds a rule at the end, or at the front. A snapshot passes the
+    * rule to its knowledge base, and is then moved to the new version.
+    *
+    * @param  rule
+    * @param  true to add at the front
+    */
+   void assertClause(Rule rule, boolean atFront) {
+      if (source != null) {
+         source.assertClause(rule, atFront);
+         version = source.version;
+         return;
+      }
+      synchronized (this) {
+         long generation = nextGeneration();
+         publish(add(version.predicates, rule, generation, atFront), generation);
+         changed(rule.getHead().indicator(), generation);
+      }
+   }
+
+   /*
+    * retractClause
+    *
+    * Marks a clause as retracted. If the predicate has been compacted
+    * since the clause was found, the clause is found in the new entry.
+    * A snapshot passes the retract to its knowledge base, and is then
+    * moved to the new version.
+    *
+    * @param  predicate
+    * @param  clause number
+    * @return true if the clause was retracted, false if it was already
+    *         retracted, or its predicate was removed
+    */
+   boolean retractClause(Predicate predicate, int clause) {
+      if (source != null) {
+         boolean retracted = source.retractClause(predicate, clause);
+         version = source.version;
+         return retracted;
       }
-      else {
-         list.add(rule);
+      synchronized (this) {
+         while (predicate.compacted() != null) {
+            clause = predicate.renumbered(clause);
+            predicate = predicate.compacted();
+            if (clause < 0) return false;
+         }
+         Predicate[] predicates = version.predicates;
+         int id = predicate.indicator().id();
+         if (id >= predicates.length || predicates[id] != predicate) return false;
+         if (predicate.isRetracted(clause)) return false;
+         long generation = nextGeneration();
+         predicate.retract(clause, generation);
+         if (predicate.needsCompaction()) {
+            if (versioned) predicates = predicates.clone();
+            predicates[id] = predicate.compact();
+         }
+         publish(predicates, generation);
+         changed(predicate.indicator(), generation);
+         return true;
+      }
+   }
+
+   /*
+    * add
+    *
+    * Adds a rule. Must be called with the lock held.
+    *
+    * @param  directory of predicates
+    * @param  rule
+    * @param  generation of the write
+    * @param  true to add at the front
+    * @return directory
+    */
+   private Predicate[] add(Predicate[] predicates, Rule rule, long generation,
+                           boolean atFront) {
+      if (Global.hashConsing) {
+         Complex head = HashCons.intern(rule.getHead());
+         if (head != rule.getHead()) rule = new Rule(head, rule.getBody());
+      }
+      PredicateIndicator pi = rule.getHead().indicator();
+      predicates = entry(predicates, pi);
+      predicates[pi.id()].add(rule, epoch(generation), atFront);
+      return predicates;
+   }
+
+   /**
+    * addFacts
+    *
+    * Adds the facts of a memory-mapped fact store. The facts are not
+    * copied, unless the knowledge base already has clauses for the
+    * same predicate, or clauses are added to it later.
+    *
+    * @param store of facts
+    */
+   public void addFacts(MappedFactStore store) {
+      writable();
+      synchronized (this) {
+         long generation = nextGeneration();
+         Predicate[] predicates = version.predicates;
+         for (MappedFactTable table : store.tables()) {
+            PredicateIndicator pi = table.indicator;
+            int id = pi.id();
+            if (id < predicates.length && predicates[id] != null) {
+               for (int row = 0; row < table.size(); row++) {
+                  predicates[id].add(new Rule(table.head(row)), epoch(generation), false);
+               }
+               continue;
+            }
+            predicates = entry(predicates, pi);
+            predicates[id] = new Predicate(pi, table);
+         }
+         publish(predicates, generation);
+         for (MappedFactTable table : store.tables()) changed(table.indicator, generation);
+      }
+   }
+
+   /**
+    * getPredicate
+    *
+    * Finds the predicate entry for a goal. This is an array lookup.
+    *
+    * @param  goal
+    * @return predicate, or null if there are no clauses
+    */
+   public Predicate getPredicate(Complex goal) {
+      return getPredicate(goal.indicator());
+   }
+
+   /**
+    * getPredicate
+    *
+    * @param  predicate indicator
+    * @return predicate, or null if there are no clauses
+    */
+   public Predicate getPredicate(PredicateIndicator pi) {
+      Predicate[] predicates = version.predicates;
+      int id = pi.id();
+      if (id < predicates.length && predicates[id] != null) return predicates[id];
+      return base == null ? null : base.getPredicate(pi);
+   }
+
+   /*
+    * view
+    *
+    * Finds the clauses which a call can see. The predicate's
+    * entry and the generation are taken from one version.
+    *
+    * @param  goal
+    * @param  substitution set of the goal
+    * @return view of clauses, or null if there is no entry
+    */
+   Predicate.View view(Complex goal, SubstitutionSet ss) {
+      Version v = version;
+      int id = goal.indicator().id();
+      if (id < v.predicates.length && v.predicates[id] != null) {
+         return v.predicates[id].view(goal, ss, v.generation);
       }
+      return base == null ? null : base.view(goal, ss);
    }
 
    /**
@@ -57,8 +488,8 @@ public class KnowledgeBase {
     */
    public void addRule(String str) {
       try {
-         Rule r = new Rule(str);
-         addRule(r);
+         if (str.trim().startsWith(":-")) directive(str);
+         else addRule(new Rule(str));
       } catch(FatalParsingException fpx) {
         System.out.println(fpx.getMessage());
         System.out.println(str);
@@ -81,23 +512,318 @@ public class KnowledgeBase {
    /**
     * addRules
     *
-    * Add facts to the knowledge base.
+    * Add facts to the knowledge base. The rules are parsed first,
+    * then added as one write. A snapshot sees all of them or none.
     *
     * @param  list of rule strings
     */
    public void addRules(List<String> ruleList) {
+      writable();
+      ArrayList<Rule> rules = new ArrayList<>();
       for (String str : ruleList) {
          try {
-            Rule r = new Rule(str);
-            addRule(r);
+            if (str.trim().startsWith(":-")) directive(str);
+            else rules.add(new Rule(str));
          } catch(FatalParsingException fpx) {
            System.out.println(fpx.getMessage());
            System.out.println(str);
          }
       }
+      addAll(rules);
    } // addRules()
 
 
+   /**
+    * addAll
+    *
+    * Adds parsed rules, in order, as one write. A snapshot sees all
+    * of them or none. (See RuleLoader.)
+    *
+    * @param  list of rules
+    */
+   public void addAll(List<Rule> rules) {
+      writable();
+      synchronized (this) {
+         long generation = nextGeneration();
+         Predicate[] predicates = version.predicates;
+         for (Rule r : rules) predicates = add(predicates, r, generation, false);
+         publish(predicates, generation);
+         for (Rule r : rules) changed(r.getHead().indicator(), generation);
+      }
+   } // addAll()
+
+
+   /*
+    * directive
+    *
+    * Executes a directive. At present, the only directive is table:
+    *
+    *    :- table path/2, reachable/1.
+    *
+    * @param  directive as string
+    * @throws FatalParsingException
+    */
+   private void directive(String str) {
+      String d = str.trim().substring(2).trim();
+      if (d.endsWith(".")) d = d.substring(0, d.length() - 1).trim();
+      if (!d.startsWith("table ")) throw new FatalParsingException("Unknown directive.");
+      for (String indicator : d.substring(6).split(",")) table(indicator.trim());
+   }
+
+   /**
+    * table
+    *
+    * Declares a predicate as tabled. Calls to it will be answered
+    * from answer tables.
+    *
+    * @param  predicate indicator as string, eg.: "path/2"
+    * @throws InvalidArgumentException
+    */
+   public void table(String indicator) {
+      writable();
+      PredicateIndicator pi = indicator(indicator);
+      synchronized (this) {
+         tabled.add(pi);
+         tabling = true;
+         tables = null;
+      }
+   }
+
+   /*
+    * indicator
+    *
+    * @param  predicate indicator as string, eg.: "path/2"
+    * @return predicate indicator
+    * @throws InvalidArgumentException
+    */
+   private static PredicateIndicator indicator(String indicator) {
+      int slash = indicator.lastIndexOf('/');
+      int arity = -1;
+      try {
+         if (slash > 0) arity = Integer.parseInt(indicator.substring(slash + 1).trim());
+      } catch (NumberFormatException nfx) { }
+      if (arity < 0) throw new InvalidArgumentException(indicator);
+      return PredicateIndicator.inst(indicator.substring(0, slash).trim(), arity);
+   }
+
+   /**
+    * isTabled
+    *
+    * @param  predicate indicator
+    * @return true if the predicate is tabled
+    */
+   public boolean isTabled(PredicateIndicator pi) {
+      if (source != null) return source.isTabled(pi);
+      if (tabling && tabled.contains(pi)) return true;
+      return base != null && base.isTabled(pi);
+   }
+
+   /**
+    * abolishTables
+    *
+    * Discards all answer tables. They will be filled again when
+    * they are needed.
+    */
+   public void abolishTables() {
+      if (source != null) source.abolishTables();
+      tables = null;
+   }
+
+   /**
+    * cache
+    *
+    * Caches the answers of calls to a predicate. (See AnswerCache.)
+    *
+    * @param  predicate indicator as string, eg.: "check_noun_verb/4"
+    * @throws InvalidArgumentException
+    */
+   public void cache(String indicator) {
+      writable();
+      PredicateIndicator pi = indicator(indicator);
+      synchronized (this) {
+         cached.add(pi);
+         if (!caching) {
+            answers.start(version.generation);
+            caching = true;
+         }
+      }
+   }
+
+   /**
+    * isCached
+    *
+    * @param  predicate indicator
+    * @return true if the answers of the predicate are cached
+    */
+   public boolean isCached(PredicateIndicator pi) {
+      if (cachedHere(pi)) return true;
+      return base != null && base.isCached(pi);
+   }
+
+   /*
+    * cachedHere
+    *
+    * @param  predicate indicator
+    * @return true if the predicate is cached in this knowledge base
+    */
+   private boolean cachedHere(PredicateIndicator pi) {
+      KnowledgeBase kb = source != null ? source : this;
+      return kb.caching && kb.cached.contains(pi);
+   }
+
+   /**
+    * answerCache
+    *
+    * @return the answer cache of this knowledge base
+    */
+   public AnswerCache answerCache() { return answers; }
+
+   /*
+    * cachedAnswers
+    *
+    * Gets the answers of a call to a cached predicate. If they are not
+    * in the cache, they are found, and saved. An overlay uses the base's
+    * cache, unless the answers may depend on the overlay's clauses.
+    *
+    * @param  goal
+    * @param  substitution set of the goal
+    * @return answers, or null if the cache cannot be used
+    * @throws TimeOverrunException
+    */
+   List<Complex> cachedAnswers(Complex goal, SubstitutionSet ss)
+                                         throws TimeOverrunException {
+      PredicateIndicator pi = goal.indicator();
+      if (!cachedHere(pi)) {
+         if (base == null) return null;
+         Version v = version;
+         Long checked = baseCached.get(pi);
+         if (checked == null || checked != v.generation) {
+            Set<PredicateIndicator> dependencies = base.dependencies(pi);
+            for (PredicateIndicator d : dependencies) {
+               int id = d.id();
+               if (id < v.predicates.length && v.predicates[id] != null) return null;
+            }
+            baseCached.put(pi, v.generation);
+         }
+         return base.cachedAnswers(goal, ss);
+      }
+      String key = Tables.variant(goal, ss);
+      long generation = version.generation;
+      List<Complex> list = answers.get(key, generation);
+      if (list != null) return list;
+      list = new ArrayList<>();
+      int fallbackId = LogicVar.getNextId();
+      SolutionNode node = new ComplexSolutionNode(goal, this, ss, null);
+      SubstitutionSet solution = node.nextSolution();
+      while (solution != null) {
+         list.add((Complex)goal.replaceVariables(solution));
+         solution = node.nextSolution();
+      }
+      if (ss != null) ss.restore();
+      LogicVar.setNextId(fallbackId);
+      answers.put(key, list, dependencies(pi), generation);
+      return list;
+   }
+
+   /*
+    * dependencies
+    *
+    * Finds the predicates which a predicate may call, directly or
+    * indirectly, and the predicate itself. The dependencies of a
+    * cached predicate are kept in the answer cache, until one of
+    * them changes.
+    *
+    * @param  predicate indicator
+    * @return set of predicate indicators (not to be modified)
+    */
+   private Set<PredicateIndicator> dependencies(PredicateIndicator pi) {
+      long generation = version.generation;
+      boolean keep = cachedHere(pi);
+      if (keep) {
+         Set<PredicateIndicator> found = answers.getDependencies(pi, generation);
+         if (found != null) return found;
+      }
+      Set<PredicateIndicator> found = findDependencies(pi);
+      if (keep) answers.putDependencies(pi, found, generation);
+      return found;
+   }
+
+   /*
+    * findDependencies
+    *
+    * Walks the rules of a predicate and of the predicates it calls.
+    *
+    * @param  predicate indicator
+    * @return set of predicate indicators
+    */
+   private Set<PredicateIndicator> findDependencies(PredicateIndicator pi) {
+      Set<PredicateIndicator> found = new HashSet<>();
+      ArrayDeque<PredicateIndicator> todo = new ArrayDeque<>();
+      found.add(pi);
+      todo.add(pi);
+      while (!todo.isEmpty()) {
+         Predicate predicate = getPredicate(todo.poll());
+         if (predicate == null || predicate.facts() != null) continue;
+         for (Rule rule : predicate.getClauses()) {
+            calls(rule.getBody(), found, todo);
+         }
+      }
+      return found;
+   }
+
+   /*
+    * calls
+    *
+    * Collects the predicates which a goal calls.
+    *
+    * @param  goal
+    * @param  set of predicates found
+    * @param  predicates to search
+    */
+   private static void calls(Goal goal, Set<PredicateIndicator> found,
+                             ArrayDeque<PredicateIndicator> todo) {
+      if (goal instanceof Complex) {
+         PredicateIndicator pi = ((Complex)goal).indicator();
+         if (found.add(pi)) todo.add(pi);
+      }
+      else if (goal instanceof Operator) {
+         for (Goal operand : ((Operator)goal).getOperands()) calls(operand, found, todo);
+      }
+   }
+
+   /*
+    * tables
+    *
+    * Gets the answer tables of this knowledge base's generation.
+    * A snapshot shares the tables of its knowledge base, if they
+    * have the same generation.
+    *
+    * @return tables
+    */
+   Tables tables() {
+      long generation = version.generation;
+      Tables t = tables;
+      if (t != null && t.generation == generation) return t;
+      if (source != null) t = source.tables(generation);
+      else t = tables(generation);
+      tables = t;
+      return t;
+   }
+
+   /*
+    * tables
+    *
+    * @param  generation
+    * @return tables of the generation
+    */
+   private synchronized Tables tables(long generation) {
+      Tables t = tables;
+      if (t != null && t.generation == generation) return t;
+      t = new Tables(generation);
+      if (generation == version.generation) tables = t;
+      return t;
+   }
+
    /**
     * remove
     *
@@ -105,7 +831,7 @@ public class KnowledgeBase {
     *
     * @param rule as complex term.
     */
-   public void remove(Complex c) { rules.remove(c.key()); }
+   public void remove(Complex c) { remove(c.indicator()); }
 
    /**
     * remove
@@ -114,7 +840,34 @@ public class KnowledgeBase {
     *
     * @param rule as string (eg.: "father/2")
     */
-   public void remove(String str) { rules.remove(str); }
+   public void remove(String str) {
+      PredicateIndicator pi = PredicateIndicator.lookup(str);
+      if (pi != null) remove(pi);
+   }
+
+   /*
+    * remove
+    *
+    * @param predicate indicator
+    */
+   private void remove(PredicateIndicator pi) {
+      writable();
+      synchronized (this) {
+         Predicate[] predicates = version.predicates;
+         int id = pi.id();
+         boolean local = id < predicates.length && predicates[id] != null;
+         // In an overlay, an empty entry hides the base's predicate.
+         boolean hide = base != null && base.getPredicate(pi) != null;
+         if (!local && !hide) return;
+         long generation = nextGeneration();
+         // The entry is dropped, not changed. Running queries keep it.
+         if (id >= predicates.length) predicates = Arrays.copyOf(predicates, id + 1);
+         else if (versioned) predicates = predicates.clone();
+         predicates[id] = hide ? new Predicate(pi) : null;
+         publish(predicates, generation);
+         changed(pi, generation);
+      }
+   }
 
 
    /**
@@ -131,13 +884,8 @@ public class KnowledgeBase {
     * @return rule/fact
     */
    public Rule getRuleStandardizedApart(Goal goal, int i) {
-      String key = ((Complex)goal).key();
-      List<Rule> list = rules.get(key);
-      Rule rule = list.get(i);
-      rule = (Rule)rule.standardizeVariablesApart(
-                new HashMap<String, LogicVar>()
-             );
-      return rule;
+      Predicate predicate = getPredicate((Complex)goal);
+      return predicate.getClause(i).standardizeApart();
    }
 
    /**
@@ -150,15 +898,15 @@ public class KnowledgeBase {
     */
    public int getRuleCount(Goal goal) {
       //showKB();
-      String key = ((Complex)goal).key();
-      List<Rule> list = rules.get(key);
-      if (list == null) {
-         //System.out.println("\nWarning - Unknown rule: " + key);
-         return 0;
-      }
-      else {
-         return list.size();
+      PredicateIndicator pi = ((Complex)goal).indicator();
+      Version v = version;
+      int id = pi.id();
+      if (id < v.predicates.length && v.predicates[id] != null) {
+         return v.predicates[id].size(v.generation);
       }
+      if (base != null) return base.getRuleCount(goal);
+      //System.out.println("\nWarning - Unknown rule: " + goal);
+      return 0;
    }
 
    /**
@@ -169,7 +917,68 @@ public class KnowledgeBase {
     * @return count
     */
    public int getRuleCount() {
-      return rules.size();
+      return countPredicates(new BitSet());
+   }
+
+   /*
+    * countPredicates
+    *
+    * Counts the predicates of this knowledge base and its base.
+    * Empty entries of an overlay hide, but are not counted.
+    *
+    * @param  IDs of predicates hidden by an overlay
+    * @return count
+    */
+   private int countPredicates(BitSet hidden) {
+      int n = 0;
+      BitSet hide = (BitSet)hidden.clone();
+      Predicate[] predicates = version.predicates;
+      for (int id = 0; id < predicates.length; id++) {
+         Predicate predicate = predicates[id];
+         if (predicate == null || hidden.get(id)) continue;
+         hide.set(id);
+         if (base == null || predicate.size() > 0) n++;
+      }
+      if (base != null) n += base.countPredicates(hide);
+      return n;
+   }
+
+   /*
+    * clauses
+    *
+    * Collects the clauses of this knowledge base, then those of its
+    * base, predicate by predicate. (See KnowledgeImage.)
+    *
+    * @param  list of clauses (output)
+    * @param  IDs of predicates hidden by an overlay
+    */
+   void clauses(List<Rule> found, BitSet hidden) {
+      BitSet hide = (BitSet)hidden.clone();
+      Version v = version;
+      for (int id = 0; id < v.predicates.length; id++) {
+         Predicate predicate = v.predicates[id];
+         if (predicate == null || hidden.get(id)) continue;
+         hide.set(id);
+         found.addAll(predicate.getClauses(v.generation));
+      }
+      if (base != null) base.clauses(found, hide);
+   }
+
+   /*
+    * declarations
+    *
+    * Collects the tabled and cached predicates of this knowledge base
+    * and its base.
+    *
+    * @param  tabled predicates (output)
+    * @param  cached predicates (output)
+    */
+   void declarations(Set<PredicateIndicator> tabledFound,
+                     Set<PredicateIndicator> cachedFound) {
+      KnowledgeBase kb = source != null ? source : this;
+      if (kb.tabling) tabledFound.addAll(kb.tabled);
+      if (kb.caching) cachedFound.addAll(kb.cached);
+      if (base != null) base.declarations(tabledFound, cachedFound);
    }
 
    /**
@@ -179,12 +988,28 @@ public class KnowledgeBase {
     */
    public void showKB() {
       System.out.println("########## Contents of Knowledge Base ##########");
-      for (String key : rules.keySet()) {
-         List<Rule> list = rules.get(key);
-         for (Rule r : list) {
+      show(new BitSet());
+   } // showKB
+
+   /*
+    * show
+    *
+    * Prints the clauses of this knowledge base, then those of its base.
+    *
+    * @param  IDs of predicates hidden by an overlay
+    */
+   private void show(BitSet hidden) {
+      BitSet hide = (BitSet)hidden.clone();
+      Version v = version;
+      for (int id = 0; id < v.predicates.length; id++) {
+         Predicate predicate = v.predicates[id];
+         if (predicate == null || hidden.get(id)) continue;
+         hide.set(id);
+         for (Rule r : predicate.getClauses(v.generation)) {
             System.out.println("rule: " + r);
          }
       }
-   } // showKB
+      if (base != null) base.show(hide);
+   }
 
 }  // KnowledgeBase
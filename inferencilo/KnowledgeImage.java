@@ -0,0 +1,697 @@
+/**
+ * KnowledgeImage
+ *
+ * A binary image of the clauses of a knowledge base. Loading an image
+ * does not tokenize or parse any text, so a large rule file which has
+ * been compiled into an image can be loaded quickly at startup.
+ *
+ * The image has a table of the strings of its constants, functors and
+ * variable names, and the clauses, in order, as encoded terms. Each
+ * term is a tag byte followed by its contents:
+ *
+ *    constant   - string number
+ *    number     - string number (Eg. 007 stays 007.)
+ *    variable   - string number of name
+ *    complex    - number of terms, functor and argument terms
+ *    list       - number of items, tail variable flag, item terms
+ *    function   - string number of class, number of arguments, terms
+ *
+ * Counts and string numbers take 1 to 5 bytes, 7 bits per byte.
+ *
+ * The goals of a rule's body are encoded in the same way. Operators
+ * (And, Or, Not...), built-in predicates and functions are stored by
+ * class name, and created again by their constructors. The declared
+ * tabled and cached predicates are also kept. Clause templates and
+ * indexes are built when the clauses are added to the knowledge base,
+ * as for parsed rules.
+ *
+ * An image records the SHA-256 hash of the file which it was made
+ * from. An image which does not match its source file is not used, so
+ * an image can serve as a parse cache beside the rule file:
+ *
+ *    KnowledgeBase kb = new KnowledgeBase();
+ *    KnowledgeImage.fromFile(kb, "grammar.txt");  // uses grammar.txt.kbi
+ *
+ * The first load parses grammar.txt, and writes grammar.txt.kbi. Later
+ * loads read the image, until grammar.txt is changed. An image can also
+ * be made from the command line:
+ *
+ *    java inferencilo.KnowledgeImage grammar.txt
+ *
+ * The file is read through a memory-mapped buffer. It must be smaller
+ * than 2 gigabytes. An image is written to a temporary file, which is
+ * then renamed, so a process never maps a half-written image. An image
+ * which cannot be decoded is treated as invalid, and only operators,
+ * built-in predicates and functions are created from its class names.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+public final class KnowledgeImage {
+
+   public static final String EXTENSION = ".kbi";
+
+   private static final int MAGIC   = 0x494E464B;   // INFK
+   private static final int VERSION = 1;
+   private static final int HASH_SIZE = 32;         // SHA-256
+
+   // Tags of terms and goals.
+   private static final byte CONSTANT  = 0;
+   private static final byte NUMBER    = 1;
+   private static final byte VARIABLE  = 2;
+   private static final byte ANON      = 3;
+   private static final byte COMPLEX   = 4;
+   private static final byte LIST      = 5;
+   private static final byte FUNCTION  = 6;
+   private static final byte NO_BODY   = 7;
+   private static final byte OPERATOR  = 8;
+   private static final byte UNIFY     = 9;
+   private static final byte BUILT_IN  = 10;
+   private static final byte ASSERT    = 11;
+   private static final byte RETRACT   = 12;
+   private static final byte CHECK_TIME = 13;
+
+   /*
+    * constructor
+    */
+   private KnowledgeImage() { }
+
+   /**
+    * fromFile
+    *
+    * Loads the rules of a text file into a knowledge base, from the
+    * file's image (filename + ".kbi"), if it matches the file. If it
+    * does not, the file is parsed, and a new image is written.
+    *
+    * @param  knowledge base
+    * @param  name of rule file
+    * @return true if the image was used, false if the file was parsed
+    * @throws IOException if the rule file cannot be read
+    */
+   public static boolean fromFile(KnowledgeBase kb, String filename)
+                                  throws IOException {
+      byte[] content = Files.readAllBytes(Paths.get(filename));
+      return cached(kb, content, filename + EXTENSION);
+   }
+
+   /**
+    * fromJar
+    *
+    * Loads the rules of a resource in a jar archive into a knowledge
+    * base, from an image file, if it matches the resource. If it does
+    * not, the resource is parsed, and the image file is written.
+    *
+    * @param  knowledge base
+    * @param  class whose loader finds the resource
+    * @param  name of resource
+    * @param  name of image file
+    * @return true if the image was used, false if the resource was parsed
+    * @throws IOException if the resource cannot be read
+    */
+   public static boolean fromJar(KnowledgeBase kb, Class klass, String resource,
+                                 String imageFile) throws IOException {
+      InputStream in = klass.getResourceAsStream(resource);
+      if (in == null) throw new FileNotFoundException(resource);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try {
+         byte[] buffer = new byte[8192];
+         for (int n = in.read(buffer); n > 0; n = in.read(buffer)) bytes.write(buffer, 0, n);
+      } finally { in.close(); }
+      return cached(kb, bytes.toByteArray(), imageFile);
+   }
+
+   /*
+    * cached
+    *
+    * Loads rules from an image, or parses them and writes the image.
+    * If the image cannot be written, the parsed rules are still loaded.
+    *
+    * @param  knowledge base
+    * @param  content of rule file
+    * @param  name of image file
+    * @return true if the image was used
+    */
+   private static boolean cached(KnowledgeBase kb, byte[] content,
+                                 String imageFile) {
+      byte[] hash = hash(content);
+      try {
+         if (new File(imageFile).isFile() && load(kb, imageFile, hash)) return true;
+      } catch (IOException iox) {
+         // Not a valid image. It is written again.
+      }
+      List<String> rules = ReadRules.fromBytes(content);
+      if (rules == null) return false;
+      KnowledgeBase parsed = new KnowledgeBase();
+      parsed.addRules(rules);
+      try {
+         write(imageFile, parsed, hash);
+      } catch (IOException iox) {
+         System.err.println("KnowledgeImage - Cannot write " + imageFile + ".");
+      }
+      copy(parsed, kb);
+      return false;
+   }
+
+   /*
+    * copy
+    *
+    * Adds the clauses and declarations of one knowledge base to another.
+    */
+   private static void copy(KnowledgeBase from, KnowledgeBase to) {
+      List<Rule> clauses = new ArrayList<>();
+      from.clauses(clauses, new BitSet());
+      Set<PredicateIndicator> tabled = new LinkedHashSet<>();
+      Set<PredicateIndicator> cached = new LinkedHashSet<>();
+      from.declarations(tabled, cached);
+      for (PredicateIndicator pi : tabled) to.table(pi.toString());
+      for (PredicateIndicator pi : cached) to.cache(pi.toString());
+      to.addAll(clauses);
+   }
+
+   /**
+    * hash
+    *
+    * @param  content of a rule file
+    * @return SHA-256 hash of the content
+    */
+   public static byte[] hash(byte[] content) {
+      try {
+         return MessageDigest.getInstance("SHA-256").digest(content);
+      } catch (NoSuchAlgorithmException nsax) {
+         throw new IllegalStateException(nsax);   // Every JVM has SHA-256.
+      }
+   }
+
+   /**
+    * load
+    *
+    * Adds the clauses of an image to a knowledge base, if the image
+    * matches the given source hash.
+    *
+    * @param  knowledge base
+    * @param  name of image file
+    * @param  hash of the source file, or null to accept any image
+    * @return true if the image was loaded, false if it does not match
+    *         the hash, or was written by another version
+    * @throws IOException if the file is not an image
+    */
+   public static boolean load(KnowledgeBase kb, String imageFile, byte[] hash)
+                              throws IOException {
+      ByteBuffer buffer;
+      try (RandomAccessFile file = new RandomAccessFile(imageFile, "r");
+           FileChannel channel = file.getChannel()) {
+         buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      if (buffer.capacity() < 8 + HASH_SIZE || buffer.getInt() != MAGIC) {
+         throw new IOException("Not a knowledge base image: " + imageFile);
+      }
+      if (buffer.getInt() != VERSION) return false;
+      byte[] imageHash = new byte[HASH_SIZE];
+      buffer.get(imageHash);
+      if (hash != null && !Arrays.equals(hash, imageHash)) return false;
+      try {
+         new Reader(buffer).read(kb);
+      } catch (RuntimeException rx) {
+         // Truncated or corrupt, eg. a term of the wrong kind.
+         throw new IOException("Invalid knowledge base image: " + imageFile + ": " + rx);
+      }
+      return true;
+   }
+
+   /**
+    * write
+    *
+    * Writes the clauses of a knowledge base (and of its base, for an
+    * overlay) to an image file.
+    *
+    * @param  name of image file
+    * @param  knowledge base
+    * @param  hash of the source file, or null
+    * @throws IOException
+    * @throws InvalidRuleException if a goal cannot be stored
+    */
+   public static void write(String imageFile, KnowledgeBase kb, byte[] hash)
+                            throws IOException {
+
+      List<Rule> clauses = new ArrayList<>();
+      kb.clauses(clauses, new BitSet());
+      Set<PredicateIndicator> tabled = new LinkedHashSet<>();
+      Set<PredicateIndicator> cached = new LinkedHashSet<>();
+      kb.declarations(tabled, cached);
+
+      Writer w = new Writer();
+      for (Rule clause : clauses) {
+         w.term(clause.getHead());
+         if (clause.getBody() == null) w.data.writeByte(NO_BODY);
+         else w.goal(clause.getBody());
+      }
+      int[] declared = new int[(tabled.size() + cached.size()) * 2];
+      int d = 0;
+      for (PredicateIndicator pi : tabled) {
+         declared[d++] = w.string(pi.functor());
+         declared[d++] = pi.arity();
+      }
+      for (PredicateIndicator pi : cached) {
+         declared[d++] = w.string(pi.functor());
+         declared[d++] = pi.arity();
+      }
+
+      Path target = Paths.get(imageFile).toAbsolutePath();
+      Path temp = Files.createTempFile(target.getParent(),
+                                       target.getFileName().toString(), ".tmp");
+      try {
+         write(temp, w, hash, declared, tabled.size(), cached.size(), clauses.size());
+         try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+         } catch (AtomicMoveNotSupportedException amx) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+         }
+      } finally {
+         Files.deleteIfExists(temp);
+      }
+   } // write
+
+   /*
+    * write
+    *
+    * Writes the header, tables and encoded clauses of an image.
+    *
+    * @param   file
+    * @param   encoded clauses and strings
+    * @param   hash of the source file, or null
+    * @param   declared predicates (string number, arity)
+    * @param   number of tabled predicates
+    * @param   number of cached predicates
+    * @param   number of clauses
+    * @throws  IOException
+    */
+   private static void write(Path file, Writer w, byte[] hash, int[] declared,
+                             int numTabled, int numCached, int numClauses)
+                             throws IOException {
+      try (DataOutputStream out = new DataOutputStream(
+              new BufferedOutputStream(Files.newOutputStream(file)))) {
+         out.writeInt(MAGIC);
+         out.writeInt(VERSION);
+         out.write(hash != null ? hash : new byte[HASH_SIZE]);
+         number(out, w.strings.size());
+         number(out, numTabled);
+         number(out, numCached);
+         number(out, numClauses);
+         for (String s : w.strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            number(out, bytes.length);
+            out.write(bytes);
+         }
+         for (int n : declared) number(out, n);
+         w.bytes.writeTo(out);
+      }
+   }
+
+   /*
+    * number
+    *
+    * Writes a non-negative int in 1 to 5 bytes, 7 bits per byte.
+    * Most numbers in an image are small.
+    *
+    * @param   output
+    * @param   n
+    * @throws  IOException
+    */
+   private static void number(DataOutputStream out, int n) throws IOException {
+      while ((n & ~0x7F) != 0) {
+         out.writeByte((n & 0x7F) | 0x80);
+         n >>>= 7;
+      }
+      out.writeByte(n);
+   }
+
+   /**
+    * main
+    *
+    * Writes the image of a rule file.
+    *
+    *    java inferencilo.KnowledgeImage grammar.txt [grammar.kbi]
+    *
+    * @param  name of rule file, and optional name of image file
+    * @throws IOException
+    */
+   public static void main(String[] args) throws IOException {
+      if (args.length < 1) {
+         System.err.println("Usage: java inferencilo.KnowledgeImage <rule file> [image file]");
+         return;
+      }
+      String imageFile = args.length > 1 ? args[1] : args[0] + EXTENSION;
+      byte[] content = Files.readAllBytes(Paths.get(args[0]));
+      List<String> rules = ReadRules.fromBytes(content);
+      if (rules == null) return;
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRules(rules);
+      write(imageFile, kb, hash(content));
+      System.out.println("Wrote " + imageFile);
+   }
+
+   /*
+    * Encodes terms and goals for write().
+    */
+   private static class Writer {
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream data = new DataOutputStream(bytes);
+      ArrayList<String> strings = new ArrayList<>();
+      HashMap<String, Integer> numbers = new HashMap<>();
+
+      /*
+       * string
+       *
+       * @param   string
+       * @return  number of string in the table
+       */
+      int string(String s) {
+         Integer n = numbers.get(s);
+         if (n != null) return n;
+         strings.add(s);
+         numbers.put(s, strings.size() - 1);
+         return strings.size() - 1;
+      }
+
+      // See KnowledgeImage.number().
+      void number(int n) throws IOException { KnowledgeImage.number(data, n); }
+
+      /*
+       * term
+       *
+       * @param   term
+       * @throws  IOException
+       */
+      void term(Unifiable term) throws IOException {
+         if (term instanceof Constant) {
+            Constant c = (Constant)term;
+            data.writeByte(c instanceof SNumber ? NUMBER : CONSTANT);
+            number(string(c.toString()));
+         }
+         else if (term instanceof LogicVar) {
+            data.writeByte(VARIABLE);
+            number(string(((LogicVar)term).name()));
+         }
+         else if (term instanceof Anon) {
+            data.writeByte(ANON);
+         }
+         else if (term instanceof Complex) {
+            Complex comp = (Complex)term;
+            data.writeByte(COMPLEX);
+            number(comp.length());
+            for (Unifiable t : comp.getTerms()) term(t);
+         }
+         else if (term instanceof SLinkedList) {
+            ArrayList<Unifiable> items = new ArrayList<>();
+            boolean tailVar = false;
+            for (SLinkedList node = (SLinkedList)term; node != null; node = node.next()) {
+               if (node.getHead() == null) break;
+               items.add(node.getHead());
+               tailVar = node.isTailVar();
+            }
+            data.writeByte(LIST);
+            number(items.size());
+            data.writeBoolean(tailVar);
+            for (Unifiable t : items) term(t);
+         }
+         else if (term instanceof SFunction) {
+            arguments(FUNCTION, term, ((SFunction)term).arguments);
+         }
+         else throw new InvalidRuleException("Cannot store term: " + term);
+      }
+
+      /*
+       * goal
+       *
+       * @param   goal
+       * @throws  IOException
+       */
+      void goal(Goal goal) throws IOException {
+         if (goal instanceof Complex) term((Complex)goal);
+         else if (goal instanceof Unify) {
+            data.writeByte(UNIFY);
+            term(((Unify)goal).getTerm1());
+            term(((Unify)goal).getTerm2());
+         }
+         else if (goal instanceof Operator) {
+            List<Goal> operands = ((Operator)goal).getOperands();
+            data.writeByte(OPERATOR);
+            number(string(goal.getClass().getName()));
+            number(operands.size());
+            for (Goal g : operands) goal(g);
+         }
+         else if (goal instanceof BuiltInPredicate) {
+            arguments(BUILT_IN, goal, ((BuiltInPredicate)goal).arguments);
+         }
+         else if (goal instanceof Assert) {
+            data.writeByte(ASSERT);
+            data.writeBoolean(((Assert)goal).isAtFront());
+            term(((Assert)goal).getTerm());
+         }
+         else if (goal instanceof Retract) {
+            data.writeByte(RETRACT);
+            term(((Retract)goal).getTerm());
+         }
+         else if (goal instanceof CheckTime) {
+            data.writeByte(CHECK_TIME);
+         }
+         else throw new InvalidRuleException("Cannot store goal: " + goal);
+      }
+
+      /*
+       * arguments
+       *
+       * For built-in predicates and functions, which are created
+       * again by class name.
+       */
+      void arguments(byte tag, Object o, Unifiable[] args) throws IOException {
+         data.writeByte(tag);
+         number(string(o.getClass().getName()));
+         if (args == null) args = new Unifiable[0];
+         number(args.length);
+         for (Unifiable t : args) term(t);
+      }
+
+   } // Writer
+
+   /*
+    * Decodes terms and goals for load().
+    */
+   private static class Reader {
+
+      ByteBuffer buffer;
+      String[] strings;
+      Constant[] constants;   // created when first used
+      SNumber[] numbers;
+
+      Reader(ByteBuffer buffer) { this.buffer = buffer; }
+
+      /*
+       * read
+       *
+       * Reads the tables and clauses, and adds them to a knowledge base.
+       *
+       * @param   knowledge base
+       * @throws  IOException
+       */
+      void read(KnowledgeBase kb) throws IOException {
+         int numStrings = number();
+         int numTabled  = number();
+         int numCached  = number();
+         int numClauses = number();
+         strings = new String[numStrings];
+         constants = new Constant[numStrings];
+         numbers = new SNumber[numStrings];
+         for (int i = 0; i < numStrings; i++) {
+            byte[] bytes = new byte[number()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+         }
+         List<String> tabled = new ArrayList<>();
+         for (int i = 0; i < numTabled; i++) {
+            tabled.add(strings[number()] + "/" + number());
+         }
+         List<String> cached = new ArrayList<>();
+         for (int i = 0; i < numCached; i++) {
+            cached.add(strings[number()] + "/" + number());
+         }
+         List<Rule> clauses = new ArrayList<>(numClauses);
+         for (int i = 0; i < numClauses; i++) {
+            Complex head = (Complex)term();
+            Goal body = null;
+            if (buffer.get(buffer.position()) == NO_BODY) buffer.get();
+            else body = goal();
+            clauses.add(new Rule(head, body));
+         }
+         for (String pi : tabled) kb.table(pi);
+         for (String pi : cached) kb.cache(pi);
+         kb.addAll(clauses);
+      }
+
+      /*
+       * number
+       *
+       * @return  int written by KnowledgeImage.number()
+       */
+      int number() {
+         int n = 0;
+         for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            n |= (b & 0x7F) << shift;
+            if (b >= 0) return n;
+         }
+      }
+
+      /*
+       * term
+       *
+       * @return  term
+       * @throws  IOException
+       */
+      Unifiable term() throws IOException {
+         byte tag = buffer.get();
+         int n;
+         switch (tag) {
+            case CONSTANT:
+               n = number();
+               if (constants[n] == null) constants[n] = Constant.inst(strings[n]);
+               return constants[n];
+            case NUMBER:
+               n = number();
+               if (numbers[n] == null) {
+                  SNumber number = SNumber.parse(strings[n]);
+                  numbers[n] = (number != null) ? number
+                                                : new SFloat(Double.parseDouble(strings[n]));
+               }
+               return numbers[n];
+            case VARIABLE:
+               return new LogicVar(strings[number()]);
+            case ANON:
+               return Anon.anon;
+            case COMPLEX:
+               Unifiable[] terms = new Unifiable[number()];
+               for (int i = 0; i < terms.length; i++) terms[i] = term();
+               return new Complex(terms);
+            case LIST:
+               int count = number();
+               boolean tailVar = buffer.get() != 0;
+               if (count == 0) return SLinkedList.empty;
+               Unifiable[] items = new Unifiable[count];
+               for (int i = 0; i < count; i++) items[i] = term();
+               SLinkedList list = null;
+               for (int i = count - 1; i >= 0; i--) {
+                  list = new SLinkedList(tailVar && i == count - 1, items[i], list, count - i);
+               }
+               return list;
+            case FUNCTION:
+               String className = strings[number()];
+               return (Unifiable)create(className, SFunction.class,
+                                        Unifiable[].class, arguments());
+            default:
+               throw new IOException("Invalid term in knowledge base image.");
+         }
+      }
+
+      /*
+       * goal
+       *
+       * @return  goal
+       * @throws  IOException
+       */
+      Goal goal() throws IOException {
+         byte tag = buffer.get(buffer.position());
+         if (tag == COMPLEX) return (Complex)term();
+         buffer.get();
+         switch (tag) {
+            case UNIFY:
+               Unifiable term1 = term();
+               return new Unify(term1, term());
+            case OPERATOR:
+               String className = strings[number()];
+               List<Goal> operands = new ArrayList<>();
+               int n = number();
+               for (int i = 0; i < n; i++) operands.add(goal());
+               return (Goal)create(className, Operator.class, List.class, operands);
+            case BUILT_IN:
+               className = strings[number()];
+               return (Goal)create(className, BuiltInPredicate.class,
+                                   Unifiable[].class, arguments());
+            case ASSERT:
+               boolean atFront = buffer.get() != 0;
+               return new Assert(term(), atFront);
+            case RETRACT:
+               return new Retract(term());
+            case CHECK_TIME:
+               return new CheckTime();
+            default:
+               throw new IOException("Invalid goal in knowledge base image.");
+         }
+      }
+
+      /*
+       * arguments
+       *
+       * @return  arguments of a built-in predicate or function
+       * @throws  IOException
+       */
+      Unifiable[] arguments() throws IOException {
+         Unifiable[] args = new Unifiable[number()];
+         for (int i = 0; i < args.length; i++) args[i] = term();
+         return args;
+      }
+
+      /*
+       * create
+       *
+       * Creates an operator, built-in predicate or function by its
+       * class name. Classes which take no arguments (Cut, NewLine...)
+       * may have only a constructor without parameters. A class which
+       * is not of the expected kind is not loaded.
+       *
+       * @param   class name
+       * @param   expected kind (Operator, BuiltInPredicate, SFunction)
+       * @param   parameter type of constructor
+       * @param   argument
+       * @return  new object
+       * @throws  IOException
+       */
+      Object create(String className, Class<?> kind, Class<?> type, Object arg)
+                                                            throws IOException {
+         try {
+            Class<?> c = Class.forName(className, false, kind.getClassLoader());
+            if (!kind.isAssignableFrom(c)) {
+               throw new IOException("Not a " + kind.getSimpleName() + ": " + className);
+            }
+            try {
+               return c.getConstructor(type).newInstance(arg);
+            } catch (NoSuchMethodException nsmx) {
+               return c.getConstructor().newInstance();
+            }
+         } catch (InvocationTargetException itx) {
+            throw new IOException("Cannot create " + className + ": " + itx.getCause());
+         } catch (ReflectiveOperationException rox) {
+            throw new IOException("Cannot create " + className + ": " + rox);
+         }
+      }
+
+   } // Reader
+
+}  // KnowledgeImage
@@ -34,8 +34,8 @@ import java.util.*;
 public class LogicVar implements Unifiable {
 
    private String name = null;
-   private static int nextId = 0;
    private int id;
+   private int slot = -1;   // Number of the variable in a clause template.
 
    /**
     * constructor
@@ -59,11 +59,25 @@ public class LogicVar implements Unifiable {
     * @param variable to copy
     */
    private LogicVar(LogicVar v) {
-      nextId++;
-      this.id = nextId;
+      this.id = QueryContext.current().newId();
       this.name = v.name();
    }
 
+   /*
+    * constructor
+    *
+    * Creates a variable with the given ID. Used by VariableFrame.
+    *
+    * @param  name of variable
+    * @param  id
+    * @param  slot number in a clause template, or -1
+    */
+   LogicVar(String name, int id, int slot) {
+      this.name = name;
+      this.id = id;
+      this.slot = slot;
+   }
+
    /**
     * toString
     *
@@ -91,6 +105,16 @@ public class LogicVar implements Unifiable {
     */
    int id() { return id; }
 
+   /*
+    * slot
+    *
+    * Variables of a compiled clause (template) are numbered
+    * from 0 to k-1. Other variables have no slot.
+    *
+    * @return  slot number, or -1
+    */
+   int slot() { return slot; }
+
    /**
     * nextId
     *
@@ -99,24 +123,24 @@ public class LogicVar implements Unifiable {
     * @return this object
     */
    public LogicVar nextId() {
-      nextId++;
-      this.id = nextId;
+      this.id = QueryContext.current().newId();
       return this;
    }
 
    /**
     * getNextId
-    * This is a getter. It simply returns the value of nextId.
+    * This is a getter. It simply returns the value of nextId,
+    * in the current context. (See QueryContext.)
     * @return next ID
     */
-   public static int getNextId() { return nextId; }
+   public static int getNextId() { return QueryContext.current().getNextId(); }
 
    /**
     * setNextId
-    * Sets the value of nextId.
+    * Sets the value of nextId, in the current context.
     * @param id
     */
-   public static void setNextId(int id) { nextId = id; }
+   public static void setNextId(int id) { QueryContext.current().setNextId(id); }
 
    /**
     * reset
@@ -127,8 +151,35 @@ public class LogicVar implements Unifiable {
     * without limit, the substitution set will also grow without
     * limit, which will greatly slow down the algorithm.
     * Reset the variable ID before each search for a solution.
+    * Each thread has its own variable IDs. (See QueryContext.)
     */
-   public static void reset() { nextId = 1; }
+   public static void reset() { QueryContext.current().setNextId(1); }
+
+   /*
+    * reserve
+    *
+    * Reserves k consecutive variable IDs, for the variables of
+    * a clause template. See VariableFrame.
+    *
+    * @param   number of IDs
+    * @return  first ID
+    * @throws  MemoryLimitException
+    */
+   static int reserve(int k) {
+      return QueryContext.current().reserve(k);
+   }
+
+   /*
+    * fresh
+    *
+    * Creates a copy of this variable with a new ID.
+    *
+    * @return  new variable
+    * @throws  MemoryLimitException
+    */
+   LogicVar fresh() {
+      return new LogicVar(this);
+   }
 
    /**
     * unify
@@ -152,14 +203,8 @@ public class LogicVar implements Unifiable {
          return ss.getBinding(this).unify(other, ss);
       }
 
-      SubstitutionSet newSubstitutionSet = new SubstitutionSet(ss);
-      try {
-         newSubstitutionSet.add(this, other);
-      }
-      catch (AlreadyBoundException abx) {
-         System.err.println(abx.toString());
-      }
-      return newSubstitutionSet;
+      // The binding is O(1). It is undone when the engine backtracks.
+      return ss.bind(this, other);
    }
 
    /**
@@ -183,13 +228,14 @@ public class LogicVar implements Unifiable {
     * Refer to Expression interface for full comments.
     */
    public Expression standardizeVariablesApart(HashMap<String, LogicVar> newVars) {
+      // Variables of clause templates are renamed by offset.
+      if (newVars instanceof VariableFrame) {
+         return ((VariableFrame)newVars).rename(this);
+      }
       // Check if the expression already has a substitute variable.
       LogicVar newVar = newVars.get(this.toString());
       if (newVar == null) {     // If not create one.
-         newVar = new LogicVar(this);
-         if (newVar.id() > Global.maxVariables) {
-            throw new MemoryLimitException("LogicVar id: " + newVar.id());
-         }
+         newVar = fresh();
          newVars.put(this.toString(), newVar);
       }
       return newVar;
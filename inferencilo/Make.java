@@ -8,7 +8,8 @@
  *    Make.term("[1, 2, 3]")
  *    Make.and("mother($X, $Z), mother($Z, $Y)")
  *
- * 'Make' is also used by the parser (see Tokenizer).
+ * 'Make' is also used by the Tokenizer, and by the string constructors
+ * of built-in predicates. Rules are parsed by Parser.
  *
  * About text strings:
  *
@@ -54,6 +55,7 @@ public class Make {
     * term
     *
     * A factory method to produce a unifiable term from a string.
+    * Numbers become SIntegers or SFloats, eg. "42", "3.14".
     *
     * @param   string representing term, eg.: "noun", "$X", "[1, 2, 3]"
     * @return  Unifiable object, Constant, LogicVar, SLinkedList etc.
@@ -116,6 +118,9 @@ public class Make {
          throw new InvalidListException(s);
       }  // List
 
+      SNumber number = SNumber.parse(s);
+      if (number != null) return number;
+
       return Constant.inst(s);
 
    }  // term()
@@ -244,7 +249,6 @@ public class Make {
     * @return subgoal as Goal object
     * @throws FatalParsingException
     */
-   static String args[] = new String[2];
    public static Goal subgoal(String subgoal) {
 
       String s1, s2;
@@ -351,6 +355,15 @@ public class Make {
       else if (functor.equals("exclude")) {
          return new Exclude(contents);
       }
+      else if (functor.equals("assert") || functor.equals("assertz")) {
+         return new Assert(contents, false);
+      }
+      else if (functor.equals("asserta")) {
+         return new Assert(contents, true);
+      }
+      else if (functor.equals("retract")) {
+         return new Retract(contents);
+      }
 
       return new Complex(s);
 
@@ -463,6 +476,25 @@ public class Make {
    } // splitTerms
 
 
+   /*
+    * join
+    *
+    * Joins terms with commas, for error messages. The opposite of
+    * splitTerms(), eg. "$X, 10".
+    *
+    * @param  terms
+    * @return comma separated string
+    */
+   static String join(Unifiable[] terms) {
+      StringBuilder sb = new StringBuilder();
+      for (Unifiable term : terms) {
+         if (sb.length() > 0) sb.append(", ");
+         sb.append(term);
+      }
+      return sb.toString();
+   } // join
+
+
    /*
     * cleanEscapes
     *
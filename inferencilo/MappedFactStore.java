@@ -0,0 +1,485 @@
+/**
+ * MappedFactStore
+ *
+ * A file of ground facts, which is read through a memory-mapped buffer.
+ * Very large fact bases (lexicons, etc.) do not have to be parsed or
+ * kept on the heap. Opening a store only maps the file; the operating
+ * system pages data in when it is read.
+ *
+ * The file has a dictionary of terms, and a table of facts for each
+ * predicate. Every argument of a fact is stored as the number of its
+ * dictionary entry. The terms of the dictionary are:
+ *
+ *    constant  - UTF-8 text
+ *    number    - UTF-8 text (Eg. 007 stays 007.)
+ *    complex   - functor entry, arity, argument entries
+ *    list      - number of items, item entries
+ *
+ * Each table has a column of entries for each argument, and an index
+ * for each column: the row numbers sorted by entry. Rows with a given
+ * constant are found by binary search, in their original order. The
+ * constants of the dictionary are also in a hash table, so that the
+ * constants of a goal can be found.
+ *
+ * Usage:
+ *
+ *    MappedFactStore.write("lexicon.facts", facts);
+ *    ...
+ *    MappedFactStore store = MappedFactStore.open("lexicon.facts");
+ *    kb.addFacts(store);
+ *
+ * Queries read facts directly from the buffer. Terms are created only
+ * for the arguments which bind a goal's variables. Rule objects are
+ * created only if they are requested (Predicate.getClause()). The most
+ * recently used terms, and the entries of constants which goals have
+ * looked up, are cached. (See setCacheSize().)
+ *
+ * The file must be smaller than 2 gigabytes.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class MappedFactStore {
+
+   public static final int DEFAULT_CACHE_SIZE = 4096;
+
+   private static final int MAGIC   = 0x494E464D;   // INFM
+   private static final int VERSION = 1;
+   private static final int HEADER_SIZE = 9 * 4;
+
+   // Kinds of dictionary entries.
+   private static final byte CONSTANT = 0;
+   private static final byte NUMBER   = 1;
+   private static final byte COMPLEX  = 2;
+   private static final byte LIST     = 3;
+
+   private final ByteBuffer buffer;
+   private final int numEntries;
+   private final int entryIndex;
+   private final int entryData;
+   private final int hashTable;
+   private final int hashSize;
+   private final ArrayList<MappedFactTable> tables = new ArrayList<>();
+
+   // Terms and constants which have been looked up, by any thread.
+   // In access order, for LRU eviction. Locked by synchronizedMap.
+   private volatile int cacheSize = DEFAULT_CACHE_SIZE;
+   private final Map<Integer, Unifiable> terms = Collections.synchronizedMap(lru());
+   private final Map<Integer, Integer> entries = Collections.synchronizedMap(lru());
+
+   /*
+    * constructor
+    *
+    * @param   mapped buffer
+    * @throws  IOException
+    */
+   private MappedFactStore(ByteBuffer buffer, String filename) throws IOException {
+      this.buffer = buffer;
+      if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC ||
+          buffer.getInt(4) != VERSION) {
+         throw new IOException("Not a fact store: " + filename);
+      }
+      numEntries = buffer.getInt(8);
+      int numPredicates = buffer.getInt(12);
+      entryIndex = buffer.getInt(16);
+      entryData  = buffer.getInt(20);
+      hashTable  = buffer.getInt(24);
+      hashSize   = buffer.getInt(28);
+      int directory = buffer.getInt(32);
+      for (int p = 0; p < numPredicates; p++) {
+         int d = directory + p * 16;
+         String functor = text(buffer.getInt(d));
+         PredicateIndicator pi = PredicateIndicator.inst(functor, buffer.getInt(d + 4));
+         tables.add(new MappedFactTable(pi, this, buffer.getInt(d + 8), buffer.getInt(d + 12)));
+      }
+   }
+
+   /**
+    * open
+    *
+    * Maps a fact store file into memory.
+    *
+    * @param   file name
+    * @return  fact store
+    * @throws  IOException
+    */
+   public static MappedFactStore open(String filename) throws IOException {
+      try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+           FileChannel channel = file.getChannel()) {
+         // The mapping stays valid after the channel is closed.
+         ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+         return new MappedFactStore(buffer, filename);
+      }
+   }
+
+   /**
+    * size
+    *
+    * @return  number of predicates in the store
+    */
+   public int size() { return tables.size(); }
+
+   /**
+    * numFacts
+    *
+    * @return  total number of facts
+    */
+   public int numFacts() {
+      int n = 0;
+      for (MappedFactTable t : tables) n += t.size();
+      return n;
+   }
+
+   /**
+    * setCacheSize
+    *
+    * Sets the maximum number of terms, and of constants' entries,
+    * which are cached.
+    *
+    * @param  size
+    */
+   public void setCacheSize(int size) {
+      cacheSize = size;
+      trim(terms);
+      trim(entries);
+   }
+
+   /**
+    * cached
+    *
+    * @return  number of terms and constants' entries which are cached
+    */
+   public int cached() { return terms.size() + entries.size(); }
+
+   /*
+    * lru
+    *
+    * @return  map which drops its least recently used entry when it
+    *          grows beyond the cache size
+    */
+   private <V> LinkedHashMap<Integer, V> lru() {
+      return new LinkedHashMap<Integer, V>(16, 0.75f, true) {
+         protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+            return size() > cacheSize;
+         }
+      };
+   }
+
+   /*
+    * trim
+    *
+    * Drops the least recently used entries of a cache, down to its size.
+    *
+    * @param  cache
+    */
+   private void trim(Map<Integer, ?> cache) {
+      synchronized (cache) {
+         Iterator<Integer> it = cache.keySet().iterator();
+         while (cache.size() > cacheSize && it.hasNext()) {
+            it.next();
+            it.remove();
+         }
+      }
+   }
+
+   /*
+    * tables
+    *
+    * @return  fact tables, one for each predicate
+    */
+   List<MappedFactTable> tables() { return tables; }
+
+   /*
+    * getInt
+    *
+    * @param   byte offset in file
+    * @return  int at offset
+    */
+   int getInt(int offset) { return buffer.getInt(offset); }
+
+   /*
+    * kind
+    *
+    * @param   entry number
+    * @return  kind of entry
+    */
+   private byte kind(int entry) {
+      return buffer.get(entryData + buffer.getInt(entryIndex + entry * 4));
+   }
+
+   /*
+    * text
+    *
+    * @param   entry number of constant or number
+    * @return  text of entry
+    */
+   private String text(int entry) {
+      int start = buffer.getInt(entryIndex + entry * 4) + 1;
+      int end   = buffer.getInt(entryIndex + entry * 4 + 4);
+      byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) bytes[i] = buffer.get(entryData + start + i);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+
+   /*
+    * term
+    *
+    * Creates the term of a dictionary entry. Recently used terms
+    * are kept.
+    *
+    * @param   entry number
+    * @return  term
+    */
+   Unifiable term(int entry) {
+      Unifiable term = terms.get(entry);
+      if (term != null) return term;
+      int offset = entryData + buffer.getInt(entryIndex + entry * 4) + 1;
+      switch (kind(entry)) {
+         case CONSTANT:
+            term = Constant.inst(text(entry));
+            break;
+         case NUMBER:
+            String text = text(entry);
+            SNumber n = SNumber.parse(text);
+            term = (n != null) ? n : new SFloat(Double.parseDouble(text));
+            break;
+         case COMPLEX:
+            int arity = buffer.getInt(offset + 4);
+            Unifiable[] args = new Unifiable[arity + 1];
+            args[0] = term(buffer.getInt(offset));
+            for (int i = 0; i < arity; i++) args[i + 1] = term(buffer.getInt(offset + 8 + i * 4));
+            term = new Complex(args);
+            break;
+         default:  // LIST
+            int count = buffer.getInt(offset);
+            if (count == 0) term = SLinkedList.empty;
+            else {
+               Unifiable[] items = new Unifiable[count];
+               for (int i = 0; i < count; i++) items[i] = term(buffer.getInt(offset + 4 + i * 4));
+               term = new SLinkedList(false, items);
+            }
+      }
+      terms.put(entry, term);
+      return term;
+   }
+
+   /*
+    * entryOf
+    *
+    * Finds the dictionary entry of a constant, in the hash table.
+    *
+    * @param   constant (not a number)
+    * @return  entry number, or FactTable.NO_CODE
+    */
+   int entryOf(Constant c) {
+      Integer entry = entries.get(c.id());
+      if (entry != null) return entry;
+      String text = c.toString();
+      int result = FactTable.NO_CODE;
+      int mask = hashSize - 1;
+      for (int h = text.hashCode() & mask; ; h = (h + 1) & mask) {
+         int e = buffer.getInt(hashTable + h * 4) - 1;
+         if (e < 0) break;
+         if (text.equals(text(e))) {
+            result = e;
+            break;
+         }
+      }
+      entries.put(c.id(), result);
+      return result;
+   }
+
+   /**
+    * write
+    *
+    * Writes ground facts to a fact store file. The facts of each
+    * predicate are kept in the given order.
+    *
+    * @param   file name
+    * @param   list of ground facts
+    * @throws  IOException
+    * @throws  InvalidRuleException if a clause is not a ground fact
+    */
+   public static void write(String filename, List<Rule> facts) throws IOException {
+
+      Writer w = new Writer();
+      LinkedHashMap<PredicateIndicator, ArrayList<int[]>> predicates = new LinkedHashMap<>();
+      for (Rule fact : facts) {
+         if (!FactTable.accepts(fact)) {
+            throw new InvalidRuleException("Not a ground fact: " + fact);
+         }
+         Complex head = fact.getHead();
+         int arity = head.length() - 1;
+         int[] row = new int[arity];
+         for (int i = 0; i < arity; i++) row[i] = w.entry(head.getTerm(i + 1));
+         w.entry(head.getTerm(0));   // functor
+         predicates.computeIfAbsent(head.indicator(), k -> new ArrayList<int[]>()).add(row);
+      }
+
+      // Layout of file.
+      int numEntries = w.offsets.size();
+      byte[] data = w.bytes.toByteArray();
+      int hashSize = 16;
+      while (hashSize < w.constants.size() * 2) hashSize *= 2;
+      int entryIndex = HEADER_SIZE;
+      int entryData  = entryIndex + (numEntries + 1) * 4;
+      int hashTable  = entryData + (data.length + 3) / 4 * 4;
+      int directory  = hashTable + hashSize * 4;
+      int tableData  = directory + predicates.size() * 16;
+
+      int[] hash = new int[hashSize];
+      for (Map.Entry<String, Integer> e : w.constants.entrySet()) {
+         int h = e.getKey().hashCode() & (hashSize - 1);
+         while (hash[h] != 0) h = (h + 1) & (hashSize - 1);
+         hash[h] = e.getValue() + 1;
+      }
+
+      try (DataOutputStream out = new DataOutputStream(
+              new BufferedOutputStream(new FileOutputStream(filename)))) {
+         int[] header = { MAGIC, VERSION, numEntries, predicates.size(),
+                          entryIndex, entryData, hashTable, hashSize, directory };
+         for (int n : header) out.writeInt(n);
+         for (int offset : w.offsets) out.writeInt(offset);
+         out.writeInt(data.length);
+         out.write(data);
+         for (int i = data.length; i % 4 != 0; i++) out.write(0);
+         for (int h : hash) out.writeInt(h);
+
+         int offset = tableData;
+         for (Map.Entry<PredicateIndicator, ArrayList<int[]>> e : predicates.entrySet()) {
+            PredicateIndicator pi = e.getKey();
+            int rows = e.getValue().size();
+            out.writeInt(w.constants.get(pi.functor()));
+            out.writeInt(pi.arity());
+            out.writeInt(rows);
+            out.writeInt(offset);
+            offset += pi.arity() * rows * 2 * 4;   // columns and indexes
+         }
+
+         for (Map.Entry<PredicateIndicator, ArrayList<int[]>> e : predicates.entrySet()) {
+            int arity = e.getKey().arity();
+            ArrayList<int[]> rows = e.getValue();
+            for (int i = 0; i < arity; i++) {
+               for (int[] row : rows) out.writeInt(row[i]);
+            }
+            for (int i = 0; i < arity; i++) {
+               final int column = i;
+               Integer[] order = new Integer[rows.size()];
+               for (int r = 0; r < order.length; r++) order[r] = r;
+               // Sort by entry; the sort is stable, so rows stay in order.
+               Arrays.sort(order, (a, b) -> Integer.compare(rows.get(a)[column],
+                                                            rows.get(b)[column]));
+               for (Integer r : order) out.writeInt(r);
+            }
+         }
+      }
+   } // write
+
+   /*
+    * Builds the dictionary for write().
+    */
+   private static class Writer {
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream data = new DataOutputStream(bytes);
+      ArrayList<Integer> offsets = new ArrayList<>();
+      HashMap<String, Integer> constants = new HashMap<>();
+      HashMap<String, Integer> others = new HashMap<>();
+
+      /*
+       * entry
+       *
+       * @param   ground term
+       * @return  entry number of term
+       * @throws  IOException
+       */
+      int entry(Unifiable term) throws IOException {
+         if (term instanceof Constant) {
+            Constant c = (Constant)term;
+            if (!c.isNumber()) {
+               Integer e = constants.get(c.toString());
+               if (e != null) return e;
+               e = text(CONSTANT, c.toString());
+               constants.put(c.toString(), e);
+               return e;
+            }
+            // 7 and 007 are different terms.
+            String key = "n:" + c.getClass().getName() + ":" + c;
+            Integer e = others.get(key);
+            if (e != null) return e;
+            e = text(NUMBER, c.toString());
+            others.put(key, e);
+            return e;
+         }
+         if (term instanceof Complex) {
+            Complex comp = (Complex)term;
+            int[] args = new int[comp.length()];
+            for (int i = 0; i < args.length; i++) args[i] = entry(comp.getTerm(i));
+            return structure(COMPLEX, "f:", args);
+         }
+         if (term instanceof SLinkedList) {
+            ArrayList<Integer> items = new ArrayList<>();
+            for (SLinkedList node = (SLinkedList)term; node != null; node = node.next()) {
+               if (node.getHead() == null) break;
+               if (node.isTailVar()) {
+                  throw new InvalidRuleException("Cannot store list: " + term);
+               }
+               items.add(entry(node.getHead()));
+            }
+            int[] args = new int[items.size()];
+            for (int i = 0; i < args.length; i++) args[i] = items.get(i);
+            return structure(LIST, "l:", args);
+         }
+         throw new InvalidRuleException("Cannot store term: " + term);
+      }
+
+      /*
+       * text
+       *
+       * @return  number of new entry
+       */
+      int text(byte kind, String text) throws IOException {
+         offsets.add(data.size());
+         data.writeByte(kind);
+         data.write(text.getBytes(StandardCharsets.UTF_8));
+         return offsets.size() - 1;
+      }
+
+      /*
+       * structure
+       *
+       * For complex terms, args holds the functor and the arguments.
+       *
+       * @return  number of entry
+       */
+      int structure(byte kind, String prefix, int[] args) throws IOException {
+         String key = prefix + Arrays.toString(args);
+         Integer e = others.get(key);
+         if (e != null) return e;
+         offsets.add(data.size());
+         data.writeByte(kind);
+         if (kind == COMPLEX) {
+            data.writeInt(args[0]);
+            data.writeInt(args.length - 1);
+            for (int i = 1; i < args.length; i++) data.writeInt(args[i]);
+         }
+         else {
+            data.writeInt(args.length);
+            for (int a : args) data.writeInt(a);
+         }
+         e = offsets.size() - 1;
+         others.put(key, e);
+         return e;
+      }
+   } // Writer
+
+}  // MappedFactStore
@@ -0,0 +1,82 @@
+/**
+ * MappedFactTable
+ *
+ * A FactTable whose columns are in a memory-mapped file. The codes of
+ * the table are entries in the dictionary of the MappedFactStore.
+ *
+ * The table has an index for each column: the row numbers, sorted by
+ * entry. The rows which have a given constant are found by a binary
+ * search.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+class MappedFactTable extends FactTable {
+
+   private final MappedFactStore store;
+   private final int rows;
+   private final int offset;   // of first column in file
+
+   /*
+    * constructor
+    *
+    * @param  predicate indicator
+    * @param  store
+    * @param  number of rows
+    * @param  offset of columns in file
+    */
+   MappedFactTable(PredicateIndicator indicator, MappedFactStore store,
+                   int rows, int offset) {
+      super(indicator);
+      this.store = store;
+      this.rows = rows;
+      this.offset = offset;
+   }
+
+   int size() { return rows; }
+
+   int code(int row, int position) {
+      return store.getInt(offset + (position * rows + row) * 4);
+   }
+
+   Unifiable decode(int code) { return store.term(code); }
+
+   int codeOf(Constant c) { return store.entryOf(c); }
+
+   boolean hasIndexes() { return true; }
+
+   /*
+    * sorted
+    *
+    * @param   argument position
+    * @param   index into sorted rows
+    * @return  row number
+    */
+   private int sorted(int position, int i) {
+      return store.getInt(offset + ((arity + position) * rows + i) * 4);
+   }
+
+   ClauseIndex.Bucket lookup(int position, Constant c) {
+      ClauseIndex.Bucket bucket = new ClauseIndex.Bucket();
+      int code = codeOf(c);
+      if (code == NO_CODE) return bucket;
+      // Find the first row with the code.
+      int low = 0;
+      int high = rows;
+      while (low < high) {
+         int mid = (low + high) >>> 1;
+         if (code(sorted(position, mid), position) < code) low = mid + 1;
+         else high = mid;
+      }
+      for (int i = low; i < rows; i++) {
+         int row = sorted(position, i);
+         if (code(row, position) != code) break;
+         bucket.add(row);
+      }
+      return bucket;
+   }
+
+}  // MappedFactTable
@@ -1,7 +1,9 @@
 /**
  * Multiply
  *
- * Multiply arguments together.
+ * Multiply arguments together. The product is a float,
+ * eg. 6.0, unless Global.integerArithmetic is set and all arguments
+ * are integers.
  *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
@@ -36,7 +38,7 @@ public class Multiply extends SFunction {
     *
     * @param   Substitution Set
     * @param   Unifiable parameters
-    * @return  Constant
+    * @return  SNumber
     * @throws  UnboundArgumentException, NumberFormatException, TooFewArgumentsException
     */
    public Unifiable evaluate(SubstitutionSet ss, Unifiable... params)
@@ -46,16 +48,17 @@ public class Multiply extends SFunction {
 
       if (params.length < 2) throw new TooFewArgumentsException("in Multiply.");
 
-      double product = 1.0;
+      SNumber product = null;
 
       // All parameters must be bound.
       for (Unifiable param : params) {
          Constant c = ss.castConstant(param);
          if (c == null) throw new UnboundArgumentException("in Multiply.");
-         product = product * Double.parseDouble(c.toString());
+         SNumber n = SNumber.of(c);
+         product = (product == null) ? n : SNumber.multiply(product, n);
       }
 
-      return new Constant("" + product);
+      return SNumber.result(product);
 
    } // evaluate()
 
@@ -66,7 +66,7 @@ public class NotSolutionNode extends SolutionNode {
       }
       else {
          moreSolutions = false;
-         return getParentSolution();
+         return restoreParentSolution();
       }
    }
 
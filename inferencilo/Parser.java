@@ -0,0 +1,746 @@
+/**
+ * Parser
+ *
+ * A recursive descent parser for Prolog-like rules, terms and goals.
+ * The text is read once, from left to right, and terms and goals are
+ * built as they are read. (The Tokenizer divides the body of a rule
+ * into strings, which Make divides again, and again for each argument.)
+ *
+ *    Rule rule = new Parser("grandfather($X, $Y) :- father($X, $Z), parent($Z, $Y).").rule();
+ *    Unifiable list = new Parser("[a, b | $T]").term();
+ *    Goal goal = new Parser("$X > 5, print($X); nl").goal();
+ *
+ * The text can be a CharSequence, or UTF-8 bytes. Bytes are not decoded,
+ * except for the names of constants and variables. (In UTF-8, the bytes
+ * of a multi-byte character are never punctuation.)
+ *
+ * A parser has no shared state. Each parse needs its own Parser, so
+ * many threads can parse at once.
+ *
+ * The syntax is the same as before:
+ *
+ *    rule         head [ :- disjunction ] [.]
+ *    disjunction  conjunction { ; conjunction }
+ *    conjunction  subgoal { , subgoal }
+ *    subgoal      ( disjunction ) | not(disjunction) | time(disjunction)
+ *                 | ! | fail | nl | check_time | term infix term
+ *                 | built-in predicate | complex term
+ *    infix        = == > < >= <=   (with spaces before and after)
+ *    term         variable | number | constant | `text` | list
+ *                 | complex term | function
+ *    list         [] | [ term { , term } [ | term ] ]
+ *
+ * Constants can have spaces: $Name = Cleve Lendon. A backslash escapes
+ * the next character, eg. comma(\,). In backticks, a double backtick
+ * stands for one backtick: say(`It``s`).
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public final class Parser {
+
+   // Where a term is. This determines which characters end a constant.
+   private static final int HEAD     = 0;  // functor of a head:  ( :-
+   private static final int ARGUMENT = 1;  // argument of a complex term:  , ( ) [ ]
+   private static final int ELEMENT  = 2;  // list element:  , | ( ) [ ]
+   private static final int OPERAND  = 3;  // in a body:  , ; ( ) [ ] and infixes
+
+   private static final String invalid = "\"#@"; // Invalid in a body, outside terms.
+
+   private final CharSequence chars;   // text, or null
+   private final byte[] bytes;         // UTF-8 text, or null
+   private final int start;
+   private int end;
+   private int i;                      // position
+   private boolean escaped;            // the last constant had a backslash
+
+   /**
+    * constructor
+    *
+    * @param  text
+    */
+   public Parser(CharSequence text) {
+      this.chars = text;
+      this.bytes = null;
+      this.start = 0;
+      this.end = text.length();
+      this.i = 0;
+   }
+
+   /**
+    * constructor
+    *
+    * @param  UTF-8 text
+    */
+   public Parser(byte[] utf8) {
+      this(utf8, 0, utf8.length);
+   }
+
+   /**
+    * constructor
+    *
+    * @param  UTF-8 text
+    * @param  offset of text
+    * @param  length of text, in bytes
+    */
+   public Parser(byte[] utf8, int offset, int length) {
+      this.chars = null;
+      this.bytes = utf8;
+      this.start = offset;
+      this.end = offset + length;
+      this.i = offset;
+   }
+
+   /**
+    * rule
+    *
+    * Parses a rule or a fact. The final period is optional.
+    *
+    * @return rule
+    * @throws InvalidRuleException, FatalParsingException,
+    *         InvalidFunctorException, InvalidComplexTermException,
+    *         UnmatchedParenthesesException, UnmatchedBracketsException,
+    *         UnmatchedBacktickException, InvalidListException
+    */
+   public Rule rule() {
+      Complex head = head();
+      return new Rule(head, body());
+   }
+
+   /**
+    * term
+    *
+    * Parses a term, such as: noun, $X, 3.14, [1, 2, 3], boss(Susan, Jackie)
+    *
+    * @return unifiable term
+    * @throws FatalParsingException, InvalidComplexTermException,
+    *         UnmatchedParenthesesException, UnmatchedBracketsException,
+    *         UnmatchedBacktickException, InvalidListException
+    */
+   public Unifiable term() {
+      Unifiable term = term(ARGUMENT);
+      finish();
+      return term;
+   }
+
+   /**
+    * goal
+    *
+    * Parses a goal, such as the body of a rule.
+    *
+    * @return goal
+    * @throws FatalParsingException, InvalidFunctorException,
+    *         InvalidExpressionException, UnmatchedParenthesesException,
+    *         UnmatchedBracketsException, UnmatchedBacktickException,
+    *         InvalidListException
+    */
+   public Goal goal() {
+      Goal goal = disjunction();
+      finish();
+      return goal;
+   }
+
+   /*
+    * head
+    *
+    * Parses the head of a rule. A final period is removed first.
+    *
+    * @return head
+    */
+   Complex head() {
+
+      // Remove the final period.
+      while (end > i && at(end - 1) <= ' ') end--;
+      if (end > i && at(end - 1) == '.') end--;
+
+      skipSpace();
+      if (i >= end) throw new InvalidComplexTermException("Parser - empty");
+      if (!letter(at(i))) throw new InvalidFunctorException("Parser - " + text());
+
+      String functor = constant(HEAD);
+      Complex head;
+      if (i < end && at(i) == '(') head = complex(functor, arguments());
+      else head = new Complex(Constant.inst(functor));
+
+      skipSpace();
+      if (i < end && !neck()) throw new FatalParsingException("Invalid term: " + text());
+      return head;
+
+   } // head()
+
+   /*
+    * body
+    *
+    * Parses the body of a rule, after the head.
+    *
+    * @return body, or null for a fact
+    */
+   Goal body() {
+      if (i >= end) return null;
+      i += 2;  // :-
+      Goal body = disjunction();
+      skipSpace();
+      if (i < end && neck()) {
+         throw new InvalidRuleException(":- occurs twice:\n" + text());
+      }
+      finish();
+      return body;
+   }
+
+   /*
+    * disjunction
+    *
+    * Parses goals separated by semicolons. (Prolog Or)
+    *
+    * @return goal
+    */
+   private Goal disjunction() {
+      Goal goal = conjunction();
+      if (!next(';')) return goal;
+      List<Goal> operands = new ArrayList<Goal>();
+      operands.add(goal);
+      do { operands.add(conjunction()); } while (next(';'));
+      return new Or(operands);
+   }
+
+   /*
+    * conjunction
+    *
+    * Parses goals separated by commas. (Prolog And)
+    * A comma binds more tightly than a semicolon.
+    *
+    * @return goal
+    */
+   private Goal conjunction() {
+      Goal goal = subgoal();
+      if (!next(',')) return goal;
+      List<Goal> operands = new ArrayList<Goal>();
+      operands.add(goal);
+      do { operands.add(subgoal()); } while (next(','));
+      return new And(operands);
+   }
+
+   /*
+    * subgoal
+    *
+    * Parses a group in parentheses, an operator (not, time), a built-in
+    * predicate, a complex term, or a comparison such as $X >= 27.
+    *
+    * @return goal
+    */
+   private Goal subgoal() {
+
+      skipSpace();
+      int from = i;
+      if (i >= end) throw new FatalParsingException("Invalid term: " + text());
+
+      int c = at(i);
+      if (c == '(') {  // group
+         i++;
+         Goal goal = disjunction();
+         close(')');
+         return goal;
+      }
+
+      Unifiable left;
+      if (c == '`') left = literal();
+      else if (c == '[') left = list();
+      else {
+         String name = constant(OPERAND);
+         boolean wasEscaped = escaped;
+         if (i < end && at(i) == '(') {
+            if (name.equals("not") || name.equals("time")) {
+               i++;
+               Goal operand = disjunction();
+               close(')');
+               if (name.equals("not")) return new Not(operand);
+               return new Time(operand);
+            }
+            Unifiable[] args = arguments();
+            if (!infix()) return predicate(name, args, from);
+            left = complexOrFunction(name, args);
+         }
+         else {
+            if (!infix()) {
+               if (name.equals("!")) return new Cut();
+               if (name.equals("fail")) return new Fail();
+               if (name.equals("nl")) return new NewLine();
+               if (name.equals("check_time")) return new CheckTime();
+               throw new FatalParsingException("Invalid term: " + text(from, i));
+            }
+            left = constant(name, wasEscaped, from);
+         }
+      }
+
+      if (!infix()) throw new FatalParsingException("Invalid term: " + text(from, i));
+
+      // Comparisons: = == > < >= <=
+      int c1 = at(i);
+      boolean twoChars = at(i + 1) == '=';
+      i += twoChars ? 2 : 1;
+      Unifiable right = term(OPERAND);
+
+      if (c1 == '=') {
+         if (twoChars) return new Equal(left, right);
+         return new Unify(left, right);
+      }
+      if (c1 == '>') {
+         if (twoChars) return new GreaterThanOrEqual(left, right);
+         return new GreaterThan(left, right);
+      }
+      if (twoChars) return new LessThanOrEqual(left, right);
+      return new LessThan(left, right);
+
+   } // subgoal()
+
+   /*
+    * infix
+    *
+    * Skips spaces, and checks whether the next characters are an infix.
+    * An infix must be followed by a space. Eg. $X < 6, not $X <6
+    *
+    * @return true if there is an infix
+    */
+   private boolean infix() {
+      skipSpace();
+      if (i + 1 >= end) return false;
+      int c = at(i);
+      if (c != '=' && c != '<' && c != '>') return false;
+      int c2 = at(i + 1);
+      if (c2 <= ' ') return true;
+      return c2 == '=' && i + 2 < end && at(i + 2) <= ' ';
+   }
+
+   /*
+    * predicate
+    *
+    * Makes a built-in predicate, or a complex term.
+    *
+    * @param  functor
+    * @param  arguments
+    * @param  start of subgoal
+    * @return goal
+    */
+   private Goal predicate(String functor, Unifiable[] args, int from) {
+
+      if (functor.equals("append")) {
+         return new Append(args);
+      }
+      else if (functor.equals("functor")) {
+         return new Functor(args);
+      }
+      else if (functor.equals("print")) {
+         return new Print(args);
+      }
+      else if (functor.equals("print_list")) {
+         return new PrintList(args);
+      }
+      else if (functor.equals("greater_than")) {
+         return new GreaterThan(args);
+      }
+      else if (functor.equals("less_than")) {
+         return new LessThan(args);
+      }
+      else if (functor.equals("greater_than_or_equal")) {
+         return new GreaterThanOrEqual(args);
+      }
+      else if (functor.equals("less_than_or_equal")) {
+         return new LessThanOrEqual(args);
+      }
+      else if (functor.equals("equal")) {
+         return new Equal(args);
+      }
+      else if (functor.equals("count")) {
+         return new Count(args);
+      }
+      else if (functor.equals("stats")) {
+         return new Stats();
+      }
+      else if (functor.equals("include")) {
+         return new Include(args);
+      }
+      else if (functor.equals("exclude")) {
+         return new Exclude(args);
+      }
+      else if (functor.equals("assert") || functor.equals("assertz")) {
+         return new Assert(only(functor, args), false);
+      }
+      else if (functor.equals("asserta")) {
+         return new Assert(only(functor, args), true);
+      }
+      else if (functor.equals("retract")) {
+         return new Retract(only(functor, args));
+      }
+
+      if (functor.length() == 0 || !letter(at(from))) {
+         throw new InvalidFunctorException("Parser - " + text(from, i));
+      }
+      return complex(functor, args);
+
+   } // predicate()
+
+   /*
+    * only
+    *
+    * @param  functor
+    * @param  arguments
+    * @return the only argument
+    * @throws FatalParsingException if there is not one argument
+    */
+   private Unifiable only(String functor, Unifiable[] args) {
+      if (args.length != 1) {
+         throw new FatalParsingException(functor + "() takes 1 argument: " + text());
+      }
+      return args[0];
+   }
+
+   /*
+    * term
+    *
+    * Parses a term.
+    *
+    * @param  where the term is (ARGUMENT, ELEMENT, OPERAND)
+    * @return term
+    */
+   private Unifiable term(int context) {
+
+      skipSpace();
+      int from = i;
+      if (i >= end) throw new FatalParsingException("Invalid term: " + text());
+      int c = at(i);
+      if (c == '`') return literal();
+      if (c == '[') return list();
+      if (c == '(') throw new InvalidComplexTermException(text());
+
+      String name = constant(context);
+      if (i < end && at(i) == '(') {
+         return complexOrFunction(name, arguments());
+      }
+      return constant(name, escaped, from);
+
+   } // term()
+
+   /*
+    * constant
+    *
+    * Makes a variable, number or constant from its name.
+    *
+    * @param  name
+    * @param  true if the name had a backslash
+    * @param  start of term
+    * @return term
+    */
+   private Unifiable constant(String name, boolean hadEscape, int from) {
+      int len = name.length();
+      if (len == 0) throw new FatalParsingException("Invalid term: " + text());
+      if (!hadEscape && len > 1 && name.charAt(0) == '$') {
+         if (name.charAt(1) == '_') return Anon.anon;
+         return new LogicVar(name);
+      }
+      SNumber number = SNumber.parse(name);
+      if (number != null) return number;
+      return Constant.inst(name);
+   }
+
+   /*
+    * constant
+    *
+    * Reads the name of a constant, variable or functor. Spaces inside
+    * the name are kept, but spaces before and after are not.
+    *
+    * @param  where the name is (HEAD, ARGUMENT, ELEMENT, OPERAND)
+    * @return name
+    */
+   private String constant(int context) {
+
+      escaped = false;
+      StringBuilder sb = null;
+      int from = i;
+      int last = i;     // after the last character which is not a space
+      int previous = ' ';
+
+      for (; i < end; i++) {
+         int c = at(i);
+         if (c == '\\' && i + 1 < end && at(i + 1) < 0x80) {
+            if (sb == null) sb = new StringBuilder();
+            sb.append(text(from, i)).append((char)at(i + 1));
+            escaped = true;
+            i++;
+            from = last = i + 1;
+            previous = 'x';
+            continue;
+         }
+         if (c == '(') break;
+         if (context == HEAD) {
+            if (c == ':' && i + 1 < end && at(i + 1) == '-') break;
+         }
+         else {
+            if (c == ',' || c == ')' || c == '[' || c == ']') break;
+            if (context == ELEMENT && c == '|') break;
+            if (context == OPERAND) {
+               if (c == ';') break;
+               if (previous <= ' ' && (c == '=' || c == '<' || c == '>')) break;
+               if (invalid.indexOf(c) > -1) {
+                  throw new InvalidExpressionException("--> " + (char)c);
+               }
+            }
+         }
+         if (c > ' ') last = i + 1;
+         previous = c;
+      }
+
+      if (sb == null) return text(from, last);
+      if (last > from) sb.append(text(from, last));
+      return sb.toString();
+
+   } // constant()
+
+   /*
+    * literal
+    *
+    * Reads text in backticks, which becomes a Constant.
+    *
+    * @return constant
+    */
+   private Unifiable literal() {
+      StringBuilder sb = null;
+      int from = ++i;
+      while (true) {
+         while (i < end && at(i) != '`') i++;
+         if (i >= end) throw new UnmatchedBacktickException(text());
+         if (i + 1 < end && at(i + 1) == '`') {  // `` is one backtick
+            if (sb == null) sb = new StringBuilder();
+            sb.append(text(from, i + 1));
+            i += 2;
+            from = i;
+            continue;
+         }
+         String str = text(from, i++);
+         if (sb != null) str = sb.append(str).toString();
+         return Constant.inst(str);
+      }
+   } // literal()
+
+   /*
+    * list
+    *
+    * Reads a list, eg. [a, b, c] or [subject, verb | $T].
+    *
+    * @return list
+    */
+   private SLinkedList list() {
+
+      i++;  // [
+      skipSpace();
+      if (i < end && at(i) == ']') {
+         i++;
+         return SLinkedList.empty;
+      }
+
+      List<Unifiable> elements = new ArrayList<Unifiable>();
+      Unifiable tail = null;
+      while (true) {
+         elements.add(term(ELEMENT));
+         skipSpace();
+         if (i >= end) throw new UnmatchedBracketsException(text());
+         int c = at(i++);
+         if (c == ',') continue;
+         if (c == '|') {
+            tail = term(ELEMENT);
+            close(']');
+            break;
+         }
+         if (c == ']') break;
+         if (c == ')') throw new UnmatchedBracketsException(text());
+         throw new InvalidListException(text());
+      }
+
+      // Build the list from the end.
+      SLinkedList list = SLinkedList.empty;
+      int count = 1;
+      if (tail != null) list = new SLinkedList(true, tail, list, count++);
+      for (int j = elements.size() - 1; j >= 0; j--) {
+         list = new SLinkedList(false, elements.get(j), list, count++);
+      }
+      return list;
+
+   } // list()
+
+   /*
+    * arguments
+    *
+    * Reads the arguments of a complex term, in parentheses.
+    *
+    * @return arguments
+    */
+   private Unifiable[] arguments() {
+      i++;  // (
+      skipSpace();
+      if (i < end && at(i) == ')') {
+         i++;
+         return new Unifiable[0];
+      }
+      List<Unifiable> args = new ArrayList<Unifiable>();
+      while (true) {
+         args.add(term(ARGUMENT));
+         skipSpace();
+         if (i >= end) throw new UnmatchedParenthesesException(text());
+         int c = at(i++);
+         if (c == ',') continue;
+         if (c == ')') break;
+         if (c == ']') throw new UnmatchedBracketsException(text());
+         throw new FatalParsingException("Invalid term: " + text());
+      }
+      return args.toArray(new Unifiable[args.size()]);
+   } // arguments()
+
+   /*
+    * complex
+    *
+    * @param  functor
+    * @param  arguments
+    * @return complex term
+    */
+   private static Complex complex(String functor, Unifiable[] args) {
+      Unifiable[] terms = new Unifiable[args.length + 1];
+      terms[0] = Constant.inst(functor);
+      System.arraycopy(args, 0, terms, 1, args.length);
+      return new Complex(terms);
+   }
+
+   /*
+    * complexOrFunction
+    *
+    * Makes a complex term or a function.
+    *
+    * @param  functor
+    * @param  arguments
+    * @return complex term or function
+    */
+   private static Unifiable complexOrFunction(String functor, Unifiable[] args) {
+      if (functor.equals("add")) return new Add(args);
+      if (functor.equals("subtract")) return new Subtract(args);
+      if (functor.equals("multiply")) return new Multiply(args);
+      if (functor.equals("divide")) return new Divide(args);
+      if (functor.equals("join")) return new Join(args);
+      return complex(functor, args);
+   }
+
+   /*
+    * close
+    *
+    * Skips spaces, and the given closing parenthesis or bracket.
+    *
+    * @param  ) or ]
+    * @throws UnmatchedParenthesesException, UnmatchedBracketsException
+    */
+   private void close(char c) {
+      skipSpace();
+      if (i < end && at(i) == c) {
+         i++;
+         return;
+      }
+      if (c == ')') throw new UnmatchedParenthesesException(text());
+      throw new UnmatchedBracketsException(text());
+   }
+
+   /*
+    * finish
+    *
+    * Checks that there is nothing more to parse.
+    *
+    * @throws UnmatchedParenthesesException, UnmatchedBracketsException,
+    *         FatalParsingException
+    */
+   private void finish() {
+      skipSpace();
+      if (i >= end) return;
+      int c = at(i);
+      if (c == ')') throw new UnmatchedParenthesesException(text());
+      if (c == ']') throw new UnmatchedBracketsException(text());
+      throw new FatalParsingException("Invalid term: " + text());
+   }
+
+   /*
+    * next
+    *
+    * Skips spaces, and the given separator, if it is next.
+    *
+    * @param  separator
+    * @return true if the separator was skipped
+    */
+   private boolean next(char separator) {
+      skipSpace();
+      if (i < end && at(i) == separator) {
+         i++;
+         return true;
+      }
+      return false;
+   }
+
+   /*
+    * neck
+    *
+    * @return true if :- is next
+    */
+   private boolean neck() {
+      return at(i) == ':' && i + 1 < end && at(i + 1) == '-';
+   }
+
+   private void skipSpace() {
+      while (i < end && at(i) <= ' ') i++;
+   }
+
+   /*
+    * letter
+    *
+    * Functors must begin with a letter. The first byte of a multi-byte
+    * character is accepted.
+    *
+    * @param  character or byte
+    * @return t/f
+    */
+   private boolean letter(int c) {
+      if (bytes != null && c >= 0x80) return true;
+      return Character.isLetter(c);
+   }
+
+   /*
+    * at
+    *
+    * @param  index
+    * @return character, or byte (0 to 255)
+    */
+   private int at(int index) {
+      if (chars != null) return chars.charAt(index);
+      return bytes[index] & 0xFF;
+   }
+
+   /*
+    * text
+    *
+    * @param  from index
+    * @param  to index
+    * @return text between the indices
+    */
+   private String text(int from, int to) {
+      if (chars != null) return chars.subSequence(from, to).toString();
+      return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+   }
+
+   /*
+    * text
+    *
+    * @return all of the text, for error messages
+    */
+   private String text() {
+      return text(start, end).trim();
+   }
+
+}  // Parser
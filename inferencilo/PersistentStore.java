@@ -0,0 +1,139 @@
+/**
+ * PersistentStore
+ *
+ * A persistent (structurally shared) binding store. The bindings are
+ * kept in a 32-way trie, which is indexed by the bits of the variable
+ * ID, five bits per level.
+ *
+ * A store is never modified. Binding a variable copies only the nodes
+ * on the path from the root to the variable's slot, and returns a new
+ * store which shares all other nodes with the old one. This costs
+ * O(log n), where n is the highest variable ID. The old store remains
+ * valid, so a caller can keep several solutions of the same query and
+ * compare them later.
+ *
+ * Use SubstitutionSet.persistent() to select this store for a query.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+class PersistentStore extends BindingStore {
+
+   private static final int BITS  = 5;
+   private static final int WIDTH = 1 << BITS;   // 32
+   private static final int MASK  = WIDTH - 1;
+
+   private final Object[] root;
+   private final int shift;   // Shift for the root level.
+
+   /**
+    * constructor
+    *
+    * Creates an empty store.
+    */
+   PersistentStore() {
+      root  = new Object[WIDTH];
+      shift = 0;
+   }
+
+   /*
+    * constructor
+    *
+    * @param  root node
+    * @param  shift of root level
+    */
+   private PersistentStore(Object[] root, int shift) {
+      this.root  = root;
+      this.shift = shift;
+   }
+
+   /**
+    * get
+    *
+    * @param  variable ID
+    * @return bound term, or null
+    */
+   Unifiable get(int id) {
+      if ((id >>> shift) >= WIDTH) return null;
+      Object[] node = root;
+      for (int level = shift; level > 0; level -= BITS) {
+         node = (Object[])node[(id >>> level) & MASK];
+         if (node == null) return null;
+      }
+      return (Unifiable)node[id & MASK];
+   }
+
+   /**
+    * bind
+    *
+    * Returns a new store, which has the given binding.
+    * This store is not changed.
+    *
+    * @param  variable ID
+    * @param  term
+    * @return new store
+    */
+   BindingStore bind(int id, Unifiable term) {
+      Object[] newRoot = root;
+      int newShift = shift;
+      // Add levels until the ID fits.
+      while ((id >>> newShift) >= WIDTH) {
+         Object[] node = new Object[WIDTH];
+         node[0] = newRoot;
+         newRoot = node;
+         newShift += BITS;
+      }
+      return new PersistentStore(copyPath(newRoot, newShift, id, term), newShift);
+   }
+
+   /*
+    * copyPath
+    *
+    * Copies the nodes on the path to the given ID.
+    *
+    * @param  node
+    * @param  shift of this level
+    * @param  variable ID
+    * @param  term
+    * @return copy of node
+    */
+   private static Object[] copyPath(Object[] node, int level, int id, Unifiable term) {
+      Object[] copy = new Object[WIDTH];
+      if (node != null) System.arraycopy(node, 0, copy, 0, WIDTH);
+      if (level == 0) {
+         copy[id & MASK] = term;
+      }
+      else {
+         int index = (id >>> level) & MASK;
+         copy[index] = copyPath((Object[])copy[index], level - BITS, id, term);
+      }
+      return copy;
+   }
+
+   /**
+    * mark
+    *
+    * @return 0 (A persistent store has no trail.)
+    */
+   int mark() { return 0; }
+
+   /**
+    * undo
+    *
+    * Nothing to do. Older solutions have their own stores.
+    *
+    * @param  mark
+    */
+   void undo(int mark) { }
+
+   /**
+    * size
+    *
+    * @return upper limit of variable IDs in the store
+    */
+   int size() { return WIDTH << shift; }
+
+}  // PersistentStore
@@ -0,0 +1,594 @@
+/**
+ * Predicate
+ *
+ * A knowledge base keeps one Predicate entry for each predicate
+ * indicator (functor/arity). The entry holds the predicate's clauses
+ * (rules and facts), in the order in which they were added, and the
+ * number of times the predicate has been called.
+ *
+ * While all clauses are ground facts, they are stored in a FactTable,
+ * in columns of constant IDs, instead of as Rule objects. If a rule or
+ * a fact with variables is added, the table is converted to a list of
+ * rules. (Global.factTables can turn this off.) The facts of a
+ * MappedFactStore are read from their file, until a clause is added.
+ *
+ * Clauses are indexed on their arguments (see ClauseIndex). An index
+ * on an argument position is built the first time the predicate is
+ * called with that argument bound, and is kept up to date as clauses
+ * are added. The first argument is preferred. Small predicates are
+ * not indexed.
+ *
+ * Clauses are only appended. A writer (one at a time, see KnowledgeBase)
+ * stores a clause before it increments the count, so a reader which has
+ * read the count can use every clause below it, without locking. Clause
+ * numbers never change while a predicate is in use; removing a predicate
+ * drops the whole entry.
+ *
+ * Clauses are numbered in the order in which they were added. The order
+ * of the clauses is different if clauses were added at the front
+ * (asserta); it is then kept in a list (a ClauseIndex.Bucket). A clause
+ * which is retracted is not removed: it is marked with the generation
+ * of the retract, so calls which started before can still see it (the
+ * logical update view). When more than half of the clauses have been
+ * retracted, the knowledge base replaces the predicate with a compacted
+ * copy. Calls which are running keep the old one.
+ *
+ * When the knowledge base has snapshots, each write records an epoch,
+ * the generation of the knowledge base and the number of clauses after
+ * the write. count(generation) finds the number of clauses which a
+ * snapshot of that generation can see. Eg.
+ *
+ *    generation:  4   7   9
+ *    count:       2   3   5     count(8) is 3
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+public class Predicate {
+
+   private final PredicateIndicator indicator;
+   private volatile Rule[] clauses = null;      // compiled rules
+   private volatile FactTable facts = null;    // or ground facts
+   private volatile int count = 0;
+   private long calls = 0;
+   private volatile ClauseIndex[] indexes = null;   // by argument position
+   private volatile ClauseIndex.Bucket order = null;  // after asserta
+
+   // Generation of retract, by clause number. 0 is not retracted.
+   private volatile long[] retracted = null;
+   private volatile int numRetracted = 0;
+
+   // After compaction: the new predicate, and new clause numbers.
+   private volatile Predicate compacted = null;
+   private int[] renumbered = null;
+
+   // Epochs: generations and clause counts. See count(generation).
+   private volatile long[] epochGenerations = null;
+   private volatile int[] epochCounts = null;
+   private volatile int numEpochs = 0;
+
+   // Predicates with fewer clauses are not indexed.
+   private static final int MIN_INDEXED = 8;
+
+   // Predicates with fewer retracted clauses are not compacted.
+   private static final int MIN_COMPACTED = 32;
+
+   /**
+    * constructor
+    *
+    * @param  predicate indicator
+    */
+   public Predicate(PredicateIndicator indicator) {
+      this.indicator = indicator;
+   }
+
+   /*
+    * constructor
+    *
+    * For facts in a memory-mapped file. See MappedFactStore.
+    *
+    * @param  predicate indicator
+    * @param  fact table
+    */
+   Predicate(PredicateIndicator indicator, FactTable facts) {
+      this.indicator = indicator;
+      this.facts = facts;
+      this.count = facts.size();
+   }
+
+   /**
+    * indicator
+    *
+    * @return  predicate indicator
+    */
+   public PredicateIndicator indicator() { return indicator; }
+
+   /*
+    * add
+    *
+    * Adds a clause at the end, or at the front. Rules are compiled.
+    * See Rule.compile(). The caller must hold the knowledge base's
+    * write lock.
+    *
+    * @param  rule or fact
+    * @param  generation of the write, or -1 if there are no snapshots
+    * @param  true to add at the front (asserta)
+    */
+   void add(Rule rule, long generation, boolean atFront) {
+      int n = count;
+      if (generation >= 0 && numEpochs == 0) epoch(generation - 1, n);
+      // A mapped table cannot grow. Its facts are copied to the heap.
+      if (facts != null && !(facts instanceof HeapFactTable)) toHeap();
+      if (clauses == null && Global.factTables && FactTable.accepts(rule)) {
+         if (facts == null) facts = new HeapFactTable(indicator);
+         ((HeapFactTable)facts).add(rule.getHead());
+      }
+      else {
+         if (clauses == null) toRules(n);
+         Rule[] c = clauses;
+         if (n == c.length) c = Arrays.copyOf(c, n * 2);
+         c[n] = rule.compile();
+         clauses = c;
+      }
+      // An index which is being built sees the clause in its count.
+      synchronized (this) {
+         ClauseIndex[] ix = indexes;
+         if (ix != null) {
+            for (int i = 0; i < ix.length; i++) {
+               if (ix[i] != null) ix[i].add(key(n, i), n, atFront);
+            }
+         }
+         if (atFront && order == null) {
+            ClauseIndex.Bucket b = new ClauseIndex.Bucket();
+            for (int i = 0; i < n; i++) b.add(i);
+            order = b;
+         }
+         if (order != null) {
+            if (atFront) order.addFront(n);
+            else order.add(n);
+         }
+         if (generation >= 0) epoch(generation, n + 1);
+         count = n + 1;
+      }
+   }
+
+   /*
+    * retract
+    *
+    * Marks a clause as retracted. The caller must hold the knowledge
+    * base's write lock.
+    *
+    * @param  clause number
+    * @param  generation of the retract
+    */
+   void retract(int clause, long generation) {
+      long[] r = retracted;
+      if (r == null) r = new long[Math.max(8, count)];
+      else if (clause >= r.length) r = Arrays.copyOf(r, Math.max(count, r.length * 2));
+      r[clause] = generation;
+      retracted = r;
+      numRetracted++;
+   }
+
+   /*
+    * isRetracted
+    *
+    * @param   clause number
+    * @return  true if the clause has been retracted
+    */
+   boolean isRetracted(int clause) {
+      long[] r = retracted;
+      return r != null && clause < r.length && r[clause] != 0;
+   }
+
+   /*
+    * visible
+    *
+    * A clause is visible to a call if it was added before the
+    * call started, and not retracted before.
+    *
+    * @param   clause number
+    * @param   number of clauses when the call started
+    * @param   generation when the call started
+    * @return  true if the call can see the clause
+    */
+   boolean visible(int clause, int count, long generation) {
+      if (clause >= count) return false;
+      long[] r = retracted;
+      if (r == null || clause >= r.length) return true;
+      long g = r[clause];
+      return g == 0 || g > generation;
+   }
+
+   /*
+    * needsCompaction
+    *
+    * @return  true if most clauses have been retracted
+    */
+   boolean needsCompaction() {
+      return numRetracted >= MIN_COMPACTED && numRetracted * 2 > count;
+   }
+
+   /*
+    * compact
+    *
+    * Creates a predicate with the clauses which have not been
+    * retracted, in order. The old clause numbers are mapped to
+    * the new ones, so that a retract which is running can find
+    * its clause. The caller must hold the knowledge base's write lock.
+    *
+    * @return  new predicate
+    */
+   Predicate compact() {
+      Predicate p = new Predicate(indicator);
+      int n = count;
+      int[] map = new int[n];
+      Arrays.fill(map, -1);
+      View all = new View(n, Long.MAX_VALUE, order, null);
+      for (int i = 0; i < all.length(); i++) {
+         int clause = all.clause(i);
+         if (isRetracted(clause)) continue;
+         map[clause] = p.count;
+         p.add(getClause(clause), -1, false);
+      }
+      p.calls = calls;
+      renumbered = map;
+      compacted = p;
+      return p;
+   }
+
+   /*
+    * compacted
+    *
+    * @return  the predicate which replaced this one, or null
+    */
+   Predicate compacted() { return compacted; }
+
+   /*
+    * renumbered
+    *
+    * @param   clause number
+    * @return  clause number in the compacted predicate, or -1
+    */
+   int renumbered(int clause) { return renumbered[clause]; }
+
+   /*
+    * epoch
+    *
+    * Records the number of clauses at a generation. Several
+    * writes of one generation have one epoch.
+    *
+    * @param  generation
+    * @param  number of clauses
+    */
+   private void epoch(long generation, int n) {
+      int k = numEpochs;
+      if (k > 0 && epochGenerations[k - 1] == generation) {
+         epochCounts[k - 1] = n;
+         return;
+      }
+      if (epochGenerations == null) {
+         epochGenerations = new long[4];
+         epochCounts = new int[4];
+      }
+      else if (k == epochGenerations.length) {
+         epochGenerations = Arrays.copyOf(epochGenerations, k * 2);
+         epochCounts = Arrays.copyOf(epochCounts, k * 2);
+      }
+      epochGenerations[k] = generation;
+      epochCounts[k] = n;
+      numEpochs = k + 1;
+   }
+
+   /*
+    * toHeap
+    *
+    * Copies the facts of a mapped table into a heap table.
+    */
+   private void toHeap() {
+      HeapFactTable table = new HeapFactTable(indicator);
+      for (int row = 0; row < facts.size(); row++) table.add(facts.head(row));
+      facts = table;
+   }
+
+   /*
+    * toRules
+    *
+    * Converts the fact table to an array of rules. The rules
+    * are published before the table is dropped.
+    *
+    * @param  number of clauses
+    */
+   private void toRules(int n) {
+      Rule[] c = new Rule[Math.max(8, n * 2)];
+      for (int row = 0; row < n; row++) {
+         c[row] = new Rule(facts.head(row)).compile();
+      }
+      clauses = c;
+      facts = null;
+   }
+
+   /*
+    * facts
+    *
+    * @return  fact table, or null if the clauses are rules
+    */
+   FactTable facts() { return facts; }
+
+   /*
+    * key
+    *
+    * @param   clause number
+    * @param   argument position
+    * @return  index key of the clause's argument
+    */
+   private long key(int clause, int position) {
+      FactTable f = facts;
+      if (f != null) return f.key(clause, position);
+      return ClauseIndex.key(clauses[clause].getHead().getTerm(position + 1));
+   }
+
+   /*
+    * candidates
+    *
+    * Finds the clauses which may match a goal, using the index of the
+    * first bound argument which has a key. The index is built if
+    * necessary.
+    *
+    * @param   goal
+    * @param   substitution set of the goal
+    * @return  clause numbers, or null if all clauses must be tried
+    */
+   ClauseIndex.Bucket candidates(Complex goal, SubstitutionSet ss) {
+      if (!Global.clauseIndexing || count < MIN_INDEXED) return null;
+      int arity = indicator.arity();
+      FactTable f = facts;
+      if (f != null && f.hasIndexes()) {
+         // The table has indexes for constants on every position.
+         for (int i = 0; i < arity; i++) {
+            Unifiable term = Complex.deref(goal.getTerm(i + 1), ss);
+            if (term instanceof Constant && !((Constant)term).isNumber()) {
+               return f.lookup(i, (Constant)term);
+            }
+         }
+         return null;
+      }
+      for (int i = 0; i < arity; i++) {
+         long key = ClauseIndex.key(Complex.deref(goal.getTerm(i + 1), ss));
+         if (key == ClauseIndex.NO_KEY) continue;
+         ClauseIndex[] ix = indexes;
+         if (ix == null || ix[i] == null) ix = buildIndex(i);
+         return ix[i].lookup(key);
+      }
+      return null;
+   }
+
+   /*
+    * buildIndex
+    *
+    * Builds the index of an argument position. Writers also lock
+    * the predicate, so no clause is added while the index is built.
+    *
+    * @param   argument position
+    * @return  indexes
+    */
+   private synchronized ClauseIndex[] buildIndex(int position) {
+      ClauseIndex[] ix = indexes;
+      if (ix == null) ix = new ClauseIndex[indicator.arity()];
+      if (ix[position] == null) {
+         ClauseIndex index = new ClauseIndex();
+         View all = new View(count, Long.MAX_VALUE, order, null);
+         for (int i = 0; i < all.length(); i++) {
+            int c = all.clause(i);
+            index.add(key(c, position), c, false);
+         }
+         ix = ix.clone();
+         ix[position] = index;
+         indexes = ix;
+      }
+      return ix;
+   }
+
+   /*
+    * view
+    *
+    * Finds the clauses which a call can see, in order. If the goal
+    * has a bound argument, an index may reduce the clauses.
+    *
+    * @param   goal
+    * @param   substitution set of the goal
+    * @param   generation of the call
+    * @return  view of clauses
+    */
+   View view(Complex goal, SubstitutionSet ss, long generation) {
+      // The count is read first. Indexes and the order of clauses
+      // are updated before it.
+      int n = count(generation);
+      return new View(n, generation, order, candidates(goal, ss));
+   }
+
+   /*
+    * A view of the clauses for one call: clause numbers in clause
+    * order, and the count and generation at the start of the call.
+    * Later clauses are not seen.
+    */
+   final class View {
+
+      private final int[] front;   // reverse order
+      private final int frontSize;
+      private final int[] clauses;   // null: 0, 1, 2 ...
+      private final int size;
+      private final int count;
+      private final long generation;
+
+      View(int count, long generation, ClauseIndex.Bucket order,
+           ClauseIndex.Bucket bucket) {
+         this.count = count;
+         this.generation = generation;
+         ClauseIndex.Bucket b = bucket != null ? bucket : order;
+         if (b == null) {
+            front = null;
+            frontSize = 0;
+            clauses = null;
+            size = count;
+         }
+         else {
+            // Sizes before arrays.
+            int f = b.frontSize;
+            int s = b.size;
+            frontSize = f;
+            size = s;
+            front = b.front;
+            clauses = b.clauses;
+         }
+      }
+
+      /*
+       * predicate
+       *
+       * @return  predicate of the clauses
+       */
+      Predicate predicate() { return Predicate.this; }
+
+      /*
+       * length
+       *
+       * @return  number of clause numbers, some of which may not be visible
+       */
+      int length() { return frontSize + size; }
+
+      /*
+       * clause
+       *
+       * @param   position in order
+       * @return  clause number
+       */
+      int clause(int i) {
+         if (i < frontSize) return front[frontSize - 1 - i];
+         i -= frontSize;
+         return clauses == null ? i : clauses[i];
+      }
+
+      /*
+       * visible
+       *
+       * @param   clause number
+       * @return  true if the call can see the clause
+       */
+      boolean visible(int clause) {
+         return Predicate.this.visible(clause, count, generation);
+      }
+
+   }  // View
+
+   /**
+    * getClause
+    *
+    * @param   clause number
+    * @return  rule or fact
+    */
+   public Rule getClause(int i) {
+      FactTable f = facts;
+      if (f != null) return new Rule(f.head(i)).compile();
+      return clauses[i];
+   }
+
+   /**
+    * getClauses
+    *
+    * @return  list of clauses, in order (not to be modified)
+    */
+   public List<Rule> getClauses() { return getClauses(Long.MAX_VALUE); }
+
+   /*
+    * getClauses
+    *
+    * @param   generation of knowledge base
+    * @return  list of clauses which a call of that generation can see
+    */
+   List<Rule> getClauses(long generation) {
+      View view = new View(count(generation), generation, order, null);
+      ArrayList<Rule> list = new ArrayList<>();
+      for (int i = 0; i < view.length(); i++) {
+         int clause = view.clause(i);
+         if (view.visible(clause)) list.add(getClause(clause));
+      }
+      return Collections.unmodifiableList(list);
+   }
+
+   /**
+    * size
+    *
+    * @return  number of clauses, not counting retracted clauses
+    */
+   public int size() { return count - numRetracted; }
+
+   /*
+    * size
+    *
+    * @param   generation of knowledge base
+    * @return  number of clauses which a call of that generation can see
+    */
+   int size(long generation) {
+      int n = count(generation);
+      if (numRetracted == 0) return n;
+      int size = 0;
+      for (int i = 0; i < n; i++) {
+         if (visible(i, n, generation)) size++;
+      }
+      return size;
+   }
+
+   /*
+    * count
+    *
+    * Finds the number of clauses which a snapshot can see.
+    *
+    * @param   generation of snapshot, or -1 for all clauses
+    * @return  number of clauses
+    */
+   int count(long generation) {
+      int n = count;   // read before the epochs
+      if (generation < 0) return n;
+      int k = numEpochs;
+      if (k == 0) return n;
+      long[] g = epochGenerations;
+      int[] c = epochCounts;
+      // Before the first epoch, the count was that of the first epoch.
+      if (generation <= g[0]) return c[0];
+      int lo = 0, hi = k - 1;
+      while (lo < hi) {   // last epoch at or before generation
+         int mid = (lo + hi + 1) >>> 1;
+         if (g[mid] <= generation) lo = mid;
+         else hi = mid - 1;
+      }
+      return c[lo];
+   }
+
+   /*
+    * called
+    *
+    * Counts a call of the predicate.
+    */
+   void called() { calls++; }
+
+   /**
+    * calls
+    *
+    * @return  number of times the predicate was called
+    */
+   public long calls() { return calls; }
+
+   /**
+    * toString
+    *
+    * @return  predicate indicator, eg. father/2
+    */
+   public String toString() { return indicator.toString(); }
+
+}  // Predicate
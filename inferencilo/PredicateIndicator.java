@@ -0,0 +1,156 @@
+/**
+ * PredicateIndicator
+ *
+ * A predicate indicator identifies a predicate by its name (functor)
+ * and arity. For example: father/2
+ *
+ * Predicate indicators are interned. There is only one instance for
+ * each name and arity, and each instance has a dense integer ID. Every
+ * Complex term gets its indicator when it is constructed, so the
+ * knowledge base can find a predicate's clauses by ID, without building
+ * or hashing a "functor/arity" string.
+ *
+ * Indicators may be looked up by several threads at once. A lookup
+ * does not lock; new indicators are created under a lock.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+public class PredicateIndicator {
+
+   private final String functor;
+   private final int arity;
+   private final int id;
+   private final String key;   // eg. father/2
+
+   // Indicators by functor Constant ID, then by arity.
+   private static volatile PredicateIndicator[][] byFunctor = new PredicateIndicator[256][];
+   // Indicators by ID.
+   private static ArrayList<PredicateIndicator> byId = new ArrayList<>();
+   // Indicators by key string.
+   private static HashMap<String, PredicateIndicator> byKey = new HashMap<>();
+
+   /*
+    * constructor
+    *
+    * @param  functor
+    * @param  arity
+    * @param  id
+    */
+   private PredicateIndicator(String functor, int arity, int id) {
+      this.functor = functor;
+      this.arity = arity;
+      this.id = id;
+      this.key = functor + "/" + arity;
+   }
+
+   /**
+    * inst
+    *
+    * Fetches the indicator for a functor and arity, or creates it.
+    *
+    * @param   functor (Constant)
+    * @param   arity
+    * @return  predicate indicator
+    */
+   public static PredicateIndicator inst(Constant functor, int arity) {
+      int fid = functor.id();
+      if (fid < 0) fid = Constant.inst(functor.toString()).id();  // a number
+      PredicateIndicator[][] table = byFunctor;
+      PredicateIndicator[] arities = null;
+      if (fid < table.length) arities = table[fid];
+      if (arities != null && arity < arities.length) {
+         PredicateIndicator pi = arities[arity];
+         if (pi != null) return pi;
+      }
+      return create(fid, functor.toString(), arity);
+   }
+
+   /**
+    * inst
+    *
+    * @param   functor (String)
+    * @param   arity
+    * @return  predicate indicator
+    */
+   public static PredicateIndicator inst(String functor, int arity) {
+      return inst(Constant.inst(functor), arity);
+   }
+
+   /*
+    * create
+    *
+    * Creates and saves a new indicator.
+    *
+    * @param   functor ID
+    * @param   functor
+    * @param   arity
+    * @return  predicate indicator
+    */
+   private static synchronized PredicateIndicator create(int fid, String functor, int arity) {
+      PredicateIndicator[][] table = byFunctor;
+      if (table.length <= fid) table = Arrays.copyOf(table, Math.max(fid + 1, table.length * 2));
+      PredicateIndicator[] arities = table[fid];
+      if (arities == null || arity >= arities.length) {
+         int len = Math.max(arity + 1, 4);
+         arities = (arities == null) ? new PredicateIndicator[len]
+                                     : Arrays.copyOf(arities, Math.max(len, arities.length * 2));
+         table[fid] = arities;
+      }
+      PredicateIndicator pi = arities[arity];
+      if (pi == null) {
+         pi = new PredicateIndicator(functor, arity, byId.size());
+         arities[arity] = pi;
+         byId.add(pi);
+         byKey.put(pi.key, pi);
+      }
+      byFunctor = table;  // publishes the new indicator
+      return pi;
+   }
+
+   /**
+    * lookup
+    *
+    * Finds the indicator for a key string, eg. "father/2".
+    *
+    * @param   key
+    * @return  predicate indicator, or null if there is none
+    */
+   public static synchronized PredicateIndicator lookup(String key) {
+      return byKey.get(key);
+   }
+
+   /**
+    * functor
+    *
+    * @return  name of predicate
+    */
+   public String functor() { return functor; }
+
+   /**
+    * arity
+    *
+    * @return  number of arguments
+    */
+   public int arity() { return arity; }
+
+   /**
+    * id
+    *
+    * @return  dense integer ID
+    */
+   public int id() { return id; }
+
+   /**
+    * toString
+    *
+    * @return  key, eg. father/2
+    */
+   public String toString() { return key; }
+
+}  // PredicateIndicator
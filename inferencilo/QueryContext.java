@@ -0,0 +1,393 @@
+/**
+ * QueryContext
+ *
+ * The state of the queries which run on one thread: the allocator of
+ * variable IDs, and the limits (time, errors, number of variables).
+ * Queries with different contexts do not share this state, so they can
+ * run in parallel on different threads, against one knowledge base.
+ *
+ *    QueryContext context = new QueryContext();
+ *    context.setMaxTime(500);
+ *    Complex query = context.query("grandfather($X, $Y)");
+ *    List<String> results = context.solveAll(query, kb);
+ *
+ * Each thread has a default context, which is used when no other context
+ * has been entered. It reads the limits and the start time in Global, so
+ * single-threaded code which sets Global.maxTime, Global.startTime etc.
+ * works as before. Once start() or a setter (eg. setMaxTime()) has been
+ * called on a default context, that value is its own: it changes only
+ * this thread's context, and later changes to Global are not seen.
+ *
+ *    QueryContext.current().setMaxTime(10);
+ *    QueryContext.current().start();
+ *
+ * A new context copies the limits in Global, and they are its own. Its
+ * clock starts when it is created, and again with start().
+ *
+ * While a query is being solved, its context is the current context of
+ * the thread. The solution node from solver() enters the context for
+ * each call of nextSolution(), so a query can be continued on another
+ * thread. A context should be used by one thread at a time.
+ *
+ * Constants and predicate indicators are interned for all threads (see
+ * Constant.inst()), and a Parser is made for each parse, so they are
+ * not part of the context.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+public final class QueryContext {
+
+   private static final ThreadLocal<QueryContext> current =
+      new ThreadLocal<QueryContext>() {
+         protected QueryContext initialValue() {
+            return new QueryContext(0);
+         }
+      };
+
+   // Bits of 'own': the values which this context does not read from Global.
+   private static final int MAX_VARIABLES = 1;
+   private static final int MAX_ERRORS = 2;
+   private static final int MAX_TIME = 4;
+   private static final int START_TIME = 8;
+   private static final int ALL = 15;
+
+   private int nextId = 0;         // last variable ID
+   private int own;
+   private int maxVariables;
+   private int maxErrors;
+   private int maxTime;            // in milliseconds
+   private long startTime;         // in nanoseconds
+
+   /**
+    * constructor
+    *
+    * The limits are copied from Global. The clock starts.
+    */
+   public QueryContext() {
+      this(ALL);
+   }
+
+   /*
+    * constructor
+    *
+    * The limits are copied from Global. The clock starts.
+    *
+    * @param  values which are this context's own (bits); the others
+    *         are read from Global
+    */
+   private QueryContext(int own) {
+      this.own = own;
+      this.maxVariables = Global.maxVariables;
+      this.maxErrors = Global.maxErrors;
+      this.maxTime = Global.maxTime;
+      this.startTime = System.nanoTime();
+   }
+
+   /**
+    * current
+    *
+    * @return context of this thread
+    */
+   public static QueryContext current() { return current.get(); }
+
+   /*
+    * fork
+    *
+    * Makes a context for a query which was made in this context, but
+    * may be solved on other threads. It has the same limits and start
+    * time, and its variable IDs follow those given by this context.
+    *
+    * @return new context
+    */
+   QueryContext fork() {
+      QueryContext context = new QueryContext(ALL);
+      context.nextId = nextId;
+      context.maxVariables = maxVariables();
+      context.maxErrors = maxErrors();
+      context.maxTime = maxTime();
+      context.startTime = startTime();
+      return context;
+   }
+
+   /*
+    * enter
+    *
+    * Makes this context the current context of the thread.
+    *
+    * @return previous context, for exit()
+    */
+   QueryContext enter() {
+      QueryContext previous = current.get();
+      if (previous != this) current.set(this);
+      return previous;
+   }
+
+   /*
+    * exit
+    *
+    * Restores the previous context of the thread.
+    *
+    * @param  previous context, from enter()
+    */
+   void exit(QueryContext previous) {
+      if (previous != this) current.set(previous);
+   }
+
+   /**
+    * query
+    *
+    * Makes a query in this context. Variable IDs start again at 1.
+    * See Make.query().
+    *
+    * @param  query as string
+    * @return query as complex term
+    */
+   public Complex query(String str) {
+      QueryContext previous = enter();
+      try {
+         return Make.query(str);
+      } finally { exit(previous); }
+   }
+
+   /**
+    * solver
+    *
+    * Makes the root solution node of a query. Each call of its
+    * nextSolution() is made in this context.
+    *
+    * @param  query
+    * @param  knowledge base
+    * @return solution node
+    */
+   public SolutionNode solver(Complex query, KnowledgeBase kb) {
+      return solver(query, kb, new SubstitutionSet());
+   }
+
+   /**
+    * solver
+    *
+    * @param  query
+    * @param  knowledge base
+    * @param  initial substitution set
+    * @return solution node
+    */
+   public SolutionNode solver(Complex query, KnowledgeBase kb,
+                              SubstitutionSet ss) {
+      QueryContext previous = enter();
+      try {
+         KnowledgeBase snapshot = kb.snapshot();
+         return new Root(this, query.getSolver(snapshot, ss, null),
+                         query, snapshot, ss);
+      } finally { exit(previous); }
+   }
+
+   /**
+    * iterator
+    *
+    * Makes an iterator which finds the solutions of a query lazily,
+    * in this context. See SolutionIterator.
+    *
+    * @param  query
+    * @param  knowledge base
+    * @return iterator of solutions
+    */
+   public SolutionIterator iterator(Complex query, KnowledgeBase kb) {
+      SubstitutionSet ss = new SubstitutionSet();
+      return new SolutionIterator(query, solver(query, kb, ss), ss);
+   }
+
+   /**
+    * solve
+    *
+    * Finds a solution in this context. See Solutions.solve().
+    *
+    * @param  query
+    * @param  knowledge base
+    * @return solution as string
+    * @throws TimeOverrunException
+    */
+   public String solve(Complex query, KnowledgeBase kb)
+                                  throws TimeOverrunException {
+      QueryContext previous = enter();
+      try {
+         return Solutions.solve(query, kb);
+      } finally { exit(previous); }
+   }
+
+   /**
+    * solveAll
+    *
+    * Finds all solutions in this context. See Solutions.solveAll().
+    *
+    * @param  query
+    * @param  knowledge base
+    * @return solutions as strings
+    * @throws TimeOverrunException
+    */
+   public ArrayList<String> solveAll(Complex query, KnowledgeBase kb)
+                                  throws TimeOverrunException {
+      QueryContext previous = enter();
+      try {
+         return Solutions.solveAll(query, kb);
+      } finally { exit(previous); }
+   }
+
+   /**
+    * start
+    *
+    * Starts the clock again. See CheckTime.
+    */
+   public void start() {
+      startTime = System.nanoTime();
+      own |= START_TIME;
+   }
+
+   /**
+    * startTime
+    *
+    * @return time when the clock was started, in nanoseconds
+    */
+   public long startTime() {
+      if ((own & START_TIME) == 0) return Global.startTime;
+      return startTime;
+   }
+
+   /**
+    * maxTime
+    *
+    * @return maximum time, in milliseconds
+    */
+   public int maxTime() {
+      if ((own & MAX_TIME) == 0) return Global.maxTime;
+      return maxTime;
+   }
+
+   /**
+    * setMaxTime
+    *
+    * @param  maximum time, in milliseconds
+    */
+   public void setMaxTime(int ms) {
+      maxTime = ms;
+      own |= MAX_TIME;
+   }
+
+   /**
+    * maxErrors
+    *
+    * @return maximum number of errors
+    */
+   public int maxErrors() {
+      if ((own & MAX_ERRORS) == 0) return Global.maxErrors;
+      return maxErrors;
+   }
+
+   /**
+    * setMaxErrors
+    *
+    * @param  maximum number of errors
+    */
+   public void setMaxErrors(int n) {
+      maxErrors = n;
+      own |= MAX_ERRORS;
+   }
+
+   /**
+    * maxVariables
+    *
+    * @return maximum variable ID
+    */
+   public int maxVariables() {
+      if ((own & MAX_VARIABLES) == 0) return Global.maxVariables;
+      return maxVariables;
+   }
+
+   /**
+    * setMaxVariables
+    *
+    * @param  maximum variable ID
+    */
+   public void setMaxVariables(int n) {
+      maxVariables = n;
+      own |= MAX_VARIABLES;
+   }
+
+   /*
+    * getNextId
+    *
+    * @return last variable ID
+    */
+   int getNextId() { return nextId; }
+
+   /*
+    * setNextId
+    *
+    * @param  last variable ID
+    */
+   void setNextId(int id) { nextId = id; }
+
+   /*
+    * newId
+    *
+    * @return new variable ID
+    * @throws MemoryLimitException
+    */
+   int newId() {
+      int id = ++nextId;
+      if (id > maxVariables()) {
+         throw new MemoryLimitException("LogicVar id: " + id);
+      }
+      return id;
+   }
+
+   /*
+    * reserve
+    *
+    * Reserves k consecutive variable IDs.
+    *
+    * @param   number of IDs
+    * @return  first ID
+    * @throws  MemoryLimitException
+    */
+   int reserve(int k) {
+      int base = nextId + 1;
+      nextId += k;
+      if (k > 0 && nextId > maxVariables()) {
+         throw new MemoryLimitException("LogicVar id: " + nextId);
+      }
+      return base;
+   }
+
+   /*
+    * Root
+    *
+    * The root node of a query, which enters its context while
+    * it searches.
+    */
+   private static final class Root extends SolutionNode {
+
+      private final QueryContext context;
+      private final SolutionNode node;
+
+      Root(QueryContext context, SolutionNode node, Complex query,
+           KnowledgeBase kb, SubstitutionSet ss) {
+         super(query, kb, ss, null);
+         this.context = context;
+         this.node = node;
+      }
+
+      public SubstitutionSet nextSolution() throws TimeOverrunException {
+         QueryContext previous = context.enter();
+         try {
+            return node.nextSolution();
+         } finally { context.exit(previous); }
+      }
+   }
+
+}  // QueryContext
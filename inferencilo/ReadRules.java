@@ -2,6 +2,8 @@
  * ReadRules
  *
  * This class has static methods which read Prolog-like rules from a file.
+ * The rules are read by a RuleReader. To read a very large file without
+ * keeping all of its rules in memory, use a RuleReader directly.
  *
  * @author Cleve (Klivo) Lendon
  * @version 1.0
@@ -10,10 +12,12 @@
 package inferencilo;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.InputStreamReader;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class ReadRules {
@@ -23,75 +27,29 @@ public class ReadRules {
     */
    public ReadRules() {}
 
-   /**
-    * makeListOfRules
+   /*
+    * readAll
     *
-    * Divides a text file to create a list of rules. One rule per item.
-    * Rules (and facts) end with a period.
+    * Reads all rules, one rule per item. Rules (and facts) end with
+    * a period. Returns null if there is an input error.
     *
-    * @param  original text
+    * @param  rule reader
     * @return rules (list of rules)
     * @throws UnmatchedParenthesesException,
     *         UnmatchedBracketsException,
     *         UnmatchedBacktickException
     */
-   private static List<String> makeListOfRules(String text) {
-
-      if (text == null) return null;
-
-      int length = text.length();
-      StringBuilder sb = new StringBuilder(100);
+   private static List<String> readAll(RuleReader reader) {
       List<String> rules = new ArrayList<String>();
-      int roundDepth = 0;   // depth of round parenthesis (())
-      int squareDepth = 0;  // depth of square brackets [[]]
-
-      for (int i = 0; i < length; i++) {
-
-         char c = text.charAt(i);
-         sb.append((char)c);
-
-         if (c == '`') {
-            int index = text.indexOf("`", i + 1);
-            if (index == -1) {
-               String s = sb.toString();
-               if (s.length() > 50) s = s.substring(0, 50);
-               throw new UnmatchedBacktickException(s);
-            }
-            else if (index == i + 1) {
-               // Use a double backtick to output a single backtick.
-               i++;
-               continue;
-            }
-            else {
-               sb.append(text.substring(i + 1, index + 1));
-               i = index;
-               continue;
-            }
-         }
-         else
-         if (c == '.' && roundDepth == 0 && squareDepth == 0) {
-            rules.add(sb.toString());
-            sb.setLength(0);
-         }
-         else if (c == '(') roundDepth++;
-         else if (c == '[') squareDepth++;
-         else if (c == ')') roundDepth--;
-         else if (c == ']') squareDepth--;
-      }  // for
-
-      String last = sb.toString().trim();
-      if (roundDepth != 0) {
-         if (last.length() > 50) last = last.substring(0, 50);
-         throw new UnmatchedParenthesesException(last);
+      try {
+         while (reader.hasNext()) rules.add(reader.next());
       }
-      if (squareDepth != 0) {
-         if (last.length() > 50) last = last.substring(0, 50);
-         throw new UnmatchedBracketsException(last);
+      catch (UncheckedIOException e) {
+         System.err.println("readAll: io error:\n" + e.getCause());
+         return null;
       }
-      if (last.length() > 0) rules.add(last);
       return rules;
-
-   } // makeListOfRules()
+   } // readAll()
 
 
    /**
@@ -108,13 +66,30 @@ public class ReadRules {
 
       BufferedReader reader = openFile(filename);
       if (reader == null) return null;
-      String text = readStripComments(reader);
-      if (text == null) return null;
-      return makeListOfRules(text);
+      try (RuleReader rules = new RuleReader(reader)) {
+         return readAll(rules);
+      }
+      catch (IOException e) { return null; }   // on close
 
    } // fromFile()
 
 
+   /*
+    * fromBytes
+    *
+    * Reads Prolog-like rules from the bytes of a file (UTF-8).
+    * (See KnowledgeImage.)
+    *
+    * @param  content of file
+    * @return rules (list of rules)
+    * @throws UnmatchedParenthesesException, UnmatchedBracketsException
+    */
+   static List<String> fromBytes(byte[] content) {
+      return readAll(new RuleReader(new InputStreamReader(
+                        new ByteArrayInputStream(content), StandardCharsets.UTF_8)));
+   } // fromBytes()
+
+
   /**
    * fromJar
    *
@@ -130,20 +105,15 @@ public class ReadRules {
 
       if (klass == null) return null;
       if (filename == null) return null;
-      String text;
 
-      try {
-         Reader in = new InputStreamReader(klass.getResourceAsStream(filename), "UTF-8");
-         BufferedReader reader = new BufferedReader(in);
-         if (reader == null) return null;
-         text = readStripComments(reader);
-         if (text == null) return null;
+      try (RuleReader rules = new RuleReader(new InputStreamReader(
+                                 klass.getResourceAsStream(filename), "UTF-8"))) {
+         return readAll(rules);
       }
       catch (IOException iox) {
          System.err.println("ReadRules, fromJar() - iox: " + iox.toString());
          return null;
       }
-      return makeListOfRules(text);
 
    }  // fromJar()
 
@@ -194,7 +164,7 @@ public class ReadRules {
     * @param  original line
     * @return trimmed line
     */
-   private static String trimComments(String line) {
+   static String trimComments(String line) {
       char c;
       char previous = 'x';
       int index = -1;
@@ -219,40 +189,4 @@ public class ReadRules {
       else return line;
    } // trimComments
 
-
-   /*
-    * readStripComments
-    *
-    * Reads program text from a buffered reader, line by line.
-    * Comments are removed from each line, and the lines
-    * are joined to produce a long string. The method returns
-    * the stripped program text, or null if there is a failure.
-    *
-    * @param  buffered reader
-    * @return stripped program text
-    */
-   private static String readStripComments(BufferedReader reader) {
-
-      StringBuilder sb = new StringBuilder(80);
-
-      try {
-         String line = reader.readLine();
-         while (true) {
-            if (line == null) break;
-            line = trimComments(line).trim();
-            if (line.length() > 0) {
-               sb.append(line + " ");
-            }
-            line = reader.readLine();
-         } // while
-      }
-      catch (IOException e) {
-         System.err.println("readStripComments: io error:\n" + e);
-         return null;
-      }
-      return sb.toString();
-
-   } // readStripComments
-
-
 } // ReadRules
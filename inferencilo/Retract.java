@@ -0,0 +1,97 @@
+/**
+ * Retract
+ *
+ * Removes a fact from the knowledge base. Eg.
+ *
+ *    retract(word(cat, $T))
+ *
+ * The first fact which unifies with the term is removed, and its
+ * arguments are bound. On backtracking, the next fact is removed.
+ * Rules (clauses with a body) are not removed.
+ *
+ * Calls which have already started still see the removed fact.
+ * See KnowledgeBase and RetractSolutionNode.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.HashMap;
+
+public class Retract implements Goal {
+
+   private final Unifiable term;
+
+   /**
+    * constructor
+    *
+    * @param  term to remove
+    */
+   public Retract(Unifiable term) {
+      if (term == null)
+         throw new FatalParsingException("retract() takes 1 argument.");
+      this.term = term;
+   }
+
+   /**
+    * constructor
+    *
+    * This constructor takes a string, such as:
+    *
+    *   "word(cat, $T)"
+    *
+    * @param  argument string
+    */
+   public Retract(String str) {
+      this(Make.term(str));
+   }
+
+   /**
+    * getTerm
+    *
+    * @return  term to remove
+    */
+   public Unifiable getTerm() { return term; }
+
+   /**
+    * getSolver
+    *
+    * Returns a solution node for this predicate.
+    *
+    * @param  knowledge base
+    * @param  parent solution set
+    * @param  parent solution node
+    * @return solution node
+    */
+   public SolutionNode getSolver(KnowledgeBase knowledge,
+                                 SubstitutionSet parentSolution,
+                                 SolutionNode parentNode) {
+      return new RetractSolutionNode(this, knowledge, parentSolution, parentNode);
+   }
+
+   /**
+    * replaceVariables
+    *
+    * Refer to Expression for full comments.
+    *
+    * @param   substitution set
+    * @return  new expression
+    */
+   public Expression replaceVariables(SubstitutionSet ss) {
+      return new Retract((Unifiable)term.replaceVariables(ss));
+   }
+
+   /**
+    * standardizeVariablesApart
+    *
+    * Refer to class Expression for full comments.
+    */
+   public Expression standardizeVariablesApart(HashMap<String, LogicVar> newVars) {
+      return new Retract((Unifiable)term.standardizeVariablesApart(newVars));
+   }
+
+   public String toString() { return "retract(" + term + ")"; }
+
+}  // Retract
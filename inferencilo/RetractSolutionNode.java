@@ -0,0 +1,80 @@
+/**
+ * RetractSolutionNode
+ *
+ * Solution node for the Retract predicate.
+ *
+ * When the node is created, it takes a view of the clauses of the
+ * predicate (see Predicate.View), as a call of a complex term does.
+ * Each solution unifies the goal with the next visible fact, and
+ * retracts it. A fact which has been retracted by another goal in
+ * the meantime is skipped.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+public class RetractSolutionNode extends SolutionNode {
+
+   private Complex term = null;
+   private Predicate predicate = null;
+   private Predicate.View clauses = null;
+   private int position = 0;
+
+   /**
+    * constructor
+    *
+    * @param  goal
+    * @param  knowledge base
+    * @param  parent solution set
+    * @param  parent solution node
+    * @throws InvalidArgumentException
+    */
+   public RetractSolutionNode(Retract goal,
+                              KnowledgeBase kb,
+                              SubstitutionSet parentSolution,
+                              SolutionNode parentNode) {
+      super(goal, kb, parentSolution, parentNode);
+      Unifiable t = Complex.deref(goal.getTerm(), parentSolution);
+      if (!(t instanceof Complex)) {
+         throw new InvalidArgumentException("retract() requires a complex term: " + t);
+      }
+      term = (Complex)t;
+      clauses = kb.view(term, parentSolution);
+      if (clauses != null) predicate = clauses.predicate();
+   }
+
+   /**
+    * nextSolution
+    *
+    * @return  new substitution set
+    */
+   public SubstitutionSet nextSolution() {
+
+      if (noBackTracking() || clauses == null) { return null; }
+
+      while (position < clauses.length()) {
+
+         int clause = clauses.clause(position++);
+         if (!clauses.visible(clause) || predicate.isRetracted(clause)) continue;
+
+         Rule template = predicate.getClause(clause);
+         if (template.getBody() != null) continue;   // not a fact
+
+         SubstitutionSet ss = restoreParentSolution();
+         if (!template.getHead().mayUnify(term, ss)) continue;
+
+         int fallbackId = LogicVar.getNextId();
+         Complex head = template.standardizeApart().getHead();
+         SubstitutionSet solution = head.unify(term, ss);
+         if (solution == null) {
+            LogicVar.setNextId(fallbackId);
+            continue;
+         }
+         if (getKnowledgeBase().retractClause(predicate, clause)) return solution;
+      }
+      return null;
+   }
+
+} // RetractSolutionNode
@@ -18,6 +18,7 @@ public class Rule implements Expression {
 
    private Complex head;
    private Goal    body;
+   private int     numVars = -1;   // For compiled rules (templates).
 
    /**
     * constructor
@@ -35,6 +36,7 @@ public class Rule implements Expression {
     * constructor
     *
     * Create a fact or rule from a string representation.
+    * (See Parser.)
     *
     * For example:
     *    genre(jazz).
@@ -44,28 +46,9 @@ public class Rule implements Expression {
     * @throws InvalidRuleException
     */
    public Rule(String str) {
-
-      String s = str.trim();
-      if (s.endsWith(".")) {
-         int len = s.length();
-         s = s.substring(0, len - 1);
-      }
-      int index = s.indexOf(":-");
-
-      if (index > -1) {
-         String head = s.substring(0, index);
-         String body = s.substring(index + 2);
-         // Make sure there is not a second ':-' .
-         if (body.indexOf(":-") >= 0)
-            throw new InvalidRuleException(":- occurs twice:\n" + str);
-         this.head = new Complex(head);
-         Tokenizer tok = Tokenizer.getTokenizer();
-         this.body = tok.generateGoal(body);
-      }
-      else {  // Must be a fact (no body).
-         this.head = new Complex(s);
-         this.body = null;
-      }
+      Parser parser = new Parser(str);
+      this.head = parser.head();
+      this.body = parser.body();
    } // constructor
 
 
@@ -163,6 +146,8 @@ public class Rule implements Expression {
     */
    public Expression standardizeVariablesApart(HashMap<String, LogicVar> newVars) {
 
+      // A compiled fact without variables can be shared.
+      if (numVars == 0 && body == null && newVars instanceof VariableFrame) return this;
       Complex newHead = (Complex)head.standardizeVariablesApart(newVars);
       Goal newBody = null;
       if (body != null) {
@@ -171,4 +156,37 @@ public class Rule implements Expression {
       return new Rule(newHead, newBody);
    }
 
+   /*
+    * compile
+    *
+    * Compiles the rule into a template, whose variables are numbered
+    * from 0 to k-1. The knowledge base compiles each rule when it is
+    * added. See VariableFrame.
+    *
+    * @return  template
+    */
+   Rule compile() {
+      if (numVars >= 0) return this;   // already a template
+      VariableFrame frame = new VariableFrame();
+      Rule template = (Rule)standardizeVariablesApart(frame);
+      template.numVars = frame.numSlots();
+      return template;
+   }
+
+   /*
+    * standardizeApart
+    *
+    * Standardizes the variables of a rule apart. If the rule is a
+    * template, k consecutive variable IDs are reserved, and its
+    * variables are renamed by offset.
+    *
+    * @return  new rule
+    */
+   Rule standardizeApart() {
+      if (numVars < 0) {
+         return (Rule)standardizeVariablesApart(new HashMap<String, LogicVar>());
+      }
+      return (Rule)standardizeVariablesApart(new VariableFrame(numVars));
+   }
+
 } // Rule
@@ -0,0 +1,220 @@
+/**
+ * RuleLoader
+ *
+ * Loads a large number of rules into a knowledge base. Loading has
+ * three stages:
+ *
+ *    split  - the text is divided into rules (see ReadRules)
+ *    parse  - the rules are parsed, in parallel, on a ForkJoin pool
+ *    index  - the parsed rules are added to the knowledge base, in
+ *             their original order, as one write
+ *
+ * The knowledge base is the same as one loaded by addRules(). Rules
+ * which cannot be parsed are reported in order, as by addRules().
+ * The split stage is timed only by fromFile(). The load() methods take
+ * rules which have already been split.
+ *
+ *    KnowledgeBase kb = new KnowledgeBase();
+ *    RuleLoader.Report report = RuleLoader.fromFile(kb, "grammar.txt");
+ *    System.out.println(report);
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public final class RuleLoader {
+
+   // Minimum number of rules which a task parses without splitting.
+   private static final int MIN_CHUNK = 64;
+
+   /**
+    * Report
+    *
+    * Number of rules loaded, and the time spent in each stage.
+    */
+   public static final class Report {
+
+      private final int rules;
+      private final int errors;
+      private final long split;   // nanoseconds, or -1 if not measured
+      private final long parse;
+      private final long index;
+
+      Report(int rules, int errors, long split, long parse, long index) {
+         this.rules  = rules;
+         this.errors = errors;
+         this.split  = split;
+         this.parse  = parse;
+         this.index  = index;
+      }
+
+      /** @return number of rules added */
+      public int rules() { return rules; }
+
+      /** @return number of rules which could not be parsed */
+      public int errors() { return errors; }
+
+      /** @return true if the time spent splitting text was measured */
+      public boolean hasSplit() { return split >= 0; }
+
+      /** @return time spent splitting text into rules, in milliseconds,
+                  or -1 if it was not measured */
+      public double splitMillis() {
+         if (split < 0) return -1;
+         return split / 1000000.0;
+      }
+
+      /** @return time spent parsing rules, in milliseconds */
+      public double parseMillis() { return parse / 1000000.0; }
+
+      /** @return time spent adding rules to the knowledge base, in milliseconds */
+      public double indexMillis() { return index / 1000000.0; }
+
+      public String toString() {
+         String splitTime = "";
+         if (hasSplit()) splitTime = String.format("split %.2f ms, ", splitMillis());
+         return String.format("Loaded %d rules (%d errors): %sparse %.2f ms, " +
+                              "index %.2f ms", rules, errors, splitTime,
+                              parseMillis(), indexMillis());
+      }
+
+   }  // Report
+
+   /*
+    * Parses the rules from start to end (exclusive). A rule which
+    * cannot be parsed leaves its exception in place of the rule.
+    */
+   private static final class Parse extends RecursiveAction {
+
+      private final List<String> strings;
+      private final Object[] parsed;
+      private final int start, end, chunk;
+
+      Parse(List<String> strings, Object[] parsed, int start, int end, int chunk) {
+         this.strings = strings;
+         this.parsed = parsed;
+         this.start = start;
+         this.end = end;
+         this.chunk = chunk;
+      }
+
+      protected void compute() {
+         if (end - start > chunk) {
+            int middle = (start + end) >>> 1;
+            invokeAll(new Parse(strings, parsed, start, middle, chunk),
+                      new Parse(strings, parsed, middle, end, chunk));
+            return;
+         }
+         for (int i = start; i < end; i++) {
+            String str = strings.get(i);
+            if (str.trim().startsWith(":-")) continue;  // A directive.
+            try {
+               parsed[i] = new Rule(str);
+            } catch (FatalParsingException fpx) {
+               parsed[i] = fpx;
+            }
+         }
+      }
+
+   }  // Parse
+
+   /*
+    * constructor
+    */
+   private RuleLoader() { }
+
+   /**
+    * fromFile
+    *
+    * Reads the rules of a text file into a knowledge base.
+    *
+    * @param  knowledge base
+    * @param  name of file
+    * @return report, or null if the file could not be read
+    * @throws UnmatchedParenthesesException, UnmatchedBracketsException
+    */
+   public static Report fromFile(KnowledgeBase kb, String filename) {
+      long start = System.nanoTime();
+      List<String> rules = ReadRules.fromFile(filename);
+      if (rules == null) return null;
+      return load(kb, rules, ForkJoinPool.commonPool(), System.nanoTime() - start);
+   }
+
+   /**
+    * load
+    *
+    * Parses a list of rules on the common ForkJoin pool, and adds
+    * them to a knowledge base.
+    *
+    * @param  knowledge base
+    * @param  list of rule strings
+    * @return report
+    */
+   public static Report load(KnowledgeBase kb, List<String> ruleList) {
+      return load(kb, ruleList, ForkJoinPool.commonPool(), -1);
+   }
+
+   /**
+    * load
+    *
+    * Parses a list of rules on the given pool, and adds them to a
+    * knowledge base.
+    *
+    * @param  knowledge base
+    * @param  list of rule strings
+    * @param  pool
+    * @return report
+    */
+   public static Report load(KnowledgeBase kb, List<String> ruleList,
+                             ForkJoinPool pool) {
+      return load(kb, ruleList, pool, -1);
+   }
+
+   /*
+    * load
+    *
+    * @param  knowledge base
+    * @param  list of rule strings
+    * @param  pool
+    * @param  time spent splitting, in nanoseconds, or -1
+    * @return report
+    */
+   private static Report load(KnowledgeBase kb, List<String> ruleList,
+                              ForkJoinPool pool, long split) {
+
+      if (!(ruleList instanceof RandomAccess)) ruleList = new ArrayList<>(ruleList);
+      int n = ruleList.size();
+
+      long start = System.nanoTime();
+      Object[] parsed = new Object[n];
+      int chunk = Math.max(MIN_CHUNK, n / (pool.getParallelism() * 4));
+      pool.invoke(new Parse(ruleList, parsed, 0, n, chunk));
+      long parse = System.nanoTime() - start;
+
+      // Merge, in the original order.
+      start = System.nanoTime();
+      List<Rule> rules = new ArrayList<>(n);
+      int errors = 0;
+      for (int i = 0; i < n; i++) {
+         Object p = parsed[i];
+         if (p instanceof Rule) rules.add((Rule)p);
+         else if (p == null) kb.addRule(ruleList.get(i));  // A directive.
+         else {
+            System.out.println(((FatalParsingException)p).getMessage());
+            System.out.println(ruleList.get(i));
+            errors++;
+         }
+      }
+      kb.addAll(rules);
+      long index = System.nanoTime() - start;
+
+      return new Report(rules.size(), errors, split, parse, index);
+   } // load()
+
+}  // RuleLoader
@@ -0,0 +1,342 @@
+/**
+ * RuleReader
+ *
+ * Reads Prolog-like rules from a stream, one at a time. Only the rule
+ * which is being read is kept in memory, so very large fact files can
+ * be loaded without reading the whole file first. The first rules can
+ * be used before the rest of the file has been read.
+ *
+ * The text is divided into rules as by ReadRules: comments are removed
+ * from each line, and rules (and facts) end with a period, outside of
+ * parentheses, brackets and backticks.
+ *
+ *    try (RuleReader reader = RuleReader.open("lexicon.txt")) {
+ *       while (reader.hasNext()) {
+ *          String rule = reader.next();
+ *          ...
+ *       }
+ *    }
+ *
+ * Or, to add the rules to a knowledge base as they are read:
+ *
+ *    reader.addTo(kb);
+ *
+ * The line and column where each rule starts are kept, for error
+ * messages. The reader stops with an exception at an unmatched closing
+ * parenthesis or bracket, at an unmatched backtick, or if a rule is
+ * longer than the maximum length (probably because of an unmatched
+ * opening parenthesis).
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class RuleReader implements Iterator<String>, Closeable {
+
+   // Rules are added to a knowledge base in batches of this size.
+   private static final int BATCH = 1024;
+
+   public static final int DEFAULT_MAX_LENGTH = 1 << 20;   // characters
+
+   private final BufferedReader reader;
+   private int maxLength = DEFAULT_MAX_LENGTH;
+
+   private StringBuilder sb = new StringBuilder(100);  // rule being read
+   private String text = null;   // rest of the current line, or null
+   private int textIndex = 0;
+   private int textColumn = 0;   // column of text.charAt(0), from 0
+   private int lineNumber = 0;
+
+   private int roundDepth = 0;   // depth of round parenthesis (())
+   private int squareDepth = 0;  // depth of square brackets [[]]
+   private boolean inBackticks = false;
+   private int startLine = 0;    // where the rule being read starts
+   private int startColumn = 0;
+
+   private String next = null;   // the next rule, after hasNext()
+   private int nextLine = 0, nextColumn = 0;
+   private int line = 0, column = 0;   // of the rule returned by next()
+   private boolean finished = false;
+
+   /**
+    * constructor
+    *
+    * @param  reader
+    */
+   public RuleReader(Reader reader) {
+      this.reader = (reader instanceof BufferedReader) ? (BufferedReader)reader
+                                                       : new BufferedReader(reader);
+   }
+
+   /**
+    * constructor
+    *
+    * @param  channel of UTF-8 text
+    */
+   public RuleReader(ReadableByteChannel channel) {
+      this(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1));
+   }
+
+   /**
+    * open
+    *
+    * Opens a UTF-8 file for reading.
+    *
+    * @param  file name
+    * @return rule reader
+    * @throws IOException
+    */
+   public static RuleReader open(String filename) throws IOException {
+      return new RuleReader(new InputStreamReader(new FileInputStream(filename),
+                                                  StandardCharsets.UTF_8));
+   }
+
+   /**
+    * setMaxLength
+    *
+    * @param  maximum number of characters in a rule
+    */
+   public void setMaxLength(int maxLength) { this.maxLength = maxLength; }
+
+   /**
+    * hasNext
+    *
+    * @return true if there is another rule
+    * @throws UncheckedIOException
+    * @throws UnmatchedParenthesesException, UnmatchedBracketsException,
+    *         UnmatchedBacktickException, InvalidRuleException
+    */
+   public boolean hasNext() {
+      if (next == null && !finished) {
+         try {
+            next = read();
+         } catch (IOException iox) {
+            throw new UncheckedIOException(iox);
+         }
+         if (next == null) finished = true;
+      }
+      return next != null;
+   }
+
+   /**
+    * next
+    *
+    * @return the next rule
+    * @throws NoSuchElementException if there are no more rules
+    */
+   public String next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      String rule = next;
+      next = null;
+      line = nextLine;
+      column = nextColumn;
+      return rule;
+   }
+
+   /**
+    * line
+    *
+    * @return line number (from 1) where the last rule starts
+    */
+   public int line() { return line; }
+
+   /**
+    * column
+    *
+    * @return column number (from 1) where the last rule starts
+    */
+   public int column() { return column; }
+
+   /**
+    * position
+    *
+    * @return "line n, column m", where the last rule starts
+    */
+   public String position() { return "line " + line + ", column " + column; }
+
+   /**
+    * close
+    *
+    * @throws IOException
+    */
+   public void close() throws IOException { reader.close(); }
+
+   /**
+    * addTo
+    *
+    * Reads the rest of the rules, and adds them to a knowledge base in
+    * batches. Directives are executed in order. Rules which cannot be
+    * parsed are reported with their line and column, and skipped.
+    *
+    * @param  knowledge base
+    * @return number of rules added
+    * @throws UncheckedIOException
+    * @throws UnmatchedParenthesesException, UnmatchedBracketsException,
+    *         UnmatchedBacktickException, InvalidRuleException
+    */
+   public int addTo(KnowledgeBase kb) {
+      List<Rule> batch = new ArrayList<>(BATCH);
+      int count = 0;
+      while (hasNext()) {
+         String str = next();
+         try {
+            if (str.startsWith(":-")) {
+               kb.addAll(batch);
+               batch.clear();
+               kb.addRule(str);
+               continue;
+            }
+            batch.add(new Rule(str));
+            count++;
+         } catch (FatalParsingException fpx) {
+            System.out.println(position() + ": " + fpx.getMessage());
+            System.out.println(str);
+         }
+         if (batch.size() == BATCH) {
+            kb.addAll(batch);
+            batch.clear();
+         }
+      }
+      if (batch.size() > 0) kb.addAll(batch);
+      return count;
+   } // addTo()
+
+   /*
+    * read
+    *
+    * Reads the next rule.
+    *
+    * @return rule, or null at the end
+    * @throws IOException
+    */
+   private String read() throws IOException {
+
+      while (true) {
+
+         if (text == null && !nextLine()) {
+            // End of input. The last rule may have no period.
+            String last = sb.toString().trim();
+            sb.setLength(0);
+            if (inBackticks) throw new UnmatchedBacktickException(where() + cut(last));
+            if (roundDepth != 0) throw new UnmatchedParenthesesException(where() + cut(last));
+            if (squareDepth != 0) throw new UnmatchedBracketsException(where() + cut(last));
+            if (last.length() == 0) return null;
+            return rule(last);
+         }
+
+         int length = text.length();
+         while (textIndex < length) {
+            int i = textIndex++;
+            char c = text.charAt(i);
+            if (sb.length() == 0 && c == ' ') continue;
+            if (sb.length() == 0) {
+               startLine = lineNumber;
+               startColumn = textColumn + i + 1;
+            }
+            sb.append(c);
+            if (sb.length() > maxLength) {
+               throw new InvalidRuleException(where() + "Rule is longer than " +
+                                              maxLength + " characters: " + cut(sb.toString()));
+            }
+            if (inBackticks) {
+               if (c == '`') inBackticks = false;
+            }
+            else if (c == '`') {
+               // Use a double backtick to output a single backtick.
+               if (textIndex < length && text.charAt(textIndex) == '`') textIndex++;
+               else inBackticks = true;
+            }
+            else if (c == '.' && roundDepth == 0 && squareDepth == 0) {
+               String rule = sb.toString();
+               sb.setLength(0);
+               return rule(rule);
+            }
+            else if (c == '(') roundDepth++;
+            else if (c == '[') squareDepth++;
+            else if (c == ')') {
+               if (--roundDepth < 0) {
+                  throw new UnmatchedParenthesesException(where(i) + cut(sb.toString()));
+               }
+            }
+            else if (c == ']') {
+               if (--squareDepth < 0) {
+                  throw new UnmatchedBracketsException(where(i) + cut(sb.toString()));
+               }
+            }
+         }
+         text = null;
+      }
+   } // read()
+
+   /*
+    * nextLine
+    *
+    * Reads the next line which has text, and removes its comment.
+    * Lines are joined by a space.
+    *
+    * @return false at the end of input
+    * @throws IOException
+    */
+   private boolean nextLine() throws IOException {
+      while (true) {
+         String original = reader.readLine();
+         if (original == null) return false;
+         lineNumber++;
+         String trimmed = ReadRules.trimComments(original).trim();
+         if (trimmed.length() == 0) continue;
+         text = trimmed + " ";
+         textIndex = 0;
+         textColumn = original.indexOf(trimmed.charAt(0));
+         return true;
+      }
+   }
+
+   /*
+    * rule
+    *
+    * @param  text of rule
+    * @return rule, trimmed; its position is saved
+    */
+   private String rule(String str) {
+      nextLine = startLine;
+      nextColumn = startColumn;
+      return str.trim();
+   }
+
+   /*
+    * where
+    *
+    * @return position of the rule being read, for error messages
+    */
+   private String where() {
+      return "line " + startLine + ", column " + startColumn + ": ";
+   }
+
+   /*
+    * where
+    *
+    * @param  index of character in the current line
+    * @return position of the character, for error messages
+    */
+   private String where(int i) {
+      return "line " + lineNumber + ", column " + (textColumn + i + 1) + ": ";
+   }
+
+   /*
+    * cut
+    *
+    * @return text, shortened to 50 characters
+    */
+   private static String cut(String s) {
+      return s.length() > 50 ? s.substring(0, 50) : s;
+   }
+
+}  // RuleReader
@@ -0,0 +1,58 @@
+/**
+ * SFloat
+ *
+ * A floating point term. The value is held in a double.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+public class SFloat extends SNumber {
+
+   private final double value;
+
+   /**
+    * constructor
+    *
+    * @param  value
+    */
+   public SFloat(double value) {
+      super(null);
+      this.value = value;
+   }
+
+   /*
+    * constructor
+    *
+    * @param  value
+    * @param  source text
+    */
+   SFloat(double value, String text) {
+      super(text);
+      this.value = value;
+   }
+
+   /**
+    * isInteger
+    *
+    * @return  false
+    */
+   public boolean isInteger() { return false; }
+
+   /**
+    * doubleValue
+    *
+    * @return  value
+    */
+   public double doubleValue() { return value; }
+
+   /*
+    * format
+    *
+    * @return  value as string, eg. 4.0
+    */
+   String format() { return Double.toString(value); }
+
+}  // SFloat
@@ -0,0 +1,215 @@
+/**
+ * SInteger
+ *
+ * An integer term. The value is held in a long. If a result does not
+ * fit in a long, it overflows to a BigInteger.
+ *
+ * Small integers (-128 to 1023) are cached, so counting and simple
+ * arithmetic do not allocate. Use inst() to create integers.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.math.BigInteger;
+
+public class SInteger extends SNumber {
+
+   private static final int LOW  = -128;
+   private static final int HIGH = 1023;
+   private static final SInteger[] small = new SInteger[HIGH - LOW + 1];
+
+   static {
+      for (int i = LOW; i <= HIGH; i++) small[i - LOW] = new SInteger(i, null);
+   }
+
+   private static final BigInteger MIN_LONG = BigInteger.valueOf(Long.MIN_VALUE);
+   private static final BigInteger MAX_LONG = BigInteger.valueOf(Long.MAX_VALUE);
+
+   private final long value;
+   private final BigInteger big;   // null if the value fits in a long
+
+   /*
+    * constructor
+    *
+    * @param  value
+    * @param  source text, or null
+    */
+   SInteger(long value, String text) {
+      super(text);
+      this.value = value;
+      this.big = null;
+   }
+
+   /*
+    * constructor
+    *
+    * @param  big value (does not fit in a long)
+    * @param  source text, or null
+    */
+   private SInteger(BigInteger big, String text) {
+      super(text);
+      this.value = 0;
+      this.big = big;
+   }
+
+   /**
+    * inst
+    *
+    * Factory method. Small values are fetched from a cache.
+    *
+    * @param   value
+    * @return  SInteger
+    */
+   public static SInteger inst(long value) {
+      if (value >= LOW && value <= HIGH) return small[(int)value - LOW];
+      return new SInteger(value, null);
+   }
+
+   /**
+    * inst
+    *
+    * Factory method. If the value fits in a long, it is stored as a long.
+    *
+    * @param   value
+    * @return  SInteger
+    */
+   public static SInteger inst(BigInteger value) {
+      return inst(value, null);
+   }
+
+   /*
+    * inst
+    *
+    * @param   value
+    * @param   source text, or null
+    * @return  SInteger
+    */
+   static SInteger inst(BigInteger value, String text) {
+      if (value.compareTo(MIN_LONG) >= 0 && value.compareTo(MAX_LONG) <= 0) {
+         if (text == null) return inst(value.longValue());
+         return new SInteger(value.longValue(), text);
+      }
+      return new SInteger(value, text);
+   }
+
+   /**
+    * isInteger
+    *
+    * @return  true
+    */
+   public boolean isInteger() { return true; }
+
+   /**
+    * isBig
+    *
+    * @return  true if the value does not fit in a long
+    */
+   public boolean isBig() { return big != null; }
+
+   /**
+    * longValue
+    *
+    * @return  value as long (truncated if big)
+    */
+   public long longValue() {
+      if (big != null) return big.longValue();
+      return value;
+   }
+
+   /**
+    * bigValue
+    *
+    * @return  value as BigInteger
+    */
+   public BigInteger bigValue() {
+      if (big != null) return big;
+      return BigInteger.valueOf(value);
+   }
+
+   /**
+    * doubleValue
+    *
+    * @return  value as double
+    */
+   public double doubleValue() {
+      if (big != null) return big.doubleValue();
+      return (double)value;
+   }
+
+   /*
+    * format
+    *
+    * @return  value as string
+    */
+   String format() {
+      if (big != null) return big.toString();
+      return Long.toString(value);
+   }
+
+   /**
+    * compareTo
+    *
+    * @param   other integer
+    * @return  negative, zero or positive
+    */
+   public int compareTo(SInteger other) {
+      if (big == null && other.big == null) return Long.compare(value, other.value);
+      return bigValue().compareTo(other.bigValue());
+   }
+
+   /**
+    * add
+    *
+    * @param   first integer
+    * @param   second integer
+    * @return  sum
+    */
+   public static SInteger add(SInteger a, SInteger b) {
+      if (a.big == null && b.big == null) {
+         long sum = a.value + b.value;
+         // Overflow if both operands have a sign different from the sum.
+         if (((a.value ^ sum) & (b.value ^ sum)) >= 0) return inst(sum);
+      }
+      return inst(a.bigValue().add(b.bigValue()));
+   }
+
+   /**
+    * subtract
+    *
+    * @param   first integer
+    * @param   second integer
+    * @return  difference
+    */
+   public static SInteger subtract(SInteger a, SInteger b) {
+      if (a.big == null && b.big == null) {
+         long diff = a.value - b.value;
+         if (((a.value ^ b.value) & (a.value ^ diff)) >= 0) return inst(diff);
+      }
+      return inst(a.bigValue().subtract(b.bigValue()));
+   }
+
+   /**
+    * multiply
+    *
+    * @param   first integer
+    * @param   second integer
+    * @return  product
+    */
+   public static SInteger multiply(SInteger a, SInteger b) {
+      if (a.big == null && b.big == null) {
+         long x = a.value;
+         long y = b.value;
+         long product = x * y;
+         // Same overflow test as Math.multiplyExact().
+         if (((Math.abs(x) | Math.abs(y)) >>> 31) == 0 ||
+             ((y == 0 || product / y == x) && !(x == Long.MIN_VALUE && y == -1))) {
+            return inst(product);
+         }
+      }
+      return inst(a.bigValue().multiply(b.bigValue()));
+   }
+
+}  // SInteger
@@ -50,6 +50,15 @@ public class SLinkedList implements Unifiable {
 
    private int  count;  // Number of elements in this list.
 
+   // Computed when first needed. See isGround().
+   private byte ground = 0;     // 0 = unknown, 1 = ground, -1 = not ground
+   private boolean nested;      // contains a list inside a list
+   private boolean hasNumber;   // a ground list which contains a number
+   private int hash;
+
+   // True if this list is the shared instance in the HashCons table.
+   boolean consed = false;
+
    public  static SLinkedList empty = new SLinkedList();
 
    /* About isTailVar:
@@ -174,7 +183,7 @@ public class SLinkedList implements Unifiable {
     * @param   tail SLinkedList
     * @param   count - number of elements
     */
-   private SLinkedList(boolean isTailVar, Unifiable h, SLinkedList t, int num) {
+   SLinkedList(boolean isTailVar, Unifiable h, SLinkedList t, int num) {
       this.term = h;
       this.next = t;
       this.isTailVar = isTailVar;
@@ -363,6 +372,94 @@ public class SLinkedList implements Unifiable {
    public boolean isTailVar() { return isTailVar; }
 
 
+   /*
+    * next
+    *
+    * @return next node, or null
+    */
+   SLinkedList next() { return next; }
+
+
+   /**
+    * isGround
+    *
+    * A list is ground if it contains no variables. Ground lists are
+    * never copied by standardizeVariablesApart() or replaceVariables().
+    * The result is cached.
+    *
+    * @return true if ground
+    */
+   public boolean isGround() {
+      if (ground != 0) return ground > 0;
+      // Walk to the end of the list, or to a node whose flags are known.
+      ArrayList<SLinkedList> nodes = new ArrayList<SLinkedList>();
+      SLinkedList node = this;
+      while (node != null && node.ground == 0 && node.term != null) {
+         nodes.add(node);
+         node = node.next;
+      }
+      byte g = 1;
+      boolean num = false;
+      boolean nest = false;
+      int h = 17;
+      if (node != null && node.ground != 0) {
+         g = node.ground;
+         num = node.hasNumber;
+         nest = node.nested;
+         h = node.hash;
+      }
+      // Set the flags of each node, from last to first.
+      for (int i = nodes.size() - 1; i >= 0; i--) {
+         node = nodes.get(i);
+         if (g > 0 && (node.isTailVar || !HashCons.isGround(node.term))) g = -1;
+         if (g > 0) {
+            num |= HashCons.hasNumber(node.term);
+            nest |= node.term instanceof SLinkedList || HashCons.isNested(node.term);
+            h = 31 * h + HashCons.hash(node.term);
+         }
+         node.hasNumber = num;
+         node.nested = nest;
+         node.hash = h;
+         node.ground = g;
+      }
+      if (term == null) {  // empty list
+         ground = 1;
+         hash = 17;
+      }
+      return ground > 0;
+   }
+
+
+   /*
+    * isNested
+    *
+    * @return true if this ground list has a list inside a list
+    */
+   boolean isNested() { return isGround() && nested; }
+
+
+
+   /*
+    * hasNumber
+    *
+    * @return true if this ground list contains a number
+    */
+   boolean hasNumber() { return isGround() && hasNumber; }
+
+
+   /*
+    * groundHash
+    *
+    * Structural hash code of a ground list.
+    *
+    * @return hash
+    */
+   int groundHash() {
+      isGround();
+      return hash;
+   }
+
+
    /**
     * count
     *
@@ -463,6 +560,11 @@ public class SLinkedList implements Unifiable {
          // [] == []
          if (other == this) return ss;
 
+         // Two different shared ground lists cannot unify, unless
+         // they contain numbers.
+         SLinkedList o = (SLinkedList)other;
+         if (consed && o.consed && !hasNumber && !o.hasNumber) return null;
+
          SubstitutionSet newSS = ss;
 
          SLinkedList thisList = this;
@@ -518,6 +620,7 @@ public class SLinkedList implements Unifiable {
     */
    public Expression replaceVariables(SubstitutionSet ss) {
 
+      if (isGround() && !nested) return this;
       List<Unifiable> newTerms = new ArrayList<Unifiable>();
       SLinkedList thisList = this;
       Unifiable term = thisList.getHead();
@@ -546,6 +649,7 @@ public class SLinkedList implements Unifiable {
       }
 
       SLinkedList result = new SLinkedList(false, newTerms);
+      if (Global.hashConsing && result.isGround()) return HashCons.intern(result);
       return result;
    }
 
@@ -556,6 +660,7 @@ public class SLinkedList implements Unifiable {
     * Refer to class Expression for full comments.
     */
    public Expression standardizeVariablesApart(HashMap<String, LogicVar> newVars) {
+      if (isGround() && !nested) return this;  // Nothing to rename.
       ArrayList<Unifiable> newTerms = new ArrayList<Unifiable>();
       SLinkedList thisList = this;
       boolean hasPipe = thisList.isTailVar();
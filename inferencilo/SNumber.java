@@ -0,0 +1,239 @@
+/**
+ * SNumber
+ *
+ * Base class of numeric terms. There are two kinds of numbers:
+ *
+ *    SInteger - holds a long, or a BigInteger if the value is too big
+ *    SFloat   - holds a double
+ *
+ * Numbers extend Constant, so built-in predicates which expect a
+ * Constant (Print, Join, etc.) work with them unchanged. Unlike other
+ * Constants, numbers are not interned. Two numbers unify if they are
+ * numerically equal; 1 unifies with 1.0 .
+ *
+ * Arithmetic functions (Add, Subtract, Multiply, Divide) and comparison
+ * predicates work directly on the primitive values, instead of parsing
+ * strings.
+ *
+ * When a rule is parsed, Make.term() creates numbers directly. A number
+ * which was parsed keeps its source text, so 007 prints as 007.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.math.BigInteger;
+import java.util.regex.*;
+
+public abstract class SNumber extends Constant {
+
+   // For detecting numbers. Same as in Constant.
+   private static Pattern numberPattern = Pattern.compile("[+-]?\\d+(\\.\\d*)?");
+
+   // Source text, or null.
+   String text;
+
+   /*
+    * constructor
+    *
+    * @param  source text, or null
+    */
+   SNumber(String text) {
+      super();
+      this.text = text;
+   }
+
+   /**
+    * parse
+    *
+    * Creates a number from a string, if the string represents one.
+    * Integers have no decimal point. Eg. 1, -42, +21
+    * Floats have a decimal point. Eg. 3.14159, 1.
+    *
+    * @param   string
+    * @return  SInteger, SFloat, or null if not a number
+    */
+   public static SNumber parse(String str) {
+      int len = str.length();
+      if (len == 0) return null;
+      char c = str.charAt(0);
+      // Quick check, before the regex.
+      if (!(c >= '0' && c <= '9') && c != '+' && c != '-') return null;
+      if (!numberPattern.matcher(str).matches()) return null;
+      if (str.indexOf('.') >= 0) return new SFloat(Double.parseDouble(str), str);
+      if (len < 19) return new SInteger(Long.parseLong(str), str);
+      return SInteger.inst(new BigInteger(str), str);
+   }
+
+   /**
+    * of
+    *
+    * Gets the number which a Constant represents. For compatibility,
+    * strings which Double.parseDouble() accepts, such as 1.5E10, are
+    * converted to floats.
+    *
+    * @param   constant
+    * @return  number
+    * @throws  NumberFormatException
+    */
+   public static SNumber of(Constant c) throws NumberFormatException {
+      SNumber n = c.toNumber();
+      if (n != null) return n;
+      return new SFloat(Double.parseDouble(c.toString()));
+   }
+
+   /**
+    * isInteger
+    *
+    * @return  true for SInteger, false for SFloat
+    */
+   public abstract boolean isInteger();
+
+   /**
+    * doubleValue
+    *
+    * @return  value as double
+    */
+   public abstract double doubleValue();
+
+   /**
+    * isNumber
+    *
+    * @return  true
+    */
+   public boolean isNumber() { return true; }
+
+   /**
+    * toNumber
+    *
+    * @return  this number
+    */
+   public SNumber toNumber() { return this; }
+
+   /**
+    * convertDouble
+    *
+    * @return  value as double
+    */
+   public double convertDouble() { return doubleValue(); }
+
+   /**
+    * toString
+    *
+    * @return  source text, or formatted value
+    */
+   public String toString() {
+      if (text == null) text = format();
+      return text;
+   }
+
+   /*
+    * format
+    *
+    * @return  value as string
+    */
+   abstract String format();
+
+   /**
+    * compare
+    *
+    * Compares two numbers. Integers are compared exactly. If either
+    * number is a float, both are compared as doubles.
+    *
+    * @param   first number
+    * @param   second number
+    * @return  negative, zero or positive
+    */
+   public static int compare(SNumber n1, SNumber n2) {
+      if (n1.isInteger() && n2.isInteger()) {
+         return ((SInteger)n1).compareTo((SInteger)n2);
+      }
+      double d1 = n1.doubleValue();
+      double d2 = n2.doubleValue();
+      if (d1 < d2) return -1;
+      if (d1 > d2) return 1;
+      return 0;
+   }
+
+   /**
+    * equal
+    *
+    * Numeric equality. 1 equals 1.0 .
+    *
+    * @param   first number
+    * @param   second number
+    * @return  true if equal
+    */
+   public static boolean equal(SNumber n1, SNumber n2) {
+      if (n1.isInteger() && n2.isInteger()) {
+         return ((SInteger)n1).compareTo((SInteger)n2) == 0;
+      }
+      return n1.doubleValue() == n2.doubleValue();
+   }
+
+   /**
+    * result
+    *
+    * Gives the result of an arithmetic function (add, subtract,
+    * multiply). Unless Global.integerArithmetic is set, an integer
+    * result is given as a float, eg. 5.0, as in earlier versions.
+    *
+    * @param   number
+    * @return  result
+    */
+   static SNumber result(SNumber n) {
+      if (Global.integerArithmetic || !n.isInteger()) return n;
+      return new SFloat(n.doubleValue());
+   }
+
+   /**
+    * add
+    *
+    * If both numbers are integers, the result is an integer.
+    *
+    * @param   first number
+    * @param   second number
+    * @return  sum
+    */
+   public static SNumber add(SNumber n1, SNumber n2) {
+      if (n1.isInteger() && n2.isInteger()) {
+         return SInteger.add((SInteger)n1, (SInteger)n2);
+      }
+      return new SFloat(n1.doubleValue() + n2.doubleValue());
+   }
+
+   /**
+    * subtract
+    *
+    * If both numbers are integers, the result is an integer.
+    *
+    * @param   first number
+    * @param   second number
+    * @return  difference
+    */
+   public static SNumber subtract(SNumber n1, SNumber n2) {
+      if (n1.isInteger() && n2.isInteger()) {
+         return SInteger.subtract((SInteger)n1, (SInteger)n2);
+      }
+      return new SFloat(n1.doubleValue() - n2.doubleValue());
+   }
+
+   /**
+    * multiply
+    *
+    * If both numbers are integers, the result is an integer.
+    *
+    * @param   first number
+    * @param   second number
+    * @return  product
+    */
+   public static SNumber multiply(SNumber n1, SNumber n2) {
+      if (n1.isInteger() && n2.isInteger()) {
+         return SInteger.multiply((SInteger)n1, (SInteger)n2);
+      }
+      return new SFloat(n1.doubleValue() * n2.doubleValue());
+   }
+
+}  // SNumber
@@ -63,7 +63,7 @@ public class Seldom extends BuiltInPredicate {
     * @return  a string or null
     */
    public Unifiable evaluate(SubstitutionSet ss) {
-      if (Global.maxErrors < 2) return null;
+      if (QueryContext.current().maxErrors() < 2) return null;
       return anything;
    }
 
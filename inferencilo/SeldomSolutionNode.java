@@ -12,7 +12,6 @@ package inferencilo;
 public class SeldomSolutionNode extends SolutionNode {
 
    Seldom goal;
-   boolean moreSolutions = true;
 
    /**
     * constructor
@@ -40,10 +39,9 @@ public class SeldomSolutionNode extends SolutionNode {
     * @return  new substitution set
     */
    public SubstitutionSet nextSolution() throws TimeOverrunException {
-      if (noBackTracking()) { return null; }
-      if (!moreSolutions) { return null; }
-      moreSolutions = false;
-      SubstitutionSet ss = getParentSolution();
+      if (isDeterministic()) { return null; }
+      setDeterministic();
+      SubstitutionSet ss = restoreParentSolution();
       Unifiable result = goal.evaluate(ss);
       if (result == null) return null;   // failure
       return ss;
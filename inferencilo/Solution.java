@@ -0,0 +1,182 @@
+/**
+ * Solution
+ *
+ * One solution of a query: the query with its variables replaced, and
+ * the value of each named variable. Unlike a SubstitutionSet, a Solution
+ * remains valid after the engine backtracks. See SolutionIterator.
+ *
+ *    Solution s = it.next();      // count_down(3, $L), $N = 7
+ *    s.get("$L")                  // [3, 2, 1]
+ *    s.getLong("$N")              // 7
+ *
+ * The typed getters return null if the variable is not bound to a term
+ * of that type, as SubstitutionSet.castConstant() etc. do. getLong() and
+ * getDouble() throw a NumberFormatException.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+public final class Solution {
+
+   private final Complex term;
+   private final Map<String, Unifiable> bindings;
+
+   /*
+    * constructor
+    *
+    * @param  query, with variables replaced
+    * @param  values of named variables, in order of appearance
+    */
+   Solution(Complex term, Map<String, Unifiable> bindings) {
+      this.term = term;
+      this.bindings = bindings;
+   }
+
+   /**
+    * term
+    *
+    * @return query, with its variables replaced
+    */
+   public Complex term() { return term; }
+
+   /**
+    * variables
+    *
+    * @return names of variables of the query, in order of appearance
+    */
+   public Set<String> variables() {
+      return Collections.unmodifiableSet(bindings.keySet());
+   }
+
+   /**
+    * get
+    *
+    * Gets the value of a variable. An unbound variable is its own value.
+    *
+    * @param  name of variable, eg. $X
+    * @return value, or null if the query has no such variable
+    */
+   public Unifiable get(String name) { return bindings.get(name); }
+
+   /**
+    * isBound
+    *
+    * @param  name of variable
+    * @return true if the variable has a value
+    */
+   public boolean isBound(String name) {
+      Unifiable value = bindings.get(name);
+      return value != null && !(value instanceof LogicVar);
+   }
+
+   /**
+    * getString
+    *
+    * @param  name of variable
+    * @return value as string, or null
+    */
+   public String getString(String name) {
+      Unifiable value = bindings.get(name);
+      if (value == null) return null;
+      return value.toString();
+   }
+
+   /**
+    * getConstant
+    *
+    * @param  name of variable
+    * @return value as constant, or null
+    */
+   public Constant getConstant(String name) {
+      Unifiable value = bindings.get(name);
+      if (value instanceof Constant) return (Constant)value;
+      return null;
+   }
+
+   /**
+    * getComplex
+    *
+    * @param  name of variable
+    * @return value as complex term, or null
+    */
+   public Complex getComplex(String name) {
+      Unifiable value = bindings.get(name);
+      if (value instanceof Complex) return (Complex)value;
+      return null;
+   }
+
+   /**
+    * getList
+    *
+    * @param  name of variable
+    * @return value as list, or null
+    */
+   public SLinkedList getList(String name) {
+      Unifiable value = bindings.get(name);
+      if (value instanceof SLinkedList) return (SLinkedList)value;
+      return null;
+   }
+
+   /**
+    * getLong
+    *
+    * @param  name of variable
+    * @return value as long
+    * @throws NumberFormatException if the value is not an integer
+    */
+   public long getLong(String name) throws NumberFormatException {
+      SNumber n = number(name);
+      if (!n.isInteger()) throw new NumberFormatException(name + " = " + n);
+      return ((SInteger)n).longValue();
+   }
+
+   /**
+    * getDouble
+    *
+    * @param  name of variable
+    * @return value as double
+    * @throws NumberFormatException if the value is not a number
+    */
+   public double getDouble(String name) throws NumberFormatException {
+      return number(name).doubleValue();
+   }
+
+   /*
+    * number
+    *
+    * @param  name of variable
+    * @return value as number
+    * @throws NumberFormatException
+    */
+   private SNumber number(String name) throws NumberFormatException {
+      Constant c = getConstant(name);
+      if (c == null) {
+         throw new NumberFormatException(name + " = " + bindings.get(name));
+      }
+      return SNumber.of(c);
+   }
+
+   /**
+    * toString
+    *
+    * Eg. $X = Godwin, $Y = Harold
+    * A query without variables gives True. See Solutions.toString().
+    *
+    * @return bindings as string
+    */
+   public String toString() {
+      StringBuilder sb = new StringBuilder();
+      for (Map.Entry<String, Unifiable> binding : bindings.entrySet()) {
+         if (sb.length() > 0) sb.append(", ");
+         sb.append(binding.getKey() + " = " + binding.getValue());
+      }
+      if (sb.length() == 0) return "True";
+      return sb.toString();
+   }
+
+}  // Solution
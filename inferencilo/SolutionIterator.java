@@ -0,0 +1,193 @@
+/**
+ * SolutionIterator
+ *
+ * Finds the solutions of a query lazily: each call of hasNext() searches
+ * for one more solution, only when it is needed. A consumer which stops
+ * after the first k solutions does not pay for the rest.
+ *
+ *    try (SolutionIterator it = Solutions.iterator(query, kb)) {
+ *       while (it.hasNext()) {
+ *          Solution s = it.next();
+ *          System.out.println(s.get("$X"));
+ *       }
+ *    }
+ *
+ *    List<String> firstTen = Solutions.stream(query, kb)
+ *                                     .limit(10)
+ *                                     .map(s -> s.getString("$X"))
+ *                                     .collect(Collectors.toList());
+ *
+ * The search state (the tree of solution nodes and their bindings) is
+ * released when the last solution has been found, when the limit is
+ * reached, or when the iterator (or its stream) is closed.
+ *
+ * The search runs in a QueryContext of its own (see Solutions.iterator()),
+ * so hasNext() can be called on any thread, one thread at a time.
+ *
+ * For a Flow.Publisher of solutions, see SolutionPublisher.
+ *
+ * A time overrun during the search is thrown as an
+ * UncheckedTimeOverrunException, because Iterator methods cannot throw
+ * checked exceptions. The iterator is then closed.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public final class SolutionIterator implements Iterator<Solution>, AutoCloseable {
+
+   private final Complex query;
+   private final SubstitutionSet initial;
+   private final Map<String, LogicVar> variables;
+   private SolutionNode root;       // null when closed
+   private Solution next = null;    // found by hasNext(), not yet returned
+   private long limit = Long.MAX_VALUE;
+   private long count = 0;
+
+   /*
+    * constructor
+    *
+    * @param  query
+    * @param  root solution node of the query
+    * @param  initial substitution set
+    */
+   SolutionIterator(Complex query, SolutionNode root, SubstitutionSet initial) {
+      this.query = query;
+      this.root = root;
+      this.initial = initial;
+      this.variables = new LinkedHashMap<String, LogicVar>();
+      collectVariables(query, variables);
+   }
+
+   /**
+    * limit
+    *
+    * Stops the search after n solutions.
+    *
+    * @param  maximum number of solutions
+    * @return this iterator
+    */
+   public SolutionIterator limit(long n) {
+      if (n < 0) throw new IllegalArgumentException("limit: " + n);
+      limit = n;
+      return this;
+   }
+
+   /**
+    * hasNext
+    *
+    * @return true if there is another solution
+    * @throws UncheckedTimeOverrunException
+    */
+   public boolean hasNext() {
+      if (next != null) return true;
+      if (root == null) return false;
+      if (count >= limit) { close(); return false; }
+      SubstitutionSet ss;
+      try {
+         ss = root.nextSolution();
+      } catch (TimeOverrunException tox) {
+         close();
+         throw new UncheckedTimeOverrunException(tox);
+      }
+      if (ss == null) { close(); return false; }
+      next = solution(ss);
+      count++;
+      return true;
+   }
+
+   /**
+    * next
+    *
+    * @return next solution
+    * @throws NoSuchElementException
+    */
+   public Solution next() {
+      if (!hasNext()) throw new NoSuchElementException();
+      Solution s = next;
+      next = null;
+      return s;
+   }
+
+   /**
+    * close
+    *
+    * Stops the search, and releases its state. The bindings made by
+    * the search are removed from the binding store.
+    */
+   public void close() {
+      if (root == null) return;
+      root = null;
+      initial.restore();
+   }
+
+   /**
+    * isClosed
+    *
+    * @return true if the search has been stopped or has ended
+    */
+   public boolean isClosed() { return root == null; }
+
+   /**
+    * stream
+    *
+    * Makes a sequential, lazy stream of the solutions. Closing the
+    * stream closes this iterator.
+    *
+    * @return stream of solutions
+    */
+   public Stream<Solution> stream() {
+      Spliterator<Solution> split = Spliterators.spliteratorUnknownSize(this,
+                                 Spliterator.ORDERED | Spliterator.NONNULL);
+      return StreamSupport.stream(split, false).onClose(this::close);
+   }
+
+   /*
+    * solution
+    *
+    * Extracts a solution, before the engine backtracks.
+    *
+    * @param  substitution set
+    * @return solution
+    */
+   private Solution solution(SubstitutionSet ss) {
+      Map<String, Unifiable> bindings = new LinkedHashMap<String, Unifiable>();
+      for (Map.Entry<String, LogicVar> v : variables.entrySet()) {
+         bindings.put(v.getKey(), (Unifiable)v.getValue().replaceVariables(ss));
+      }
+      return new Solution((Complex)query.replaceVariables(ss), bindings);
+   }
+
+   /*
+    * collectVariables
+    *
+    * Finds the named variables of a term, in order of appearance.
+    *
+    * @param  term
+    * @param  map of variables (out)
+    */
+   private static void collectVariables(Unifiable term, Map<String, LogicVar> vars) {
+      if (term instanceof LogicVar) {
+         LogicVar v = (LogicVar)term;
+         if (!vars.containsKey(v.name())) vars.put(v.name(), v);
+      }
+      else if (term instanceof Complex) {
+         Complex c = (Complex)term;
+         for (int i = 1; i < c.length(); i++) collectVariables(c.getTerm(i), vars);
+      }
+      else if (term instanceof SLinkedList) {
+         SLinkedList node = (SLinkedList)term;
+         while (node != null && node.getHead() != null) {
+            collectVariables(node.getHead(), vars);
+            node = node.next();
+         }
+      }
+   } // collectVariables()
+
+}  // SolutionIterator
@@ -12,6 +12,10 @@
  * its state (goal, ruleNumber, etc.). Calling nextSolution() again
  * will continue the search from where it left off.
  *
+ * A node which knows that it has no more solutions is deterministic.
+ * Backtracking into it fails immediately, and its parent may release
+ * it, so that the state of a finished subproof can be collected.
+ *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
  */
@@ -26,6 +30,7 @@ public abstract class SolutionNode {
    private SolutionNode parentNode;
    private int ruleNumber = 0;
    private boolean noBackTracking = false;
+   private boolean deterministic = false;
 
    Goal    goal = null;     // goal being solved
 
@@ -77,6 +82,28 @@ public abstract class SolutionNode {
       return currentRule;
    }
 
+   /*
+    * getRuleNumber
+    *
+    * @return  index of the next rule
+    */
+   int getRuleNumber() { return ruleNumber; }
+
+   /*
+    * skipRule
+    *
+    * Advances to the next rule, without fetching the current one
+    * from the knowledge base.
+    */
+   void skipRule() { ruleNumber++; }
+
+   /*
+    * setRuleNumber
+    *
+    * @param  index of the next rule
+    */
+   void setRuleNumber(int n) { ruleNumber = n; }
+
    /*
     * hasNextRule()
     *
@@ -101,6 +128,21 @@ public abstract class SolutionNode {
       return parentSolution;
    }
 
+   /*
+    * restoreParentSolution
+    *
+    * Removes any bindings which were made after the parent solution,
+    * for example by a previous attempt to solve this node's goal, and
+    * returns the parent solution. Nodes which bind variables must call
+    * this before each attempt.
+    *
+    * @return substitution set
+    */
+   SubstitutionSet restoreParentSolution() {
+      if (parentSolution != null) parentSolution.restore();
+      return parentSolution;
+   }
+
    /*
     * getKnowledgeBase
     *
@@ -137,6 +179,27 @@ public abstract class SolutionNode {
       return noBackTracking;
    }
 
+   /**
+    * setDeterministic
+    *
+    * Marks this node as having no more solutions.
+    */
+   public void setDeterministic() {
+      deterministic = true;
+   }
+
+   /**
+    * isDeterministic
+    *
+    * Tests whether this node has no more solutions. A node whose
+    * backtracking was disabled by a cut has no more solutions either.
+    *
+    * @return t/f
+    */
+   public boolean isDeterministic() {
+      return deterministic || noBackTracking;
+   }
+
    /**
     * setRuleCount
     *
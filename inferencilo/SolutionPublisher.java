@@ -0,0 +1,140 @@
+/**
+ * SolutionPublisher
+ *
+ * Publishes the solutions of a query to a Flow.Subscriber. Solutions are
+ * searched for only when the subscriber asks for them, with request(n),
+ * so a slow subscriber holds back the search. cancel() stops the search
+ * and releases its state. (See SolutionIterator.)
+ *
+ *    Solutions.publisher(query, kb).subscribe(subscriber);
+ *
+ * Each subscriber gets its own search, which starts on a snapshot of the
+ * knowledge base, taken when it subscribes. The search runs on the thread
+ * which calls request(), in a QueryContext of its own, so its variable
+ * IDs do not depend on that thread. A time overrun is passed to onError()
+ * as an UncheckedTimeOverrunException.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class SolutionPublisher implements Flow.Publisher<Solution> {
+
+   private final Complex query;
+   private final KnowledgeBase kb;
+
+   /*
+    * constructor
+    *
+    * @param  query
+    * @param  knowledge base
+    */
+   SolutionPublisher(Complex query, KnowledgeBase kb) {
+      this.query = query;
+      this.kb = kb;
+   }
+
+   /**
+    * subscribe
+    *
+    * @param  subscriber
+    */
+   public void subscribe(Flow.Subscriber<? super Solution> subscriber) {
+      if (subscriber == null) throw new NullPointerException("subscriber");
+      SolutionIterator it = Solutions.iterator(query, kb);
+      subscriber.onSubscribe(new Subscription(it, subscriber));
+   }
+
+   /*
+    * Subscription
+    *
+    * Only one thread drains the iterator at a time. A request or cancel
+    * which arrives while another thread (or onNext()) is draining is
+    * counted in wip, and handled by the draining thread.
+    */
+   private static final class Subscription implements Flow.Subscription {
+
+      private final SolutionIterator it;
+      private final Flow.Subscriber<? super Solution> subscriber;
+      private final AtomicLong demand = new AtomicLong();
+      private final AtomicInteger wip = new AtomicInteger();
+      private volatile boolean cancelled = false;
+      private volatile IllegalArgumentException invalid = null;
+
+      Subscription(SolutionIterator it, Flow.Subscriber<? super Solution> subscriber) {
+         this.it = it;
+         this.subscriber = subscriber;
+      }
+
+      public void request(long n) {
+         if (n <= 0) {
+            invalid = new IllegalArgumentException("request: " + n);
+            drain();
+            return;
+         }
+         long d, sum;
+         do {
+            d = demand.get();
+            sum = d + n;
+            if (sum < 0) sum = Long.MAX_VALUE;
+         } while (!demand.compareAndSet(d, sum));
+         drain();
+      }
+
+      public void cancel() {
+         cancelled = true;
+         drain();
+      }
+
+      /*
+       * drain
+       *
+       * Searches for as many solutions as have been requested.
+       * After the search ends, wip is never released, so nothing
+       * more is sent.
+       */
+      private void drain() {
+         if (wip.getAndIncrement() != 0) return;
+         int missed = 1;
+         while (true) {
+            if (cancelled) { it.close(); return; }
+            if (invalid != null) {
+               cancelled = true;
+               it.close();
+               subscriber.onError(invalid);
+               return;
+            }
+            if (demand.get() > 0) {
+               boolean more;
+               try {
+                  more = it.hasNext();
+               } catch (RuntimeException rx) {
+                  cancelled = true;
+                  it.close();
+                  subscriber.onError(rx);
+                  return;
+               }
+               if (!more) {
+                  cancelled = true;
+                  subscriber.onComplete();
+                  return;
+               }
+               Solution s = it.next();
+               if (demand.get() != Long.MAX_VALUE) demand.decrementAndGet();
+               subscriber.onNext(s);
+               continue;
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) return;
+         }
+      } // drain()
+
+   }  // Subscription
+
+}  // SolutionPublisher
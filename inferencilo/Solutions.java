@@ -4,6 +4,12 @@
  * This class has static methods, solve() and solveAll() which search
  * the Prolog knowledge space for solutions.
  *
+ * Each query runs on a snapshot of the knowledge base, so rules which
+ * are added or removed during the search do not change its results.
+ *
+ * iterator(), stream() and publisher() find solutions lazily, on
+ * demand. See SolutionIterator and SolutionPublisher.
+ *
  * @author Klivo
  * @version 1.0
  */
@@ -11,6 +17,8 @@
 package inferencilo;
 
 import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
 
 public class Solutions {
 
@@ -28,7 +36,26 @@ public class Solutions {
     */
    public static String solve(Complex query, KnowledgeBase kb)
                               throws TimeOverrunException {
-      SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+      return solve(query, kb, new SubstitutionSet());
+   }
+
+   /**
+    * solve
+    *
+    * Find a solution for the given query, starting from the given
+    * substitution set. For example, SubstitutionSet.persistent()
+    * selects the persistent binding store.
+    *
+    * @param  query
+    * @param  kb - Knowledge Base
+    * @param  initial substitution set
+    * @return solution as strings
+    * @throws TimeOverrunException
+    */
+   public static String solve(Complex query, KnowledgeBase kb,
+                              SubstitutionSet ss)
+                              throws TimeOverrunException {
+      SolutionNode root = query.getSolver(kb.snapshot(), ss, null);
       SubstitutionSet solution = root.nextSolution();
       if (solution != null) {
          Complex result = (Complex)query.replaceVariables(solution);
@@ -84,8 +111,26 @@ public class Solutions {
     */
    public static ArrayList<String> solveAll(Complex query, KnowledgeBase kb)
                                    throws TimeOverrunException{
+      return solveAll(query, kb, new SubstitutionSet());
+   }
+
+   /**
+    * solveAll
+    *
+    * Try to find all solutions for the given query, starting from
+    * the given substitution set.
+    *
+    * @param  query
+    * @param  kb  - Knowledge Base
+    * @param  initial substitution set
+    * @return solution as list of strings
+    * @throws TimeOverrunException
+    */
+   public static ArrayList<String> solveAll(Complex query, KnowledgeBase kb,
+                                            SubstitutionSet ss)
+                                   throws TimeOverrunException{
       ArrayList<String> solutions = new ArrayList<String>();
-      SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+      SolutionNode root = query.getSolver(kb.snapshot(), ss, null);
       SubstitutionSet solution = root.nextSolution();
       while (solution != null) {
          Complex result = (Complex)query.replaceVariables(solution);
@@ -95,6 +140,67 @@ public class Solutions {
       return solutions;
    }
 
+   /**
+    * iterator
+    *
+    * Makes an iterator which finds the solutions of a query lazily,
+    * one for each call of hasNext(). See SolutionIterator.
+    *
+    * The iterator has its own QueryContext, forked from the context
+    * of this thread, so it can be continued on any thread, and other
+    * queries do not reuse its variable IDs.
+    *
+    * @param  query
+    * @param  kb  - Knowledge Base
+    * @return iterator of solutions
+    */
+   public static SolutionIterator iterator(Complex query, KnowledgeBase kb) {
+      return iterator(query, kb, new SubstitutionSet());
+   }
+
+   /**
+    * iterator
+    *
+    * @param  query
+    * @param  kb  - Knowledge Base
+    * @param  initial substitution set
+    * @return iterator of solutions
+    */
+   public static SolutionIterator iterator(Complex query, KnowledgeBase kb,
+                                           SubstitutionSet ss) {
+      QueryContext context = QueryContext.current().fork();
+      return new SolutionIterator(query, context.solver(query, kb, ss), ss);
+   }
+
+   /**
+    * stream
+    *
+    * Makes a lazy stream of the solutions of a query. Eg.
+    *
+    *    Solutions.stream(query, kb).limit(3).forEach(System.out::println);
+    *
+    * @param  query
+    * @param  kb  - Knowledge Base
+    * @return stream of solutions
+    */
+   public static Stream<Solution> stream(Complex query, KnowledgeBase kb) {
+      return iterator(query, kb).stream();
+   }
+
+   /**
+    * publisher
+    *
+    * Makes a Flow.Publisher of the solutions of a query. Solutions are
+    * found only as the subscriber requests them. See SolutionPublisher.
+    *
+    * @param  query
+    * @param  kb  - Knowledge Base
+    * @return publisher of solutions
+    */
+   public static Flow.Publisher<Solution> publisher(Complex query, KnowledgeBase kb) {
+      return new SolutionPublisher(query, kb);
+   }
+
    /**
     * verifyAll
     *
@@ -119,7 +225,7 @@ public class Solutions {
                                 String[] expected, int index)
                                 throws TimeOverrunException {
 
-      SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+      SolutionNode root = query.getSolver(kb.snapshot(), new SubstitutionSet(), null);
       SubstitutionSet solution = root.nextSolution();
       int count = 0;
 
@@ -1,9 +1,9 @@
 /**
  * SubstitutionSet
  *
- * The substitution set is an array of bindings of logic variables.
+ * The substitution set holds the bindings of logic variables.
  * Each logic variable has a unique ID, which is used as an index into
- * the substitution set. If a binding exists, the indexed item is a
+ * the binding store. If a binding exists, the indexed item is a
  * unifiable term. If there is no binding, the indexed item is null.
  *
  * As the inference engine searches for a solution, it adds logic
@@ -11,6 +11,22 @@
  * contains all variable bindings, it can be thought of as the solution
  * (partial or final).
  *
+ * Bindings are not copied. By default, all substitution sets of a query
+ * share one binding store (see Trail), and a SubstitutionSet object is a
+ * mark on that store's trail. Binding a variable writes into the store
+ * and returns a new SubstitutionSet with a higher mark. When the engine
+ * backtracks, restore() removes every binding made after the mark.
+ *
+ * This means that a SubstitutionSet can be read only while it is the
+ * current solution. After the next call to nextSolution(), its bindings
+ * may have been undone. Callers who need to keep a solution should
+ * extract it first, for example with replaceVariables().
+ *
+ * Callers who need to keep several solutions alive at the same time
+ * can start a query with SubstitutionSet.persistent(). Its bindings are
+ * kept in a persistent trie (see PersistentStore). Each solution has its
+ * own version of the trie, which remains valid after backtracking.
+ *
  * This class also has methods to get the ground term of a logic
  * variable, and cast it as a Constant, Complex term, or SLinkedList.
  * See castConstant(), castComplex(), castSLinkedList().
@@ -25,31 +41,61 @@ import java.util.*;
 
 public class SubstitutionSet {
 
-   private Unifiable[] bindings;
+   private BindingStore store;
+   private int mark;
 
    /**
     * constructor
+    *
+    * Creates an empty substitution set, with a new binding store
+    * (Trail).
     */
-   public SubstitutionSet() { 
-      bindings = new Unifiable[10];
+   public SubstitutionSet() {
+      store = new Trail();
+      mark  = 0;
    }
 
    /**
     * constructor
     *
+    * Creates a substitution set which refers to the same bindings
+    * as the given substitution set. No bindings are copied.
+    *
     * @param  substitution set
     */
    public SubstitutionSet(SubstitutionSet ss) {
-      int len = ss.bindings.length;
-      bindings = new Unifiable[len + 1];
-      System.arraycopy(ss.bindings, 0, bindings, 0, len);
+      store = ss.store;
+      mark  = ss.mark;
+   }
+
+   /*
+    * constructor
+    *
+    * @param  binding store
+    * @param  mark on trail
+    */
+   private SubstitutionSet(BindingStore store, int mark) {
+      this.store = store;
+      this.mark  = mark;
+   }
+
+   /**
+    * persistent
+    *
+    * Creates an empty substitution set whose bindings are kept in a
+    * persistent store. Solutions found from this substitution set
+    * remain valid after the engine backtracks.
+    *
+    * @return empty substitution set
+    */
+   public static SubstitutionSet persistent() {
+      return new SubstitutionSet(new PersistentStore(), 0);
    }
 
    /**
     * add
     *
-    * Binds a variable to an expression.
-    * The variable becomes the key the binding dictionary (hash).
+    * Binds a variable to an expression, in this substitution set.
     *
     * @param  LogicVar
     * @param  Unifiable expression
@@ -63,15 +109,40 @@ public class SubstitutionSet {
       if (isBound(v)) {
          throw new AlreadyBoundException();
       }
-      else {
-         int len = bindings.length;
-         if (id >= len) {
-            Unifiable[] newBindings = new Unifiable[id + 16];
-            System.arraycopy(bindings, 0, newBindings, 0, len);
-            bindings = newBindings;
-         }
-         bindings[id] = e;
+      store = store.bind(id, e);
+      mark  = store.mark();
+   }
+
+   /**
+    * bind
+    *
+    * Binds an unbound variable to an expression, and returns the
+    * new substitution set. The caller must ensure that the variable
+    * is not already bound. (See LogicVar.unify().)
+    *
+    * @param  LogicVar
+    * @param  Unifiable expression
+    * @return new substitution set
+    */
+   public SubstitutionSet bind(LogicVar v, Unifiable e) {
+      int id = v.id();
+      if (id == 0) { // This should not happen.
+         throw new InvalidVariableException(v.toString());
       }
+      BindingStore newStore = store.bind(id, e);
+      return new SubstitutionSet(newStore, newStore.mark());
+   }
+
+   /**
+    * restore
+    *
+    * Removes all bindings which were made after this substitution
+    * set was created. The binding store returns to the state which
+    * this substitution set represents. Solution nodes call this
+    * method before they retry a goal.
+    */
+   public void restore() {
+      store.undo(mark);
    }
 
    /**
@@ -81,9 +152,7 @@ public class SubstitutionSet {
     * @return  unifiable
     */
    public Unifiable getBinding(LogicVar v) {
-      int id = v.id();
-      if (id >= bindings.length) return null;
-      return (Unifiable)bindings[id];
+      return store.get(v.id());
    }
 
    /**
@@ -96,9 +165,7 @@ public class SubstitutionSet {
     * @return  t/f
     */
    public boolean isBound(LogicVar v) {
-      int id = v.id();
-      if (id >= bindings.length) return false;
-      return (bindings[id] != null);
+      return store.get(v.id()) != null;
    }
 
 
@@ -117,7 +184,7 @@ public class SubstitutionSet {
       LogicVar  v = var;
       Unifiable u;
       while (true) {
-         u = (Unifiable)bindings[v.id()];
+         u = store.get(v.id());
          if (u == null) return false;
          if (!(u instanceof LogicVar)) return true;  // Constant, Complex, SLinkedList
          v = (LogicVar)u;
@@ -138,7 +205,7 @@ public class SubstitutionSet {
       LogicVar  v = (LogicVar)term;
       Unifiable u;
       while (true) {
-         u = (Unifiable)bindings[v.id()];
+         u = store.get(v.id());
          if (u == null) return v;
          if (!(u instanceof LogicVar)) return u;
          v = (LogicVar)u;
@@ -159,7 +226,7 @@ public class SubstitutionSet {
       LogicVar  v = var;
       Unifiable u;
       while (true) {
-         u = (Unifiable)bindings[v.id()];
+         u = store.get(v.id());
          if (u == null) return null;
          if (!(u instanceof LogicVar)) return u;
          v = (LogicVar)u;
@@ -177,9 +244,9 @@ public class SubstitutionSet {
    public String toString() {
       StringBuilder sb = new StringBuilder("Bindings:\n");
       int count = 0;
-      for (Unifiable u : bindings) {
-         sb.append(" " + count + "  " + u + "\n");
-         count++;
+      int size = store.size();
+      for (; count < size; count++) {
+         sb.append(" " + count + "  " + store.get(count) + "\n");
       }
       return sb.toString();
    }
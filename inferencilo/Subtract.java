@@ -1,7 +1,9 @@
 /**
  * Subtract
  *
- * Function to subtract numbers.
+ * Function to subtract numbers. The result is a float, eg. 5.0,
+ * unless Global.integerArithmetic is set and all numbers are
+ * integers.
  *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
@@ -36,7 +38,7 @@ public class Subtract extends SFunction {
     *
     * @param   Substitution Set
     * @param   Unifiable parameters
-    * @return  Constant
+    * @return  SNumber
     * @throws  UnboundArgumentException, NumberFormatException, TooFewArgumentsException
     */
    public Unifiable evaluate(SubstitutionSet ss, Unifiable... params)
@@ -50,15 +52,15 @@ public class Subtract extends SFunction {
 
       // All parameters must be bound.
       if (c == null) throw new UnboundArgumentException("in Subtract.");
-      double result = Double.parseDouble(c.toString());
+      SNumber result = SNumber.of(c);
 
       for (int i = 1; i < params.length; i++) {
          c = ss.castConstant(params[i]);
          if (c == null) throw new UnboundArgumentException("in Subtract.");
-         result -= Double.parseDouble(c.toString());
+         result = SNumber.subtract(result, SNumber.of(c));
       }
 
-      return new Constant("" + result);
+      return SNumber.result(result);
 
    } // evaluate()
 
@@ -0,0 +1,65 @@
+/**
+ * TabledSolutionNode
+ *
+ * Solution node for a call to a tabled predicate. The answers of the
+ * call are taken from its answer table (see Tables), and unified with
+ * the goal, one by one. If the table is not complete yet, the call is
+ * a consumer; it sees the answers which have been found so far.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+public class TabledSolutionNode extends SolutionNode {
+
+   private Tables.Table table = null;
+   private int answer = 0;  // index of the next answer
+
+   /**
+    * constructor
+    *
+    * @param  goal
+    * @param  knowledge base
+    * @param  parent solution
+    * @param  parent node
+    */
+   public TabledSolutionNode(Complex goal, KnowledgeBase kb,
+                             SubstitutionSet parentSolution,
+                             SolutionNode parentNode) {
+      super(goal, kb, parentSolution, null);
+   }
+
+   /**
+    * nextSolution
+    *
+    * @return  new substitution set
+    * @throws  TimeOverrunException
+    */
+   public SubstitutionSet nextSolution() throws TimeOverrunException {
+
+      if (isDeterministic()) { return null; }
+
+      if (table == null) {
+         KnowledgeBase kb = getKnowledgeBase();
+         table = kb.tables().call((Complex)goal, getParentSolution(), kb);
+      }
+
+      while (answer < table.size()) {
+         Complex a = table.answer(answer++);
+         if (!a.isGround()) {
+            a = (Complex)a.standardizeVariablesApart(new HashMap<String, LogicVar>());
+         }
+         SubstitutionSet solution = a.unify((Unifiable)goal, restoreParentSolution());
+         if (solution != null) {
+            if (table.isComplete() && answer >= table.size()) setDeterministic();
+            return solution;
+         }
+      }
+      return null;
+   }
+
+}  // TabledSolutionNode
@@ -0,0 +1,416 @@
+/**
+ * Tables
+ *
+ * Answer tables of tabled predicates. (See KnowledgeBase.table().)
+ *
+ * A call to a tabled predicate is looked up by its variant: the call
+ * with its variables numbered in order of appearance. Eg. path(a, $X)
+ * and path(a, $Y) have the same table, path($X, a) does not.
+ *
+ * The tables are filled by linear tabling. The first call of a variant
+ * is the leader. It solves the goal with the predicate's clauses, and
+ * adds each new answer to its table. A recursive call of the same
+ * variant, made while the leader is running, does not use the clauses;
+ * it consumes the answers which are in the table. If a consumer was
+ * called, the leader solves the goal again, until no new answers are
+ * found. Then the table is complete, and later calls only read it.
+ * Left recursion, eg.
+ *
+ *    path($X, $Y) :- path($X, $Z), edge($Z, $Y).
+ *
+ * terminates, and each answer is derived once per iteration.
+ *
+ * Leaders which depend on each other (a consumer of an older leader is
+ * called during a newer one) are completed together, when the oldest
+ * of them reaches its fixpoint.
+ *
+ * The tables are valid for one generation of the knowledge base. Any
+ * change to the knowledge base starts with new tables. Completed tables
+ * are read without locking.
+ *
+ * Several threads can fill tables at once. The leaders of one thread are
+ * an evaluation, which owns the incomplete tables of its leaders, until
+ * their component is complete. A thread which calls a table owned by
+ * another evaluation waits for that table only. If two evaluations wait
+ * for each other, the youngest of them gives up its incomplete tables,
+ * and tries again, with the same age, after the others have completed
+ * them. So the oldest evaluation always makes progress.
+ *
+ * If a query fails with an exception (eg. a time overrun), only the
+ * incomplete tables of its evaluation are discarded.
+ *
+ * Tabled predicates should not assert or retract clauses, or use cut.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+final class Tables {
+
+   /*
+    * The answers for one call variant.
+    */
+   static final class Table {
+
+      private final String key;
+      private final ArrayList<Complex> answers = new ArrayList<>();
+      private final HashSet<String> variants = new HashSet<>();
+      private volatile boolean complete = false;
+      private volatile Evaluation owner = null;  // while incomplete
+      // The following are used only by the owner's thread.
+      private int depth = -1;     // position on the stack of leaders, or -1
+      private int link;           // lowest position which this leader depends on
+      private int pendingMark;    // size of the pending list at the start
+      private boolean recursive;  // a consumer was called for this leader
+      private boolean pending;
+
+      Table(String key) { this.key = key; }
+
+      boolean isComplete() { return complete; }
+
+      int size() { return answers.size(); }
+
+      Complex answer(int i) { return answers.get(i); }
+   }
+
+   /*
+    * The leaders of one thread, and the incomplete tables which
+    * depend on them.
+    */
+   private static final class Evaluation {
+      final long age;   // order of the first attempt
+      final ArrayList<Table> stack = new ArrayList<>();    // leaders
+      final ArrayList<Table> pending = new ArrayList<>();  // incomplete
+      long numAnswers = 0;
+      volatile Table waitingFor = null;  // table of another evaluation
+      Evaluation(long age) { this.age = age; }
+   }
+
+   /*
+    * Thrown to give up an evaluation which waits for an evaluation
+    * that waits for it.
+    */
+   private static final class Abandon extends RuntimeException {
+      Abandon() { super(null, null, false, false); }
+   }
+
+   final long generation;
+
+   private final ConcurrentHashMap<String, Table> tables = new ConcurrentHashMap<>();
+   private final ThreadLocal<Evaluation> evaluation = new ThreadLocal<>();
+   private final AtomicLong ages = new AtomicLong();
+
+   /*
+    * constructor
+    *
+    * @param  generation of the knowledge base
+    */
+   Tables(long generation) {
+      this.generation = generation;
+   }
+
+   /*
+    * call
+    *
+    * Finds the table of a call. If the table is not complete, and the
+    * call is not a consumer, the goal is solved until its table is
+    * complete. If another thread is filling the table, waits for it.
+    *
+    * @param  goal
+    * @param  substitution set of the goal
+    * @param  knowledge base
+    * @return table
+    * @throws TimeOverrunException
+    */
+   Table call(Complex goal, SubstitutionSet ss, KnowledgeBase kb)
+                                        throws TimeOverrunException {
+      String key = variant(goal, ss);
+      long age = -1;  // kept when an evaluation tries again
+      while (true) {
+         Table table = tables.get(key);
+         if (table != null && table.complete) return table;
+         if (table == null) {
+            Table t = new Table(key);
+            table = tables.putIfAbsent(key, t);
+            if (table == null) table = t;
+         }
+         Evaluation ev = evaluation.get();
+         Evaluation owner;
+         synchronized (table) {
+            if (table.complete) return table;
+            if (tables.get(key) != table) continue;  // discarded
+            owner = table.owner;
+            if (owner == null) {
+               if (ev == null) {
+                  if (age < 0) age = ages.incrementAndGet();
+                  ev = new Evaluation(age);
+                  evaluation.set(ev);
+               }
+               table.owner = ev;
+            }
+         }
+         if (owner != null && owner != ev) {
+            await(table, owner, ev);
+            continue;
+         }
+         if (table.depth >= 0) {
+            // A consumer. The leaders above the table depend on it.
+            for (int i = table.depth; i < ev.stack.size(); i++) {
+               Table leader = ev.stack.get(i);
+               leader.link = Math.min(leader.link, table.depth);
+               leader.recursive = true;
+            }
+            return table;
+         }
+         if (!ev.stack.isEmpty()) {
+            lead(ev, table, goal, ss, kb);
+            return table;
+         }
+         // The first leader of the evaluation.
+         int fallbackId = LogicVar.getNextId();
+         try {
+            lead(ev, table, goal, ss, kb);
+            return table;
+         } catch (Abandon a) {
+            discard(ev);
+            if (ss != null) ss.restore();
+            LogicVar.setNextId(fallbackId);
+         } catch (TimeOverrunException | RuntimeException ex) {
+            // The incomplete tables are not reliable.
+            discard(ev);
+            throw ex;
+         } finally {
+            evaluation.remove();
+         }
+      }
+   } // call()
+
+   /*
+    * await
+    *
+    * Waits until another evaluation has completed or discarded a table.
+    *
+    * @param  table
+    * @param  evaluation which owns the table
+    * @param  evaluation of this thread, or null
+    * @throws Abandon, if the owner waits for this evaluation, and
+    *         this evaluation is the youngest of those which wait
+    */
+   private void await(Table table, Evaluation owner, Evaluation ev) {
+      if (ev != null) ev.waitingFor = table;
+      try {
+         synchronized (table) {
+            while (!table.complete && table.owner == owner) {
+               if (ev != null && youngestInCycle(owner, ev)) throw new Abandon();
+               table.wait(10);
+            }
+         }
+      } catch (InterruptedException ix) {
+         Thread.currentThread().interrupt();
+         throw new IllegalStateException("Interrupted while waiting for a table.");
+      } finally {
+         if (ev != null) ev.waitingFor = null;
+      }
+   }
+
+   /*
+    * youngestInCycle
+    *
+    * @param  owner of the table which an evaluation waits for
+    * @param  the waiting evaluation
+    * @return true if the owner waits, directly or not, for the waiting
+    *         evaluation, and the waiting evaluation is the youngest of
+    *         this cycle
+    */
+   private static boolean youngestInCycle(Evaluation owner, Evaluation ev) {
+      Evaluation e = owner;
+      for (int i = 0; e != null && i < 1000; i++) {
+         if (e == ev) return true;
+         if (e.age > ev.age) return false;
+         Table t = e.waitingFor;
+         if (t == null) return false;
+         e = t.owner;
+      }
+      return false;
+   }
+
+   /*
+    * discard
+    *
+    * Discards the incomplete tables of an evaluation. Threads which
+    * wait for them will fill new ones.
+    *
+    * @param  evaluation
+    */
+   private void discard(Evaluation ev) {
+      ArrayList<Table> incomplete = new ArrayList<>(ev.stack);
+      incomplete.addAll(ev.pending);
+      for (Table t : incomplete) {
+         synchronized (t) {
+            tables.remove(t.key, t);
+            t.depth = -1;
+            t.owner = null;
+            t.notifyAll();
+         }
+      }
+      ev.stack.clear();
+      ev.pending.clear();
+   }
+
+   /*
+    * complete
+    *
+    * @param  table
+    */
+   private static void complete(Table t) {
+      synchronized (t) {
+         t.complete = true;
+         t.owner = null;
+         t.notifyAll();
+      }
+   }
+
+   /*
+    * lead
+    *
+    * Solves a goal until no new answers are found.
+    *
+    * @param  evaluation
+    * @param  table
+    * @param  goal
+    * @param  substitution set of the goal
+    * @param  knowledge base
+    * @throws TimeOverrunException
+    */
+   private void lead(Evaluation ev, Table table, Complex goal, SubstitutionSet ss,
+                     KnowledgeBase kb) throws TimeOverrunException {
+      ArrayList<Table> stack = ev.stack;
+      ArrayList<Table> pending = ev.pending;
+      table.depth = table.link = stack.size();
+      table.pendingMark = pending.size();
+      table.recursive = false;
+      stack.add(table);
+      long before;
+      do {
+         before = ev.numAnswers;
+         // The variables of an iteration are not needed after it.
+         // The answers are copied.
+         int fallbackId = LogicVar.getNextId();
+         SolutionNode node = new ComplexSolutionNode(goal, kb, ss, null);
+         SubstitutionSet solution = node.nextSolution();
+         while (solution != null) {
+            add(ev, table, (Complex)goal.replaceVariables(solution));
+            solution = node.nextSolution();
+         }
+         if (ss != null) ss.restore();
+         LogicVar.setNextId(fallbackId);
+      } while (table.recursive && ev.numAnswers != before);
+      stack.remove(stack.size() - 1);
+      table.depth = -1;
+      if (table.link < stack.size()) {
+         // It depends on an older leader, which will call it again.
+         if (!table.pending) {
+            table.pending = true;
+            pending.add(table);
+         }
+         return;
+      }
+      for (int i = table.pendingMark; i < pending.size(); i++) {
+         complete(pending.get(i));
+      }
+      complete(table);
+      while (pending.size() > table.pendingMark) pending.remove(pending.size() - 1);
+   }
+
+   /*
+    * add
+    *
+    * Adds an answer to a table, unless it has a variant of it.
+    *
+    * @param  evaluation
+    * @param  table
+    * @param  answer
+    */
+   private void add(Evaluation ev, Table table, Complex answer) {
+      if (table.variants.add(variant(answer, null))) {
+         table.answers.add(answer);
+         ev.numAnswers++;
+      }
+   }
+
+   /*
+    * variant
+    *
+    * Makes the key of a term. Variables are numbered in order of
+    * appearance, so variants of a term have the same key.
+    *
+    * Each kind of term has its own tag, complex terms record their
+    * arity, and the text of constants and numbers is preceded by its
+    * length, so that different terms never have the same key. Eg.
+    * f(`a, b`) is F1:A1:f;A4:a, b; and f(a, b) is F2:A1:f;A1:a;A1:b;
+    *
+    * @param  term
+    * @param  substitution set, or null
+    * @return key
+    */
+   static String variant(Unifiable term, SubstitutionSet ss) {
+      StringBuilder sb = new StringBuilder();
+      variant(term, ss, new HashMap<String, Integer>(), sb);
+      return sb.toString();
+   }
+
+   private static void variant(Unifiable term, SubstitutionSet ss,
+                               HashMap<String, Integer> vars, StringBuilder sb) {
+      term = Complex.deref(term, ss);
+      if (term instanceof LogicVar) {
+         String name = term.toString();
+         Integer n = vars.get(name);
+         if (n == null) {
+            n = vars.size();
+            vars.put(name, n);
+         }
+         sb.append('V').append(n).append(';');
+      }
+      else if (term instanceof Anon) sb.append('_');
+      else if (term instanceof Complex) {
+         Complex c = (Complex)term;
+         sb.append('F').append(c.arity()).append(':');
+         for (int i = 0; i <= c.arity(); i++) variant(c.getTerm(i), ss, vars, sb);
+      }
+      else if (term instanceof SFunction) {
+         SFunction f = (SFunction)term;
+         String name = f.getClass().getName();
+         sb.append('E').append(f.arguments.length).append(':');
+         sb.append(name.length()).append(':').append(name).append(';');
+         for (Unifiable arg : f.arguments) variant(arg, ss, vars, sb);
+      }
+      else if (term instanceof SLinkedList) {
+         SLinkedList list = (SLinkedList)term;
+         sb.append('L');
+         while (list.getHead() != null) {
+            if (list.isTailVar()) {
+               sb.append('|');
+               variant(list.getHead(), ss, vars, sb);
+               return;
+            }
+            variant(list.getHead(), ss, vars, sb);
+            list = list.getTail();
+         }
+         sb.append(']');
+      }
+      else {
+         char tag = (term instanceof SInteger) ? 'I' :
+                    (term instanceof SFloat) ? 'D' :
+                    (term instanceof Constant) ? 'A' : 'T';
+         String text = term.toString();
+         sb.append(tag).append(text.length()).append(':').append(text).append(';');
+      }
+   }
+
+}  // Tables
@@ -0,0 +1,599 @@
+/**
+ * TermHeap
+ *
+ * An optional, flat representation of terms. Terms are encoded as tagged
+ * cells in a growable int array (the heap), in the manner of the Warren
+ * Abstract Machine. The low three bits of a cell hold a tag; the rest hold
+ * a value.
+ *
+ *    REF  address of a variable cell. An unbound variable refers to itself.
+ *    STR  address of a functor cell (Complex term)
+ *    FUN  functor cell; value is the number of cells which follow
+ *         (the functor Constant, then the arguments)
+ *    CON  ID of an interned Constant
+ *    INT  small integer (29 bits, signed)
+ *    LIS  address of a list pair (head cell, tail cell)
+ *    NIL  empty list
+ *    OBJ  index of any other term (big numbers, floats, functions)
+ *
+ * A clause is compiled once into a HeapTemplate. Renaming the clause
+ * (standardizing its variables apart) is then a bulk copy of the template
+ * onto the heap, which adds an offset to every address cell. No objects
+ * are allocated.
+ *
+ * Unification binds variable cells in place, and records them on a trail.
+ * To backtrack, undo() resets the bound cells, the heap top pointer and
+ * the list of objects to a mark.
+ *
+ * For compatibility, get() decodes cells into ordinary Unifiable terms
+ * (Constant, Complex, SLinkedList, LogicVar).
+ *
+ * When Global.termHeap is set, the solver uses a heap of its own on each
+ * thread to filter clauses. Before a clause is renamed, the template of
+ * its head is copied, and unified with the goal. If they do not unify,
+ * the clause is skipped, and no LogicVars or substitutions are made for
+ * it. The call may then become deterministic sooner. (See mayUnify().)
+ *
+ * Usage:
+ *
+ *    TermHeap heap = new TermHeap();
+ *    HeapTemplate clause = heap.compile(rule.getHead());
+ *    int goal = heap.put(Make.query("parent($X, $Y)"));
+ *    long mark = heap.mark();
+ *    int base = heap.copy(clause);
+ *    if (heap.unify(base + clause.root(0), goal)) {
+ *       Unifiable result = heap.get(goal);
+ *    }
+ *    heap.undo(mark);
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+public class TermHeap {
+
+   static final int REF = 0;
+   static final int STR = 1;
+   static final int FUN = 2;
+   static final int CON = 3;
+   static final int INT = 4;
+   static final int LIS = 5;
+   static final int NIL = 6;
+   static final int OBJ = 7;
+
+   private static final int TAG_BITS = 3;
+   private static final int TAG_MASK = 7;
+
+   private static final int MIN_INT = -(1 << 28);
+   private static final int MAX_INT = (1 << 28) - 1;
+
+   private int[] heap;
+   private int top = 0;       // next free cell
+
+   private int[] trail;
+   private int trailTop = 0;  // next free trail position
+
+   // Terms which cannot be encoded in a cell.
+   private ArrayList<Unifiable> objects = new ArrayList<>();
+   private int templateObjects = 0;  // objects of templates, kept by undo()
+
+   // Stack for unify().
+   private int[] stack = new int[64];
+
+   // An object which is not a number was encoded. See HeapTemplate.opaque().
+   private boolean opaque = false;
+
+   // The heaps which filter clauses, and the templates of clause heads.
+   private static final ThreadLocal<TermHeap> filters =
+                                      ThreadLocal.withInitial(TermHeap::new);
+   private IdentityHashMap<Rule, HeapTemplate> heads = null;
+   private static final int MAX_HEADS = 10000;
+
+   /**
+    * constructor
+    */
+   public TermHeap() {
+      heap  = new int[1024];
+      trail = new int[256];
+   }
+
+   static int tag(int cell) { return cell & TAG_MASK; }
+   static int value(int cell) { return cell >> TAG_BITS; }
+   static int cell(int tag, int value) { return (value << TAG_BITS) | tag; }
+
+   /**
+    * top
+    *
+    * @return  next free cell on the heap
+    */
+   public int top() { return top; }
+
+   /*
+    * allocate
+    *
+    * Reserves cells on top of the heap.
+    *
+    * @param   number of cells
+    * @return  address of first cell
+    */
+   private int allocate(int n) {
+      int addr = top;
+      if (top + n > heap.length) {
+         heap = Arrays.copyOf(heap, Math.max(heap.length * 2, top + n));
+      }
+      top += n;
+      return addr;
+   }
+
+   /**
+    * put
+    *
+    * Encodes a term onto the heap. Variables with the same name
+    * share a cell.
+    *
+    * @param   term
+    * @return  address of the cell which holds the term
+    */
+   public int put(Unifiable term) {
+      return put(term, null);
+   }
+
+   /*
+    * put
+    *
+    * Encodes a term onto the heap. Variables which are bound in the
+    * substitution set are replaced by their values.
+    *
+    * @param   term
+    * @param   substitution set, or null
+    * @return  address of the cell which holds the term
+    */
+   private int put(Unifiable term, SubstitutionSet ss) {
+      int addr = allocate(1);
+      int c = encode(term, new HashMap<String, Integer>(), ss);
+      heap[addr] = c;
+      return addr;
+   }
+
+   /**
+    * compile
+    *
+    * Encodes the terms of a clause into a template. The terms share
+    * variables. (Eg. the head of a rule and the goals of its body.)
+    * The template can only be copied onto this heap.
+    *
+    * @param   terms
+    * @return  template
+    */
+   public HeapTemplate compile(Unifiable... terms) {
+      int start = allocate(terms.length);
+      HashMap<String, Integer> vars = new HashMap<>();
+      opaque = false;
+      for (int i = 0; i < terms.length; i++) {
+         int c = encode(terms[i], vars, null);
+         heap[start + i] = c;
+      }
+      int[] cells = Arrays.copyOfRange(heap, start, top);
+      top = start;
+      templateObjects = objects.size();
+      relocate(cells, 0, cells.length, -start);
+      return new HeapTemplate(cells, terms.length, opaque);
+   }
+
+   /**
+    * copy
+    *
+    * Copies a template onto the heap. This renames the variables
+    * of the clause.
+    *
+    * @param   template
+    * @return  base address of the copy; the root cells of the clause
+    *          are at base + template.root(i)
+    */
+   public int copy(HeapTemplate template) {
+      int[] cells = template.cells();
+      int base = allocate(cells.length);
+      System.arraycopy(cells, 0, heap, base, cells.length);
+      relocate(heap, base, cells.length, base);
+      return base;
+   }
+
+   /*
+    * relocate
+    *
+    * Adds an offset to every address cell in a range.
+    *
+    * @param   cells
+    * @param   start of range
+    * @param   length of range
+    * @param   offset
+    */
+   private static void relocate(int[] cells, int start, int length, int offset) {
+      int shifted = offset << TAG_BITS;
+      for (int i = start; i < start + length; i++) {
+         int t = cells[i] & TAG_MASK;
+         if (t == REF || t == STR || t == LIS) cells[i] += shifted;
+      }
+   }
+
+   /*
+    * encode
+    *
+    * Encodes a term, and returns its cell.
+    *
+    * @param   term
+    * @param   variable cells, by name
+    * @param   substitution set, or null
+    * @return  cell
+    */
+   private int encode(Unifiable term, HashMap<String, Integer> vars,
+                      SubstitutionSet ss) {
+
+      term = Complex.deref(term, ss);
+      if (term instanceof LogicVar) {
+         String name = term.toString();
+         Integer addr = vars.get(name);
+         if (addr == null) {
+            addr = newVariable();
+            vars.put(name, addr);
+         }
+         return cell(REF, addr);
+      }
+
+      if (term == Anon.anon) return cell(REF, newVariable());
+
+      if (term instanceof Constant) {
+         SNumber n = ((Constant)term).toNumber();
+         if (n == null) return cell(CON, ((Constant)term).id());
+         if (n.isInteger() && !((SInteger)n).isBig()) {
+            long v = ((SInteger)n).longValue();
+            if (v >= MIN_INT && v <= MAX_INT) return cell(INT, (int)v);
+         }
+         return object(n);
+      }
+
+      if (term instanceof Complex) {
+         Unifiable[] terms = ((Complex)term).getTerms();
+         int addr = allocate(terms.length + 1);
+         heap[addr] = cell(FUN, terms.length);
+         for (int i = 0; i < terms.length; i++) {
+            int c = encode(terms[i], vars, ss);
+            heap[addr + 1 + i] = c;
+         }
+         return cell(STR, addr);
+      }
+
+      if (term instanceof SLinkedList) {
+         SLinkedList list = (SLinkedList)term;
+         int first = cell(NIL, 0);
+         int slot = -1;   // tail cell of the previous pair
+         while (true) {
+            Unifiable head = list.getHead();
+            int c;
+            if (head == null) c = cell(NIL, 0);
+            else if (list.isTailVar()) c = encode(head, vars, ss);
+            else c = cell(LIS, allocate(2));
+            if (slot == -1) first = c;
+            else heap[slot] = c;
+            // The value of a bound tail variable is already encoded.
+            if (head == null || list.isTailVar()) break;
+            int pair = value(c);
+            int h = encode(head, vars, ss);
+            heap[pair] = h;
+            slot = pair + 1;
+            list = list.getTail();
+         }
+         return first;
+      }
+
+      return object(term);
+
+   } // encode
+
+   /*
+    * newVariable
+    *
+    * @return  address of a new, unbound variable cell
+    */
+   private int newVariable() {
+      int addr = allocate(1);
+      heap[addr] = cell(REF, addr);
+      return addr;
+   }
+
+   /*
+    * object
+    *
+    * @param   term which has no cell encoding
+    * @return  OBJ cell
+    */
+   private int object(Unifiable term) {
+      if (!(term instanceof SNumber)) opaque = true;
+      objects.add(term);
+      return cell(OBJ, objects.size() - 1);
+   }
+
+   /*
+    * deref
+    *
+    * Follows bound variables to their values.
+    *
+    * @param   cell
+    * @return  dereferenced cell
+    */
+   private int deref(int c) {
+      while ((c & TAG_MASK) == REF) {
+         int next = heap[c >>> TAG_BITS];
+         if (next == c) return c;   // unbound
+         c = next;
+      }
+      return c;
+   }
+
+   /*
+    * bind
+    *
+    * Binds a variable cell, and records it on the trail.
+    *
+    * @param   address of variable
+    * @param   cell
+    */
+   private void bind(int addr, int c) {
+      if (trailTop == trail.length) trail = Arrays.copyOf(trail, trailTop * 2);
+      trail[trailTop++] = addr;
+      heap[addr] = c;
+   }
+
+   /**
+    * unify
+    *
+    * Unifies the terms held in two cells. If unification fails,
+    * some variables may be bound. Call undo() to remove them.
+    *
+    * @param   address of first cell
+    * @param   address of second cell
+    * @return  true if the terms unify
+    */
+   public boolean unify(int addr1, int addr2) {
+      int sp = 0;
+      stack[sp++] = heap[addr1];
+      stack[sp++] = heap[addr2];
+      while (sp > 0) {
+         int b = deref(stack[--sp]);
+         int a = deref(stack[--sp]);
+         if (a == b) continue;
+         int ta = a & TAG_MASK;
+         int tb = b & TAG_MASK;
+         if (ta == REF && tb == REF) {
+            // Bind the younger variable to the older one, so that
+            // resetting the top pointer leaves no dangling references.
+            if (value(a) < value(b)) bind(value(b), a);
+            else bind(value(a), b);
+            continue;
+         }
+         if (ta == REF) { bind(value(a), b); continue; }
+         if (tb == REF) { bind(value(b), a); continue; }
+         if (ta != tb) {
+            if (isNumber(a) && isNumber(b) &&
+                SNumber.equal(number(a), number(b))) continue;
+            return false;
+         }
+         if (ta == STR) {
+            int fa = value(a);
+            int fb = value(b);
+            if (heap[fa] != heap[fb]) return false;  // different length
+            int n = value(heap[fa]);
+            if (sp + 2 * n > stack.length) {
+               stack = Arrays.copyOf(stack, Math.max(stack.length * 2, sp + 2 * n));
+            }
+            for (int i = n; i > 0; i--) {
+               stack[sp++] = heap[fa + i];
+               stack[sp++] = heap[fb + i];
+            }
+            continue;
+         }
+         if (ta == LIS) {
+            int pa = value(a);
+            int pb = value(b);
+            if (sp + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+            stack[sp++] = heap[pa + 1];
+            stack[sp++] = heap[pb + 1];
+            stack[sp++] = heap[pa];
+            stack[sp++] = heap[pb];
+            continue;
+         }
+         if (ta == OBJ) {
+            Unifiable oa = objects.get(value(a));
+            Unifiable ob = objects.get(value(b));
+            if (oa == ob) continue;
+            if (oa instanceof SNumber && ob instanceof SNumber &&
+                SNumber.equal((SNumber)oa, (SNumber)ob)) continue;
+            return false;
+         }
+         return false;  // Different constants or integers.
+      }
+      return true;
+   } // unify
+
+   /*
+    * mayUnify
+    *
+    * Tells whether the head of a clause may unify with a goal, using
+    * the heap of this thread. Nothing is bound, and only the template
+    * of the head is kept. If the head or the goal holds an object which
+    * is not a number, eg. a function, the answer is true.
+    *
+    * @param   clause
+    * @param   goal
+    * @param   substitution set of the goal
+    * @return  false if the head and the goal cannot unify
+    */
+   static boolean mayUnify(Rule clause, Complex goal, SubstitutionSet ss) {
+      return filters.get().mayUnify(clause, (Unifiable)goal, ss);
+   }
+
+   private boolean mayUnify(Rule clause, Unifiable goal, SubstitutionSet ss) {
+      HeapTemplate head = head(clause);
+      if (head.opaque()) return true;
+      int start = top;
+      long mark = mark();
+      opaque = false;
+      int g = put(goal, ss);
+      boolean result = opaque || unify(copy(head) + head.root(0), g);
+      undo(mark);
+      top = start;   // The cell of the mark, too.
+      return result;
+   }
+
+   /*
+    * head
+    *
+    * Finds the template of a clause's head, and compiles it the first
+    * time. When there are too many templates, they are all dropped,
+    * with their objects.
+    *
+    * @param   clause
+    * @return  template of head
+    */
+   private HeapTemplate head(Rule clause) {
+      if (heads == null) heads = new IdentityHashMap<>();
+      HeapTemplate head = heads.get(clause);
+      if (head == null) {
+         if (heads.size() >= MAX_HEADS) {
+            heads.clear();
+            objects.clear();
+            templateObjects = 0;
+         }
+         head = compile(clause.getHead());
+         heads.put(clause, head);
+      }
+      return head;
+   }
+
+   /*
+    * isNumber
+    *
+    * @param   dereferenced cell
+    * @return  true if the cell holds a number
+    */
+   private boolean isNumber(int c) {
+      int t = c & TAG_MASK;
+      if (t == INT) return true;
+      return t == OBJ && objects.get(value(c)) instanceof SNumber;
+   }
+
+   /*
+    * number
+    *
+    * @param   dereferenced cell, which holds a number
+    * @return  number
+    */
+   private SNumber number(int c) {
+      if ((c & TAG_MASK) == INT) return SInteger.inst(value(c));
+      return (SNumber)objects.get(value(c));
+   }
+
+   /**
+    * mark
+    *
+    * Records the heap top, the trail top and the number of objects,
+    * for undo(). The number of objects is kept in a cell on the heap,
+    * at the address held by the mark.
+    *
+    * @return  mark
+    */
+   public long mark() {
+      int addr = allocate(1);
+      heap[addr] = objects.size();
+      return ((long)addr << 32) | trailTop;
+   }
+
+   /**
+    * undo
+    *
+    * Unbinds all variables which were bound after the mark, and
+    * resets the heap top pointer. Cells above the mark, and the
+    * objects which they held, are discarded. The objects of
+    * templates are kept.
+    *
+    * @param   mark
+    */
+   public void undo(long mark) {
+      int markTrail = (int)mark;
+      while (trailTop > markTrail) {
+         int addr = trail[--trailTop];
+         heap[addr] = cell(REF, addr);
+      }
+      int addr = (int)(mark >>> 32);
+      top = addr + 1;
+      int keep = Math.max(heap[addr], templateObjects);
+      if (objects.size() > keep) objects.subList(keep, objects.size()).clear();
+   }
+
+   /**
+    * numObjects
+    *
+    * @return  number of terms which are held outside of cells
+    */
+   public int numObjects() { return objects.size(); }
+
+   /**
+    * get
+    *
+    * Decodes the term held in a cell. Unbound variables become
+    * new LogicVars. Within one call, a variable cell always decodes
+    * to the same LogicVar.
+    *
+    * @param   address of cell
+    * @return  term
+    */
+   public Unifiable get(int addr) {
+      return decode(heap[addr], new HashMap<Integer, LogicVar>());
+   }
+
+   /*
+    * decode
+    *
+    * @param   cell
+    * @param   LogicVars for unbound variable cells
+    * @return  term
+    */
+   private Unifiable decode(int c, HashMap<Integer, LogicVar> vars) {
+      c = deref(c);
+      switch (c & TAG_MASK) {
+         case REF:
+            LogicVar v = vars.get(value(c));
+            if (v == null) {
+               v = new LogicVar("$H").nextId();
+               vars.put(value(c), v);
+            }
+            return v;
+         case CON: return Constant.fromId(value(c));
+         case INT: return SInteger.inst(value(c));
+         case OBJ: return objects.get(value(c));
+         case STR:
+            int addr = value(c);
+            int n = value(heap[addr]);
+            Unifiable[] terms = new Unifiable[n];
+            for (int i = 0; i < n; i++) terms[i] = decode(heap[addr + 1 + i], vars);
+            return new Complex(terms);
+         case LIS:
+            ArrayList<Unifiable> items = new ArrayList<>();
+            while ((c & TAG_MASK) == LIS) {
+               int pair = value(c);
+               items.add(decode(heap[pair], vars));
+               c = deref(heap[pair + 1]);
+            }
+            if ((c & TAG_MASK) == NIL) return new SLinkedList(false, items);
+            items.add(decode(c, vars));   // [a, b | $T]
+            return new SLinkedList(true, items);
+         default:
+            return SLinkedList.empty;
+      }
+   } // decode
+
+}  // TermHeap
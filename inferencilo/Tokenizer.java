@@ -3,11 +3,13 @@
  *
  * For parsing Prolog-ish rules.
  *
- * This class is a singleton. Use getTokenizer() to instantiate:
+ * Each thread has one instance. Use getTokenizer() to instantiate:
  *
  *   Tokenizer tok = Tokenizer.getTokenizer();
  *   Goal goal = tok.generateGoal(body);
- *   
+ *
+ * Rule(String) now uses Parser, which reads a rule in a single pass.
+ *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
  */
@@ -21,7 +23,10 @@ public class Tokenizer {
 
    private ArrayList<Token> tokens;
    private Stack<Integer> stkParenth;  // Parentheses and brackets.
-   private static Tokenizer tokenizer;
+   private static final ThreadLocal<Tokenizer> tokenizer =
+      new ThreadLocal<Tokenizer>() {
+         protected Tokenizer initialValue() { return new Tokenizer(); }
+      };
 
    // Define parentheses and braces.
    // (prof(Thompson, 5849238); prof(Hamilton, 5849238)), $X = [$H, $T].
@@ -42,13 +47,12 @@ public class Tokenizer {
    /**
     * getTokenizer
     *
-    * Instantiate only once.
+    * Instantiate only once per thread.
     *
     * @return tokenizer
     */
    public static Tokenizer getTokenizer() {
-      if (tokenizer == null) tokenizer = new Tokenizer();
-      return tokenizer;
+      return tokenizer.get();
    }
 
    /*
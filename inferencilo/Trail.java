@@ -0,0 +1,104 @@
+/**
+ * Trail
+ *
+ * A destructive binding store with a trail. Bindings are written
+ * directly into an array, which is indexed by the ID of the logic
+ * variable. The ID of every bound variable is pushed onto the trail.
+ *
+ * A position on the trail is called a mark. When the inference engine
+ * backtracks, it calls undo() with the mark of an earlier solution.
+ * All bindings made after that mark are removed, so the store returns
+ * to the state it had when the earlier solution was found.
+ *
+ * Binding a variable costs O(1). Undoing costs O(number of bindings
+ * undone).
+ *
+ * One Trail is shared by all the substitution sets of one query.
+ * See SubstitutionSet and BindingStore.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+class Trail extends BindingStore {
+
+   private Unifiable[] bindings;
+   private int[] trail;
+   private int top = 0;  // Next free position on the trail.
+
+   /**
+    * constructor
+    */
+   Trail() {
+      bindings = new Unifiable[32];
+      trail = new int[32];
+   }
+
+   /**
+    * get
+    *
+    * @param  variable ID
+    * @return bound term, or null
+    */
+   Unifiable get(int id) {
+      if (id >= bindings.length) return null;
+      return bindings[id];
+   }
+
+   /**
+    * bind
+    *
+    * Binds a variable (ID) to a term, and records the ID on the trail.
+    *
+    * @param  variable ID
+    * @param  term
+    * @return this store
+    */
+   BindingStore bind(int id, Unifiable term) {
+      int len = bindings.length;
+      if (id >= len) {
+         Unifiable[] newBindings = new Unifiable[Math.max(id + 16, len * 2)];
+         System.arraycopy(bindings, 0, newBindings, 0, len);
+         bindings = newBindings;
+      }
+      if (top == trail.length) {
+         int[] newTrail = new int[top * 2];
+         System.arraycopy(trail, 0, newTrail, 0, top);
+         trail = newTrail;
+      }
+      bindings[id] = term;
+      trail[top++] = id;
+      return this;
+   }
+
+   /**
+    * mark
+    *
+    * @return current position on the trail
+    */
+   int mark() { return top; }
+
+   /**
+    * undo
+    *
+    * Removes all bindings which were made after the given mark.
+    *
+    * @param  mark
+    */
+   void undo(int mark) {
+      while (top > mark) {
+         top--;
+         bindings[trail[top]] = null;
+      }
+   }
+
+   /**
+    * size
+    *
+    * @return size of the binding array
+    */
+   int size() { return bindings.length; }
+
+}  // Trail
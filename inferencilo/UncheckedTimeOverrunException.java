@@ -0,0 +1,23 @@
+/**
+ * UncheckedTimeOverrunException
+ *
+ * Wraps a TimeOverrunException, for methods which cannot throw a checked
+ * exception, such as Iterator.hasNext(). See SolutionIterator.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+public class UncheckedTimeOverrunException extends RuntimeException {
+
+   public UncheckedTimeOverrunException(TimeOverrunException cause) {
+      super("Time overrun: " + cause.time() + " ms", cause);
+   }
+
+   public TimeOverrunException getCause() {
+      return (TimeOverrunException)super.getCause();
+   }
+
+}  // UncheckedTimeOverrunException
@@ -15,7 +15,6 @@ package inferencilo;
 public class UnifySolutionNode extends SolutionNode {
 
    private Unify uni;
-   private boolean moreSolutions = true;
 
    /**
     * constructor
@@ -39,14 +38,13 @@ public class UnifySolutionNode extends SolutionNode {
     */
    public SubstitutionSet nextSolution() {
 
-      if (noBackTracking()) { return null; }
-      if (!moreSolutions) { return null; }
-      moreSolutions = false;
+      if (isDeterministic()) { return null; }
+      setDeterministic();
 
       Unifiable term1 = uni.getTerm1();
       Unifiable term2 = uni.getTerm2();
 
-      SubstitutionSet solution = term1.unify(term2, getParentSolution());
+      SubstitutionSet solution = term1.unify(term2, restoreParentSolution());
       return solution;
    }
 }  // UnifySolutionNode
@@ -0,0 +1,99 @@
+/**
+ * VariableFrame
+ *
+ * Renames the variables of a compiled clause (template).
+ *
+ * When a rule is added to the knowledge base, it is compiled once:
+ * its variables are replaced by template variables, which are numbered
+ * from 0 to k-1 (slots). Ground subterms are shared with the original.
+ *
+ * To standardize the template apart, the frame reserves k consecutive
+ * variable IDs (base, base+1, ... base+k-1), and the variable in slot n
+ * becomes the variable with ID base+n. No string keys are created or
+ * looked up. Eg.
+ *
+ *    grandfather($X, $Y) :- father($X, $Z), father($Z, $Y).
+ *
+ *    slots: $X = 0, $Y = 1, $Z = 2
+ *    base 42:  $X_42, $Y_43, $Z_44
+ *
+ * The frame extends HashMap, so that it can be passed to the existing
+ * standardizeVariablesApart() methods of operators and built-in
+ * predicates. A variable which is not in the template is renamed as
+ * before, by name.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+package inferencilo;
+
+import java.util.*;
+
+class VariableFrame extends HashMap<String, LogicVar> {
+
+   private final int base;   // -1 when compiling a template
+   private final LogicVar[] vars;
+   private int numSlots = 0;
+
+   /*
+    * constructor
+    *
+    * Creates a frame for compiling a template. Each variable
+    * is given the next slot number.
+    */
+   VariableFrame() {
+      this.base = -1;
+      this.vars = null;
+   }
+
+   /*
+    * constructor
+    *
+    * Creates a frame for renaming a template with k variables.
+    *
+    * @param   number of variables in template
+    * @throws  MemoryLimitException
+    */
+   VariableFrame(int k) {
+      this.base = LogicVar.reserve(k);
+      this.vars = new LogicVar[k];
+   }
+
+   /*
+    * numSlots
+    *
+    * @return  number of template variables created by this frame
+    */
+   int numSlots() { return numSlots; }
+
+   /*
+    * rename
+    *
+    * @param   variable
+    * @return  new variable
+    */
+   LogicVar rename(LogicVar v) {
+      int slot = v.slot();
+      if (base >= 0 && slot >= 0 && slot < vars.length) {
+         LogicVar newVar = vars[slot];
+         if (newVar == null) {
+            newVar = new LogicVar(v.name(), base + slot, -1);
+            vars[slot] = newVar;
+         }
+         return newVar;
+      }
+      String key = v.toString();
+      LogicVar newVar = get(key);
+      if (newVar == null) {
+         if (base < 0) {
+            // The template variable keeps the ID of the original, for display.
+            newVar = new LogicVar(v.name(), v.id(), numSlots++);
+         }
+         else newVar = v.fresh();
+         put(key, newVar);
+      }
+      return newVar;
+   }
+
+}  // VariableFrame
@@ -0,0 +1,59 @@
+/**
+ * Check
+ *
+ * Helpers shared by the tests. A check prints ✓ if a result is as
+ * expected, otherwise it prints ✗, the result and the expected result.
+ * Results of queries are compared as strings.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class Check {
+
+   /*
+    * equal
+    *
+    * @param  found result
+    * @param  expected result
+    */
+   static void equal(String found, String expected) {
+      if (found.equals(expected)) System.out.print("✓");
+      else System.out.print("\n✗ " + found + "\n  " + expected + "\n");
+   }
+
+   /*
+    * solveAll
+    *
+    * @param  query as string
+    * @param  knowledge base
+    * @return all solutions in order, or the time overrun
+    */
+   static String solveAll(String query, KnowledgeBase kb) {
+      try {
+         return Solutions.solveAll(Make.query(query), kb).toString();
+      } catch (TimeOverrunException tox) { return tox.toString(); }
+   }
+
+   /*
+    * sorted
+    *
+    * For queries whose solutions have no fixed order, eg. of tabled
+    * predicates.
+    *
+    * @param  query as string
+    * @param  knowledge base
+    * @return all solutions, sorted, or the time overrun
+    */
+   static String sorted(String query, KnowledgeBase kb) {
+      try {
+         List<String> results = Solutions.solveAll(Make.query(query), kb);
+         Collections.sort(results);
+         return results.toString();
+      } catch (TimeOverrunException tox) { return tox.toString(); }
+   }
+
+}  // Check
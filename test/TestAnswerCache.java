@@ -0,0 +1,103 @@
+/**
+ * TestAnswerCache
+ *
+ * Tests the answer cache. The answers of agree/2 are cached:
+ *
+ *    agree($N, $V) :- noun($N, $Num), verb($V, $Num).
+ *
+ * A repeated call is answered from the cache. A change to noun/2 or
+ * verb/2 invalidates it; a change to an unrelated predicate does not.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class TestAnswerCache {
+
+   public static void main(String[] args) {
+
+      System.out.print("Test Answer Cache: ");
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRule("agree($N, $V) :- noun($N, $Num), verb($V, $Num)");
+      kb.addRule("noun(cat, singular)");
+      kb.addRule("noun(cats, plural)");
+      kb.addRule("verb(sits, singular)");
+      kb.addRule("verb(sit, plural)");
+      kb.addRule("verb(sleeps, singular)");
+      kb.cache("agree/2");
+      AnswerCache cache = kb.answerCache();
+
+      String expected = "[agree(cat, sits), agree(cat, sleeps)]";
+      Check.equal(Check.solveAll("agree(cat, $V)", kb), expected);
+      Check.equal(Check.solveAll("agree(cat, $W)", kb), expected);
+      Check.equal(cache.hits() + " " + cache.misses(), "1 1");
+      Check.equal(Check.solveAll("agree($N, sit)", kb), "[agree(cats, sit)]");
+
+      // An unrelated change does not invalidate the cache.
+      kb.addRule("color(red)");
+      Check.equal(Check.solveAll("agree(cat, $V)", kb), expected);
+      Check.equal(cache.hits() + " " + cache.invalidations(), "2 0");
+
+      // A change to a dependency does.
+      kb.addRule("verb(naps, singular)");
+      Check.equal(Check.solveAll("agree(cat, $V)", kb),
+            "[agree(cat, sits), agree(cat, sleeps), agree(cat, naps)]");
+      Check.equal(cache.invalidations() + " " + cache.size(), "2 1");
+
+      // A query on an older snapshot does not use newer answers.
+      KnowledgeBase snap = kb.snapshot();
+      kb.remove("noun/2");
+      Check.equal(Check.solveAll("agree(cat, $V)", snap),
+            "[agree(cat, sits), agree(cat, sleeps), agree(cat, naps)]");
+      Check.equal(Check.solveAll("agree(cat, $V)", kb), "[]");
+      kb.addRule("noun(cat, singular)");
+
+      // An overlay uses the base's cache, unless it has clauses which
+      // the answers depend on.
+      Check.solveAll("agree(cat, $V)", kb);
+      long hits = cache.hits();
+      KnowledgeBase local = kb.overlay();
+      local.addRule("color(blue)");
+      Check.solveAll("agree(cat, $V)", local);
+      Check.equal("" + (cache.hits() - hits), "1");
+      KnowledgeBase local2 = kb.overlay();
+      local2.addRule("verb(purrs, singular)");
+      Check.equal(Check.solveAll("agree(cat, $V)", local2), "[agree(cat, purrs)]");
+
+      // The dependencies are kept between calls, until they change.
+      // Here verb/2 comes to depend on irregular/2.
+      kb.addRule("verb($V, $Num) :- irregular($V, $Num)");
+      Check.equal(Check.solveAll("agree(cat, $V)", kb.overlay()),
+            "[agree(cat, sits), agree(cat, sleeps), agree(cat, naps)]");
+      KnowledgeBase local3 = kb.overlay();
+      local3.addRule("irregular(is, singular)");
+      Check.equal(Check.solveAll("agree(cat, $V)", local3), "[agree(cat, sits), " +
+            "agree(cat, sleeps), agree(cat, naps), agree(cat, is)]");
+
+      // The least recently used call is evicted.
+      cache.setCapacity(2);
+      Check.solveAll("agree(cat, $V)", kb);
+      Check.solveAll("agree(cats, $V)", kb);
+      Check.solveAll("agree($N, sits)", kb);
+      Check.equal(cache.size() + " " + (cache.evictions() > 0), "2 true");
+      hits = cache.hits();
+      Check.solveAll("agree(cats, $V)", kb);
+      Check.equal("" + (cache.hits() - hits), "1");
+
+      // Calls which print the same are different calls. Eg. pair(`x, y`)
+      // has one argument, pair(x, y) has two.
+      KnowledgeBase pairs = new KnowledgeBase();
+      pairs.addRules(Arrays.asList("pair(`x, y`).", "pair(x, z)."));
+      pairs.cache("pair/1");
+      pairs.cache("pair/2");
+      Check.equal(Check.solveAll("pair(x, y)", pairs), "[]");
+      Check.equal(Check.solveAll("pair(`x, y`)", pairs), "[pair(x, y)]");
+      System.out.println();
+
+   } // main
+
+}  // TestAnswerCache
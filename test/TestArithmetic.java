@@ -13,6 +13,15 @@
  * calculate($X, $Y, $Out) :- $A = add($X, $Y), $B = subtract($A, 6),
  *                            $C = multiply($B, 3.4), $Out = divide($C, 3.4).
  *
+ * By default, add, subtract and multiply give floats, as in earlier
+ * versions: add(2, 3) gives 5.0 .
+ *
+ * With Global.integerArithmetic, integer arithmetic stays integer, and
+ * overflows to BigInteger:
+ *
+ * integers($Out) :- $A = add(2, 3), $B = multiply($A, 9223372036854775807),
+ *                   $Out = subtract($B, $A).
+ *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
  */
@@ -43,6 +52,11 @@ public class TestArithmetic {
                    //new Print(Out), new NewLine()
                 )
          ),
+         new Rule("sums($Out) :- $Out = add(2, 3); $Out = subtract(7, 2); " +
+                  "$Out = multiply(2, 3)."),
+         new Rule("integers($Out) :- $A = add(2, 3), " +
+                  "$B = multiply($A, 9223372036854775807), $Out = subtract($B, $A)."),
+         new Rule("compare($X) :- $X = 2, $X < 10, $X == 2.0, 40000000000000000000 > $X."),
          new Rule(new Complex("test($Out)"),
             new Or(
                    new Complex("calculate(3.0, 7.0, $Out)"),
@@ -57,6 +71,23 @@ public class TestArithmetic {
          Complex query = Make.query("test($X)");
          String[] expected = { "4.0", "-10.0" };
          Solutions.verifyAll(query, kb, expected, 1);
+
+         System.out.print("Test Float Results: ");
+         query = Make.query("sums($X)");
+         String[] expected1 = { "5.0", "5.0", "6.0" };
+         Solutions.verifyAll(query, kb, expected1, 1);
+
+         System.out.print("Test Integer Arithmetic: ");
+         Global.integerArithmetic = true;
+         query = Make.query("integers($X)");
+         String[] expected2 = { "46116860184273879030" };
+         Solutions.verifyAll(query, kb, expected2, 1);
+         Global.integerArithmetic = false;
+
+         System.out.print("Test Integer Compare: ");
+         query = Make.query("compare($X)");
+         String[] expected3 = { "2" };
+         Solutions.verifyAll(query, kb, expected3, 1);
       } catch (TimeOverrunException tox) {}
    }
 
@@ -0,0 +1,95 @@
+/**
+ * TestAssert
+ *
+ * Tests the built-in predicates assert, asserta, assertz and retract,
+ * and the logical update view: a call sees the clauses of its predicate
+ * as they were when it started.
+ *
+ *    dup($X) :- seen($X), assertz(seen($X)).
+ *
+ * The query dup($X) finds the facts which existed when it started, and
+ * does not loop over the facts which it adds.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class TestAssert {
+
+   static String solve(String query, KnowledgeBase kb) {
+      try {
+         return Solutions.solve(Make.query(query), kb);
+      } catch (TimeOverrunException tox) { return tox.toString(); }
+   }
+
+   public static void main(String[] args) {
+
+      System.out.print("Test Assert: ");
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRule("remember($X) :- assertz(seen($X))");
+      kb.addRule("remember_first($X) :- asserta(seen($X))");
+      kb.addRule("dup($X) :- seen($X), assertz(seen($X))");
+      kb.addRule("forget($X) :- retract(seen($X))");
+      kb.addRule("take($X) :- seen($X), retract(seen($X))");
+      kb.addRule("add_and_find($X) :- assertz(seen($X)), seen($X)");
+
+      Check.solveAll("remember(a)", kb);
+      Check.solveAll("remember(b)", kb);
+      Check.solveAll("remember_first(z)", kb);
+      Check.equal(Check.solveAll("seen($X)", kb), "[seen(z), seen(a), seen(b)]");
+
+      // Only the facts which existed when seen($X) was called.
+      Check.equal(Check.solveAll("dup($X)", kb), "[dup(z), dup(a), dup(b)]");
+      Check.equal(Check.solveAll("seen($X)", kb),
+            "[seen(z), seen(a), seen(b), seen(z), seen(a), seen(b)]");
+
+      // Retract one fact, then all the others, on backtracking.
+      Check.equal(solve("forget(a)", kb), "forget(a)");
+      Check.equal(Check.solveAll("seen($X)", kb),
+            "[seen(z), seen(b), seen(z), seen(a), seen(b)]");
+      Check.equal(Check.solveAll("forget($X)", kb),
+            "[forget(z), forget(b), forget(z), forget(a), forget(b)]");
+      Check.equal(Check.solveAll("seen($X)", kb), "[]");
+
+      // A call still sees the facts which are retracted while it runs.
+      kb.addRule("seen(a)");
+      kb.addRule("seen(b)");
+      kb.addRule("seen(c)");
+      Check.equal(Check.solveAll("take($X)", kb), "[take(a), take(b), take(c)]");
+      Check.equal(Check.solveAll("seen($X)", kb), "[]");
+
+      // A query sees the clauses which it has added.
+      Check.equal(Check.solveAll("add_and_find(d)", kb), "[add_and_find(d)]");
+
+      // Indexed clauses keep the order of asserta and assertz.
+      KnowledgeBase words = new KnowledgeBase();
+      for (int i = 0; i < 20; i++) words.addRule("word(w" + i + ", noun)");
+      Check.equal(Check.solveAll("word(w3, $T)", words), "[word(w3, noun)]");
+      words.asserta(new Rule("word(w3, verb)"));
+      words.addRule("word(w3, adj)");
+      Check.equal(Check.solveAll("word(w3, $T)", words),
+            "[word(w3, verb), word(w3, noun), word(w3, adj)]");
+
+      // Retracted clauses are compacted. The order does not change.
+      Predicate before = words.getPredicate(new Complex("word(w, noun)"));
+      for (int i = 0; i < 1000; i++) {
+         words.asserta(new Rule("word(x" + i + ", noun)"));
+         words.retract(new Complex("word(x" + i + ", noun)"));
+      }
+      Predicate after = words.getPredicate(new Complex("word(w, noun)"));
+      if (before != after && after.size() == 22) System.out.print("✓");
+      else System.out.print("\n✗ Predicate has " + after.size() + " clauses.\n");
+      Check.equal(Check.solveAll("word(w3, $T)", words),
+            "[word(w3, verb), word(w3, noun), word(w3, adj)]");
+      if (words.retract(new Complex("word(w3, $T)")) &&
+          !words.retract(new Complex("word(x5, noun)")))
+         System.out.println("✓");
+      else System.out.println("\n✗ retract()");
+
+   } // main
+
+}  // TestAssert
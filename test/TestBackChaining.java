@@ -53,5 +53,77 @@ public class TestBackChaining {
                               "ancestor(Charles, Audrey)"};
          Solutions.verifyAll(query, kb, expected, 0);
       } catch (TimeOverrunException tox) { }
+
+      // Rules are compiled; their variables are renamed by offset.
+      System.out.print("Test Standardize Apart: ");
+      LogicVar.setNextId(100);
+      Complex anc = new Complex("ancestor($A, $B)");
+      String rule = kb.getRuleStandardizedApart(anc, 1).toString();
+      String expectedRule = "ancestor($X_101, $Y_102) :-  AND " +
+                            "parent($X_101, $Z_103), ancestor($Z_103, $Y_102).";
+      if (rule.equals(expectedRule) && LogicVar.getNextId() == 103 &&
+          kb.getPredicate(anc).getClause(1).toString().equals(
+             "ancestor($X, $Y) :-  AND parent($X, $Z), ancestor($Z, $Y).")) {
+         System.out.println("✓");
+      }
+      else System.out.println("✗ " + rule);
+
+      // Clauses whose heads cannot match are skipped before renaming.
+      System.out.print("Test Head Filter: ");
+      KnowledgeBase kb2 = new KnowledgeBase(
+         new Rule("num(1.0)"),
+         new Rule("num(two)"),
+         new Rule("p(a, [x])"),
+         new Rule("p(f(b), c)"),
+         new Rule("p(g(b), c)"),
+         new Rule("p($X, d) :- num($X)")
+      );
+      ArrayList<String> answers = new ArrayList<>();
+      try {
+         answers.addAll(Solutions.solveAll(Make.query("num(1)"), kb2));
+         answers.addAll(Solutions.solveAll(Make.query("p(f($Y), $Z)"), kb2));
+         answers.addAll(Solutions.solveAll(Make.query("p($W, d)"), kb2));
+      } catch (TimeOverrunException tox) { }
+      String found = answers.toString();
+      if (found.equals("[num(1), p(f(b), c), p(1.0, d), p(two, d)]"))
+         System.out.println("✓");
+      else System.out.println("✗ " + found);
+
+      // Indexed clauses are tried in their original order.
+      System.out.print("Test Clause Index: ");
+      KnowledgeBase kb3 = new KnowledgeBase();
+      String[] words = {"the", "cat", "sat", "on", "the", "mat", "of", "a", "cat"};
+      String[] tags = {"art", "noun", "verb", "prep", "art", "noun", "prep", "art", "verb"};
+      for (int i = 0; i < words.length; i++) {
+         kb3.addRule("word(" + words[i] + ", " + tags[i] + ", " + i + ")");
+         if (i == 3) kb3.addRule("word($W, unknown, 0)");
+      }
+      String[] queries = {"word(cat, $T, $N)", "word($W, noun, $N)", "word($W, art, 7)"};
+      String first = "";
+      String indexed = "";
+      String scanned = "";
+      try {
+         first += Solutions.solveAll(Make.query(queries[0]), kb3);
+         kb3.addRule("word(cat, noun, 9)");   // Added after the index was built.
+         for (String q : queries) indexed += Solutions.solveAll(Make.query(q), kb3);
+         Global.clauseIndexing = false;
+         for (String q : queries) scanned += Solutions.solveAll(Make.query(q), kb3);
+      } catch (TimeOverrunException tox) { }
+      Global.clauseIndexing = true;
+      if (first.equals("[word(cat, noun, 1), word(cat, unknown, 0), word(cat, verb, 8)]") &&
+          indexed.equals(scanned)) System.out.println("✓");
+      else System.out.println("✗ " + first + "\n" + indexed + "\n" + scanned);
+
+      // Clauses are found through the interned predicate indicator.
+      System.out.print("Test Predicate: ");
+      Complex goal = new Complex("parent($A, $B)");
+      Predicate parent = kb.getPredicate(goal);
+      if (parent != null && parent.size() == 4 && parent.calls() > 0 &&
+          goal.indicator() == PredicateIndicator.inst("parent", 2)) {
+         kb.remove("parent/2");
+         if (kb.getPredicate(goal) == null) System.out.println("✓");
+         else System.out.println("✗ not removed");
+      }
+      else System.out.println("✗");
    }
 } // TestBackChaining
@@ -0,0 +1,75 @@
+/**
+ * TestBacktrack
+ *
+ * Bindings are undone when the inference engine backtracks.
+ * A failed attempt must not leave bindings behind.
+ *
+ * pair(a, 1).
+ * pair(b, 2).
+ * first($X, $Y) :- pair($X, 3); ($X = z, $Y = w).
+ * listed([a], 1).
+ * second($X) :- not(listed([$X], 9)), $X = q.
+ *
+ * In first/2, pair($X, 3) binds $X to 'a' before it fails on the
+ * second argument. The binding must be removed before $X = z.
+ * The same applies to the operand of not().
+ *
+ * Solutions found with SubstitutionSet.persistent() can be kept
+ * and read after the engine has backtracked.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+
+public class TestBacktrack {
+
+   public static void main(String[] args) {
+
+      KnowledgeBase kb = new KnowledgeBase(
+         new Rule("pair(a, 1)"),
+         new Rule("pair(b, 2)"),
+         new Rule("first($X, $Y) :- pair($X, 3); ($X = z, $Y = w)"),
+         new Rule("listed([a], 1)"),
+         new Rule("second($X) :- not(listed([$X], 9)), $X = q")
+      );
+
+      System.out.print("Test Backtrack: ");
+
+      try {
+         Complex query = Make.query("first($X, $Y)");
+         String[] expected = { "first(z, w)" };
+         Solutions.verifyAll(query, kb, expected, 0);
+
+         query = Make.query("second($X)");
+         String[] expected2 = { "q" };
+         Solutions.verifyAll(query, kb, expected2, 1);
+
+         // A solution can be read while it is current.
+         query = Make.query("pair($X, $Y)");
+         SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+         SubstitutionSet solution = root.nextSolution();
+         Complex result = (Complex)query.replaceVariables(solution);
+         if (result.toString().equals("pair(a, 1)")) System.out.print("✓");
+         else System.out.print("✗ " + result);
+         solution = root.nextSolution();
+         result = (Complex)query.replaceVariables(solution);
+         if (result.toString().equals("pair(b, 2)")) System.out.print("✓");
+         else System.out.print("✗ " + result);
+
+         // With a persistent store, earlier solutions remain valid.
+         query = Make.query("pair($X, $Y)");
+         root = query.getSolver(kb, SubstitutionSet.persistent(), null);
+         SubstitutionSet first  = root.nextSolution();
+         SubstitutionSet second = root.nextSolution();
+         String r1 = query.replaceVariables(first).toString();
+         String r2 = query.replaceVariables(second).toString();
+         if (r1.equals("pair(a, 1)") && r2.equals("pair(b, 2)")) {
+            System.out.println("✓");
+         }
+         else System.out.println("✗ " + r1 + " " + r2);
+      } catch (TimeOverrunException tox) { }
+   }
+
+}  // TestBacktrack
@@ -0,0 +1,93 @@
+/**
+ * TestBatchQuery
+ *
+ * Tests batches of queries. A batch finds the same answers as queries
+ * solved one by one, on any executor. Results come in the order of the
+ * queries, or in the order in which they are finished. Local facts are
+ * seen only by their query. A query which fails does not stop the batch.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TestBatchQuery {
+
+   public static void main(String[] args) throws Exception {
+
+      System.out.print("Test BatchQuery: ");
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRules(ReadRules.fromFile("kings.txt"));
+      kb.addRules(Arrays.asList(
+         "count_down(0, []).",
+         "count_down($N, [$N | $T]) :- $N > 0, $M = subtract($N, 1), count_down($M, $T).",
+         "king($X) :- male($X), crowned($X)."));
+
+      String[] queries = { "grandfather($X, $Y)", "parent($X, $Y)",
+                           "count_down(30, $L)", "grandmother($X, $Y)" };
+      List<String> expected = new ArrayList<>();
+      for (String q : queries) {
+         expected.add(Solutions.solveAll(Make.query(q), kb).toString());
+      }
+
+      // Results in the order of the queries.
+      BatchQuery batch = new BatchQuery(kb);
+      for (int i = 0; i < 400; i++) batch.add(queries[i % queries.length]);
+      List<BatchQuery.Result> results = batch.run();
+      boolean same = results.size() == 400;
+      for (BatchQuery.Result result : results) {
+         same &= result.solutions().toString()
+                       .equals(expected.get(result.index() % queries.length));
+      }
+      Check.equal("" + same, "true");
+
+      // In the order in which they are finished, on another executor.
+      ExecutorService pool = Executors.newFixedThreadPool(4);
+      batch = new BatchQuery(kb, pool);
+      for (int i = 0; i < 400; i++) batch.add(queries[i % queries.length]);
+      boolean[] seen = new boolean[400];
+      List<String> found = new ArrayList<>();
+      BatchQuery.Report report = batch.run(BatchQuery.Order.COMPLETION, result -> {
+         seen[result.index()] = true;
+         found.add(result.solutions().toString());
+      });
+      same = found.size() == 400;
+      for (boolean s : seen) same &= s;
+      Check.equal("" + same, "true");
+      Check.equal(report.queries() + " " + report.errors(), "400 0");
+      Check.equal("" + (report.queriesPerSecond() > 0 &&
+                        report.cores() >= 1 && report.cores() <= 4), "true");
+
+      // Local facts are seen by their query only.
+      batch = new BatchQuery(kb, pool);
+      batch.add("king($X)", Arrays.asList("crowned(Harold II)."));
+      batch.add("king($X)");
+      batch.add("king($X)", Arrays.asList("crowned(Godwin).", "crowned(Edith)."));
+      Check.equal(batch.run().toString(),
+            "[king($X) --> [king(Harold II)], king($X) --> [], " +
+            "king($X) --> [king(Godwin)]]");
+      Check.equal("" + Solutions.solveAll(Make.query("king($X)"), kb), "[]");
+
+      // Errors stay with their query.
+      batch = new BatchQuery(kb, pool);
+      batch.setMaxVariables(100);
+      batch.add("count_down(200, $L)");
+      batch.add("parent(Godwin, $Y");
+      batch.add("count_down(3, $L)");
+      results = batch.run();
+      Check.equal(results.get(0).error().getClass().getSimpleName() + " " +
+            results.get(1).error().getClass().getSimpleName() + " " +
+            results.get(2).solutions(),
+            "MemoryLimitException InvalidComplexTermException [count_down(3, [3, 2.0, 1.0])]");
+      Check.equal("" + Global.maxVariables, "8000");
+
+      pool.shutdown();
+      System.out.println();
+
+   } // main
+
+}  // TestBatchQuery
@@ -9,9 +9,9 @@
  * or
  *    Constant.inst("red")
  *
- * The second method is more efficient, because it stores the newly created
- * Constant in a hash table. Unification can be tested with a simple comparison
- * (con1 == con2), instead of comparing strings.
+ * The second method is more efficient, because it fetches the Constant
+ * from a hash table. Either way, the string is interned to an integer ID,
+ * so unification compares IDs instead of strings.
  *
  * @author  Cleve (Klivo) Lendon
  * @version 1.0
@@ -77,5 +77,15 @@ public class TestConstant {
       if (c1 == c2) System.out.println("Constant Cache is OK. ✓");
       else System.out.println("Constant Cache NOT OK!");
 
+      // Test interned IDs:
+      Constant c3 = new Constant("pronoun");
+      SubstitutionSet ss = new SubstitutionSet();
+      System.out.print("Constant IDs: ");
+      if (c3 != c1 && c3.id() == c1.id() && c1.unify(c3, ss) == ss &&
+          Constant.fromId(c3.id()) == c1 && c1.unify(red, ss) == null) {
+         System.out.println("✓");
+      }
+      else System.out.println("✗");
+
    }
 }  // TestConstant
@@ -0,0 +1,90 @@
+/**
+ * TestDeterminism
+ *
+ * Tests determinism detection. After its last solution, a solution node
+ * should know that no other clause can match, and release its child.
+ *
+ *    words_to_pos([$H1 | $T1], [$H2 | $T2]) :-
+ *                         word($H1, $H2), words_to_pos($T1, $T2).
+ *    words_to_pos([], []).
+ *
+ * The query words_to_pos(<1000 words>, $P) must not leave a choice point.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class TestDeterminism {
+
+   /*
+    * deterministic
+    *
+    * Finds the first solution of a query, and tells whether its
+    * solution node is deterministic afterwards.
+    */
+   static String deterministic(String query, KnowledgeBase kb) {
+      try {
+         SolutionNode root = Make.query(query).getSolver(kb, new SubstitutionSet(), null);
+         if (root.nextSolution() == null) return "no solution";
+         return "" + root.isDeterministic();
+      } catch (TimeOverrunException tox) { return tox.toString(); }
+   }
+
+   public static void main(String[] args) {
+
+      System.out.print("Test Determinism: ");
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRule("words_to_pos([$H1 | $T1], [$H2 | $T2]) :- " +
+                 "word($H1, $H2), words_to_pos($T1, $T2)");
+      kb.addRule("words_to_pos([], [])");
+      kb.addRule("color(red)");
+      kb.addRule("color(blue)");
+      kb.addRule("size(small, 1)");
+      kb.addRule("size(large, 2)");
+      kb.addRule("pair($X, $Y) :- color($X), color($Y)");
+      kb.addRule("grade($S, pass) :- $S >= 50, !");
+      kb.addRule("grade($S, fail)");
+
+      // A recursive rule over a long list.
+      String[] pos = { "noun", "verb", "adjective", "article" };
+      StringBuilder words = new StringBuilder();
+      for (int i = 0; i < 1000; i++) {
+         kb.addRule("word(w" + i + ", " + pos[i % 4] + ")");
+         if (i > 0) words.append(", ");
+         words.append("w" + i);
+      }
+      try {
+         Complex query = Make.query("words_to_pos([" + words + "], $P)");
+         ComplexSolutionNode root =
+               (ComplexSolutionNode)query.getSolver(kb, new SubstitutionSet(), null);
+         SubstitutionSet solution = root.nextSolution();
+         if (solution != null && root.isDeterministic() &&
+             root.getChild() == null && root.nextSolution() == null)
+            System.out.print("✓");
+         else System.out.print("\n✗ words_to_pos/2 left a choice point.\n");
+      } catch (TimeOverrunException tox) {
+         System.out.print("\n✗ " + tox + "\n");
+      }
+
+      // The last matching clause.
+      Check.equal(deterministic("color($C)", kb), "false");
+      Check.equal(deterministic("color(blue)", kb), "true");
+      Check.equal(deterministic("size(small, $N)", kb), "true");
+      Check.equal(deterministic("word(w7, $P)", kb), "true");
+
+      // Backtracking still finds the other solutions.
+      Check.equal(Check.solveAll("pair($X, $Y)", kb),
+            "[pair(red, red), pair(red, blue), pair(blue, red), pair(blue, blue)]");
+      Check.equal(Check.solveAll("grade(70, $G)", kb) +
+            Check.solveAll("grade(20, $G)", kb), "[grade(70, pass)][grade(20, fail)]");
+      Check.equal(deterministic("grade(70, $G)", kb), "true");
+      Check.equal(Check.solveAll("size($S, $N)", kb), "[size(small, 1), size(large, 2)]");
+      System.out.println();
+
+   } // main
+
+}  // TestDeterminism
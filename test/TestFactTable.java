@@ -0,0 +1,97 @@
+/**
+ * TestFactTable
+ *
+ * Tests the storage of ground facts in columns (FactTable).
+ *
+ *    word(the, article, 1).
+ *    word(cat, noun, 2).
+ *    word(sat, verb, 3.0).
+ *    word(on, prep, [x, y]).
+ *    word(mat, noun, f(2)).
+ *    ...
+ *
+ * Queries must give the same results, in the same order, with and
+ * without fact tables. A number unifies with an equal number (3 with
+ * 3.0). When a rule is added, the table is converted to rules.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class TestFactTable {
+
+   static String[] facts = {
+      "word(the, article, 1)", "word(cat, noun, 2)", "word(sat, verb, 3.0)",
+      "word(on, prep, [x, y])", "word(the, article, 007)", "word(mat, noun, f(2))",
+      "word(a, article, 7)", "word(cat, verb, 8)", "word(dog, noun, 9)"
+   };
+
+   static String[] queries = {
+      "word(cat, $T, $N)", "word($W, noun, $N)", "word($W, $T, 3)",
+      "word($W, $T, [x, $Y])", "word($W, $T, f($X))", "word($W, $T, 7)",
+      "word(the, $T, 007)", "word(dog, verb, $N)", "word(bird, $T, $N)"
+   };
+
+   /*
+    * answers
+    *
+    * Runs all queries, and returns the solutions as a string.
+    */
+   static String answers(KnowledgeBase kb) {
+      String s = "";
+      try {
+         for (String q : queries) s += Solutions.solveAll(Make.query(q), kb);
+      } catch (TimeOverrunException tox) { }
+      return s;
+   }
+
+   /*
+    * makeKB
+    *
+    * @return knowledge base with the facts
+    */
+   static KnowledgeBase makeKB() {
+      KnowledgeBase kb = new KnowledgeBase();
+      for (String f : facts) kb.addRule(f);
+      return kb;
+   }
+
+   public static void main(String[] args) {
+
+      System.out.print("Test FactTable: ");
+
+      Global.factTables = false;
+      String expected = answers(makeKB());
+      Global.factTables = true;
+      KnowledgeBase kb = makeKB();
+      String found = answers(kb);
+      if (found.equals(expected)) System.out.print("✓");
+      else System.out.print("\n✗ " + found + "\n  " + expected + "\n");
+
+      // The clauses are shown as facts.
+      Predicate word = kb.getPredicate(new Complex("word($W, $T, $N)"));
+      List<Rule> clauses = word.getClauses();
+      if (clauses.size() == facts.length &&
+          clauses.get(3).toString().equals("word(on, prep, [x, y]).") &&
+          clauses.get(4).toString().equals("word(the, article, 007)."))
+         System.out.print("✓");
+      else System.out.print("\n✗ " + clauses + "\n");
+
+      // Adding a rule converts the table.
+      kb.addRule("word($W, unknown, 0) :- guess($W)");
+      kb.addRule("guess(cat)");
+      Global.factTables = false;
+      KnowledgeBase kb2 = makeKB();
+      kb2.addRule("word($W, unknown, 0) :- guess($W)");
+      kb2.addRule("guess(cat)");
+      expected = answers(kb2);
+      Global.factTables = true;
+      found = answers(kb);
+      if (found.equals(expected) && found.contains("word(cat, unknown, 0)"))
+         System.out.println("✓");
+      else System.out.println("\n✗ " + found + "\n  " + expected);
+   }
+}  // TestFactTable
@@ -0,0 +1,72 @@
+/**
+ * TestHashCons
+ *
+ * Tests the sharing of ground terms (hash-consing).
+ *
+ *    pos(the, article(the, definite)).
+ *    pos(a, article(a, indefinite)).
+ *    pos(an, article(a, indefinite)).
+ *    num(f(1)).
+ *    tags(quick, [adj, [x]]).
+ *    which($W, $T) :- pos($W, $T).
+ *
+ * Identical ground terms must be the same instance. Queries must give
+ * the same results as without sharing. f(1) still unifies with f(1.0),
+ * and nested lists are still flattened when variables are replaced.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+
+public class TestHashCons {
+
+   public static void main(String[] args) {
+
+      Global.hashConsing = true;
+
+      KnowledgeBase kb = new KnowledgeBase(
+         new Rule("pos(the, article(the, definite))"),
+         new Rule("pos(a, article(a, indefinite))"),
+         new Rule("pos(an, article(a, indefinite))"),
+         new Rule("num(f(1))"),
+         new Rule("tags(quick, [adj, [x]])"),
+         new Rule("which($W, $T) :- pos($W, $T)")
+      );
+
+      System.out.print("Test HashCons: ");
+
+      Complex c1 = HashCons.intern(new Complex("article(a, indefinite)"));
+      Complex c2 = HashCons.intern(new Complex("article(a, indefinite)"));
+      SLinkedList l1 = HashCons.intern(SLinkedList.parse("[x, y, z]"));
+      SLinkedList l2 = HashCons.intern(SLinkedList.parse("[w, y, z]"));
+      if (c1 == c2 && l1.getTail() == l2.getTail()) System.out.print("✓");
+      else System.out.print("✗");
+
+      SubstitutionSet ss = new SubstitutionSet();
+      Complex c3 = HashCons.intern(new Complex("article(the, definite)"));
+      Complex f1 = HashCons.intern(new Complex("f(1)"));
+      Complex f2 = HashCons.intern(new Complex("f(1.0)"));
+      if (c1.unify(c3, ss) == null && f1.unify(f2, ss) == ss) System.out.print("✓");
+      else System.out.print("✗");
+
+      try {
+         Complex query = Make.query("which($W, article(a, indefinite))");
+         String[] expected = { "which(a, article(a, indefinite))",
+                               "which(an, article(a, indefinite))" };
+         Solutions.verifyAll(query, kb, expected, 0);
+
+         query = Make.query("num(f(1.0))");
+         String[] expected2 = { "num(f(1.0))" };
+         Solutions.verifyAll(query, kb, expected2, 0);
+
+         query = Make.query("tags(quick, $T)");
+         String[] expected3 = { "[adj, x]" };
+         Solutions.verifyAll(query, kb, expected3, 2);
+      } catch (TimeOverrunException tox) { }
+
+      Global.hashConsing = false;
+   }
+
+}  // TestHashCons
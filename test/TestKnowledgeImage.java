@@ -0,0 +1,145 @@
+/**
+ * TestKnowledgeImage
+ *
+ * Tests binary images of knowledge bases. The rules of a file are
+ * loaded from text once, and from the file's image after that. The
+ * answers must be the same. When the file is changed, its image is
+ * not used.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+public class TestKnowledgeImage {
+
+   static String[] rules = {
+      ":- table path/2.",
+      "path($X, $Y) :- path($X, $Z), edge($Z, $Y).",
+      "path($X, $Y) :- edge($X, $Y).",
+      "edge(a, b). edge(b, c). edge(c, a).",
+      "code(007, 3.50, `12`, Harold II).",
+      "words([the, big | $T], $T).",
+      "nested([a, [b, c]], g($_)).",
+      "second($L, $S) :- $L = [$_, $S | $_].",
+      "bigger($X, $Y) :- $X > $Y, !.",
+      "bigger($X, $Y) :- not($X > $Y), fail.",
+      "either($X) :- edge($X, b); edge($X, a).",
+      "total($X, $Y, $Z) :- $Z = add($X, $Y).",
+      "together($L1, $L2, $L) :- append($L1, $L2, $L).",
+      "remember($X) :- assert(seen($X)).",
+   };
+
+   static String[] queries = {
+      "path(a, $Y)", "edge($X, $Y)", "code($A, $B, $C, $D)",
+      "words($W, [dog])", "nested($X, $Y)", "second([1, 2, 3], $S)",
+      "bigger(5, 3)", "bigger(3, 5)", "either($X)", "total(2, 3.5, $Z)",
+      "together([a], [b, c], $L)", "remember(x)", "seen($X)",
+   };
+
+   static String answers(KnowledgeBase kb) {
+      StringBuilder sb = new StringBuilder();
+      for (String query : queries) {
+         sb.append(Check.sorted(query, kb));
+      }
+      return sb.toString();
+   }
+
+   public static void main(String[] args) throws IOException, TimeOverrunException {
+
+      System.out.print("Test Knowledge Image: ");
+
+      Path dir = Files.createTempDirectory("inferencilo");
+      String file = dir.resolve("rules.txt").toString();
+      String image = file + KnowledgeImage.EXTENSION;
+      Files.write(Paths.get(file), String.join("\n", rules).getBytes(StandardCharsets.UTF_8));
+
+      KnowledgeBase parsed = new KnowledgeBase();
+      parsed.addRules(ReadRules.fromFile(file));
+      String expected = answers(parsed);
+
+      // The first load parses the file, and writes the image.
+      KnowledgeBase kb1 = new KnowledgeBase();
+      Check.equal("" + KnowledgeImage.fromFile(kb1, file), "false");
+      Check.equal("" + new File(image).isFile(), "true");
+      Check.equal(answers(kb1), expected);
+
+      // The second load reads the image.
+      KnowledgeBase kb2 = new KnowledgeBase();
+      Check.equal("" + KnowledgeImage.fromFile(kb2, file), "true");
+      Check.equal(answers(kb2), expected);
+      Check.equal("" + kb2.isTabled(PredicateIndicator.inst("path", 2)), "true");
+      Check.equal("" + kb2.getRuleCount(), "" + parsed.getRuleCount());
+
+      // A changed file is parsed again.
+      Files.write(Paths.get(file), "edge(d, e).\n".getBytes(StandardCharsets.UTF_8),
+                  StandardOpenOption.APPEND);
+      KnowledgeBase kb3 = new KnowledgeBase();
+      Check.equal("" + KnowledgeImage.fromFile(kb3, file), "false");
+      Check.equal("" + KnowledgeImage.load(new KnowledgeBase(), image,
+                                           KnowledgeImage.hash(new byte[0])), "false");
+
+      // An image of a knowledge base, without a source file.
+      KnowledgeBase kb4 = new KnowledgeBase();
+      KnowledgeImage.write(image, parsed, null);
+      Check.equal("" + KnowledgeImage.load(kb4, image, null), "true");
+      Check.equal(answers(kb4), answers(parsed));
+
+      // A file which is not an image.
+      try {
+         KnowledgeImage.load(new KnowledgeBase(), file, null);
+         Check.equal("loaded", "IOException");
+      } catch (IOException iox) { Check.equal("IOException", "IOException"); }
+
+      // A corrupt image is parsed again, and rewritten. The last clause
+      // of color(red). is encoded in 7 bytes: the tag of its head, its
+      // arity... Changing them to 0, 0 makes the head the constant color.
+      String colors = dir.resolve("colors.txt").toString();
+      String colorImage = colors + KnowledgeImage.EXTENSION;
+      Files.write(Paths.get(colors), "color(red).".getBytes(StandardCharsets.UTF_8));
+      KnowledgeImage.fromFile(new KnowledgeBase(), colors);
+      byte[] bytes = Files.readAllBytes(Paths.get(colorImage));
+      bytes[bytes.length - 7] = 0;
+      bytes[bytes.length - 6] = 0;
+      Files.write(Paths.get(colorImage), bytes);
+      KnowledgeBase kb5 = new KnowledgeBase();
+      Check.equal("" + KnowledgeImage.fromFile(kb5, colors), "false");
+      Check.equal("" + Solutions.solveAll(Make.query("color($X)"), kb5), "[color(red)]");
+      Check.equal("" + KnowledgeImage.fromFile(new KnowledgeBase(), colors), "true");
+
+      // Only operators, built-in predicates and functions are created
+      // from class names. java.util.Stack has as many letters as
+      // inferencilo.Add.
+      String sums = dir.resolve("sums.txt").toString();
+      String sumImage = sums + KnowledgeImage.EXTENSION;
+      Files.write(Paths.get(sums), rules[11].getBytes(StandardCharsets.UTF_8));
+      KnowledgeImage.fromFile(new KnowledgeBase(), sums);
+      String text = new String(Files.readAllBytes(Paths.get(sumImage)),
+                               StandardCharsets.ISO_8859_1);
+      Check.equal("" + text.contains("inferencilo.Add"), "true");
+      text = text.replace("inferencilo.Add", "java.util.Stack");
+      Files.write(Paths.get(sumImage), text.getBytes(StandardCharsets.ISO_8859_1));
+      try {
+         KnowledgeImage.load(new KnowledgeBase(), sumImage, null);
+         Check.equal("loaded", "IOException");
+      } catch (IOException iox) { Check.equal("IOException", "IOException"); }
+      KnowledgeBase kb6 = new KnowledgeBase();
+      Check.equal("" + KnowledgeImage.fromFile(kb6, sums), "false");
+      Check.equal("" + Solutions.solveAll(Make.query("total(2, 3, $Z)"), kb6), "[total(2, 3, 5.0)]");
+
+      // No temporary files are left.
+      for (String f : new String[] {colorImage, colors, sumImage, sums}) new File(f).delete();
+      new File(image).delete();
+      new File(file).delete();
+      Check.equal("" + Arrays.toString(dir.toFile().list()), "[]");
+      new File(dir.toString()).delete();
+      System.out.println();
+
+   } // main
+
+}  // TestKnowledgeImage
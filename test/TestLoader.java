@@ -0,0 +1,85 @@
+/**
+ * TestLoader
+ *
+ * Tests the parallel rule loader. The rules are parsed on several
+ * threads, but the knowledge base must be the same as one loaded
+ * by addRules(): the clauses are in their original order, and rules
+ * which cannot be parsed are reported in order.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class TestLoader {
+
+   public static void main(String[] args) {
+
+      System.out.print("Test Loader: ");
+
+      // The same answers, in the same order, as addRules().
+      KnowledgeBase kb1 = new KnowledgeBase();
+      kb1.addRules(ReadRules.fromFile("kings.txt"));
+      KnowledgeBase kb2 = new KnowledgeBase();
+      RuleLoader.Report report = RuleLoader.fromFile(kb2, "kings.txt");
+      Check.equal(Check.solveAll("grandfather($X, Skule)", kb2), "[grandfather(Godwin, Skule)]");
+      Check.equal(Check.solveAll("parent($X, $Y)", kb2), Check.solveAll("parent($X, $Y)", kb1));
+      Check.equal("" + report.errors(), "0");
+      Check.equal(report.hasSplit() + " " + report.toString().contains("split"), "true true");
+
+      // Many rules, on a pool with 4 threads. Each number gets a new
+      // Constant, so the threads intern new strings at the same time.
+      List<String> rules = new ArrayList<>();
+      rules.add(":- table reach/2.");
+      rules.add("reach($X, $Y) :- reach($X, $Z), link($Z, $Y)");
+      rules.add("reach($X, $Y) :- link($X, $Y)");
+      for (int i = 0; i < 5000; i++) {
+         rules.add("link(node" + i + ", node" + (i + 1) + ")");
+         if (i == 1000) rules.add("bad($X) :- count($X)");
+         if (i == 3000) rules.add("worse($X) :- count($X, $Y, $Z)");
+      }
+      KnowledgeBase kb3 = new KnowledgeBase();
+      PrintStream out = System.out;
+      ByteArrayOutputStream errors = new ByteArrayOutputStream();
+      ForkJoinPool pool = new ForkJoinPool(4);
+      try {
+         System.setOut(new PrintStream(errors, true));
+         report = RuleLoader.load(kb3, rules, pool);
+      } finally {
+         System.setOut(out);
+         pool.shutdown();
+      }
+      Check.equal(report.rules() + " " + report.errors(), "5002 2");
+      // The rules were split by the caller, so no split time is reported.
+      Check.equal(report.hasSplit() + " " + report.splitMillis() + " " +
+            report.toString().contains("split"), "false -1.0 false");
+      String[] lines = errors.toString().split("\n");
+      Check.equal(lines.length + " " + lines[1].trim() + " " + lines[3].trim(),
+            "4 bad($X) :- count($X) worse($X) :- count($X, $Y, $Z)");
+
+      // The clauses are in their original order.
+      List<String> found = new ArrayList<>();
+      try {
+         found = Solutions.solveAll(Make.query("link($X, $Y)"), kb3);
+      } catch (TimeOverrunException tox) { }
+      boolean ordered = found.size() == 5000;
+      for (int i = 0; ordered && i < 5000; i++) {
+         ordered = found.get(i).equals("link(node" + i + ", node" + (i + 1) + ")");
+      }
+      Check.equal("" + ordered, "true");
+
+      // The directive was applied.
+      Check.equal(Check.solveAll("reach(node4990, $Y)", kb3).split("reach").length - 1 + "", "10");
+
+      // Constants interned by different threads are shared.
+      Check.equal("" + (Constant.inst("node2500").id() ==
+                        new Constant("node2500").id()), "true");
+      System.out.println();
+
+   } // main
+
+}  // TestLoader
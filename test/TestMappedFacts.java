@@ -0,0 +1,114 @@
+/**
+ * TestMappedFacts
+ *
+ * Tests the memory-mapped fact store (MappedFactStore).
+ *
+ * Facts are written to a temporary file, which is mapped and added
+ * to a knowledge base. Queries must give the same results, in the same
+ * order, as the same facts added as rules. The facts include numbers,
+ * complex terms and lists. The store's cache of terms is bounded. Adding
+ * a clause to a mapped predicate copies its facts to the heap.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.io.*;
+import java.util.*;
+
+public class TestMappedFacts {
+
+   static String[] facts = {
+      "word(the, article(definite), 1)", "word(cat, noun(cat, singular), 2)",
+      "word(sat, verb(sit, past), 3.0)", "word(on, prep, [x, y])",
+      "word(the, article(definite), 007)", "word(mat, noun(mat, singular), f(2))",
+      "word(a, article(indefinite), 7)", "word(cat, verb(cat, base), 8)",
+      "word(dog, noun(dog, singular), 9)", "word(Ĉu, particle, [])",
+      "tag(noun)", "tag(verb)"
+   };
+
+   static String[] queries = {
+      "word(cat, $T, $N)", "word($W, noun($W, $X), $N)", "word($W, $T, 3)",
+      "word($W, $T, [x, $Y])", "word($W, $T, f($X))", "word($W, $T, 7)",
+      "word(the, $T, 007)", "word(dog, verb($V, $B), $N)", "word(bird, $T, $N)",
+      "word(Ĉu, $T, [])", "tag($T)", "word($W, prep, $N)", "word($W, unknown, $N)"
+   };
+
+   /*
+    * answers
+    *
+    * Runs all queries, and returns the solutions as a string.
+    */
+   static String answers(KnowledgeBase kb) {
+      String s = "";
+      try {
+         for (String q : queries) s += Solutions.solveAll(Make.query(q), kb);
+      } catch (TimeOverrunException tox) { }
+      return s;
+   }
+
+   public static void main(String[] args) {
+
+      System.out.print("Test MappedFacts: ");
+
+      List<Rule> rules = new ArrayList<>();
+      KnowledgeBase expectedKB = new KnowledgeBase();
+      for (String f : facts) {
+         rules.add(new Rule(f));
+         expectedKB.addRule(f);
+      }
+      String expected = answers(expectedKB);
+
+      File file = null;
+      try {
+         file = File.createTempFile("inferencilo", ".facts");
+         MappedFactStore.write(file.getPath(), rules);
+         MappedFactStore store = MappedFactStore.open(file.getPath());
+         KnowledgeBase kb = new KnowledgeBase();
+         kb.addFacts(store);
+
+         if (store.size() == 2 && store.numFacts() == facts.length) System.out.print("✓");
+         else System.out.print("\n✗ " + store.size() + " " + store.numFacts() + "\n");
+
+         String found = answers(kb);
+         if (found.equals(expected)) System.out.print("✓");
+         else System.out.print("\n✗ " + found + "\n  " + expected + "\n");
+
+         Predicate word = kb.getPredicate(new Complex("word($W, $T, $N)"));
+         String clause = word.getClause(4).toString();
+         if (clause.equals("word(the, article(definite), 007).")) System.out.print("✓");
+         else System.out.print("\n✗ " + clause + "\n");
+
+         // A small cache gives the same answers, and does not grow.
+         int cached = store.cached();
+         store.setCacheSize(4);
+         int trimmed = store.cached();
+         found = answers(kb);
+         if (cached > 8 && trimmed <= 8 && store.cached() <= 8 && found.equals(expected))
+            System.out.print("✓");
+         else System.out.print("\n✗ " + cached + " " + trimmed + " " + store.cached() + "\n");
+
+         // Adding a clause to a mapped predicate.
+         kb.addRule("word($W, unknown, 0) :- tag($W)");
+         expectedKB.addRule("word($W, unknown, 0) :- tag($W)");
+         found = answers(kb);
+         expected = answers(expectedKB);
+         if (found.equals(expected) && found.contains("word(noun, unknown, 0)"))
+            System.out.println("✓");
+         else System.out.println("\n✗ " + found + "\n  " + expected);
+
+         // Only ground facts can be stored.
+         try {
+            rules.add(new Rule("word($W, unknown, 0)"));
+            MappedFactStore.write(file.getPath(), rules);
+            System.out.println("✗ Not a ground fact.");
+         } catch (InvalidRuleException irx) { }
+
+      } catch (IOException iox) {
+         System.out.println("\n✗ " + iox);
+      } finally {
+         if (file != null) file.delete();
+      }
+   }
+}  // TestMappedFacts
@@ -0,0 +1,76 @@
+/**
+ * TestOverlay
+ *
+ * Tests overlays of a knowledge base. An overlay holds local facts,
+ * and finds other predicates in its base. The base is not changed.
+ *
+ *    base:     words_to_pos/2, word/2 (shared)
+ *    overlay:  word/2 (local), hides the base's word/2
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class TestOverlay {
+
+   public static void main(String[] args) {
+
+      System.out.print("Test Overlay: ");
+
+      KnowledgeBase base = new KnowledgeBase();
+      base.addRule("words_to_pos([$H1 | $T1], [$H2 | $T2]) :- " +
+                   "word($H1, $H2), words_to_pos($T1, $T2)");
+      base.addRule("words_to_pos([], [])");
+      base.addRule("word(the, article)");
+      base.addRule("color(red)");
+
+      KnowledgeBase one = base.overlay();
+      one.addRule("word(cat, noun)");
+      one.addRule("word(sat, verb)");
+      KnowledgeBase two = base.overlay();
+      two.addRule("word(dog, noun)");
+
+      // The rules of the base see the facts of the overlay.
+      Check.equal(Check.solveAll("words_to_pos([cat, sat], $P)", one),
+            "[words_to_pos([cat, sat], [noun, verb])]");
+      Check.equal(Check.solveAll("words_to_pos([dog], $P)", two),
+            "[words_to_pos([dog], [noun])]");
+      Check.equal(Check.solveAll("words_to_pos([cat], $P)", two), "[]");
+
+      // The local word/2 hides the base's word/2. The base is not changed.
+      Check.equal(Check.solveAll("word(the, $P)", one), "[]");
+      Check.equal(Check.solveAll("word($W, $P)", base), "[word(the, article)]");
+      Check.equal(Check.solveAll("color($C)", one), "[color(red)]");
+
+      // Removing a predicate in an overlay hides it.
+      one.remove("color/1");
+      Check.equal(Check.solveAll("color($C)", one) + Check.solveAll("color($C)", base),
+            "[][color(red)]");
+
+      // Later changes to the base are not seen by the overlays.
+      base.addRule("color(blue)");
+      Check.equal(Check.solveAll("color($C)", two), "[color(red)]");
+
+      // An overlay of an overlay.
+      KnowledgeBase three = one.overlay();
+      three.addRule("color(green)");
+      Check.equal(Check.solveAll("words_to_pos([sat], $P)", three) +
+            Check.solveAll("color($C)", three), "[words_to_pos([sat], [verb])][color(green)]");
+      if (three.getRuleCount() == 3 && one.getRuleCount() == 2 &&
+          base.getRuleCount() == 3)
+         System.out.print("✓");
+      else System.out.print("\n✗ getRuleCount()\n");
+
+      // Facts can be asserted and retracted in an overlay, but the
+      // clauses of the base cannot be retracted.
+      two.retract(new Complex("word(dog, noun)"));
+      Check.equal(Check.solveAll("word($W, $P)", two), "[]");
+      if (!two.retract(new Complex("color(red)"))) System.out.println("✓");
+      else System.out.println("\n✗ A clause of the base was retracted.");
+
+   } // main
+
+}  // TestOverlay
@@ -0,0 +1,100 @@
+/**
+ * TestParser
+ *
+ * Tests the single-pass parser. Rules which the Tokenizer can parse
+ * must be parsed the same way. Text can be a String or UTF-8 bytes.
+ * Several threads can parse at once.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TestParser {
+
+   static String error(String rule) {
+      try {
+         new Parser(rule).rule();
+         return "no error";
+      } catch (RuntimeException rx) { return rx.getClass().getSimpleName(); }
+   }
+
+   // Parses with Complex(String) and the Tokenizer.
+   static String tokenized(String rule) {
+      String s = rule.trim();
+      if (s.endsWith(".")) s = s.substring(0, s.length() - 1);
+      int index = s.indexOf(":-");
+      if (index < 0) return new Rule(new Complex(s)).toString();
+      Goal body = Tokenizer.getTokenizer().generateGoal(s.substring(index + 2));
+      return new Rule(new Complex(s.substring(0, index)), body).toString();
+   }
+
+   public static void main(String[] args) throws Exception {
+
+      System.out.print("Test Parser: ");
+
+      // The same rules as before.
+      List<String> rules = ReadRules.fromFile("kings.txt");
+      rules.add("test_constant_bt($X) :- $X = `Let's see, if this works.`.");
+      rules.add("code(007, 3.50, `12`, Harold II).");
+      rules.add("words([the, big | $T], $T, [a, [b, c]]).");
+      rules.add("total($X, $Y, $Z) :- $Z = add($X, $Y), $Z >= 1.5, not($Z == 3), !.");
+      rules.add("either($X) :- (edge($X, b); edge($X, a)), print(`%s`, $X), nl.");
+      boolean same = true;
+      for (String rule : rules) {
+         String expected = tokenized(rule);
+         same &= new Parser(rule).rule().toString().equals(expected);
+         same &= new Parser(rule.getBytes(StandardCharsets.UTF_8)).rule()
+                       .toString().equals(expected);
+      }
+      Check.equal("" + same, "true");
+
+      // Terms inside terms, escapes and backticks.
+      Check.equal(new Parser("f(g(h($X)), [a, [b] | $T])").term().toString(),
+            "f(g(h($X)), [a, [b] | $T])");
+      Check.equal(new Parser("comma(\\,)").term().toString(), "comma(,)");
+      Check.equal(new Parser("say(`It``s`)").term().toString(), "say(It`s)");
+      byte[] utf8 = "ŝatas(Ĉarlo, `ĥoraĵo, 日本`)".getBytes(StandardCharsets.UTF_8);
+      Check.equal(new Parser(utf8).term().toString(), "ŝatas(Ĉarlo, ĥoraĵo, 日本)");
+
+      // A comma binds more tightly than a semicolon.
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRules(Arrays.asList("a(1)", "b(2)", "c(3)", "e(5)",
+                  "x($W) :- a($W), b(2); c($W), (d($W); e(5)).",
+                  "y($W) :- $W = f(g(1)), not(a(2); b(1))."));
+      Check.equal(Check.solveAll("x($W)", kb), "[x(1), x(3)]");
+      Check.equal(Check.solveAll("y($W)", kb), "[y(f(g(1)))]");
+
+      // Errors.
+      Check.equal(error("a(b"), "UnmatchedParenthesesException");
+      Check.equal(error("a :- b([1, 2)"), "UnmatchedBracketsException");
+      Check.equal(error("a :- b(1)) "), "UnmatchedParenthesesException");
+      Check.equal(error("a :- b(1) :- c(2)"), "InvalidRuleException");
+      Check.equal(error("a :- $X =3"), "FatalParsingException");
+      Check.equal(error("a :- b(`c)"), "UnmatchedBacktickException");
+
+      // Many threads at once.
+      List<String> facts = new ArrayList<>();
+      for (int i = 0; i < 2000; i++) {
+         facts.add("link(n" + i + ", [n" + (i + 1) + " | $T], `text " + i + "`) :- $T = f(" + i + ")");
+      }
+      ExecutorService pool = Executors.newFixedThreadPool(4);
+      List<Future<String>> futures = new ArrayList<>();
+      for (String fact : facts) {
+         futures.add(pool.submit(() -> new Parser(fact).rule().toString()));
+      }
+      same = true;
+      for (int i = 0; i < facts.size(); i++) {
+         same &= futures.get(i).get().equals(tokenized(facts.get(i)));
+      }
+      pool.shutdown();
+      Check.equal("" + same, "true");
+      System.out.println();
+
+   } // main
+
+}  // TestParser
@@ -0,0 +1,121 @@
+/**
+ * TestQueryContext
+ *
+ * Tests query contexts. Queries with their own contexts run on several
+ * threads at once, against one knowledge base, and find the same
+ * answers as on one thread. Each context has its own variable IDs and
+ * limits.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TestQueryContext {
+
+   public static void main(String[] args) throws Exception {
+
+      System.out.print("Test QueryContext: ");
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRules(ReadRules.fromFile("kings.txt"));
+      kb.addRules(Arrays.asList(
+         "count_down(0, []).",
+         "count_down($N, [$N | $T]) :- $N > 0, $M = subtract($N, 1), count_down($M, $T).",
+         "slow($X) :- count_down(200, $X), check_time."));
+
+      String[] queries = { "grandfather($X, $Y)", "parent($X, $Y)",
+                           "count_down(50, $L)", "grandmother($X, $Y)" };
+      List<String> expected = new ArrayList<>();
+      for (String q : queries) {
+         expected.add(Solutions.solveAll(Make.query(q), kb).toString());
+      }
+
+      // Many queries at once, each with its own context.
+      ExecutorService pool = Executors.newFixedThreadPool(4);
+      List<Future<String>> futures = new ArrayList<>();
+      for (int i = 0; i < 400; i++) {
+         String q = queries[i % queries.length];
+         futures.add(pool.submit(() -> {
+            QueryContext context = new QueryContext();
+            return context.solveAll(context.query(q), kb).toString();
+         }));
+      }
+      boolean same = true;
+      for (int i = 0; i < futures.size(); i++) {
+         same &= futures.get(i).get().equals(expected.get(i % queries.length));
+      }
+      Check.equal("" + same, "true");
+
+      // A context has its own variable IDs.
+      LogicVar.setNextId(1000);
+      QueryContext context = new QueryContext();
+      context.solveAll(context.query("count_down(20, $L)"), kb);
+      Check.equal("" + LogicVar.getNextId(), "1000");
+
+      // And its own limits.
+      QueryContext quick = new QueryContext();
+      quick.setMaxTime(0);
+      Thread.sleep(2);
+      try {
+         quick.solveAll(quick.query("slow($X)"), kb);
+         Check.equal("no time out", "time out");
+      } catch (TimeOverrunException tox) { Check.equal("time out", "time out"); }
+      context.start();
+      Check.equal("" + context.solveAll(context.query("slow($X)"), kb).size(), "1");
+
+      QueryContext small = new QueryContext();
+      small.setMaxVariables(100);
+      try {
+         small.solveAll(small.query("count_down(200, $L)"), kb);
+         Check.equal("no error", "MemoryLimitException");
+      } catch (MemoryLimitException mlx) {
+         Check.equal("MemoryLimitException", "MemoryLimitException");
+      }
+      Check.equal("" + Global.maxVariables, "8000");
+
+      // The default context of each thread has its own limits and clock.
+      QueryContext main = QueryContext.current();
+      long mainStart = main.startTime();
+      int mainErrors = main.maxErrors();
+      Future<String> other = pool.submit(() -> {
+         QueryContext own = QueryContext.current();
+         own.setMaxErrors(mainErrors + 5);
+         own.start();
+         return "" + (own != main) + " " + own.maxErrors();
+      });
+      Check.equal(other.get() + " " + main.maxErrors() + " " + Global.maxErrors +
+            " " + (main.startTime() == mainStart),
+            "true " + (mainErrors + 5) + " " + mainErrors + " " + mainErrors + " true");
+
+      // Until it is given its own values, the default context reads Global,
+      // so setting Global.startTime etc. before a query works as before.
+      Solutions.solveAll(Make.query("parent($X, $Y)"), kb);
+      Thread.sleep(400);
+      Global.startTime = System.nanoTime();
+      Check.equal("" + Solutions.solveAll(Make.query("slow($X)"), kb).size(), "1");
+      Global.maxErrors = 5;
+      int errors = main.maxErrors();
+      main.setMaxErrors(1);
+      Global.maxErrors = 0;
+      Check.equal(errors + " " + main.maxErrors(), "5 1");
+
+      // A solver can be continued on another thread.
+      SolutionNode root = context.solver(context.query("parent($X, $Y)"), kb);
+      SubstitutionSet first = root.nextSolution();
+      Future<Integer> rest = pool.submit(() -> {
+         int n = 0;
+         while (root.nextSolution() != null) n++;
+         return n;
+      });
+      int total = (first == null ? 0 : 1) + rest.get();
+      Check.equal("" + total, "" + Solutions.solveAll(Make.query("parent($X, $Y)"), kb).size());
+      pool.shutdown();
+      System.out.println();
+
+   } // main
+
+}  // TestQueryContext
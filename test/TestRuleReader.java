@@ -0,0 +1,99 @@
+/**
+ * TestRuleReader
+ *
+ * Tests the streaming rule reader. Rules are read one at a time, with
+ * the line and column where they start. Errors report where they are.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class TestRuleReader {
+
+   static String error(String text) {
+      try {
+         RuleReader reader = new RuleReader(new StringReader(text));
+         while (reader.hasNext()) reader.next();
+         return "no error";
+      } catch (RuntimeException rx) { return rx.getMessage(); }
+   }
+
+   public static void main(String[] args) throws IOException {
+
+      System.out.print("Test RuleReader: ");
+
+      String text =
+         "# Comment\n" +
+         "mother(Gina, Frank).   % King of nothing\n" +
+         "  grandmother($X, $Y) :-\n" +
+         "     mother($X, $Z), // mother first\n" +
+         "     parent($Z, $Y).\n" +
+         "say(`Hello. # Not a comment`). say(`It``s`).\n" +
+         "last(fact)";
+
+      RuleReader reader = new RuleReader(new StringReader(text));
+      List<String> found = new ArrayList<>();
+      while (reader.hasNext()) {
+         found.add(reader.next() + " @" + reader.line() + ":" + reader.column());
+      }
+      Check.equal(found.get(0), "mother(Gina, Frank). @2:1");
+      Check.equal(found.get(1),
+            "grandmother($X, $Y) :- mother($X, $Z), parent($Z, $Y). @3:3");
+      Check.equal(found.get(2), "say(`Hello. # Not a comment`). @6:1");
+      Check.equal(found.get(3), "say(`It``s`). @6:32");
+      Check.equal(found.get(4) + " " + found.size(), "last(fact) @7:1 5");
+
+      // Errors report the line and column.
+      Check.equal(error("a(b).\nc(d)).\n"), "Unmatched Parentheses: line 2, column 5: c(d))");
+      Check.equal(error("a(b).\n  c([d, e)."), "Unmatched Brackets: line 2, column 3: c([d, e).");
+      Check.equal(error("a(`b).\n"), "Unmatched Backtick: line 1, column 1: a(`b).");
+      reader = new RuleReader(new StringReader("a(b, c, d, e, f, g)."));
+      reader.setMaxLength(10);
+      try {
+         reader.next();
+         Check.equal("no error", "too long");
+      } catch (InvalidRuleException irx) {
+         Check.equal(irx.getMessage().substring(0, 49),
+               "line 1, column 1: Rule is longer than 10 characte");
+      }
+
+      // A channel, added to a knowledge base in batches.
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 3000; i++) sb.append("number(n" + i + ").\n");
+      sb.append("bad($X) :- count($X).\n");
+      sb.append("parity($N, even) :- number($N).\n");
+      byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+      reader = new RuleReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+      KnowledgeBase kb = new KnowledgeBase();
+      PrintStream out = System.out;
+      ByteArrayOutputStream errors = new ByteArrayOutputStream();
+      int count;
+      try {
+         System.setOut(new PrintStream(errors, true));
+         count = reader.addTo(kb);
+      } finally { System.setOut(out); }
+      Check.equal("" + count, "3001");
+      Check.equal(errors.toString().split("\n")[0],
+            "line 3001, column 1: Fatal Parsing Exception: count() takes 2 arguments: $X");
+      try {
+         List<String> results = Solutions.solveAll(Make.query("parity(n2999, $P)"), kb);
+         Check.equal(results.toString(), "[parity(n2999, even)]");
+      } catch (TimeOverrunException tox) { }
+
+      // ReadRules reads the same rules.
+      reader = RuleReader.open("kings.txt");
+      List<String> rules = new ArrayList<>();
+      reader.forEachRemaining(rules::add);
+      reader.close();
+      Check.equal("" + rules.equals(ReadRules.fromFile("kings.txt")), "true");
+      System.out.println();
+
+   } // main
+
+}  // TestRuleReader
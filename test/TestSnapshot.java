@@ -0,0 +1,115 @@
+/**
+ * TestSnapshot
+ *
+ * Tests snapshots of a knowledge base. A snapshot must not see rules
+ * which are added or removed after it was taken. A running query must
+ * not see clauses which are added while it is suspended.
+ *
+ * Finally, a thread adds facts while queries run on snapshots. Each
+ * snapshot must see a consistent prefix of the facts.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+
+public class TestSnapshot {
+
+   static int count(Complex query, KnowledgeBase kb) {
+      try {
+         return Solutions.solveAll(query, kb).size();
+      } catch (TimeOverrunException tox) { return -1; }
+   }
+
+   public static void main(String[] args) {
+
+      System.out.print("Test Snapshot: ");
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRule("parent(Godwin, Harold)");
+      kb.addRule("parent(Harold, Godwin2)");
+      kb.addRule("grandparent($X, $Y) :- parent($X, $Z), parent($Z, $Y)");
+      kb.addRule("king(Harold)");
+
+      KnowledgeBase snap = kb.snapshot();
+      kb.addRule("parent(Harold, Edmund)");
+      kb.remove("king/1");
+      kb.addRule("king(William)");
+
+      String expected = "[grandparent(Godwin, Godwin2)]";
+      String found = Check.solveAll("grandparent(Godwin, $Y)", snap);
+      if (found.equals(expected)) System.out.print("✓");
+      else System.out.print("\n✗ " + found + "\n  " + expected + "\n");
+
+      expected = "[king(Harold)]";
+      found = Check.solveAll("king($K)", snap);
+      if (found.equals(expected)) System.out.print("✓");
+      else System.out.print("\n✗ " + found + "\n  " + expected + "\n");
+
+      expected = "[grandparent(Godwin, Godwin2), grandparent(Godwin, Edmund)]";
+      found = Check.solveAll("grandparent(Godwin, $Y)", kb);
+      if (found.equals(expected)) System.out.print("✓");
+      else System.out.print("\n✗ " + found + "\n  " + expected + "\n");
+
+      expected = "[king(William)]";
+      found = Check.solveAll("king($K)", kb);
+      if (found.equals(expected)) System.out.print("✓");
+      else System.out.print("\n✗ " + found + "\n  " + expected + "\n");
+
+      // A snapshot is read-only.
+      try {
+         snap.addRule("king(Edward)");
+         System.out.print("\n✗ A snapshot was changed.\n");
+      } catch (UnsupportedOperationException uox) {
+         System.out.print("✓");
+      }
+
+      // A suspended query does not see a clause added after it started.
+      try {
+         Complex query = Make.query("parent(Harold, $C)");
+         SolutionNode root = query.getSolver(kb, new SubstitutionSet(), null);
+         int n = 0;
+         if (root.nextSolution() != null) n++;
+         kb.addRule("parent(Harold, Gunhild)");
+         while (root.nextSolution() != null) n++;
+         if (n == 2 && Check.solveAll("parent(Harold, $C)", kb).contains("Gunhild"))
+            System.out.print("✓");
+         else System.out.print("\n✗ Suspended query found " + n + " solutions.\n");
+      } catch (TimeOverrunException tox) {
+         System.out.print("\n✗ " + tox + "\n");
+      }
+
+      // A writer thread adds facts, while queries run on snapshots.
+      final int numFacts = 3000;
+      final Rule[] rules = new Rule[numFacts];
+      Complex[] lookups = new Complex[numFacts];
+      for (int i = 0; i < numFacts; i++) {
+         rules[i] = new Rule("word(w" + i + ", noun)");
+         lookups[i] = Make.query("word(w" + i + ", $T)");
+      }
+      Complex all = Make.query("word($W, noun)");
+      final KnowledgeBase words = new KnowledgeBase();
+      Thread writer = new Thread() {
+         public void run() { for (Rule r : rules) words.addRule(r); }
+      };
+      writer.start();
+      boolean consistent = true;
+      int last = 0;
+      while (last < numFacts && consistent) {
+         KnowledgeBase s = words.snapshot();
+         int n = count(all, s);
+         // The snapshot sees the first n facts, and no others.
+         if (n < last || count(all, s) != n) consistent = false;
+         if (n > 0 && count(lookups[n - 1], s) != 1) consistent = false;
+         if (n < numFacts && count(lookups[n], s) != 0) consistent = false;
+         last = n;
+      }
+      try { writer.join(); } catch (InterruptedException ix) { }
+      if (consistent && count(all, words) == numFacts) System.out.println("✓");
+      else System.out.println("\n✗ Snapshot saw " + last + " facts.");
+
+   } // main
+
+}  // TestSnapshot
@@ -0,0 +1,186 @@
+/**
+ * TestSolutionIterator
+ *
+ * Tests lazy iterators and streams of solutions. Solutions are found
+ * one at a time, so a query with endless solutions can be limited.
+ * The values of variables can be read as numbers, lists, etc.
+ * A publisher searches only for the solutions which are requested,
+ * on the threads which request them.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+public class TestSolutionIterator {
+
+   // Requests solutions, and cancels after it has received a number of them.
+   static class Collector implements Flow.Subscriber<Solution> {
+      final long first;
+      final int cancelAfter;
+      Flow.Subscription subscription;
+      List<String> received = new ArrayList<>();
+      boolean complete = false;
+      Throwable error = null;
+      Collector(long first, int cancelAfter) {
+         this.first = first;
+         this.cancelAfter = cancelAfter;
+      }
+      public void onSubscribe(Flow.Subscription s) {
+         subscription = s;
+         s.request(first);
+      }
+      public void onNext(Solution s) {
+         received.add(s.term().toString());
+         if (received.size() == cancelAfter) subscription.cancel();
+      }
+      public void onError(Throwable t) { error = t; }
+      public void onComplete() { complete = true; }
+      public String toString() { return received + " " + complete + " " + error; }
+   }
+
+   // Requests one solution at a time, from the threads of a pool.
+   static class PoolCollector implements Flow.Subscriber<Solution> {
+      final ExecutorService pool;
+      final List<String> received = Collections.synchronizedList(new ArrayList<>());
+      final CountDownLatch done = new CountDownLatch(1);
+      Flow.Subscription subscription;
+      Throwable error = null;
+      PoolCollector(ExecutorService pool) { this.pool = pool; }
+      public void onSubscribe(Flow.Subscription s) {
+         subscription = s;
+         pool.submit(() -> s.request(1));
+      }
+      public void onNext(Solution s) {
+         received.add(s.term().toString());
+         pool.submit(() -> subscription.request(1));
+      }
+      public void onError(Throwable t) { error = t; done.countDown(); }
+      public void onComplete() { done.countDown(); }
+   }
+
+   public static void main(String[] args) throws Exception {
+
+      System.out.print("Test SolutionIterator: ");
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRules(ReadRules.fromFile("kings.txt"));
+      kb.addRules(Arrays.asList(
+         "nat(0).",
+         "nat($N) :- nat($M), $N = add($M, 1).",
+         "count_down(0, []).",
+         "count_down($N, [$N | $T]) :- $N > 0, $M = subtract($N, 1), count_down($M, $T).",
+         "slow($X) :- count_down(200, $X), check_time.",
+         "measure(box, 2.5, size(3, 4))."));
+
+      // The same solutions as Solutions.solveAll().
+      Complex query = Make.query("grandfather($X, $Y)");
+      List<String> found = new ArrayList<>();
+      Iterator<Solution> it = Solutions.iterator(query, kb);
+      while (it.hasNext()) found.add(it.next().term().toString());
+      Check.equal(found.toString(), Solutions.solveAll(query, kb).toString());
+
+      // Endless solutions, limited.
+      Check.equal(Solutions.stream(Make.query("nat($N)"), kb).limit(5)
+                           .map(s -> s.getString("$N")).collect(Collectors.toList())
+                           .toString(), "[0, 1.0, 2.0, 3.0, 4.0]");
+      SolutionIterator nat = Solutions.iterator(Make.query("nat($N)"), kb).limit(3);
+      double sum = 0;
+      while (nat.hasNext()) sum += nat.next().getDouble("$N");
+      Check.equal(sum + " " + nat.isClosed(), "3.0 true");
+
+      // Closing the iterator, or its stream, stops the search.
+      SolutionIterator parents = Solutions.iterator(Make.query("parent($X, $Y)"), kb);
+      try (Stream<Solution> stream = parents.stream()) {
+         Check.equal(stream.findFirst().get().toString(), "$X = Godwin, $Y = Harold II");
+      }
+      Check.equal(parents.isClosed() + " " + parents.hasNext(), "true false");
+      try {
+         parents.next();
+         Check.equal("next", "NoSuchElementException");
+      } catch (NoSuchElementException nsx) { Check.equal("", ""); }
+
+      // Typed values.
+      Solution s = Solutions.iterator(Make.query("measure($A, $W, size($H, $D))"), kb).next();
+      Check.equal(s.variables() + " " + s.getConstant("$A") + " " + s.getDouble("$W") +
+            " " + (s.getLong("$H") * s.getLong("$D")), "[$A, $W, $H, $D] box 2.5 12");
+      try {
+         s.getLong("$W");
+         Check.equal("long", "NumberFormatException");
+      } catch (NumberFormatException nfx) { Check.equal("", ""); }
+      s = Solutions.iterator(Make.query("count_down(3, [$First | $Rest])"), kb).next();
+      Check.equal(s.getLong("$First") + " " + s.getList("$Rest").count() + " " +
+            s.getComplex("$Rest") + " " + s.get("$None"), "3 2 null null");
+      s = Solutions.iterator(Make.query("count_down(0, $L), $Z = $Free"), kb).next();
+      Check.equal(s.isBound("$L") + " " + s.isBound("$Free"), "true false");
+
+      // A time overrun closes the iterator.
+      QueryContext quick = new QueryContext();
+      quick.setMaxTime(0);
+      Thread.sleep(2);
+      SolutionIterator slow = quick.iterator(quick.query("slow($X)"), kb);
+      try {
+         slow.hasNext();
+         Check.equal("no time out", "time out");
+      } catch (UncheckedTimeOverrunException utx) {
+         Check.equal(slow.isClosed() + " " + (utx.getCause().time() > 0), "true true");
+      }
+
+      // A publisher sends only what is requested, and stops when cancelled.
+      Collector two = new Collector(2, 2);
+      Solutions.publisher(Make.query("nat($N)"), kb).subscribe(two);
+      two.subscription.request(5);
+      Check.equal(two.toString(), "[nat(0), nat(1.0)] false null");
+
+      Collector one = new Collector(1, 0);
+      Solutions.publisher(Make.query("parent(Godwin, $C)"), kb).subscribe(one);
+      Check.equal(one.toString(), "[parent(Godwin, Harold II)] false null");
+      one.subscription.request(Long.MAX_VALUE);
+      Check.equal(one.toString(), "[parent(Godwin, Harold II), parent(Godwin, Tostig), " +
+                                  "parent(Godwin, Edith)] true null");
+
+      Collector all = new Collector(Long.MAX_VALUE, 0);
+      query = Make.query("grandfather($X, $Y)");
+      Solutions.publisher(query, kb).subscribe(all);
+      Check.equal(all.received + " " + all.complete,
+            Solutions.solveAll(query, kb) + " true");
+
+      Collector none = new Collector(0, 0);
+      Solutions.publisher(query, kb).subscribe(none);
+      Check.equal(none.received + " " + none.error.getClass().getSimpleName(),
+            "[] IllegalArgumentException");
+
+      // Requests from the threads of a pool. Each search step may run on
+      // a different thread, but the variable IDs belong to the query.
+      KnowledgeBase pairs = new KnowledgeBase();
+      pairs.addRules(Arrays.asList("num(1).", "num(2).", "num(3).",
+                                   "pair($X, $Y) :- num($X), num($Y).",
+                                   "q($A, $B) :- pair($A, $C), pair($C, $B)."));
+      ExecutorService pool = Executors.newFixedThreadPool(3);
+      PoolCollector pooled = new PoolCollector(pool);
+      Solutions.publisher(Make.query("q($A, $B)"), pairs).subscribe(pooled);
+      boolean finished = pooled.done.await(10, TimeUnit.SECONDS);
+      pool.shutdown();
+      List<String> expected = Solutions.solveAll(Make.query("q($A, $B)"), pairs);
+      Check.equal(finished + " " + pooled.error + " " + pooled.received.size() + " " +
+            new TreeSet<>(pooled.received).equals(new TreeSet<>(expected)),
+            "true null 27 true");
+
+      // An iterator keeps its variable IDs when other queries are made.
+      SolutionIterator qs = Solutions.iterator(Make.query("q($A, $B)"), pairs);
+      int count = 0;
+      while (qs.hasNext() && count < 100) {
+         qs.next();
+         Make.query("pair($X, $Y)");
+         count++;
+      }
+      Check.equal("" + count, "27");
+      System.out.println();
+
+   } // main
+
+}  // TestSolutionIterator
@@ -0,0 +1,139 @@
+/**
+ * TestTabling
+ *
+ * Tests tabled predicates. Without tabling, the left-recursive rule
+ *
+ *    path($X, $Y) :- path($X, $Z), edge($Z, $Y).
+ *
+ * would loop forever. With tabling, it finds each path once, even
+ * if the graph has cycles. Several threads can fill tables at once.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class TestTabling {
+
+   public static void main(String[] args) throws Exception {
+
+      System.out.print("Test Tabling: ");
+
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRules(Arrays.asList(
+         ":- table path/2.",
+         "path($X, $Y) :- path($X, $Z), edge($Z, $Y)",
+         "path($X, $Y) :- edge($X, $Y)",
+         "edge(a, b)", "edge(b, c)", "edge(c, a)", "edge(c, d)"));
+
+      // Left recursion over a cycle.
+      Check.equal(Check.sorted("path(a, $Y)", kb),
+            "[path(a, a), path(a, b), path(a, c), path(a, d)]");
+      Check.equal(Check.sorted("path($X, d)", kb),
+            "[path(a, d), path(b, d), path(c, d)]");
+      Check.equal(Check.sorted("path(d, $Y)", kb), "[]");
+
+      // A completed table is reused. The clauses are not called again.
+      Predicate edge = kb.getPredicate(new Complex("edge(a, b)"));
+      long calls = edge.calls();
+      Check.equal(Check.sorted("path(a, $Y)", kb),
+            "[path(a, a), path(a, b), path(a, c), path(a, d)]");
+      if (edge.calls() == calls) System.out.print("✓");
+      else System.out.print("\n✗ The table of path(a, $Y) was not reused.\n");
+
+      // A change to the knowledge base starts new tables.
+      kb.addRule("edge(d, e)");
+      Check.equal(Check.sorted("path(c, $Y)", kb),
+            "[path(c, a), path(c, b), path(c, c), path(c, d), path(c, e)]");
+
+      // Mutual recursion, declared through the API.
+      kb.addRule("reach($X, $Y) :- edge($X, $Y)");
+      kb.addRule("reach($X, $Y) :- reach2($X, $Z), edge($Z, $Y)");
+      kb.addRule("reach2($X, $Y) :- reach($X, $Y)");
+      kb.table("reach/2");
+      kb.table("reach2/2");
+      Check.equal(Check.sorted("reach(b, $Y)", kb),
+            "[reach(b, a), reach(b, b), reach(b, c), reach(b, d), reach(b, e)]");
+      Check.equal(Check.sorted("reach2(e, $Y)", kb), "[]");
+
+      // A tabled predicate in an overlay sees the overlay's edge/2,
+      // which hides the edge/2 of the base.
+      KnowledgeBase local = kb.overlay();
+      local.addRule("edge(d, f)");
+      local.addRule("edge(f, g)");
+      Check.equal(Check.sorted("path(d, $Y)", local), "[path(d, f), path(d, g)]");
+      Check.equal(Check.sorted("path(d, $Y)", kb), "[path(d, e)]");
+
+      // A time overrun discards only the incomplete tables.
+      kb.addRule("slow($Y) :- path(a, $Y), check_time");
+      kb.table("slow/1");
+      Check.equal(Check.sorted("path(a, $Y)", kb),
+            "[path(a, a), path(a, b), path(a, c), path(a, d), path(a, e)]");
+      calls = edge.calls();
+      QueryContext quick = new QueryContext();
+      quick.setMaxTime(0);
+      Thread.sleep(2);
+      try {
+         quick.solveAll(quick.query("slow($Y)"), kb);
+         Check.equal("no time out", "time out");
+      } catch (TimeOverrunException tox) { Check.equal("time out", "time out"); }
+      Check.equal(Check.sorted("path(a, $Y)", kb) + " " + (edge.calls() == calls),
+            "[path(a, a), path(a, b), path(a, c), path(a, d), path(a, e)] true");
+
+      // Calls and answers which print the same are different terms.
+      KnowledgeBase pairs = new KnowledgeBase();
+      pairs.addRules(Arrays.asList(":- table pair/1.", ":- table pair/2.",
+                                   ":- table wrap/1.",
+                                   "pair(`x, y`).", "pair(x, z).",
+                                   "wrap(g(`a, b`)).", "wrap(g(a, b))."));
+      Check.equal(Check.sorted("pair(x, y)", pairs), "[]");
+      Check.equal(Check.sorted("pair(`x, y`)", pairs), "[pair(x, y)]");
+      Check.equal(Check.sorted("wrap($X)", pairs), "[wrap(g(a, b)), wrap(g(a, b))]");
+
+      // Threads which start at different nodes of one cycle depend on
+      // each other's tables.
+      List<String> ring = new ArrayList<>();
+      ring.add(":- table rpath/2.");
+      ring.add("rpath($X, $Y) :- next($X, $Y)");
+      ring.add("rpath($X, $Y) :- next($X, $Z), rpath($Z, $Y)");
+      for (int i = 0; i < 60; i++) ring.add("next(n" + i + ", n" + ((i + 1) % 60) + ")");
+      KnowledgeBase one = new KnowledgeBase();
+      one.addRules(ring);
+      List<String> expected = new ArrayList<>();
+      for (int i = 0; i < 40; i++) expected.add(Check.sorted("rpath(n" + i + ", $Y)", one));
+      ExecutorService pool = Executors.newFixedThreadPool(4);
+      boolean same = true;
+      for (int round = 0; round < 3; round++) {
+         KnowledgeBase shared = new KnowledgeBase();
+         shared.addRules(ring);
+         List<Future<String>> futures = new ArrayList<>();
+         for (int i = 0; i < 40; i++) {
+            String q = "rpath(n" + ((i * 7) % 40) + ", $Y)";
+            futures.add(pool.submit(() -> {
+               QueryContext context = new QueryContext();
+               context.setMaxVariables(1000000);
+               List<String> results = context.solveAll(context.query(q), shared);
+               Collections.sort(results);
+               return results.toString();
+            }));
+         }
+         for (int i = 0; i < 40; i++) {
+            same &= futures.get(i).get().equals(expected.get((i * 7) % 40));
+         }
+      }
+      pool.shutdown();
+      Check.equal("" + same, "true");
+
+      try {
+         kb.table("path");
+         System.out.println("\n✗ Invalid indicator was accepted.");
+      } catch (InvalidArgumentException iax) {
+         System.out.println("✓");
+      }
+
+   } // main
+
+}  // TestTabling
@@ -0,0 +1,131 @@
+/**
+ * TestTermHeap
+ *
+ * Tests the flat term representation (TermHeap).
+ *
+ * The clause
+ *
+ *    item($X, [$X, b | $T], 3)
+ *
+ * is compiled into a template, copied onto the heap twice, and unified
+ * with goals. Each copy has its own variables. After undo(), the goal's
+ * variables are unbound again, and the heap top and the number of
+ * objects (terms held outside of cells, eg. floats) are reset.
+ *
+ * With Global.termHeap set, the solver skips rules whose heads do not
+ * unify with the goal on a heap. Eg. size(box(large), $S) is skipped
+ * for the goal size(box(small), $S), so the call is deterministic.
+ *
+ * @author  Klivo
+ * @version 1.0
+ */
+
+import inferencilo.*;
+
+public class TestTermHeap {
+
+   public static void main(String[] args) {
+
+      System.out.print("Test TermHeap: ");
+
+      TermHeap heap = new TermHeap();
+      HeapTemplate clause = heap.compile(Make.query("item($X, [$X, b | $T], 3)"));
+
+      int goal1 = heap.put(Make.query("item(a, $L, $N)"));
+      int goal2 = heap.put(Make.query("item(z, [z, $B, c, d], 3.0)"));
+      int goal3 = heap.put(Make.query("item(z, [y, b], 3)"));
+
+      long mark = heap.mark();
+      int top = heap.top();
+      int numObjects = heap.numObjects();
+
+      int base = heap.copy(clause);
+      if (heap.unify(base + clause.root(0), goal1)) {
+         String s = heap.get(goal1).toString();
+         if (s.startsWith("item(a, [a, b | $H_")) System.out.print("✓");
+         else System.out.print("✗ " + s);
+      }
+      else System.out.print("✗ no match");
+
+      // A second copy, with different variables.
+      base = heap.copy(clause);
+      if (heap.unify(base + clause.root(0), goal2)) {
+         String s = heap.get(goal2).toString();
+         if (s.equals("item(z, [z, b, c, d], 3.0)")) System.out.print("✓");
+         else System.out.print("✗ " + s);
+      }
+      else System.out.print("✗ no match");
+
+      heap.undo(mark);
+      String s = heap.get(goal1).toString();
+      if (s.startsWith("item(a, $H_") && heap.top() == top) {
+         System.out.print("✓");
+      }
+      else System.out.print("✗ " + s);
+
+      base = heap.copy(clause);
+      if (!heap.unify(base + clause.root(0), goal3)) System.out.print("✓");
+      else System.out.print("✗ should fail");
+      heap.undo(mark);
+
+      // Goals put after the mark hold floats, which are objects.
+      for (int i = 0; i < 100; i++) heap.put(Make.query("weight(" + i + ".5)"));
+      int grown = heap.numObjects();
+      heap.undo(mark);
+      if (grown == numObjects + 100 && heap.numObjects() == numObjects) {
+         System.out.print("✓");
+      }
+      else System.out.print("✗ " + grown + " " + heap.numObjects());
+
+      // A template compiled after the mark keeps its objects.
+      HeapTemplate late = heap.compile(Make.query("weight(2.5)"));
+      heap.undo(mark);
+      base = heap.copy(late);
+      s = heap.get(base + late.root(0)).toString();
+      if (s.equals("weight(2.5)")) System.out.print("✓");
+      else System.out.print("✗ " + s);
+      heap.undo(mark);
+
+      // The solver's filter.
+      KnowledgeBase kb = new KnowledgeBase();
+      kb.addRule("size(box(small), $S) :- $S = 1");
+      kb.addRule("size(box(large), $S) :- $S = 2");
+      kb.addRule("weight(box(1.5), $W) :- $W = light");
+      kb.addRule("weight(box(add(1, 2)), $W) :- $W = heavy");
+      kb.addRule("first([$H | $T], $H) :- $T = $T");
+      kb.addRule("boxed($S) :- $B = box(large), size($B, $S)");
+      kb.addRule("pair_of($P) :- $T = [y], $L = [x | $T], match($L, $P)");
+      kb.addRule("match([x, y], two) :- !");
+      String[] queries = {
+         "size(box(small), $S)", "size(box($B), $S)",
+         "boxed($S)", "weight(box(1.50), $W)",
+         "weight(box(3), $W)", "first([a, b], $F)", "first([], $F)", "pair_of($P)",
+      };
+      StringBuilder plain = new StringBuilder();
+      for (String q : queries) plain.append(Check.solveAll(q, kb));
+      Check.equal(deterministic("size(box(small), $S)", kb), "false");
+
+      Global.termHeap = true;
+      StringBuilder filtered = new StringBuilder();
+      for (String q : queries) filtered.append(Check.solveAll(q, kb));
+      Check.equal(filtered.toString(), plain.toString());
+      Check.equal(deterministic("size(box(small), $S)", kb), "true");
+      Global.termHeap = false;
+      System.out.println();
+   }
+
+   /*
+    * deterministic
+    *
+    * Finds the first solution of a query, and tells whether its
+    * solution node is deterministic afterwards.
+    */
+   static String deterministic(String query, KnowledgeBase kb) {
+      try {
+         SolutionNode root = Make.query(query).getSolver(kb, new SubstitutionSet(), null);
+         if (root.nextSolution() == null) return "no solution";
+         return "" + root.isDeterministic();
+      } catch (TimeOverrunException tox) { return tox.toString(); }
+   }
+
+}  // TestTermHeap